@@ -0,0 +1,4 @@
+#!/bin/sh
+# Lets the postgres-replica service (docker compose --profile replica) stream WAL from this instance.
+# Only runs when the data volume is initialised; for an existing volume add the line by hand.
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
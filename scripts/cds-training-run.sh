@@ -0,0 +1,28 @@
+#!/bin/sh
+# Records a Class Data Sharing archive (application.jsa) for an extracted, AOT-processed build.
+#
+# Usage: scripts/cds-training-run.sh <dir containing app.jar and lib/>
+#
+# The application is started with the production flags and exits as soon as the context
+# has refreshed (spring.context.exit=onRefresh), so every class loaded during startup ends
+# up in the archive. No database is needed: migrations and schema validation are skipped,
+# Hibernate is told the dialect instead of asking the database, and the pool does not
+# open connections eagerly. The archive is only used when the JVM runs the same app.jar
+# with the same JDK, so run this where the application will run (e.g. in the final image).
+set -eu
+
+cd "$1"
+rm -f application.jsa
+java -XX:ArchiveClassesAtExit=application.jsa \
+	-Dspring.context.exit=onRefresh \
+	-Dspring.aot.enabled=true \
+	-Dspring.profiles.active=prod \
+	-Dspring.datasource.url=jdbc:postgresql://127.0.0.1:1/cds-training \
+	-Dspring.datasource.driver-class-name=org.postgresql.Driver \
+	-Dspring.datasource.hikari.initialization-fail-timeout=-1 \
+	-Dspring.flyway.enabled=false \
+	-Dspring.jpa.hibernate.ddl-auto=none \
+	-Dspring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect \
+	-Dspring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false \
+	-jar app.jar
+test -s application.jsa
@@ -0,0 +1,94 @@
+#!/usr/bin/env bash
+# Measures time-to-first-redirect: from launching the JVM until GET /{slug} answers 308.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#
+# Compares the plain fat jar (default profile, springdoc on, no AOT/CDS) with the production
+# startup mode the Docker image uses (extracted jar, prod profile, Spring AOT, CDS archive).
+# Build first with `./mvnw -Paot -DskipTests package`. The database is taken from the usual
+# DATABASE_URL / DATABASE_USERNAME / DATABASE_PASSWORD variables and must be migrated already
+# (start the app once). EXTRA_CLASSPATH is appended to the classpath of both variants, e.g.
+# a JDBC driver that is not part of the build.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${BENCHMARK_PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR=$(ls "$ROOT"/target/ishumehta-*.jar | grep -v -- '-plain' | head -n 1)
+WORK="$ROOT/target/startup-benchmark"
+MAIN_CLASS=curiosityrover.ishumehta.IshumehtaApplication
+BASE="http://localhost:$PORT"
+
+if ! unzip -l "$JAR" | grep -q '__ApplicationContextInitializer'; then
+	echo "$JAR was not built with -Paot" >&2
+	exit 1
+fi
+
+rm -rf "$WORK"
+java -Djarmode=tools -jar "$JAR" extract --destination "$WORK" >/dev/null
+mv "$WORK/$(basename "$JAR")" "$WORK/app.jar"
+echo "Training CDS archive..."
+"$ROOT/scripts/cds-training-run.sh" "$WORK" >"$WORK/training.log" 2>&1
+
+CLASSPATH_SUFFIX=${EXTRA_CLASSPATH:+:$EXTRA_CLASSPATH}
+PID=
+
+stop() {
+	if [[ -n "$PID" ]]; then
+		kill "$PID" 2>/dev/null || true
+		wait "$PID" 2>/dev/null || true
+		PID=
+	fi
+}
+trap stop EXIT
+
+launch() {
+	case "$1" in
+	jar)
+		java -Dserver.port="$PORT" -cp "$JAR$CLASSPATH_SUFFIX" \
+			org.springframework.boot.loader.launch.JarLauncher >"$WORK/$1.log" 2>&1 &
+		;;
+	prod)
+		java -XX:SharedArchiveFile="$WORK/application.jsa" -Dspring.aot.enabled=true \
+			-Dspring.profiles.active=prod -Dserver.port="$PORT" \
+			-cp "$WORK/app.jar$CLASSPATH_SUFFIX" "$MAIN_CLASS" >"$WORK/$1.log" 2>&1 &
+		;;
+	esac
+	PID=$!
+}
+
+await() {
+	local deadline=$((SECONDS + 120))
+	until [[ $(curl -s -o /dev/null -w '%{http_code}' "$1" || true) == "$2" ]]; do
+		if ((SECONDS > deadline)) || ! kill -0 "$PID" 2>/dev/null; then
+			echo "No $2 from $1, see $WORK" >&2
+			exit 1
+		fi
+		sleep 0.01
+	done
+}
+
+# One untimed start to create the link and warm the OS page cache
+launch jar
+await "$BASE/actuator/health" 200
+SLUG=$(curl -s -X POST "$BASE/api/urls" -H 'Content-Type: application/json' \
+	-d '{"destinationUrl":"https://spring.io/projects","redirectPolicy":"PERMANENT"}' | sed -E 's/.*"slug":"([^"]+)".*/\1/')
+stop
+
+declare -A total=([jar]=0 [prod]=0)
+for ((run = 1; run <= RUNS; run++)); do
+	for mode in jar prod; do
+		started=$(date +%s%N)
+		launch "$mode"
+		await "$BASE/$SLUG" 308
+		elapsed=$((($(date +%s%N) - started) / 1000000))
+		stop
+		total[$mode]=$((total[$mode] + elapsed))
+		printf 'run %d  %-4s %6d ms\n' "$run" "$mode" "$elapsed"
+	done
+done
+
+echo
+printf '%-46s %8s\n' "mode (mean of $RUNS)" "ms"
+printf '%-46s %8d\n' "fat jar (before)" $((total[jar] / RUNS))
+printf '%-46s %8d\n' "extracted + prod profile + AOT + CDS (after)" $((total[prod] / RUNS))
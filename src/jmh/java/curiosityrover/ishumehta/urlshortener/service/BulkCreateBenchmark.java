@@ -0,0 +1,91 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import curiosityrover.ishumehta.IshumehtaApplication;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlDraft;
+
+/**
+ * Creating 10,000 links with generated slugs on the full application context (H2 in PostgreSQL mode): one
+ * {@link BulkShortUrlService#createAll} call, and the same items through {@link ShortUrlService#createShortUrl} one at
+ * a time. Each invocation starts from an empty table.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkCreateBenchmark {
+
+	private static final int ITEM_COUNT = 10_000;
+
+	private ConfigurableApplicationContext context;
+	private BulkShortUrlService bulkService;
+	private ShortUrlService service;
+	private JdbcTemplate jdbcTemplate;
+	private final List<ShortUrlDraft> drafts = new ArrayList<>(ITEM_COUNT);
+
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = new SpringApplicationBuilder(IshumehtaApplication.class)
+			.web(WebApplicationType.NONE)
+			.profiles("test")
+			.run(
+				"--spring.datasource.url=jdbc:h2:mem:bulk_create_bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_ON_EXIT=FALSE",
+				"--spring.main.banner-mode=off",
+				"--spring.devtools.restart.enabled=false",
+				"--spring.autoconfigure.exclude=org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration",
+				"--logging.level.root=WARN");
+		bulkService = context.getBean(BulkShortUrlService.class);
+		service = context.getBean(ShortUrlService.class);
+		jdbcTemplate = context.getBean(JdbcTemplate.class);
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			drafts.add(new ShortUrlDraft("https://example.com/articles/" + i, null, null, null));
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void clearTable() {
+		jdbcTemplate.update("DELETE FROM short_urls");
+	}
+
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<BulkCreateResult> createAll() {
+		return bulkService.createAll(drafts);
+	}
+
+	@Benchmark
+	public List<ShortUrl> createOneByOne() {
+		List<ShortUrl> created = new ArrayList<>(ITEM_COUNT);
+		for (ShortUrlDraft draft : drafts) {
+			created.add(service.createShortUrl(draft.destinationUrl(), null, null));
+		}
+		return created;
+	}
+}
@@ -0,0 +1,63 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the per-request rate limit check on the redirect path: one hot client (every thread updating the same
+ * bucket) and 10,000 clients spread over the threads. The budget is large enough that no request is refused.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+	private static final int CLIENTS = 10_000;
+
+	private final RateLimiter limiter = new RateLimiter(true, 100_000, 1, 1, 1e9, 1_000_000, 1, 1);
+	private final String[] clients = new String[CLIENTS];
+
+	public RateLimiterBenchmark() {
+		for (int i = 0; i < CLIENTS; i++) {
+			clients[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next;
+	}
+
+	@Benchmark
+	@Threads(1)
+	public long hotClient() {
+		return limiter.tryAcquire(RateLimiter.Scope.REDIRECT, clients[0]);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public long hotClientContended() {
+		return limiter.tryAcquire(RateLimiter.Scope.REDIRECT, clients[0]);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public long manyClients(Cursor cursor) {
+		cursor.next = (cursor.next + 1) % CLIENTS;
+		return limiter.tryAcquire(RateLimiter.Scope.REDIRECT, clients[cursor.next]);
+	}
+}
@@ -0,0 +1,88 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import curiosityrover.ishumehta.IshumehtaApplication;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+
+/**
+ * End-to-end {@link ShortUrlService#registerHit} against the full application context on H2 in PostgreSQL mode
+ * (the {@code test} profile), with the slug cache enabled and disabled. Application logging is raised to WARN so
+ * the per-hit log line does not dominate the measurement.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedirectResolutionBenchmark {
+
+	private static final int SLUG_COUNT = 1024;
+
+	@Param({ "100000", "0" })
+	private String cacheMaximumSize;
+
+	private ConfigurableApplicationContext context;
+	private ShortUrlService service;
+	private final String[] slugs = new String[SLUG_COUNT];
+
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = new SpringApplicationBuilder(IshumehtaApplication.class)
+			.web(WebApplicationType.NONE)
+			.profiles("test")
+			.run(
+				"--spring.datasource.url=jdbc:h2:mem:redirect_bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_ON_EXIT=FALSE",
+				"--app.shortener.cache.maximum-size=" + cacheMaximumSize,
+				"--spring.main.banner-mode=off",
+				"--spring.devtools.restart.enabled=false",
+				"--spring.autoconfigure.exclude=org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration",
+				"--logging.level.root=WARN");
+		service = context.getBean(ShortUrlService.class);
+		for (int i = 0; i < SLUG_COUNT; i++) {
+			slugs[i] = service.createShortUrl("https://example.com/articles/" + i, null, null).getSlug();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next;
+	}
+
+	@Benchmark
+	@Threads(1)
+	public ResolvedShortUrl registerHit(Cursor cursor) {
+		return service.registerHit(slugs[cursor.next++ & (SLUG_COUNT - 1)]);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public ResolvedShortUrl registerHitContended(Cursor cursor) {
+		return service.registerHit(slugs[cursor.next++ & (SLUG_COUNT - 1)]);
+	}
+}
@@ -0,0 +1,89 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The per-request work in {@link ShortUrlService} without Spring proxies or a database: destination URL
+ * normalization, custom slug validation, public short URL building and a cached {@code registerHit}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShortUrlServiceBenchmark {
+
+	private ShortUrlService service;
+
+	@State(Scope.Benchmark)
+	public static class Destination {
+
+		@Param({
+			"https://example.com",
+			"  https://docs.spring.io/spring-boot/reference/features/external-config.html?lang=en&v=3.5#typesafe  "
+		})
+		private String url;
+	}
+
+	@Setup
+	public void setUp() {
+		ShortUrlCache cache = new ShortUrlCache(SharedSlugCache.none(), 1000, Duration.ofHours(1),
+			Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofMillis(200));
+		cache.put(new ResolvedShortUrl(1L, "abc12345", "https://example.com", null));
+		HitCountAggregator hitCountAggregator = new HitCountAggregator(null, ShardRouter.single(), true, 500);
+		service = new ShortUrlService(null, null, cache, hitCountAggregator,
+			new ShortUrlMetrics(new SimpleMeterRegistry()),
+			new SlugPresenceFilter(null, null, ShardRouter.single(), SharedSlugCache.none(), false, 1, 0.01),
+			ShardRouter.single(), new DestinationDeduplicator(null, ShardRouter.single(), false, 0),
+			new SlugSnapshotStore(null, false, Path.of("snapshots"), Duration.ofDays(1)), "https://sho.rt/",
+			false);
+		// No Spring Boot logging setup here; keep Logback's DEBUG default from printing every hit
+		((Logger) LoggerFactory.getLogger(ShortUrlService.class)).setLevel(Level.WARN);
+	}
+
+	@Benchmark
+	public String normalizeDestinationUrl(Destination destination) {
+		return service.normalizeDestinationUrl(destination.url);
+	}
+
+	@Benchmark
+	public String sanitizeCustomSlug() {
+		return service.sanitizeCustomSlug("  spring-boot_docs-2024 ");
+	}
+
+	@Benchmark
+	public String buildPublicShortUrl() {
+		return service.buildPublicShortUrl("abc12345");
+	}
+
+	@Benchmark
+	public String buildPublicShortUrlFromRequestBase() {
+		return service.buildPublicShortUrl("abc12345", "http://192.168.1.20:8080");
+	}
+
+	@Benchmark
+	public ResolvedShortUrl registerHitCached() {
+		return service.registerHit("abc12345");
+	}
+}
@@ -0,0 +1,92 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Slug generation on the single shared {@link SlugGenerator} the application uses, on one thread, eight threads and
+ * one thread per core, next to the previous design (one shared {@code SecureRandom}, one {@code nextInt} per
+ * character) under the same thread counts. Throughput is in slugs; {@code generateSlugs} is the bulk API with 1000
+ * slugs per call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlugGeneratorBenchmark {
+
+	private static final int BULK_COUNT = 1000;
+
+	@Param({ "8" })
+	private int length;
+
+	private final SlugGenerator generator = new SlugGenerator();
+	private final SecureRandom sharedRandom = new SecureRandom();
+
+	@Benchmark
+	@Threads(1)
+	public String generateSlug() {
+		return generator.generateSlug(length);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public String generateSlugContended() {
+		return generator.generateSlug(length);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public String generateSlugAllCores() {
+		return generator.generateSlug(length);
+	}
+
+	@Benchmark
+	@Threads(1)
+	@OperationsPerInvocation(BULK_COUNT)
+	public List<String> generateSlugs() {
+		return generator.generateSlugs(BULK_COUNT, length);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public String sharedSecureRandom() {
+		return sharedSecureRandomSlug();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public String sharedSecureRandomContended() {
+		return sharedSecureRandomSlug();
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public String sharedSecureRandomAllCores() {
+		return sharedSecureRandomSlug();
+	}
+
+	private String sharedSecureRandomSlug() {
+		char[] slug = new char[length];
+		for (int i = 0; i < length; i++) {
+			slug[i] = Base62.ALPHABET[sharedRandom.nextInt(Base62.ALPHABET.length)];
+		}
+		return new String(slug);
+	}
+}
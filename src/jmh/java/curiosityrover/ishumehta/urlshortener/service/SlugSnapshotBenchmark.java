@@ -0,0 +1,96 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+
+/**
+ * Lookups in a memory-mapped {@link SlugSnapshot} of {@code links} links, for slugs it holds and for slugs it does
+ * not, next to a {@code HashMap} of the same links on the heap. Run with the {@code gc} profiler to see that a miss
+ * allocates nothing and a hit only the returned link.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlugSnapshotBenchmark {
+
+	private static final int PROBES = 1024;
+
+	@Param({ "1000000" })
+	private int links;
+
+	private Path file;
+	private SlugSnapshot snapshot;
+	private Map<String, ResolvedShortUrl> heapMap;
+	private final String[] present = new String[PROBES];
+	private final String[] absent = new String[PROBES];
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		file = Files.createTempFile("slugs-", ".snap");
+		heapMap = new HashMap<>();
+		try (SlugSnapshot.Writer writer = new SlugSnapshot.Writer(file, Instant.now())) {
+			for (int i = 0; i < links; i++) {
+				ResolvedShortUrl link = new ResolvedShortUrl((long) i, slug(i),
+					"https://example.com/articles/" + i + "?utm_source=newsletter", null);
+				writer.add(link);
+				heapMap.put(link.slug(), link);
+			}
+			writer.finish();
+		}
+		snapshot = SlugSnapshot.open(file);
+		for (int i = 0; i < PROBES; i++) {
+			present[i] = slug((int) ((i * 0x9E3779B1L) % links));
+			absent[i] = slug(links + i);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public Optional<ResolvedShortUrl> snapshotHit() {
+		return snapshot.find(present[next++ & (PROBES - 1)]);
+	}
+
+	@Benchmark
+	public Optional<ResolvedShortUrl> snapshotMiss() {
+		return snapshot.find(absent[next++ & (PROBES - 1)]);
+	}
+
+	@Benchmark
+	public ResolvedShortUrl heapMapHit() {
+		return heapMap.get(present[next++ & (PROBES - 1)]);
+	}
+
+	private static String slug(int i) {
+		return Base62.encode(i + 1_000_000_000L, 8);
+	}
+}
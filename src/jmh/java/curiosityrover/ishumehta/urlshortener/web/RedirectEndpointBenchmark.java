@@ -0,0 +1,103 @@
+package curiosityrover.ishumehta.urlshortener.web;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.DefaultMockMvcBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import curiosityrover.ishumehta.IshumehtaApplication;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlService;
+
+/**
+ * {@code GET /{slug}} through the servlet stack (MockMvc, so no socket I/O) with the redirect fast-path filter in
+ * front of the {@code DispatcherServlet} and without it. Slugs are cached, so the difference is the per-request
+ * dispatch cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedirectEndpointBenchmark {
+
+	private static final int SLUG_COUNT = 1024;
+
+	@Param({ "true", "false" })
+	private boolean fastPath;
+
+	private ConfigurableApplicationContext context;
+	private MockMvc mockMvc;
+	private final String[] paths = new String[SLUG_COUNT];
+
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = new SpringApplicationBuilder(IshumehtaApplication.class)
+			.web(WebApplicationType.SERVLET)
+			.profiles("test")
+			.run(
+				"--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:redirect_endpoint_bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_ON_EXIT=FALSE",
+				"--app.shortener.redirect.fast-path=" + fastPath,
+				"--app.shortener.rate-limit.enabled=false",
+				"--spring.main.banner-mode=off",
+				"--spring.devtools.restart.enabled=false",
+				"--spring.autoconfigure.exclude=org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration",
+				"--logging.level.root=WARN");
+		DefaultMockMvcBuilder builder = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context);
+		FilterRegistrationBean<?> registration = context.getBean("redirectFastPathFilter", FilterRegistrationBean.class);
+		if (registration.isEnabled()) {
+			builder.addFilters(registration.getFilter());
+		}
+		mockMvc = builder.build();
+		ShortUrlService service = context.getBean(ShortUrlService.class);
+		for (int i = 0; i < SLUG_COUNT; i++) {
+			paths[i] = "/" + service.createShortUrl("https://example.com/articles/" + i, null, null).getSlug();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next;
+	}
+
+	@Benchmark
+	@Threads(1)
+	public MvcResult redirect(Cursor cursor) throws Exception {
+		return mockMvc.perform(MockMvcRequestBuilders.get(paths[cursor.next++ & (SLUG_COUNT - 1)])).andReturn();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public MvcResult redirectContended(Cursor cursor) throws Exception {
+		return mockMvc.perform(MockMvcRequestBuilders.get(paths[cursor.next++ & (SLUG_COUNT - 1)])).andReturn();
+	}
+}
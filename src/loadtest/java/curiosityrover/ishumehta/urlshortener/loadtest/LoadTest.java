@@ -0,0 +1,254 @@
+package curiosityrover.ishumehta.urlshortener.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import curiosityrover.ishumehta.IshumehtaApplication;
+import curiosityrover.ishumehta.urlshortener.loadtest.LoadTestOptions.Operation;
+
+/**
+ * Load test driver: starts the application in-process (or targets a running one with {@code --target}), seeds
+ * {@code --links} links through the NDJSON bulk endpoint, runs the {@link Workload} for the warm-up and measurement
+ * periods over real HTTP, and reports throughput and latency percentiles per operation. Options are described in the
+ * README; the summary is also written as JSON to {@code --result-file} so runs can be compared.
+ */
+public final class LoadTest {
+
+	private static final int SEED_PARALLELISM = 4;
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadTestOptions options = LoadTestOptions.parse(args);
+		ConfigurableApplicationContext context = options.target() == null ? startApplication(options) : null;
+		try {
+			URI baseUri = URI.create(context != null
+				? "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+				: options.target());
+			HttpClient client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.followRedirects(HttpClient.Redirect.NEVER)
+				.connectTimeout(Duration.ofSeconds(5))
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.build();
+			if (options.seed()) {
+				seed(client, baseUri, options);
+			}
+			run(client, baseUri, options);
+		}
+		finally {
+			if (context != null) {
+				context.close();
+			}
+		}
+	}
+
+	private static ConfigurableApplicationContext startApplication(LoadTestOptions options) {
+		List<String> args = new ArrayList<>(List.of(
+			"--server.port=0",
+			// the workload would otherwise be throttled as a single client
+			"--app.shortener.rate-limit.enabled=false",
+			"--spring.main.banner-mode=off",
+			"--spring.autoconfigure.exclude=org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration",
+			"--logging.level.root=WARN"));
+		SpringApplicationBuilder builder = new SpringApplicationBuilder(IshumehtaApplication.class)
+			.web(WebApplicationType.SERVLET);
+		if (options.database().equals("h2")) {
+			builder.profiles("test");
+			args.add("--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+		}
+		args.addAll(options.applicationArgs());
+		// read before the arguments are, and a restart would run main() a second time
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		System.out.printf("Starting the application in-process on %s%n", options.database());
+		return builder.run(args.toArray(String[]::new));
+	}
+
+	private static void seed(HttpClient client, URI baseUri, LoadTestOptions options) throws Exception {
+		long started = System.nanoTime();
+		long created = 0;
+		long existing = 0;
+		try (ExecutorService executor = Executors.newFixedThreadPool(SEED_PARALLELISM)) {
+			List<Future<long[]>> chunks = new ArrayList<>();
+			for (int first = 0; first < options.links(); first += options.seedChunk()) {
+				int from = first;
+				int to = (int) Math.min(options.links(), (long) first + options.seedChunk());
+				chunks.add(executor.submit(() -> seedChunk(client, baseUri, from, to)));
+			}
+			for (Future<long[]> chunk : chunks) {
+				long[] counts = chunk.get();
+				created += counts[0];
+				existing += counts[1];
+			}
+		}
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+		System.out.printf("Seeded %,d links (%,d created, %,d already present) in %.1f s%n", options.links(), created,
+			existing, elapsed.toMillis() / 1000.0);
+		if (created + existing != options.links()) {
+			throw new IllegalStateException("Seeding failed for " + (options.links() - created - existing) + " links");
+		}
+	}
+
+	private static long[] seedChunk(HttpClient client, URI baseUri, int from, int to)
+		throws IOException, InterruptedException {
+		StringBuilder body = new StringBuilder((to - from) * 80);
+		for (int i = from; i < to; i++) {
+			body.append("{\"destinationUrl\":\"https://example.com/seed/").append(i).append("\",\"customSlug\":\"")
+				.append(Workload.SEED_SLUG_PREFIX).append(i).append("\"}\n");
+		}
+		HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/urls/batch"))
+			.header("Content-Type", "application/x-ndjson")
+			.POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+			.build();
+		HttpResponse<Stream<String>> response = client.send(request,
+			HttpResponse.BodyHandlers.ofLines());
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException("Seeding returned HTTP " + response.statusCode());
+		}
+		long[] counts = new long[2];
+		response.body().forEach(line -> {
+			if (line.contains("\"status\":\"CREATED\"")) {
+				counts[0]++;
+			}
+			else if (line.contains("\"status\":\"CONFLICT\"")) {
+				counts[1]++;
+			}
+		});
+		return counts;
+	}
+
+	private static void run(HttpClient client, URI baseUri, LoadTestOptions options) throws Exception {
+		Workload workload = new Workload(client, baseUri, options);
+		System.out.printf("Running %s with %d connections%s: %s warm-up, %s measured%n", options.mix(),
+			options.concurrency(), options.rate() > 0 ? String.format(" at %.0f req/s", options.rate()) : "",
+			options.warmup(), options.duration());
+		workload.start();
+		Thread.sleep(options.warmup().toMillis());
+		for (Operation operation : Operation.values()) {
+			workload.intervalHistogram(operation);
+			workload.intervalErrors(operation);
+		}
+
+		Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+		Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+		for (Operation operation : Operation.values()) {
+			totals.put(operation, new Histogram(3));
+			errors.put(operation, 0L);
+		}
+		long measureStart = System.nanoTime();
+		long measureEnd = measureStart + options.duration().toNanos();
+		long intervalStart = measureStart;
+		while (true) {
+			long now = System.nanoTime();
+			if (now >= measureEnd) {
+				break;
+			}
+			Thread.sleep(Math.max(1, Math.min(options.reportInterval().toNanos(), measureEnd - now) / 1_000_000));
+			long intervalEnd = System.nanoTime();
+			StringBuilder line = new StringBuilder(String.format("[%5.0fs]",
+				(intervalEnd - measureStart) / 1e9));
+			for (Operation operation : Operation.values()) {
+				Histogram interval = workload.intervalHistogram(operation);
+				long intervalErrors = workload.intervalErrors(operation);
+				totals.get(operation).add(interval);
+				errors.merge(operation, intervalErrors, Long::sum);
+				if (options.mix().getOrDefault(operation, 0) > 0) {
+					line.append(String.format("  %s %,.0f/s p99 %.2f ms err %d", operation.label(),
+						interval.getTotalCount() / ((intervalEnd - intervalStart) / 1e9),
+						interval.getValueAtPercentile(99) / 1000.0, intervalErrors));
+				}
+			}
+			System.out.println(line);
+			intervalStart = intervalEnd;
+		}
+		double seconds = (System.nanoTime() - measureStart) / 1e9;
+		workload.stop();
+		report(options, totals, errors, seconds);
+	}
+
+	private static void report(LoadTestOptions options, Map<Operation, Histogram> totals, Map<Operation, Long> errors,
+		double seconds) throws IOException {
+		Histogram all = new Histogram(3);
+		long allErrors = 0;
+		Map<String, Object> operations = new LinkedHashMap<>();
+		System.out.printf("%n%-10s %12s %10s %8s %9s %9s %9s %9s %9s%n", "operation", "requests", "req/s", "errors",
+			"p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (Operation operation : Operation.values()) {
+			if (options.mix().getOrDefault(operation, 0) == 0) {
+				continue;
+			}
+			Histogram histogram = totals.get(operation);
+			all.add(histogram);
+			allErrors += errors.get(operation);
+			operations.put(operation.label(), printRow(operation.label(), histogram, errors.get(operation), seconds));
+		}
+		operations.put("total", printRow("total", all, allErrors, seconds));
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("finishedAt", Instant.now().toString());
+		result.put("target", options.target() != null ? options.target() : "in-process (" + options.database() + ")");
+		result.put("links", options.links());
+		result.put("concurrency", options.concurrency());
+		result.put("rate", options.rate());
+		result.put("mix", options.mix().entrySet().stream()
+			.collect(LinkedHashMap::new, (map, entry) -> map.put(entry.getKey().label(), entry.getValue()), Map::putAll));
+		result.put("createBurst", options.createBurst());
+		result.put("zipfExponent", options.zipfExponent());
+		result.put("randomSeed", options.randomSeed());
+		result.put("warmup", options.warmup().toString());
+		result.put("duration", options.duration().toString());
+		result.put("applicationArgs", options.applicationArgs());
+		result.put("operations", operations);
+		if (options.resultFile().getParent() != null) {
+			Files.createDirectories(options.resultFile().getParent());
+		}
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(options.resultFile().toFile(), result);
+		System.out.printf("%nResults written to %s%n", options.resultFile().toAbsolutePath());
+	}
+
+	private static Map<String, Object> printRow(String label, Histogram histogram, long errors, double seconds) {
+		double throughput = histogram.getTotalCount() / seconds;
+		StringBuilder row = new StringBuilder(String.format("%-10s %,12d %,10.0f %,8d", label,
+			histogram.getTotalCount(), throughput, errors));
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("requests", histogram.getTotalCount());
+		stats.put("throughput", Math.round(throughput * 10) / 10.0);
+		stats.put("errors", errors);
+		for (double percentile : PERCENTILES) {
+			double millis = histogram.getValueAtPercentile(percentile) / 1000.0;
+			row.append(String.format(" %9.2f", millis));
+			stats.put("p" + (percentile == Math.rint(percentile) ? Long.toString((long) percentile)
+				: Double.toString(percentile)) + "Ms", millis);
+		}
+		double max = histogram.getMaxValue() / 1000.0;
+		row.append(String.format(" %9.2f", max));
+		stats.put("maxMs", max);
+		System.out.println(row);
+		return stats;
+	}
+}
@@ -0,0 +1,125 @@
+package curiosityrover.ishumehta.urlshortener.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line of {@link LoadTest}: {@code --name=value} pairs. Options whose name contains a dot are Spring
+ * properties ({@code --app.shortener.cache.maximum-size=0}) and are passed on to the application when it is started
+ * in-process.
+ */
+record LoadTestOptions(
+	String target,
+	String database,
+	int links,
+	boolean seed,
+	int seedChunk,
+	int concurrency,
+	Duration warmup,
+	Duration duration,
+	double rate,
+	Map<Operation, Integer> mix,
+	int createBurst,
+	double zipfExponent,
+	long randomSeed,
+	Duration reportInterval,
+	Path resultFile,
+	List<String> applicationArgs) {
+
+	enum Operation {
+		REDIRECT("redirect"),
+		CREATE("create"),
+		NOT_FOUND("not-found");
+
+		private final String label;
+
+		Operation(String label) {
+			this.label = label;
+		}
+
+		String label() {
+			return label;
+		}
+
+		static Operation fromLabel(String label) {
+			for (Operation operation : values()) {
+				if (operation.label.equals(label)) {
+					return operation;
+				}
+			}
+			throw new IllegalArgumentException("Unknown operation '" + label + "'; expected redirect, create or not-found");
+		}
+	}
+
+	private static final Set<String> NAMES = Set.of("target", "database", "links", "seed", "seed-chunk", "concurrency",
+		"warmup", "duration", "rate", "mix", "create-burst", "zipf", "random-seed", "report-interval", "result-file");
+
+	static LoadTestOptions parse(String[] args) {
+		Map<String, String> values = new LinkedHashMap<>();
+		List<String> applicationArgs = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.isBlank()) {
+				continue;
+			}
+			if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+				throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+			}
+			int separator = arg.indexOf('=');
+			String name = arg.substring(2, separator);
+			if (name.contains(".")) {
+				applicationArgs.add(arg);
+				continue;
+			}
+			if (!NAMES.contains(name)) {
+				throw new IllegalArgumentException("Unknown option --" + name);
+			}
+			values.put(name, arg.substring(separator + 1));
+		}
+
+		LoadTestOptions options = new LoadTestOptions(
+			values.get("target"),
+			values.getOrDefault("database", "h2"),
+			Integer.parseInt(values.getOrDefault("links", "100000")),
+			Boolean.parseBoolean(values.getOrDefault("seed", "true")),
+			Integer.parseInt(values.getOrDefault("seed-chunk", "50000")),
+			Integer.parseInt(values.getOrDefault("concurrency", "64")),
+			Duration.parse(values.getOrDefault("warmup", "PT10S")),
+			Duration.parse(values.getOrDefault("duration", "PT60S")),
+			Double.parseDouble(values.getOrDefault("rate", "0")),
+			parseMix(values.getOrDefault("mix", "redirect:90,create:5,not-found:5")),
+			Integer.parseInt(values.getOrDefault("create-burst", "1")),
+			Double.parseDouble(values.getOrDefault("zipf", "1.0")),
+			Long.parseLong(values.getOrDefault("random-seed", "42")),
+			Duration.parse(values.getOrDefault("report-interval", "PT10S")),
+			Path.of(values.getOrDefault("result-file", "target/loadtest-result.json")),
+			List.copyOf(applicationArgs));
+		if (!options.database.equals("h2") && !options.database.equals("postgres")) {
+			throw new IllegalArgumentException("database must be h2 or postgres");
+		}
+		if (options.links < 1 || options.concurrency < 1 || options.seedChunk < 1 || options.createBurst < 1) {
+			throw new IllegalArgumentException("links, seed-chunk, concurrency and create-burst must be positive");
+		}
+		return options;
+	}
+
+	private static Map<Operation, Integer> parseMix(String mix) {
+		Map<Operation, Integer> weights = new LinkedHashMap<>();
+		for (String part : mix.split(",")) {
+			String[] weight = part.trim().split(":");
+			if (weight.length != 2) {
+				throw new IllegalArgumentException("mix must look like redirect:90,create:5,not-found:5");
+			}
+			weights.put(Operation.fromLabel(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+		}
+		if (weights.values().stream().anyMatch(weight -> weight < 0)
+			|| weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+			throw new IllegalArgumentException("mix weights must not be negative and must not all be zero");
+		}
+		return weights;
+	}
+}
@@ -0,0 +1,183 @@
+package curiosityrover.ishumehta.urlshortener.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import curiosityrover.ishumehta.urlshortener.loadtest.LoadTestOptions.Operation;
+
+/**
+ * The mixed workload: {@code concurrency} virtual threads, each drawing operations by the configured weights from
+ * its own seeded random sequence, so a run with the same options issues the same requests (only their interleaving
+ * differs).
+ * <ul>
+ * <li>redirect: {@code GET /{slug}} for a seeded slug picked by Zipf rank, so a few links get most of the traffic;</li>
+ * <li>create: {@code POST /api/urls} with a generated slug, {@code create-burst} at a time;</li>
+ * <li>not-found: {@code GET /{slug}} for a random slug that was never created, like a scanner.</li>
+ * </ul>
+ * Without a rate every thread sends its next request as soon as the previous one completes. With a rate, requests
+ * are scheduled at fixed intervals and latency is measured from the scheduled time, so a stall shows up in the
+ * percentiles instead of silently lowering the request rate (coordinated omission).
+ */
+final class Workload {
+
+	static final String SEED_SLUG_PREFIX = "lt-";
+
+	private final HttpClient client;
+	private final URI baseUri;
+	private final LoadTestOptions options;
+	private final ZipfSampler zipf;
+	private final Operation[] operations;
+	private final int[] cumulativeWeights;
+	private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+	private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+	private volatile boolean running;
+	private ExecutorService workers;
+
+	Workload(HttpClient client, URI baseUri, LoadTestOptions options) {
+		this.client = client;
+		this.baseUri = baseUri;
+		this.options = options;
+		this.zipf = new ZipfSampler(options.links(), options.zipfExponent());
+		this.operations = options.mix().keySet().toArray(Operation[]::new);
+		this.cumulativeWeights = new int[operations.length];
+		int sum = 0;
+		for (int i = 0; i < operations.length; i++) {
+			sum += options.mix().get(operations[i]);
+			cumulativeWeights[i] = sum;
+		}
+		for (Operation operation : Operation.values()) {
+			recorders.put(operation, new Recorder(3));
+			errors.put(operation, new LongAdder());
+		}
+	}
+
+	void start() {
+		running = true;
+		workers = Executors.newVirtualThreadPerTaskExecutor();
+		for (int worker = 0; worker < options.concurrency(); worker++) {
+			int id = worker;
+			workers.execute(() -> runWorker(id));
+		}
+	}
+
+	void stop() throws InterruptedException {
+		running = false;
+		workers.shutdown();
+		workers.awaitTermination(30, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Latencies (in microseconds) recorded since the previous call, which resets them.
+	 */
+	Histogram intervalHistogram(Operation operation) {
+		return recorders.get(operation).getIntervalHistogram();
+	}
+
+	/**
+	 * Unexpected responses and I/O failures since the previous call, which resets them.
+	 */
+	long intervalErrors(Operation operation) {
+		return errors.get(operation).sumThenReset();
+	}
+
+	private void runWorker(int worker) {
+		SplittableRandom random = new SplittableRandom(options.randomSeed() + worker * 0x9E3779B97F4A7C15L);
+		long intervalNanos = options.rate() > 0 ? (long) (options.concurrency() * 1e9 / options.rate()) : 0;
+		long next = System.nanoTime() + (intervalNanos * worker) / options.concurrency();
+		int burstLeft = 0;
+		long sequence = 0;
+		while (running) {
+			Operation operation;
+			if (burstLeft > 0) {
+				operation = Operation.CREATE;
+				burstLeft--;
+			}
+			else {
+				operation = pick(random);
+				if (operation == Operation.CREATE) {
+					burstLeft = options.createBurst() - 1;
+				}
+			}
+			HttpRequest request = request(operation, random, worker, sequence++);
+
+			long intended;
+			if (intervalNanos > 0) {
+				intended = next;
+				next += intervalNanos;
+				long wait = intended - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+			}
+			else {
+				intended = System.nanoTime();
+			}
+			try {
+				HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+				long latencyMicros = (System.nanoTime() - intended) / 1000;
+				if (isExpected(operation, response.statusCode())) {
+					recorders.get(operation).recordValue(Math.max(0, latencyMicros));
+				}
+				else {
+					errors.get(operation).increment();
+				}
+			}
+			catch (IOException ex) {
+				errors.get(operation).increment();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private Operation pick(SplittableRandom random) {
+		int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			if (ticket < cumulativeWeights[i]) {
+				return operations[i];
+			}
+		}
+		return operations[operations.length - 1];
+	}
+
+	private HttpRequest request(Operation operation, SplittableRandom random, int worker, long sequence) {
+		return switch (operation) {
+			case REDIRECT -> HttpRequest.newBuilder(baseUri.resolve("/" + SEED_SLUG_PREFIX + (zipf.sample(random) - 1)))
+				.GET()
+				.build();
+			case CREATE -> HttpRequest.newBuilder(baseUri.resolve("/api/urls"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString("{\"destinationUrl\":\"https://example.com/load/" + worker + "/"
+					+ sequence + "\"}"))
+				.build();
+			case NOT_FOUND -> HttpRequest.newBuilder(baseUri.resolve("/nf-"
+					+ Long.toString(random.nextLong() & Long.MAX_VALUE, 36)))
+				.GET()
+				.build();
+		};
+	}
+
+	private static boolean isExpected(Operation operation, int status) {
+		return switch (operation) {
+			case REDIRECT -> status == 301 || status == 302 || status == 307 || status == 308;
+			case CREATE -> status == 201;
+			case NOT_FOUND -> status == 404;
+		};
+	}
+}
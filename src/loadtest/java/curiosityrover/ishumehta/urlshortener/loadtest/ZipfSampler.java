@@ -0,0 +1,74 @@
+package curiosityrover.ishumehta.urlshortener.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks {@code 1..n} with probability proportional to {@code 1 / rank^exponent}, in constant time and memory
+ * by rejection-inversion (Hörmann and Derflinger, "Rejection-inversion to generate variates from monotone discrete
+ * distributions", 1996). An exponent of {@code 0} is the uniform distribution.
+ */
+final class ZipfSampler {
+
+	private final int n;
+	private final double exponent;
+	private final double hIntegralX1;
+	private final double hIntegralN;
+	private final double s;
+
+	ZipfSampler(int n, double exponent) {
+		if (n < 1) {
+			throw new IllegalArgumentException("n must be positive");
+		}
+		if (exponent < 0) {
+			throw new IllegalArgumentException("exponent must not be negative");
+		}
+		this.n = n;
+		this.exponent = exponent;
+		this.hIntegralX1 = hIntegral(1.5) - 1.0;
+		this.hIntegralN = hIntegral(n + 0.5);
+		this.s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+	}
+
+	int sample(SplittableRandom random) {
+		if (exponent == 0) {
+			return 1 + random.nextInt(n);
+		}
+		while (true) {
+			double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+			double x = hIntegralInverse(u);
+			int k = (int) (x + 0.5);
+			if (k < 1) {
+				k = 1;
+			}
+			else if (k > n) {
+				k = n;
+			}
+			if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+				return k;
+			}
+		}
+	}
+
+	// H(x), an antiderivative of h(x) = x^-exponent
+	private double hIntegral(double x) {
+		double logX = Math.log(x);
+		return expm1OverX((1.0 - exponent) * logX) * logX;
+	}
+
+	private double h(double x) {
+		return Math.exp(-exponent * Math.log(x));
+	}
+
+	private double hIntegralInverse(double x) {
+		double t = Math.max(-1.0, x * (1.0 - exponent));
+		return Math.exp(log1pOverX(t) * x);
+	}
+
+	private static double log1pOverX(double x) {
+		return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+	}
+
+	private static double expm1OverX(double x) {
+		return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+	}
+}
@@ -0,0 +1,35 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import curiosityrover.ishumehta.urlshortener.service.ClickAnalyticsService;
+import curiosityrover.ishumehta.urlshortener.service.ClickEventWriter;
+
+@Component
+@Endpoint(id = "clickanalytics")
+public class ClickAnalyticsEndpoint {
+
+	private final ClickAnalyticsService analyticsService;
+	private final ClickEventWriter clickEventWriter;
+
+	public ClickAnalyticsEndpoint(ClickAnalyticsService analyticsService, ClickEventWriter clickEventWriter) {
+		this.analyticsService = analyticsService;
+		this.clickEventWriter = clickEventWriter;
+	}
+
+	@ReadOperation
+	public Map<String, Object> stats() {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("accepted", analyticsService.acceptedCount());
+		body.put("dropped", analyticsService.droppedCount());
+		body.put("buffered", analyticsService.bufferedCount());
+		body.put("written", clickEventWriter.writtenCount());
+		body.put("writeFailures", clickEventWriter.failedCount());
+		return body;
+	}
+}
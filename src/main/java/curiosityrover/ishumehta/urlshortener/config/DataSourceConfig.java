@@ -0,0 +1,43 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import curiosityrover.ishumehta.urlshortener.service.ShardRouter;
+
+@Configuration
+public class DataSourceConfig {
+
+	/**
+	 * The primary pool, built the way Spring Boot builds it from {@code spring.datasource.*}, routed through
+	 * {@link ReadReplicaDataSources} when read replicas are configured and through {@link ShardDataSources} when
+	 * {@code short_urls} is sharded.
+	 */
+	@Bean
+	public DataSource dataSource(DataSourceProperties properties, Environment environment,
+		ReadReplicaDataSources readReplicas, ShardDataSources shards, ShardRouter shardRouter) {
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+		if (StringUtils.hasText(properties.getName())) {
+			primary.setPoolName(properties.getName());
+		}
+		return shards.route(readReplicas.route(primary), primary, shardRouter);
+	}
+
+	@Bean
+	public ShardRouter shardRouter(ShardDataSources shards,
+		@Value("${app.datasource.shards.virtual-nodes:160}") int virtualNodes,
+		@Value("${app.datasource.shards.lookup-fallback:false}") boolean lookupFallback) {
+		return new ShardRouter(shards.shardNames(), virtualNodes, lookupFallback);
+	}
+}
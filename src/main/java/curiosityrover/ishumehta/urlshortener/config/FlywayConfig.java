@@ -0,0 +1,45 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+@Configuration
+public class FlywayConfig {
+
+	private static final Logger log = LoggerFactory.getLogger(FlywayConfig.class);
+
+	/**
+	 * Honours {@code spring.flyway.enabled=false} at runtime. Without AOT the auto-configuration already backs off,
+	 * but an AOT-processed build fixes that condition when the jar is built, and the CDS training run in the
+	 * Dockerfile has no database to migrate.
+	 * <p>
+	 * The auto-configured Flyway migrates the primary; every additional {@code short_urls} shard gets the same
+	 * migrations with the same settings.
+	 */
+	@Bean
+	public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${spring.flyway.enabled:true}") boolean enabled,
+		ShardDataSources shards) {
+		return flyway -> {
+			if (!enabled) {
+				log.info("Flyway migrations are disabled, skipping");
+				return;
+			}
+			flyway.migrate();
+			for (HikariDataSource shard : shards.additionalShards()) {
+				// Connect directly rather than through the pool: a Hikari pool cannot take its metrics tracker once
+				// started, and meters are bound after the migrations have run
+				Flyway.configure().configuration(flyway.getConfiguration())
+					.dataSource(shard.getJdbcUrl(), shard.getUsername(), shard.getPassword())
+					.load()
+					.migrate();
+			}
+		};
+	}
+}
@@ -0,0 +1,30 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import curiosityrover.ishumehta.urlshortener.service.RateLimiter;
+import curiosityrover.ishumehta.urlshortener.web.RateLimitInterceptor;
+
+@Configuration
+public class RateLimitConfig {
+
+	@Bean
+	public RateLimitInterceptor rateLimitInterceptor(RateLimiter rateLimiter,
+		@Value("${app.shortener.rate-limit.api-key-header:}") String apiKeyHeader) {
+		return new RateLimitInterceptor(rateLimiter, apiKeyHeader);
+	}
+
+	@Bean
+	public WebMvcConfigurer rateLimitWebMvcConfigurer(RateLimitInterceptor rateLimitInterceptor) {
+		return new WebMvcConfigurer() {
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				registry.addInterceptor(rateLimitInterceptor);
+			}
+		};
+	}
+}
@@ -0,0 +1,237 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Connection pools for the read replicas in {@code app.datasource.replica.urls}. Read-only transactions are sent to
+ * them round-robin; everything else, and every read while no replica is healthy, goes to the primary.
+ * <p>
+ * Replicas are checked on a schedule: one that cannot hand out a connection, or that trails the primary by more than
+ * {@code app.datasource.replica.max-staleness} according to the lag query, is skipped until a later check passes.
+ * Each pool starts from {@code spring.datasource.hikari.*}, then applies {@code app.datasource.replica.hikari.*} and
+ * finally {@code app.datasource.replica.pools[n].hikari.*} for the n-th URL.
+ */
+@Component
+public class ReadReplicaDataSources implements MeterBinder, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(ReadReplicaDataSources.class);
+
+	private static final String PREFIX = "app.datasource.replica";
+
+	private final List<Replica> replicas = new ArrayList<>();
+	private final boolean enabled;
+	private final double maxStalenessSeconds;
+	private final String lagQuery;
+	private final AtomicInteger next = new AtomicInteger();
+	private final LongAdder primaryFallbacks = new LongAdder();
+	private volatile HikariDataSource primary;
+
+	public ReadReplicaDataSources(Environment environment,
+		@Value("${app.datasource.replica.enabled:false}") boolean enabled,
+		@Value("${app.datasource.replica.max-staleness:PT10S}") Duration maxStaleness,
+		@Value("${app.datasource.replica.lag-query:}") String lagQuery) {
+		this.maxStalenessSeconds = maxStaleness.toMillis() / 1000.0;
+		this.lagQuery = lagQuery;
+		if (enabled) {
+			Binder binder = Binder.get(environment);
+			List<String> urls = binder.bind(PREFIX + ".urls", Bindable.listOf(String.class)).orElse(List.of());
+			for (int i = 0; i < urls.size(); i++) {
+				if (StringUtils.hasText(urls.get(i))) {
+					replicas.add(new Replica(createPool(binder, environment, i, urls.get(i).trim())));
+				}
+			}
+		}
+		this.enabled = !replicas.isEmpty();
+		if (enabled && !this.enabled) {
+			log.warn("Read replicas are enabled but {}.urls is empty; all queries go to the primary", PREFIX);
+		}
+	}
+
+	private static HikariDataSource createPool(Binder binder, Environment environment, int index, String url) {
+		HikariDataSource pool = new HikariDataSource();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+		binder.bind(PREFIX + ".hikari", Bindable.ofInstance(pool));
+		binder.bind(PREFIX + ".pools[" + index + "].hikari", Bindable.ofInstance(pool));
+		pool.setPoolName("replica-" + (index + 1));
+		pool.setJdbcUrl(url);
+		pool.setUsername(environment.getProperty(PREFIX + ".username",
+			environment.getProperty("spring.datasource.username")));
+		pool.setPassword(environment.getProperty(PREFIX + ".password",
+			environment.getProperty("spring.datasource.password")));
+		String driver = environment.getProperty("spring.datasource.driver-class-name");
+		if (StringUtils.hasText(driver)) {
+			pool.setDriverClassName(driver);
+		}
+		pool.setReadOnly(true);
+		return pool;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Wraps the primary so that read-only transactions use a replica connection. The proxy only fetches a physical
+	 * connection on the first statement, by which time the transaction manager has marked it read-only.
+	 */
+	DataSource route(HikariDataSource primary) {
+		if (!enabled) {
+			return primary;
+		}
+		this.primary = primary;
+		LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+		proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary));
+		return proxy;
+	}
+
+	@Scheduled(fixedDelayString = "${app.datasource.replica.health-check-interval:PT5S}")
+	public void checkHealth() {
+		for (Replica replica : replicas) {
+			try {
+				JdbcTemplate jdbcTemplate = new JdbcTemplate(replica.pool);
+				double lag = 0;
+				if (StringUtils.hasText(lagQuery)) {
+					Double measured = jdbcTemplate.queryForObject(lagQuery, Double.class);
+					lag = measured != null ? measured : 0;
+				}
+				else {
+					jdbcTemplate.execute("SELECT 1");
+				}
+				replica.lagSeconds = lag;
+				if (lag > maxStalenessSeconds) {
+					replica.markDown(String.format("lagging %.1f s behind the primary", lag));
+				}
+				else {
+					replica.markUp();
+				}
+			}
+			catch (DataAccessException ex) {
+				replica.markDown(ex.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		if (!enabled) {
+			return;
+		}
+		MicrometerMetricsTrackerFactory trackerFactory = new MicrometerMetricsTrackerFactory(registry);
+		for (Replica replica : replicas) {
+			replica.pool.setMetricsTrackerFactory(trackerFactory);
+			Gauge.builder("shortener.db.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+				.description("Whether the replica currently receives read-only queries")
+				.tag("pool", replica.pool.getPoolName())
+				.register(registry);
+			Gauge.builder("shortener.db.replica.lag", replica, r -> r.lagSeconds)
+				.baseUnit("seconds")
+				.description("Replication lag reported by the last health check")
+				.tag("pool", replica.pool.getPoolName())
+				.register(registry);
+		}
+		FunctionCounter.builder("shortener.db.replica.fallbacks", primaryFallbacks, LongAdder::sum)
+			.description("Read-only connections taken from the primary because no replica was available")
+			.register(registry);
+	}
+
+	@Override
+	public void destroy() {
+		replicas.forEach(replica -> replica.pool.close());
+		// The routing proxy is the DataSource bean and has nothing to close, so the primary pool is closed here
+		HikariDataSource routedPrimary = primary;
+		if (routedPrimary != null) {
+			routedPrimary.close();
+		}
+	}
+
+	private final class ReplicaRoutingDataSource extends AbstractDataSource {
+
+		private final DataSource primary;
+
+		ReplicaRoutingDataSource(DataSource primary) {
+			this.primary = primary;
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			int size = replicas.size();
+			int start = Math.floorMod(next.getAndIncrement(), size);
+			for (int i = 0; i < size; i++) {
+				Replica replica = replicas.get((start + i) % size);
+				if (!replica.healthy) {
+					continue;
+				}
+				try {
+					return replica.pool.getConnection();
+				}
+				catch (SQLException ex) {
+					replica.markDown(ex.getMessage());
+				}
+			}
+			primaryFallbacks.increment();
+			return primary.getConnection();
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+		}
+	}
+
+	private static final class Replica {
+
+		private final HikariDataSource pool;
+		private volatile boolean healthy = true;
+		private volatile double lagSeconds;
+
+		Replica(HikariDataSource pool) {
+			this.pool = pool;
+		}
+
+		void markDown(String reason) {
+			if (healthy) {
+				healthy = false;
+				log.warn("Read replica {} taken out of rotation: {}", pool.getPoolName(), reason);
+			}
+		}
+
+		void markUp() {
+			if (!healthy) {
+				healthy = true;
+				log.info("Read replica {} is back in rotation", pool.getPoolName());
+			}
+		}
+	}
+}
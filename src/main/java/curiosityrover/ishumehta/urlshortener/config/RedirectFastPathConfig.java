@@ -0,0 +1,63 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import curiosityrover.ishumehta.urlshortener.service.ClickAnalyticsService;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlService;
+import curiosityrover.ishumehta.urlshortener.web.RateLimitInterceptor;
+import curiosityrover.ishumehta.urlshortener.web.RedirectCaching;
+import curiosityrover.ishumehta.urlshortener.web.RedirectFastPathFilter;
+import curiosityrover.ishumehta.urlshortener.web.RestExceptionHandler;
+
+@Configuration
+public class RedirectFastPathConfig {
+
+	@Bean
+	public FilterRegistrationBean<RedirectFastPathFilter> redirectFastPathFilter(
+		@Value("${app.shortener.redirect.fast-path:false}") boolean enabled,
+		ShortUrlService shortUrlService,
+		ClickAnalyticsService clickAnalyticsService,
+		RedirectCaching redirectCaching,
+		RateLimitInterceptor rateLimitInterceptor,
+		RestExceptionHandler exceptionHandler,
+		ObjectMapper objectMapper,
+		Environment environment) {
+		RedirectFastPathFilter filter = new RedirectFastPathFilter(shortUrlService, clickAnalyticsService,
+			redirectCaching, rateLimitInterceptor, exceptionHandler, objectMapper, reservedSegments(environment));
+		FilterRegistrationBean<RedirectFastPathFilter> registration = new FilterRegistrationBean<>(filter);
+		registration.setEnabled(enabled);
+		registration.addUrlPatterns("/*");
+		// Ahead of everything except the observation filter, so redirects are still timed
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registration;
+	}
+
+	/**
+	 * First path segments served by other handlers that a single-segment slug pattern would otherwise shadow.
+	 */
+	private static Set<String> reservedSegments(Environment environment) {
+		Set<String> reserved = new HashSet<>();
+		reserved.add(firstSegment(environment.getProperty("server.error.path", "/error")));
+		reserved.add(firstSegment(environment.getProperty("management.endpoints.web.base-path", "/actuator")));
+		reserved.add(firstSegment(environment.getProperty("springdoc.api-docs.path", "/v3/api-docs")));
+		reserved.add(firstSegment(environment.getProperty("springdoc.swagger-ui.path", "/swagger-ui.html")));
+		reserved.remove("");
+		return reserved;
+	}
+
+	private static String firstSegment(String path) {
+		String trimmed = path.startsWith("/") ? path.substring(1) : path;
+		int slash = trimmed.indexOf('/');
+		return slash < 0 ? trimmed : trimmed.substring(0, slash);
+	}
+}
@@ -0,0 +1,143 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import curiosityrover.ishumehta.urlshortener.service.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Connection pools for the additional {@code short_urls} shards in {@code app.datasource.shards.urls}. The primary
+ * {@code spring.datasource} is shard 0; the n-th URL is shard n, named {@code shard-<n>}. Shard names place the
+ * shards on the hash ring, so new shards must be appended to the list and existing ones never reordered.
+ * <p>
+ * Each pool starts from {@code spring.datasource.hikari.*}, then applies {@code app.datasource.shards.hikari.*} and
+ * finally {@code app.datasource.shards.pools[n].hikari.*} for the n-th URL.
+ */
+@Component
+public class ShardDataSources implements MeterBinder, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(ShardDataSources.class);
+
+	private static final String PREFIX = "app.datasource.shards";
+
+	private final List<HikariDataSource> shards = new ArrayList<>();
+	private volatile HikariDataSource primary;
+
+	public ShardDataSources(Environment environment,
+		@Value("${app.datasource.shards.enabled:false}") boolean enabled) {
+		if (enabled) {
+			Binder binder = Binder.get(environment);
+			List<String> urls = binder.bind(PREFIX + ".urls", Bindable.listOf(String.class)).orElse(List.of());
+			for (int i = 0; i < urls.size(); i++) {
+				if (StringUtils.hasText(urls.get(i))) {
+					shards.add(createPool(binder, environment, i, urls.get(i).trim()));
+				}
+			}
+			if (shards.isEmpty()) {
+				log.warn("Sharding is enabled but {}.urls is empty; all short URLs stay in the primary database",
+					PREFIX);
+			}
+		}
+	}
+
+	private static HikariDataSource createPool(Binder binder, Environment environment, int index, String url) {
+		HikariDataSource pool = new HikariDataSource();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+		binder.bind(PREFIX + ".hikari", Bindable.ofInstance(pool));
+		binder.bind(PREFIX + ".pools[" + index + "].hikari", Bindable.ofInstance(pool));
+		pool.setPoolName("shard-" + (index + 1));
+		pool.setJdbcUrl(url);
+		pool.setUsername(environment.getProperty(PREFIX + ".username",
+			environment.getProperty("spring.datasource.username")));
+		pool.setPassword(environment.getProperty(PREFIX + ".password",
+			environment.getProperty("spring.datasource.password")));
+		String driver = environment.getProperty("spring.datasource.driver-class-name");
+		if (StringUtils.hasText(driver)) {
+			pool.setDriverClassName(driver);
+		}
+		return pool;
+	}
+
+	/**
+	 * Names of all shards in ring order, the primary first.
+	 */
+	public List<String> shardNames() {
+		List<String> names = new ArrayList<>(shards.size() + 1);
+		names.add("shard-0");
+		shards.forEach(shard -> names.add(shard.getPoolName()));
+		return names;
+	}
+
+	/**
+	 * The shards other than the primary, which Flyway migrates separately.
+	 */
+	public List<HikariDataSource> additionalShards() {
+		return List.copyOf(shards);
+	}
+
+	/**
+	 * Wraps shard 0 (the primary, possibly already routed to read replicas) in a {@code DataSource} that hands out
+	 * connections to the shard selected with {@link ShardRouter#onShard}.
+	 */
+	DataSource route(DataSource shardZero, HikariDataSource primaryPool, ShardRouter router) {
+		if (shards.isEmpty()) {
+			return shardZero;
+		}
+		this.primary = primaryPool;
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(0, shardZero);
+		for (int i = 0; i < shards.size(); i++) {
+			targets.put(i + 1, shards.get(i));
+		}
+		AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+			@Override
+			protected Object determineCurrentLookupKey() {
+				return router.currentShard();
+			}
+		};
+		routing.setTargetDataSources(targets);
+		routing.setDefaultTargetDataSource(shardZero);
+		routing.setLenientFallback(false);
+		routing.afterPropertiesSet();
+		return routing;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		if (shards.isEmpty()) {
+			return;
+		}
+		MicrometerMetricsTrackerFactory trackerFactory = new MicrometerMetricsTrackerFactory(registry);
+		shards.forEach(shard -> shard.setMetricsTrackerFactory(trackerFactory));
+	}
+
+	@Override
+	public void destroy() {
+		shards.forEach(HikariDataSource::close);
+		// The routing DataSource is the bean and has nothing to close, so the primary pool is closed here
+		HikariDataSource routedPrimary = primary;
+		if (routedPrimary != null) {
+			routedPrimary.close();
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import curiosityrover.ishumehta.urlshortener.service.ShardRebalancer;
+
+@Component
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+	private final ShardRebalancer shardRebalancer;
+
+	public ShardsEndpoint(ShardRebalancer shardRebalancer) {
+		this.shardRebalancer = shardRebalancer;
+	}
+
+	@ReadOperation
+	public Map<String, Object> stats() {
+		return shardRebalancer.stats();
+	}
+
+	@WriteOperation
+	public Map<String, Object> rebalance() {
+		ShardRebalancer.RebalanceResult result = shardRebalancer.rebalance();
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("scanned", result.scanned());
+		body.put("moved", result.moved());
+		body.put("conflicts", result.conflicts());
+		body.put("elapsedMillis", result.elapsed().toMillis());
+		return body;
+	}
+}
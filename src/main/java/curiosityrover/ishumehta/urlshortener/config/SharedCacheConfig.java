@@ -0,0 +1,31 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import curiosityrover.ishumehta.urlshortener.service.InMemorySharedSlugCache;
+import curiosityrover.ishumehta.urlshortener.service.RedisSharedSlugCache;
+import curiosityrover.ishumehta.urlshortener.service.SharedSlugCache;
+
+@Configuration
+public class SharedCacheConfig {
+
+	@Bean
+	public SharedSlugCache sharedSlugCache(
+		@Value("${app.shortener.shared-cache.type:none}") String type,
+		@Value("${app.shortener.shared-cache.redis-url:redis://localhost:6379}") String redisUrl,
+		@Value("${app.shortener.shared-cache.timeout:PT0.1S}") Duration timeout,
+		@Value("${app.shortener.shared-cache.key-prefix:shortener:}") String keyPrefix) {
+		return switch (type.trim().toLowerCase(Locale.ROOT)) {
+			case "none" -> SharedSlugCache.none();
+			case "redis" -> new RedisSharedSlugCache(redisUrl, timeout, keyPrefix);
+			case "in-memory" -> new InMemorySharedSlugCache();
+			default -> throw new IllegalArgumentException(
+				"Unknown app.shortener.shared-cache.type '" + type + "' (expected 'none', 'redis' or 'in-memory')");
+		};
+	}
+}
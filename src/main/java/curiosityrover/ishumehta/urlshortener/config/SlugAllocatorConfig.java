@@ -0,0 +1,42 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import curiosityrover.ishumehta.urlshortener.repository.ShortUrlRepository;
+import curiosityrover.ishumehta.urlshortener.service.RandomSlugAllocator;
+import curiosityrover.ishumehta.urlshortener.service.SequenceSlugAllocator;
+import curiosityrover.ishumehta.urlshortener.service.ShardRouter;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlMetrics;
+import curiosityrover.ishumehta.urlshortener.service.SlugAllocator;
+import curiosityrover.ishumehta.urlshortener.service.SlugGenerator;
+
+@Configuration
+public class SlugAllocatorConfig {
+
+	@Bean
+	public SlugAllocator slugAllocator(
+		@Value("${app.shortener.slug-strategy:random}") String strategy,
+		@Value("${app.shortener.slug-length:8}") int slugLength,
+		@Value("${app.shortener.sequence.block-size:100}") int blockSize,
+		@Value("${app.shortener.sequence.scramble:true}") boolean scramble,
+		@Value("${app.shortener.sequence.scramble-key:0}") long scrambleKey,
+		SlugGenerator slugGenerator,
+		ShortUrlRepository repository,
+		ShardRouter shardRouter,
+		ShortUrlMetrics metrics,
+		JdbcTemplate jdbcTemplate) {
+		int effectiveLength = slugLength > 0 ? slugLength : 8;
+		return switch (strategy.trim().toLowerCase(Locale.ROOT)) {
+			case "random" -> new RandomSlugAllocator(slugGenerator, repository, shardRouter, metrics,
+				effectiveLength);
+			case "sequence" -> new SequenceSlugAllocator(jdbcTemplate, blockSize, effectiveLength, scramble, scrambleKey);
+			default -> throw new IllegalArgumentException(
+				"Unknown app.shortener.slug-strategy '" + strategy + "' (expected 'random' or 'sequence')");
+		};
+	}
+}
@@ -0,0 +1,50 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlCache;
+
+@Component
+@Endpoint(id = "slugcache")
+public class SlugCacheEndpoint {
+
+	private final ShortUrlCache shortUrlCache;
+
+	public SlugCacheEndpoint(ShortUrlCache shortUrlCache) {
+		this.shortUrlCache = shortUrlCache;
+	}
+
+	@ReadOperation
+	public Map<String, Object> stats() {
+		CacheStats stats = shortUrlCache.stats();
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("size", shortUrlCache.estimatedSize());
+		body.put("hits", stats.hitCount());
+		body.put("misses", stats.missCount());
+		body.put("hitRate", stats.hitRate());
+		body.put("evictions", stats.evictionCount());
+		body.put("loads", stats.loadCount());
+		body.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+		long[] shared = shortUrlCache.sharedStats();
+		Map<String, Object> sharedTier = new LinkedHashMap<>();
+		sharedTier.put("type", shortUrlCache.sharedCacheType());
+		sharedTier.put("hits", shared[0]);
+		sharedTier.put("misses", shared[1]);
+		sharedTier.put("leaseWaits", shared[2]);
+		body.put("shared", sharedTier);
+		return body;
+	}
+
+	@DeleteOperation
+	public void clear() {
+		shortUrlCache.invalidateAll();
+	}
+}
@@ -0,0 +1,32 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import curiosityrover.ishumehta.urlshortener.service.SlugPresenceFilter;
+
+@Component
+@Endpoint(id = "slugfilter")
+public class SlugFilterEndpoint {
+
+	private final SlugPresenceFilter slugPresenceFilter;
+
+	public SlugFilterEndpoint(SlugPresenceFilter slugPresenceFilter) {
+		this.slugPresenceFilter = slugPresenceFilter;
+	}
+
+	@ReadOperation
+	public Map<String, Object> stats() {
+		return slugPresenceFilter.stats();
+	}
+
+	@WriteOperation
+	public Map<String, Object> rebuild() {
+		slugPresenceFilter.rebuild();
+		return slugPresenceFilter.stats();
+	}
+}
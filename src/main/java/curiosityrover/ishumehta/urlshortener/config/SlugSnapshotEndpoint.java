@@ -0,0 +1,68 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import curiosityrover.ishumehta.urlshortener.service.SlugSnapshot;
+import curiosityrover.ishumehta.urlshortener.service.SlugSnapshotStore;
+
+@Component
+@Endpoint(id = "slugsnapshot")
+public class SlugSnapshotEndpoint {
+
+	private final SlugSnapshotStore snapshotStore;
+
+	public SlugSnapshotEndpoint(SlugSnapshotStore snapshotStore) {
+		this.snapshotStore = snapshotStore;
+	}
+
+	@ReadOperation
+	public Map<String, Object> stats() {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("enabled", snapshotStore.isEnabled());
+		body.put("layers", snapshotStore.layers().stream().map(SlugSnapshotEndpoint::describe).toList());
+		return body;
+	}
+
+	/**
+	 * Exports a new full snapshot now, replacing the current one and its delta.
+	 */
+	@WriteOperation
+	public Map<String, Object> export() {
+		Map<String, Object> body = new LinkedHashMap<>();
+		if (!snapshotStore.isEnabled()) {
+			body.put("exported", false);
+			body.put("reason", "app.shortener.snapshot.enabled is false");
+			return body;
+		}
+		try {
+			SlugSnapshot snapshot = snapshotStore.export(true);
+			body.put("exported", snapshot != null);
+			if (snapshot != null) {
+				body.putAll(describe(snapshot));
+			}
+			else {
+				body.put("reason", "an export is already running");
+			}
+			return body;
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static Map<String, Object> describe(SlugSnapshot snapshot) {
+		Map<String, Object> layer = new LinkedHashMap<>();
+		layer.put("file", snapshot.path().getFileName().toString());
+		layer.put("links", snapshot.size());
+		layer.put("asOf", snapshot.asOf().toString());
+		return layer;
+	}
+}
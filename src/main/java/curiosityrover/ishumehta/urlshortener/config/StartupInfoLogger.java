@@ -45,11 +45,20 @@ public class StartupInfoLogger implements ApplicationListener<ApplicationReadyEv
 			? trimTrailingSlash(configuredBaseUrl)
 			: "http://localhost:" + port;
 		String restEndpoint = baseUrl + "/api/urls";
-		String swaggerUrl = baseUrl + ensureLeadingSlash(environment.getProperty("springdoc.swagger-ui.path",
-			"/swagger-ui.html"));
-		String apiDocsUrl = baseUrl + ensureLeadingSlash(environment.getProperty("springdoc.api-docs.path",
-			"/v3/api-docs"));
+		String swaggerUrl = environment.getProperty("springdoc.swagger-ui.enabled", Boolean.class, true)
+			? baseUrl + ensureLeadingSlash(environment.getProperty("springdoc.swagger-ui.path", "/swagger-ui.html"))
+			: "disabled";
+		String apiDocsUrl = environment.getProperty("springdoc.api-docs.enabled", Boolean.class, true)
+			? baseUrl + ensureLeadingSlash(environment.getProperty("springdoc.api-docs.path", "/v3/api-docs"))
+			: "disabled";
+		String metricsUrl = baseUrl + ensureLeadingSlash(environment.getProperty("management.endpoints.web.base-path",
+			"/actuator")) + "/prometheus";
 		String slugLength = environment.getProperty("app.shortener.slug-length", "8");
+		String slugStrategy = environment.getProperty("app.shortener.slug-strategy", "random");
+		String threadMode = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+			? "virtual"
+			: "platform";
+		String poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", "10");
 
 		String jdbcUrl = Optional.ofNullable(dataSourceProperties.getUrl())
 			.filter(StringUtils::hasText)
@@ -68,20 +77,24 @@ public class StartupInfoLogger implements ApplicationListener<ApplicationReadyEv
  Environment : %s
  Port        : %s
  Base URL    : %s
+ Threads     : %s
 
  API Endpoints
    - REST (POST/GET) : %s
    - Swagger UI      : %s
    - OpenAPI JSON    : %s
+   - Prometheus      : %s
 
  Database
    - JDBC URL        : %s
    - Host / Port     : %s:%s
    - Name            : %s
    - User            : %s
+   - Pool size       : %s
 
  Defaults
    - Slug length     : %s characters
+   - Slug strategy   : %s
 
  Tip: To create a link quickly, run:
    curl -X POST %s \\
@@ -92,15 +105,19 @@ public class StartupInfoLogger implements ApplicationListener<ApplicationReadyEv
 			activeProfiles,
 			port,
 			baseUrl,
+			threadMode,
 			restEndpoint,
 			swaggerUrl,
 			apiDocsUrl,
+			metricsUrl,
 			jdbcUrl,
 			descriptor.host(),
 			descriptor.port(),
 			descriptor.database(),
 			dbUser,
+			poolSize,
 			slugLength,
+			slugStrategy,
 			restEndpoint
 		);
 	}
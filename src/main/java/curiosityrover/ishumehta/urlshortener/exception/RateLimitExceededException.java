@@ -0,0 +1,30 @@
+package curiosityrover.ishumehta.urlshortener.exception;
+
+import java.time.Duration;
+
+public class RateLimitExceededException extends RuntimeException {
+
+	private final Duration retryAfter;
+
+	public RateLimitExceededException(String scope, Duration retryAfter) {
+		// Thrown at request rate by abusive clients, so skip the stack trace
+		super("Too many " + scope + " requests; retry in " + retryAfterSeconds(retryAfter) + "s", null, false, false);
+		this.retryAfter = retryAfter;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+
+	/**
+	 * The wait rounded up to whole seconds, as {@code Retry-After} requires.
+	 */
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds(retryAfter);
+	}
+
+	private static long retryAfterSeconds(Duration retryAfter) {
+		long seconds = retryAfter.toSeconds();
+		return retryAfter.toNanosPart() > 0 || seconds == 0 ? seconds + 1 : seconds;
+	}
+}
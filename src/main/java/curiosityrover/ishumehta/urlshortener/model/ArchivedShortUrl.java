@@ -0,0 +1,53 @@
+package curiosityrover.ishumehta.urlshortener.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A {@link ShortUrl} row moved out of {@code short_urls} by {@code ExpiredShortUrlReaper} after it expired. Keeps
+ * the original id; the slug itself is free again and may belong to a newer link.
+ */
+@Entity
+@Table(name = "short_urls_archive",
+	indexes = @Index(name = "idx_short_urls_archive_archived_at", columnList = "archived_at"))
+@Getter
+@NoArgsConstructor
+public class ArchivedShortUrl {
+
+	@Id
+	private Long id;
+
+	@Column(nullable = false, length = 64)
+	private String slug;
+
+	@Column(name = "destination_url", nullable = false, length = 2048)
+	private String destinationUrl;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+	@Column(name = "last_accessed_at")
+	private Instant lastAccessedAt;
+
+	@Column(name = "hit_count", nullable = false)
+	private long hitCount;
+
+	@Column(name = "expires_at", nullable = false)
+	private Instant expiresAt;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "redirect_policy", length = 16)
+	private RedirectPolicy redirectPolicy;
+
+	@Column(name = "archived_at", nullable = false)
+	private Instant archivedAt;
+}
@@ -0,0 +1,17 @@
+package curiosityrover.ishumehta.urlshortener.model;
+
+import java.time.Instant;
+
+/**
+ * A single redirect as captured on the request thread, before it is written to {@code click_events}.
+ */
+public record Click(String slug, Instant clickedAt, String referrerHost, UserAgentClass userAgentClass,
+	String country) {
+
+	public enum UserAgentClass {
+		DESKTOP,
+		MOBILE,
+		BOT,
+		UNKNOWN
+	}
+}
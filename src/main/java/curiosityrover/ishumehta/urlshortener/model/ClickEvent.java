@@ -0,0 +1,46 @@
+package curiosityrover.ishumehta.urlshortener.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Append-only raw click log. Rows are written in batches by {@code ClickEventWriter}; reads go through
+ * {@link ClickRollup} instead.
+ */
+@Entity
+@Table(name = "click_events", indexes = @Index(name = "idx_click_events_clicked_at", columnList = "clicked_at"))
+@Getter
+@NoArgsConstructor
+public class ClickEvent {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false, length = 64)
+	private String slug;
+
+	@Column(name = "clicked_at", nullable = false)
+	private Instant clickedAt;
+
+	@Column(name = "referrer_host", length = 255)
+	private String referrerHost;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "user_agent_class", nullable = false, length = 16)
+	private Click.UserAgentClass userAgentClass;
+
+	@Column(length = 2)
+	private String country;
+}
@@ -0,0 +1,72 @@
+package curiosityrover.ishumehta.urlshortener.model;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pre-aggregated click counts per slug and time bucket, maintained incrementally by {@code ClickEventWriter}.
+ */
+@Entity
+@Table(name = "click_rollups")
+@Getter
+@NoArgsConstructor
+public class ClickRollup {
+
+	@EmbeddedId
+	private Key id;
+
+	@Column(nullable = false)
+	private long clicks;
+
+	public enum Granularity {
+		MINUTE(ChronoUnit.MINUTES),
+		HOUR(ChronoUnit.HOURS),
+		DAY(ChronoUnit.DAYS);
+
+		private final ChronoUnit unit;
+
+		Granularity(ChronoUnit unit) {
+			this.unit = unit;
+		}
+
+		public Instant bucketStart(Instant instant) {
+			return instant.truncatedTo(unit);
+		}
+
+		public Duration bucketLength() {
+			return unit.getDuration();
+		}
+	}
+
+	@Embeddable
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@EqualsAndHashCode
+	public static class Key implements Serializable {
+
+		@Column(nullable = false, length = 64)
+		private String slug;
+
+		@Enumerated(EnumType.STRING)
+		@Column(nullable = false, length = 8)
+		private Granularity granularity;
+
+		@Column(name = "bucket_start", nullable = false)
+		private Instant bucketStart;
+	}
+}
@@ -0,0 +1,18 @@
+package curiosityrover.ishumehta.urlshortener.model;
+
+/**
+ * How a short URL's redirect may be cached by browsers and CDNs.
+ */
+public enum RedirectPolicy {
+
+	/**
+	 * {@code 308} with {@code Cache-Control: public, max-age}, bounded by the link's expiry. Repeat clicks served
+	 * from a cache are neither counted nor captured as clicks.
+	 */
+	PERMANENT,
+
+	/**
+	 * {@code 307} with {@code Cache-Control: no-store}, so every click reaches the service and is counted.
+	 */
+	TRACKED
+}
@@ -0,0 +1,33 @@
+package curiosityrover.ishumehta.urlshortener.model;
+
+import java.time.Instant;
+
+/**
+ * The subset of a {@link ShortUrl} needed to answer a redirect. Instances are immutable so they can be shared
+ * between request threads through the slug cache.
+ */
+public record ResolvedShortUrl(Long id, String slug, String destinationUrl, Instant expiresAt,
+	RedirectPolicy redirectPolicy) {
+
+	public ResolvedShortUrl(Long id, String slug, String destinationUrl, Instant expiresAt) {
+		this(id, slug, destinationUrl, expiresAt, null);
+	}
+
+	public static ResolvedShortUrl from(ShortUrl shortUrl) {
+		return new ResolvedShortUrl(
+			shortUrl.getId(),
+			shortUrl.getSlug(),
+			shortUrl.getDestinationUrl(),
+			shortUrl.getExpiresAt(),
+			shortUrl.getRedirectPolicy()
+		);
+	}
+
+	public boolean isExpired() {
+		return expiresAt != null && Instant.now().isAfter(expiresAt);
+	}
+
+	public boolean isExpired(Instant now) {
+		return expiresAt != null && now.isAfter(expiresAt);
+	}
+}
@@ -4,6 +4,8 @@ import java.time.Instant;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -17,7 +19,12 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "short_urls", indexes = @Index(name = "idx_short_urls_slug", columnList = "slug", unique = true))
+@Table(name = "short_urls", indexes = {
+	@Index(name = "idx_short_urls_slug", columnList = "slug", unique = true),
+	@Index(name = "idx_short_urls_expires_at", columnList = "expires_at, id"),
+	@Index(name = "idx_short_urls_created_at", columnList = "created_at, id"),
+	@Index(name = "idx_short_urls_dedup_key", columnList = "dedup_key", unique = true)
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -47,6 +54,20 @@ public class ShortUrl {
 	@Column(name = "expires_at")
 	private Instant expiresAt;
 
+	/**
+	 * {@code null} to follow {@code app.shortener.redirect.default-policy}.
+	 */
+	@Enumerated(EnumType.STRING)
+	@Column(name = "redirect_policy", length = 16)
+	private RedirectPolicy redirectPolicy;
+
+	/**
+	 * Hex SHA-256 of the destination, expiry and redirect policy when created with
+	 * {@code app.shortener.dedup.enabled}; {@code null} otherwise.
+	 */
+	@Column(name = "dedup_key", length = 64)
+	private String dedupKey;
+
 	@PrePersist
 	@SuppressWarnings("unused")
 	void onCreate() {
@@ -0,0 +1,10 @@
+package curiosityrover.ishumehta.urlshortener.model;
+
+import java.time.Instant;
+
+/**
+ * An unvalidated request to create one short URL, as received in a bulk import.
+ */
+public record ShortUrlDraft(String destinationUrl, String customSlug, Instant expiresAt,
+	RedirectPolicy redirectPolicy) {
+}
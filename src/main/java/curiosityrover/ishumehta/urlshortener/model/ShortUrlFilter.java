@@ -0,0 +1,23 @@
+package curiosityrover.ishumehta.urlshortener.model;
+
+import java.time.Instant;
+
+/**
+ * Optional criteria for listing and exporting short URLs; {@code null} fields do not filter. The created range is
+ * half-open, {@code [createdFrom, createdTo)}, and the hit count range is inclusive.
+ */
+public record ShortUrlFilter(Boolean expired, Long minHits, Long maxHits, Instant createdFrom, Instant createdTo) {
+
+	public static ShortUrlFilter none() {
+		return new ShortUrlFilter(null, null, null, null, null);
+	}
+
+	public ShortUrlFilter {
+		if (minHits != null && maxHits != null && minHits > maxHits) {
+			throw new IllegalArgumentException("minHits must not be greater than maxHits");
+		}
+		if (createdFrom != null && createdTo != null && createdFrom.isAfter(createdTo)) {
+			throw new IllegalArgumentException("createdFrom must not be after createdTo");
+		}
+	}
+}
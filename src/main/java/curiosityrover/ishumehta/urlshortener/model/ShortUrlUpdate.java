@@ -0,0 +1,11 @@
+package curiosityrover.ishumehta.urlshortener.model;
+
+import java.time.Instant;
+
+/**
+ * An unvalidated change to apply to many short URLs at once. {@code null} and {@code false} fields leave the links
+ * as they are; at most one of {@code expiresAt}, {@code clearExpiry} and {@code deactivate} may be set.
+ * Deactivating sets {@code expiresAt} to now, so the links answer {@code 410} and are reaped like any expired link.
+ */
+public record ShortUrlUpdate(String destinationUrl, Instant expiresAt, boolean clearExpiry, boolean deactivate) {
+}
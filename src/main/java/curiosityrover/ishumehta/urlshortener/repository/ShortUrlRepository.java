@@ -1,15 +1,94 @@
 package curiosityrover.ishumehta.urlshortener.repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
 import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
 
 public interface ShortUrlRepository extends JpaRepository<ShortUrl, Long> {
 
+	int SLUG_LOOKUP_CHUNK_SIZE = 1000;
+
+	/**
+	 * Read-only, so that it is served by a read replica when those are configured.
+	 */
+	@Transactional(readOnly = true)
 	Optional<ShortUrl> findBySlug(String slug);
 
 	boolean existsBySlug(String slug);
-}
 
+	@Transactional(readOnly = true)
+	Optional<ShortUrl> findByDedupKey(String dedupKey);
+
+	/**
+	 * {@link #findByDedupKey} on the primary, for the row whose insert just won over ours.
+	 */
+	@Transactional
+	default Optional<ShortUrl> findByDedupKeyOnPrimary(String dedupKey) {
+		return findByDedupKey(dedupKey);
+	}
+
+	/**
+	 * Loads only the columns a redirect needs, without hydrating (or dirty-tracking) a {@link ShortUrl} entity.
+	 */
+	@Transactional(readOnly = true)
+	@Query("select new curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl("
+		+ "s.id, s.slug, s.destinationUrl, s.expiresAt, s.redirectPolicy) from ShortUrl s where s.slug = :slug")
+	Optional<ResolvedShortUrl> findResolvedBySlug(@Param("slug") String slug);
+
+	/**
+	 * {@link #findResolvedBySlug} in a read-write transaction, which always runs on the primary even when read-only
+	 * queries are routed to a replica.
+	 */
+	@Transactional
+	default Optional<ResolvedShortUrl> findResolvedBySlugOnPrimary(String slug) {
+		return findResolvedBySlug(slug);
+	}
+
+	@Query("select s.slug from ShortUrl s where s.slug in :slugs")
+	List<String> findExistingSlugs(@Param("slugs") Collection<String> slugs);
+
+	/**
+	 * Returns which of the given slugs are already taken, querying in bounded {@code IN (...)} chunks.
+	 */
+	default Set<String> findTakenSlugs(Collection<String> slugs) {
+		Set<String> taken = new HashSet<>();
+		List<String> candidates = new ArrayList<>(slugs);
+		for (int from = 0; from < candidates.size(); from += SLUG_LOOKUP_CHUNK_SIZE) {
+			List<String> chunk = candidates.subList(from, Math.min(candidates.size(), from + SLUG_LOOKUP_CHUNK_SIZE));
+			taken.addAll(findExistingSlugs(chunk));
+		}
+		return taken;
+	}
+
+	@Query("select s.dedupKey, s.slug from ShortUrl s where s.dedupKey in :dedupKeys")
+	List<Object[]> findDedupKeySlugs(@Param("dedupKeys") Collection<String> dedupKeys);
+
+	/**
+	 * Maps each of the given dedup keys that is already stored to its slug, querying in bounded {@code IN (...)} chunks.
+	 */
+	@Transactional(readOnly = true)
+	default Map<String, String> findSlugsByDedupKey(Collection<String> dedupKeys) {
+		Map<String, String> slugs = new HashMap<>();
+		List<String> candidates = new ArrayList<>(dedupKeys);
+		for (int from = 0; from < candidates.size(); from += SLUG_LOOKUP_CHUNK_SIZE) {
+			List<String> chunk = candidates.subList(from, Math.min(candidates.size(), from + SLUG_LOOKUP_CHUNK_SIZE));
+			for (Object[] row : findDedupKeySlugs(chunk)) {
+				slugs.put((String) row[0], (String) row[1]);
+			}
+		}
+		return slugs;
+	}
+}
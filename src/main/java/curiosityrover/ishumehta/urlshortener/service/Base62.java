@@ -0,0 +1,44 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+final class Base62 {
+
+	static final char[] ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+	static final int RADIX = ALPHABET.length;
+
+	private Base62() {
+	}
+
+	/**
+	 * Encodes a non-negative value, left-padding with the zero digit up to {@code minLength} characters.
+	 */
+	static String encode(long value, int minLength) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Value must not be negative");
+		}
+		char[] buffer = new char[Math.max(11, minLength)];
+		int position = buffer.length;
+		do {
+			buffer[--position] = ALPHABET[(int) (value % RADIX)];
+			value /= RADIX;
+		}
+		while (value > 0);
+		while (buffer.length - position < minLength) {
+			buffer[--position] = ALPHABET[0];
+		}
+		return new String(buffer, position, buffer.length - position);
+	}
+
+	/**
+	 * Returns 62^length, or {@link Long#MAX_VALUE} when that does not fit in a long.
+	 */
+	static long capacity(int length) {
+		long capacity = 1;
+		for (int i = 0; i < length; i++) {
+			if (capacity > Long.MAX_VALUE / RADIX) {
+				return Long.MAX_VALUE;
+			}
+			capacity *= RADIX;
+		}
+		return capacity;
+	}
+}
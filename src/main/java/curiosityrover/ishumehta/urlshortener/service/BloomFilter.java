@@ -0,0 +1,131 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, thread-safe Bloom filter over strings. Probe positions are derived from two 64-bit hashes of a single
+ * pass over the string (Kirsch-Mitzenmacher double hashing), so a lookup touches {@code k} words and allocates
+ * nothing. Bits are only ever set, so {@link #mightContain} may return false positives but never false negatives.
+ */
+final class BloomFilter {
+
+	private static final int MAX_HASH_FUNCTIONS = 16;
+
+	private final AtomicLongArray words;
+	private final long bitSize;
+	private final int hashFunctions;
+	private final LongAdder setBits = new LongAdder();
+	private final LongAdder insertions = new LongAdder();
+
+	private BloomFilter(long bitSize, int hashFunctions) {
+		long wordCount = (bitSize + 63) >>> 6;
+		if (wordCount > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Bloom filter too large: " + bitSize + " bits");
+		}
+		this.words = new AtomicLongArray((int) wordCount);
+		this.bitSize = wordCount << 6;
+		this.hashFunctions = hashFunctions;
+	}
+
+	/**
+	 * Sizes the filter for {@code expectedInsertions} at the given false-positive rate using the usual optimum
+	 * {@code m = -n ln p / (ln 2)^2}, {@code k = m/n ln 2}.
+	 */
+	static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+		}
+		long n = Math.max(1L, expectedInsertions);
+		long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		int k = (int) Math.round((double) bits / n * Math.log(2));
+		return new BloomFilter(Math.max(64L, bits), Math.min(MAX_HASH_FUNCTIONS, Math.max(1, k)));
+	}
+
+	void put(String value) {
+		long hash = hash(value);
+		long h1 = mix(hash);
+		long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1L;
+		boolean changed = false;
+		for (int i = 1; i <= hashFunctions; i++) {
+			long bit = index(h1 + i * h2);
+			long mask = 1L << bit;
+			int word = (int) (bit >>> 6);
+			if ((words.get(word) & mask) == 0 && (words.getAndAccumulate(word, mask, (a, b) -> a | b) & mask) == 0) {
+				setBits.increment();
+				changed = true;
+			}
+		}
+		if (changed) {
+			insertions.increment();
+		}
+	}
+
+	boolean mightContain(String value) {
+		long hash = hash(value);
+		long h1 = mix(hash);
+		long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1L;
+		for (int i = 1; i <= hashFunctions; i++) {
+			long bit = index(h1 + i * h2);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	long bitSize() {
+		return bitSize;
+	}
+
+	int hashFunctions() {
+		return hashFunctions;
+	}
+
+	long memoryBytes() {
+		return bitSize >>> 3;
+	}
+
+	/**
+	 * Number of values whose insertion set at least one new bit, i.e. a slight undercount of distinct values.
+	 */
+	long approximateElementCount() {
+		return insertions.sum();
+	}
+
+	/**
+	 * Probability that {@link #mightContain} answers {@code true} for a value that was never added, from the
+	 * current bit density: {@code (setBits / m)^k}.
+	 */
+	double expectedFalsePositiveRate() {
+		return Math.pow((double) setBits.sum() / bitSize, hashFunctions);
+	}
+
+	private long index(long combined) {
+		return (combined & Long.MAX_VALUE) % bitSize;
+	}
+
+	/**
+	 * FNV-1a over the UTF-16 code units; {@link #mix} then derives the two well-spread probe hashes from it.
+	 */
+	private static long hash(String value) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			h ^= value.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	/**
+	 * MurmurHash3 64-bit finalizer.
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,87 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free bounded multi-producer, single-consumer ring buffer (after Dmitry Vyukov's bounded queue). Producers
+ * never wait: {@link #offer} returns {@code false} when the buffer is full. {@link #drainTo} must only be called
+ * from one thread at a time.
+ */
+public final class BoundedRingBuffer<E> {
+
+	private final int mask;
+	private final AtomicReferenceArray<E> slots;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head;
+
+	public BoundedRingBuffer(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		int capacity = 1;
+		while (capacity < requestedCapacity && capacity < (1 << 30)) {
+			capacity <<= 1;
+		}
+		this.mask = capacity - 1;
+		this.slots = new AtomicReferenceArray<>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+
+	public boolean offer(E element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					slots.lazySet(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			}
+			else if (difference < 0) {
+				return false;
+			}
+			else {
+				position = tail.get();
+			}
+		}
+	}
+
+	public int drainTo(List<? super E> sink, int maxElements) {
+		long position = head;
+		int drained = 0;
+		while (drained < maxElements) {
+			int index = (int) (position & mask);
+			if (sequences.get(index) != position + 1) {
+				break;
+			}
+			sink.add(slots.get(index));
+			slots.lazySet(index, null);
+			sequences.set(index, position + mask + 1);
+			position++;
+			drained++;
+		}
+		head = position;
+		return drained;
+	}
+
+	/**
+	 * Approximate number of buffered elements.
+	 */
+	public int size() {
+		return (int) Math.max(0, Math.min(capacity(), tail.get() - head));
+	}
+}
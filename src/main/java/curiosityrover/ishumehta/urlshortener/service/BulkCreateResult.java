@@ -0,0 +1,38 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Instant;
+
+public record BulkCreateResult(int index, Status status, String slug, String destinationUrl, Instant expiresAt,
+	String error) {
+
+	public enum Status {
+		CREATED,
+		INVALID,
+		CONFLICT,
+		FAILED,
+		RATE_LIMITED
+	}
+
+	static BulkCreateResult created(int index, String slug, String destinationUrl, Instant expiresAt) {
+		return new BulkCreateResult(index, Status.CREATED, slug, destinationUrl, expiresAt, null);
+	}
+
+	static BulkCreateResult invalid(int index, String error) {
+		return new BulkCreateResult(index, Status.INVALID, null, null, null, error);
+	}
+
+	static BulkCreateResult conflict(int index, String slug) {
+		return new BulkCreateResult(index, Status.CONFLICT, slug, null, null, "Slug already in use: " + slug);
+	}
+
+	static BulkCreateResult failed(int index, String error) {
+		return new BulkCreateResult(index, Status.FAILED, null, null, null, error);
+	}
+
+	/**
+	 * The same outcome reported for another item.
+	 */
+	BulkCreateResult at(int otherIndex) {
+		return new BulkCreateResult(otherIndex, status, slug, destinationUrl, expiresAt, error);
+	}
+}
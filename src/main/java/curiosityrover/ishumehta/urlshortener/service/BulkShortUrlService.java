@@ -0,0 +1,280 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlDraft;
+import curiosityrover.ishumehta.urlshortener.repository.ShortUrlRepository;
+
+/**
+ * Creates many short URLs at once: validates the whole set up front, resolves custom-slug conflicts and existing
+ * links for repeated destinations with set queries, allocates generated slugs in bulk and inserts rows with JDBC
+ * batches (one transaction per chunk and shard). Deduplication follows {@link DestinationDeduplicator}: only items
+ * without a custom slug are matched, against stored links and against earlier items of the same batch.
+ */
+@Service
+public class BulkShortUrlService {
+
+	private static final Logger log = LoggerFactory.getLogger(BulkShortUrlService.class);
+
+	static final String INSERT_SQL = """
+		INSERT INTO short_urls (slug, destination_url, created_at, hit_count, expires_at, redirect_policy, dedup_key)
+		VALUES (?, ?, ?, 0, ?, ?, ?)""";
+
+	private final ShortUrlService shortUrlService;
+	private final ShortUrlRepository repository;
+	private final SlugAllocator slugAllocator;
+	private final ShortUrlCache shortUrlCache;
+	private final SlugPresenceFilter slugPresenceFilter;
+	private final ShardRouter shardRouter;
+	private final ShortUrlMetrics metrics;
+	private final DestinationDeduplicator deduplicator;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int insertChunkSize;
+
+	public BulkShortUrlService(ShortUrlService shortUrlService, ShortUrlRepository repository,
+		SlugAllocator slugAllocator, ShortUrlCache shortUrlCache, SlugPresenceFilter slugPresenceFilter,
+		ShardRouter shardRouter, ShortUrlMetrics metrics, DestinationDeduplicator deduplicator,
+		JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+		@Value("${app.shortener.batch.insert-chunk-size:1000}") int insertChunkSize) {
+		this.shortUrlService = shortUrlService;
+		this.repository = repository;
+		this.slugAllocator = slugAllocator;
+		this.shortUrlCache = shortUrlCache;
+		this.slugPresenceFilter = slugPresenceFilter;
+		this.shardRouter = shardRouter;
+		this.metrics = metrics;
+		this.deduplicator = deduplicator;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.insertChunkSize = Math.max(1, insertChunkSize);
+	}
+
+	public List<BulkCreateResult> createAll(List<ShortUrlDraft> drafts) {
+		BulkCreateResult[] results = new BulkCreateResult[drafts.size()];
+		List<PendingRow> rows = new ArrayList<>(drafts.size());
+		Set<String> customSlugs = new HashSet<>();
+		Map<String, PendingRow> rowsByDedupKey = new HashMap<>();
+		List<PendingRow> repeats = new ArrayList<>();
+
+		for (int i = 0; i < drafts.size(); i++) {
+			ShortUrlDraft draft = drafts.get(i);
+			PendingRow row;
+			try {
+				String destination = shortUrlService.normalizeDestinationUrl(draft.destinationUrl());
+				Instant expiry = shortUrlService.normalizeExpiry(draft.expiresAt());
+				String customSlug = StringUtils.hasText(draft.customSlug())
+					? shortUrlService.sanitizeCustomSlug(draft.customSlug())
+					: null;
+				String dedupKey = customSlug == null
+					? deduplicator.keyFor(destination, expiry, draft.redirectPolicy())
+					: null;
+				row = new PendingRow(i, customSlug, destination, expiry, draft.redirectPolicy(), dedupKey);
+			}
+			catch (IllegalArgumentException ex) {
+				results[i] = BulkCreateResult.invalid(i, ex.getMessage());
+				continue;
+			}
+			if (row.custom()) {
+				if (!customSlugs.add(row.slug)) {
+					results[i] = BulkCreateResult.conflict(i, row.slug);
+					continue;
+				}
+			}
+			else if (row.dedupKey != null) {
+				PendingRow first = rowsByDedupKey.putIfAbsent(row.dedupKey, row);
+				if (first != null) {
+					// Answered with the link of the first item with the same destination once that one is done
+					row.sameAs = first;
+					repeats.add(row);
+					continue;
+				}
+			}
+			rows.add(row);
+		}
+
+		Set<String> taken = shardRouter.queryBySlug(customSlugs, repository::findTakenSlugs);
+		for (Iterator<PendingRow> it = rows.iterator(); it.hasNext(); ) {
+			PendingRow row = it.next();
+			if (row.custom() && taken.contains(row.slug)) {
+				results[row.position] = BulkCreateResult.conflict(row.position, row.slug);
+				it.remove();
+			}
+		}
+
+		reuseExistingLinks(rows, rowsByDedupKey.keySet(), results);
+		assignGeneratedSlugs(rows, customSlugs);
+
+		shardRouter.partition(rows, row -> row.slug).forEach((shard, shardRows) -> {
+			for (int from = 0; from < shardRows.size(); from += insertChunkSize) {
+				insertChunk(shard, shardRows.subList(from, Math.min(shardRows.size(), from + insertChunkSize)), results);
+			}
+		});
+		for (PendingRow repeat : repeats) {
+			results[repeat.position] = results[repeat.sameAs.position].at(repeat.position);
+		}
+
+		long created = Arrays.stream(results).filter(r -> r.status() == BulkCreateResult.Status.CREATED).count();
+		log.info("Bulk created {} of {} short URLs", created, drafts.size());
+		return Arrays.asList(results);
+	}
+
+	private void reuseExistingLinks(List<PendingRow> rows, Set<String> dedupKeys, BulkCreateResult[] results) {
+		if (dedupKeys.isEmpty()) {
+			return;
+		}
+		// A key does not tell which shard holds its row, so every shard is asked
+		Map<String, String> existing = new HashMap<>();
+		shardRouter.gather(shard -> repository.findSlugsByDedupKey(dedupKeys)).forEach(existing::putAll);
+		for (Iterator<PendingRow> it = rows.iterator(); it.hasNext(); ) {
+			PendingRow row = it.next();
+			String slug = row.dedupKey != null ? existing.get(row.dedupKey) : null;
+			if (slug != null) {
+				row.slug = slug;
+				results[row.position] = created(row);
+				it.remove();
+			}
+		}
+	}
+
+	private void assignGeneratedSlugs(List<PendingRow> rows, Set<String> customSlugs) {
+		int generatedCount = (int) rows.stream().filter(row -> !row.custom()).count();
+		if (generatedCount == 0) {
+			return;
+		}
+		Iterator<String> slugs = slugAllocator.nextSlugs(generatedCount).iterator();
+		for (PendingRow row : rows) {
+			if (row.custom()) {
+				continue;
+			}
+			String slug = slugs.next();
+			// A generated slug can only clash with a custom slug from this same batch
+			while (customSlugs.contains(slug)) {
+				slug = slugAllocator.nextSlug();
+			}
+			row.slug = slug;
+		}
+	}
+
+	private void insertChunk(int shard, List<PendingRow> chunk, BulkCreateResult[] results) {
+		List<Object[]> args = new ArrayList<>(chunk.size());
+		OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+		for (PendingRow row : chunk) {
+			args.add(insertArgs(row, now));
+		}
+		try {
+			shardRouter.onShard(shard, () ->
+				transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, args)));
+			chunk.forEach(row -> markCreated(row, results));
+		}
+		catch (DataIntegrityViolationException ex) {
+			// Someone else took one of the slugs since we checked; fall back to row-by-row inserts for this chunk
+			log.debug("Batch insert hit a unique violation, inserting {} rows individually", chunk.size());
+			chunk.forEach(row -> insertSingle(row, results, now));
+		}
+	}
+
+	private void insertSingle(PendingRow row, BulkCreateResult[] results, OffsetDateTime now) {
+		// Like ShortUrlService.createShortUrl: a custom slug that is taken is a conflict, a generated one is replaced
+		for (int attempt = 1; ; attempt++) {
+			try {
+				insert(row, now);
+				markCreated(row, results);
+				return;
+			}
+			catch (DataIntegrityViolationException ex) {
+				if (row.custom()) {
+					results[row.position] = BulkCreateResult.conflict(row.position, row.slug);
+					return;
+				}
+				if (row.dedupKey != null) {
+					// A concurrent create of the same destination on this shard may have won
+					Optional<ShortUrl> winner = deduplicator.findConflicting(row.dedupKey, row.slug);
+					if (winner.isPresent()) {
+						row.slug = winner.get().getSlug();
+						results[row.position] = created(row);
+						return;
+					}
+				}
+				if (attempt >= ShortUrlService.MAX_GENERATED_SLUG_ATTEMPTS) {
+					log.warn("No free slug after {} attempts for bulk item {}", attempt, row.position);
+					results[row.position] = BulkCreateResult.failed(row.position,
+						"Could not allocate a free slug; retry the item");
+					return;
+				}
+				metrics.recordSlugRetry();
+				// The replacement slug may belong to another shard
+				row.slug = slugAllocator.nextSlug();
+			}
+		}
+	}
+
+	private void insert(PendingRow row, OffsetDateTime now) {
+		shardRouter.onShardOf(row.slug, () -> jdbcTemplate.update(INSERT_SQL, insertArgs(row, now)));
+	}
+
+	private void markCreated(PendingRow row, BulkCreateResult[] results) {
+		slugPresenceFilter.put(row.slug);
+		shortUrlCache.invalidateCreated(row.slug);
+		results[row.position] = created(row);
+	}
+
+	private static BulkCreateResult created(PendingRow row) {
+		return BulkCreateResult.created(row.position, row.slug, row.destinationUrl, row.expiresAt);
+	}
+
+	private static Object[] insertArgs(PendingRow row, OffsetDateTime createdAt) {
+		OffsetDateTime expiresAt = row.expiresAt != null ? OffsetDateTime.ofInstant(row.expiresAt, ZoneOffset.UTC) : null;
+		String redirectPolicy = row.redirectPolicy != null ? row.redirectPolicy.name() : null;
+		return new Object[] { row.slug, row.destinationUrl, createdAt, expiresAt, redirectPolicy, row.dedupKey };
+	}
+
+	private static final class PendingRow {
+
+		private final int position;
+		private final boolean custom;
+		private final String destinationUrl;
+		private final Instant expiresAt;
+		private final RedirectPolicy redirectPolicy;
+		private final String dedupKey;
+		private String slug;
+		private PendingRow sameAs;
+
+		private PendingRow(int position, String customSlug, String destinationUrl, Instant expiresAt,
+			RedirectPolicy redirectPolicy, String dedupKey) {
+			this.position = position;
+			this.custom = customSlug != null;
+			this.slug = customSlug;
+			this.destinationUrl = destinationUrl;
+			this.expiresAt = expiresAt;
+			this.redirectPolicy = redirectPolicy;
+			this.dedupKey = dedupKey;
+		}
+
+		private boolean custom() {
+			return custom;
+		}
+	}
+}
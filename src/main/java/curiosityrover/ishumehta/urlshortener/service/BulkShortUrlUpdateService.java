@@ -0,0 +1,190 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlFilter;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlUpdate;
+
+/**
+ * Changes the destination or expiry of many short URLs with set-based {@code UPDATE} statements, without loading any
+ * entity. Links given by slug are updated {@code chunk-size} slugs per statement on their owning shard. Links
+ * selected by a filter are read in keyset order over the primary key, {@code chunk-size} ids at a time, and each
+ * chunk is updated by id with the filter checked again. Every statement commits on its own, and the changed slugs
+ * are evicted from the slug cache right after, so a failure part way leaves the earlier chunks applied.
+ * <p>
+ * Changed links lose their {@code dedup_key}: they no longer match the destination and expiry it was derived from,
+ * so later creates of the same destination get a new link rather than this one.
+ */
+@Service
+public class BulkShortUrlUpdateService {
+
+	private static final Logger log = LoggerFactory.getLogger(BulkShortUrlUpdateService.class);
+
+	private static final RowMapper<IdAndSlug> ID_AND_SLUG = (rs, rowNum) ->
+		new IdAndSlug(rs.getLong("id"), rs.getString("slug"));
+
+	private final ShortUrlService shortUrlService;
+	private final ShortUrlCache shortUrlCache;
+	private final ShardRouter shardRouter;
+	private final JdbcTemplate jdbcTemplate;
+	private final int chunkSize;
+
+	public BulkShortUrlUpdateService(ShortUrlService shortUrlService, ShortUrlCache shortUrlCache,
+		ShardRouter shardRouter, JdbcTemplate jdbcTemplate,
+		@Value("${app.shortener.batch.update-chunk-size:1000}") int chunkSize) {
+		this.shortUrlService = shortUrlService;
+		this.shortUrlCache = shortUrlCache;
+		this.shardRouter = shardRouter;
+		this.jdbcTemplate = jdbcTemplate;
+		this.chunkSize = Math.max(1, chunkSize);
+	}
+
+	public BulkUpdateResult updateSlugs(List<String> slugs, ShortUrlUpdate update) {
+		Instant now = Instant.now();
+		Assignments assignments = assignments(update, now);
+		Set<String> distinct = new LinkedHashSet<>(slugs);
+		List<String> requested = new ArrayList<>(distinct.size());
+		for (String slug : distinct) {
+			// anything that is not a slug cannot match a row, and is reported as unchanged
+			if (slug != null && ShortUrlSyntax.isSlug(slug)) {
+				requested.add(slug);
+			}
+		}
+		long[] updated = new long[1];
+		shardRouter.partition(requested, slug -> slug).forEach((shard, shardSlugs) -> {
+			for (int from = 0; from < shardSlugs.size(); from += chunkSize) {
+				List<String> chunk = shardSlugs.subList(from, Math.min(shardSlugs.size(), from + chunkSize));
+				List<Object> args = new ArrayList<>(assignments.args());
+				args.addAll(chunk);
+				StringBuilder sql = new StringBuilder("UPDATE short_urls SET ").append(assignments.sql())
+					.append(" WHERE slug IN (").append(placeholders(chunk.size())).append(')');
+				appendDeactivateGuard(update, now, sql, args);
+				updated[0] += shardRouter.onShard(shard, () -> jdbcTemplate.update(sql.toString(), args.toArray()));
+				chunk.forEach(shortUrlCache::invalidate);
+			}
+		});
+		log.info("Bulk updated {} of {} requested short URLs", updated[0], distinct.size());
+		return new BulkUpdateResult(updated[0], distinct.size() - updated[0]);
+	}
+
+	public BulkUpdateResult updateMatching(ShortUrlFilter filter, ShortUrlUpdate update) {
+		if (filter.equals(ShortUrlFilter.none())) {
+			throw new IllegalArgumentException("filter must set at least one criterion");
+		}
+		Instant now = Instant.now();
+		Assignments assignments = assignments(update, now);
+		StringBuilder criteria = new StringBuilder();
+		List<Object> criteriaArgs = new ArrayList<>();
+		ShortUrlListingService.appendFilter(filter, now, criteria, criteriaArgs);
+		appendDeactivateGuard(update, now, criteria, criteriaArgs);
+		String selectSql = "SELECT id, slug FROM short_urls WHERE id > ?" + criteria + " ORDER BY id LIMIT ?";
+
+		long updated = 0;
+		for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+			updated += shardRouter.onShard(shard, () -> updateMatchingOnShard(selectSql, criteria.toString(),
+				criteriaArgs, assignments));
+		}
+		log.info("Bulk updated {} short URLs matching {}", updated, filter);
+		return new BulkUpdateResult(updated, null);
+	}
+
+	private long updateMatchingOnShard(String selectSql, String criteria, List<Object> criteriaArgs,
+		Assignments assignments) {
+		long updated = 0;
+		long afterId = 0;
+		while (true) {
+			List<Object> selectArgs = new ArrayList<>(criteriaArgs.size() + 2);
+			selectArgs.add(afterId);
+			selectArgs.addAll(criteriaArgs);
+			selectArgs.add(chunkSize);
+			List<IdAndSlug> chunk = jdbcTemplate.query(selectSql, ID_AND_SLUG, selectArgs.toArray());
+			if (chunk.isEmpty()) {
+				return updated;
+			}
+			List<Object> args = new ArrayList<>(assignments.args());
+			chunk.forEach(row -> args.add(row.id()));
+			args.addAll(criteriaArgs);
+			// the criteria are checked again in case a row changed since it was selected
+			updated += jdbcTemplate.update("UPDATE short_urls SET " + assignments.sql() + " WHERE id IN ("
+				+ placeholders(chunk.size()) + ")" + criteria, args.toArray());
+			chunk.forEach(row -> shortUrlCache.invalidate(row.slug()));
+			if (chunk.size() < chunkSize) {
+				return updated;
+			}
+			afterId = chunk.get(chunk.size() - 1).id();
+		}
+	}
+
+	/**
+	 * Validates {@code update} and turns it into the {@code SET} list of the statements.
+	 */
+	private Assignments assignments(ShortUrlUpdate update, Instant now) {
+		int expiryChanges = (update.expiresAt() != null ? 1 : 0) + (update.clearExpiry() ? 1 : 0)
+			+ (update.deactivate() ? 1 : 0);
+		if (expiryChanges > 1) {
+			throw new IllegalArgumentException("Only one of expiresAt, clearExpiry and deactivate may be set");
+		}
+		if (expiryChanges == 0 && update.destinationUrl() == null) {
+			throw new IllegalArgumentException("Nothing to update: set destinationUrl, expiresAt, clearExpiry or deactivate");
+		}
+		List<String> columns = new ArrayList<>();
+		List<Object> args = new ArrayList<>();
+		if (update.destinationUrl() != null) {
+			columns.add("destination_url = ?");
+			args.add(shortUrlService.normalizeDestinationUrl(update.destinationUrl()));
+		}
+		if (update.expiresAt() != null) {
+			columns.add("expires_at = ?");
+			args.add(utc(shortUrlService.normalizeExpiry(update.expiresAt())));
+		}
+		else if (update.clearExpiry()) {
+			columns.add("expires_at = NULL");
+		}
+		else if (update.deactivate()) {
+			columns.add("expires_at = ?");
+			args.add(utc(now));
+		}
+		columns.add("dedup_key = NULL");
+		return new Assignments(String.join(", ", columns), args);
+	}
+
+	/**
+	 * Leaves links that have already expired alone when deactivating, so their expiry (and the reaper's grace period)
+	 * does not start over.
+	 */
+	private static void appendDeactivateGuard(ShortUrlUpdate update, Instant now, StringBuilder sql,
+		List<Object> args) {
+		if (update.deactivate()) {
+			sql.append(" AND (expires_at IS NULL OR expires_at > ?)");
+			args.add(utc(now));
+		}
+	}
+
+	private static String placeholders(int count) {
+		return String.join(", ", Collections.nCopies(count, "?"));
+	}
+
+	private static OffsetDateTime utc(Instant instant) {
+		return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+	}
+
+	private record Assignments(String sql, List<Object> args) {
+	}
+
+	private record IdAndSlug(long id, String slug) {
+	}
+}
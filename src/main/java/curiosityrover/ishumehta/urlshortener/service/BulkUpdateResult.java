@@ -0,0 +1,9 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+/**
+ * @param updated rows changed
+ * @param unchanged requested slugs that were not changed because they do not exist (or, when deactivating, had
+ * already expired); {@code null} for updates selected by filter
+ */
+public record BulkUpdateResult(long updated, Long unchanged) {
+}
@@ -0,0 +1,148 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import curiosityrover.ishumehta.urlshortener.model.Click;
+import curiosityrover.ishumehta.urlshortener.model.ClickRollup.Granularity;
+
+/**
+ * Captures clicks on the redirect path into a bounded in-memory buffer (dropping, never blocking, when it is full)
+ * and answers stats queries from the rollup table.
+ */
+@Service
+public class ClickAnalyticsService {
+
+	static final int MAX_STATS_BUCKETS = 5000;
+
+	private final BoundedRingBuffer<Click> buffer;
+	private final JdbcTemplate jdbcTemplate;
+	private final boolean enabled;
+	private final String countryHeader;
+	private final LongAdder accepted = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+
+	public ClickAnalyticsService(JdbcTemplate jdbcTemplate,
+		@Value("${app.analytics.enabled:true}") boolean enabled,
+		@Value("${app.analytics.buffer-capacity:65536}") int bufferCapacity,
+		@Value("${app.analytics.country-header:CF-IPCountry}") String countryHeader) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.enabled = enabled;
+		this.buffer = new BoundedRingBuffer<>(bufferCapacity);
+		this.countryHeader = countryHeader;
+	}
+
+	public String getCountryHeader() {
+		return countryHeader;
+	}
+
+	public void record(String slug, String referer, String userAgent, String country) {
+		if (!enabled) {
+			return;
+		}
+		Click click = new Click(slug, Instant.now(), referrerHost(referer), classifyUserAgent(userAgent),
+			normalizeCountry(country));
+		if (buffer.offer(click)) {
+			accepted.increment();
+		}
+		else {
+			dropped.increment();
+		}
+	}
+
+	@Transactional(readOnly = true)
+	public ClickStats getStats(String slug, Granularity granularity, Instant from, Instant to) {
+		Instant start = granularity.bucketStart(from);
+		if (!to.isAfter(start)) {
+			throw new IllegalArgumentException("'to' must be after 'from'");
+		}
+		long buckets = Duration.between(start, to).dividedBy(granularity.bucketLength());
+		if (buckets > MAX_STATS_BUCKETS) {
+			throw new IllegalArgumentException("Requested range spans more than " + MAX_STATS_BUCKETS + " "
+				+ granularity.name().toLowerCase(Locale.ROOT) + " buckets; use a coarser granularity");
+		}
+		List<ClickStats.Bucket> rows = jdbcTemplate.query("""
+				SELECT bucket_start, clicks FROM click_rollups
+				WHERE slug = ? AND granularity = ? AND bucket_start >= ? AND bucket_start < ?
+				ORDER BY bucket_start""",
+			(rs, rowNum) -> new ClickStats.Bucket(rs.getObject(1, OffsetDateTime.class).toInstant(), rs.getLong(2)),
+			slug, granularity.name(), OffsetDateTime.ofInstant(start, ZoneOffset.UTC),
+			OffsetDateTime.ofInstant(to, ZoneOffset.UTC));
+		long total = rows.stream().mapToLong(ClickStats.Bucket::clicks).sum();
+		return new ClickStats(slug, granularity, start, to, total, rows);
+	}
+
+	BoundedRingBuffer<Click> buffer() {
+		return buffer;
+	}
+
+	public long acceptedCount() {
+		return accepted.sum();
+	}
+
+	public long droppedCount() {
+		return dropped.sum();
+	}
+
+	public int bufferedCount() {
+		return buffer.size();
+	}
+
+	static String referrerHost(String referer) {
+		if (referer == null || referer.isEmpty()) {
+			return null;
+		}
+		int start = referer.indexOf("://");
+		start = start < 0 ? 0 : start + 3;
+		int end = start;
+		while (end < referer.length()) {
+			char c = referer.charAt(end);
+			if (c == '/' || c == '?' || c == '#' || c == ':') {
+				break;
+			}
+			end++;
+		}
+		if (end == start) {
+			return null;
+		}
+		String host = referer.substring(start, Math.min(end, start + 255));
+		return host.toLowerCase(Locale.ROOT);
+	}
+
+	static Click.UserAgentClass classifyUserAgent(String userAgent) {
+		if (userAgent == null || userAgent.isBlank()) {
+			return Click.UserAgentClass.UNKNOWN;
+		}
+		String ua = userAgent.toLowerCase(Locale.ROOT);
+		if (ua.contains("bot") || ua.contains("spider") || ua.contains("crawl") || ua.contains("curl")
+			|| ua.contains("wget") || ua.contains("python-requests")) {
+			return Click.UserAgentClass.BOT;
+		}
+		if (ua.contains("mobi") || ua.contains("android") || ua.contains("iphone") || ua.contains("ipad")) {
+			return Click.UserAgentClass.MOBILE;
+		}
+		return Click.UserAgentClass.DESKTOP;
+	}
+
+	static String normalizeCountry(String country) {
+		if (country == null || country.length() != 2) {
+			return null;
+		}
+		char first = Character.toUpperCase(country.charAt(0));
+		char second = Character.toUpperCase(country.charAt(1));
+		if (first < 'A' || first > 'Z' || second < 'A' || second > 'Z') {
+			return null;
+		}
+		return new String(new char[] { first, second });
+	}
+}
@@ -0,0 +1,203 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import curiosityrover.ishumehta.urlshortener.model.Click;
+import curiosityrover.ishumehta.urlshortener.model.ClickRollup.Granularity;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background writer that drains the click buffer, appends the raw events to {@code click_events} and folds them
+ * into the minute/hour/day {@code click_rollups} in the same transaction. Also purges raw events and fine-grained
+ * rollups past their retention.
+ */
+@Component
+public class ClickEventWriter {
+
+	private static final Logger log = LoggerFactory.getLogger(ClickEventWriter.class);
+
+	static final String INSERT_EVENT_SQL = """
+		INSERT INTO click_events (slug, clicked_at, referrer_host, user_agent_class, country)
+		VALUES (?, ?, ?, ?, ?)""";
+	static final String UPDATE_ROLLUP_SQL = """
+		UPDATE click_rollups SET clicks = clicks + ?
+		WHERE slug = ? AND granularity = ? AND bucket_start = ?""";
+	static final String INSERT_ROLLUP_SQL = """
+		INSERT INTO click_rollups (slug, granularity, bucket_start, clicks) VALUES (?, ?, ?, ?)""";
+
+	private static final int PURGE_CHUNK_SIZE = 10_000;
+
+	private final ClickAnalyticsService analyticsService;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+	private final Duration rawRetention;
+	private final Duration minuteRetention;
+	private final Duration hourRetention;
+	private final ReentrantLock drainLock = new ReentrantLock();
+	private final LongAdder written = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+
+	public ClickEventWriter(ClickAnalyticsService analyticsService, JdbcTemplate jdbcTemplate,
+		TransactionTemplate transactionTemplate,
+		@Value("${app.analytics.batch-size:1000}") int batchSize,
+		@Value("${app.analytics.raw-retention:P30D}") Duration rawRetention,
+		@Value("${app.analytics.minute-retention:P7D}") Duration minuteRetention,
+		@Value("${app.analytics.hour-retention:P90D}") Duration hourRetention) {
+		this.analyticsService = analyticsService;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.batchSize = Math.max(1, batchSize);
+		this.rawRetention = rawRetention;
+		this.minuteRetention = minuteRetention;
+		this.hourRetention = hourRetention;
+	}
+
+	@Scheduled(fixedDelayString = "${app.analytics.flush-interval:PT1S}")
+	public void drain() {
+		if (!drainLock.tryLock()) {
+			return;
+		}
+		try {
+			drainBuffer();
+		}
+		finally {
+			drainLock.unlock();
+		}
+	}
+
+	@PreDestroy
+	public void drainOnShutdown() {
+		drainLock.lock();
+		try {
+			drainBuffer();
+		}
+		finally {
+			drainLock.unlock();
+		}
+	}
+
+	public long writtenCount() {
+		return written.sum();
+	}
+
+	public long failedCount() {
+		return failed.sum();
+	}
+
+	@Scheduled(fixedDelayString = "${app.analytics.purge-interval:PT1H}",
+		initialDelayString = "${app.analytics.purge-interval:PT1H}")
+	public void purgeExpired() {
+		Instant now = Instant.now();
+		int events = 0;
+		int deleted;
+		do {
+			deleted = jdbcTemplate.update("""
+					DELETE FROM click_events WHERE id IN (
+					  SELECT id FROM click_events WHERE clicked_at < ? ORDER BY id LIMIT ?)""",
+				utc(now.minus(rawRetention)), PURGE_CHUNK_SIZE);
+			events += deleted;
+		}
+		while (deleted == PURGE_CHUNK_SIZE);
+		int rollups = jdbcTemplate.update("DELETE FROM click_rollups WHERE granularity = ? AND bucket_start < ?",
+			Granularity.MINUTE.name(), utc(now.minus(minuteRetention)));
+		rollups += jdbcTemplate.update("DELETE FROM click_rollups WHERE granularity = ? AND bucket_start < ?",
+			Granularity.HOUR.name(), utc(now.minus(hourRetention)));
+		if (events > 0 || rollups > 0) {
+			log.info("Purged {} raw click events and {} expired rollup rows", events, rollups);
+		}
+	}
+
+	private void drainBuffer() {
+		List<Click> batch = new ArrayList<>(batchSize);
+		while (analyticsService.buffer().drainTo(batch, batchSize) > 0) {
+			write(batch);
+			batch.clear();
+		}
+	}
+
+	private void write(List<Click> clicks) {
+		Map<RollupKey, Long> rollups = new HashMap<>();
+		List<Object[]> eventArgs = new ArrayList<>(clicks.size());
+		for (Click click : clicks) {
+			eventArgs.add(new Object[] {
+				click.slug(),
+				utc(click.clickedAt()),
+				click.referrerHost(),
+				click.userAgentClass().name(),
+				click.country()
+			});
+			for (Granularity granularity : Granularity.values()) {
+				rollups.merge(new RollupKey(click.slug(), granularity, granularity.bucketStart(click.clickedAt())),
+					1L, Long::sum);
+			}
+		}
+		try {
+			try {
+				writeTransactionally(eventArgs, rollups);
+			}
+			catch (DuplicateKeyException ex) {
+				// Another node inserted one of the new rollup rows first; the retry takes the update path
+				writeTransactionally(eventArgs, rollups);
+			}
+			written.add(clicks.size());
+		}
+		catch (DataAccessException ex) {
+			failed.add(clicks.size());
+			log.warn("Dropped {} click events that could not be written: {}", clicks.size(), ex.getMessage());
+		}
+	}
+
+	private void writeTransactionally(List<Object[]> eventArgs, Map<RollupKey, Long> rollups) {
+		transactionTemplate.executeWithoutResult(status -> {
+			jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, eventArgs);
+			upsertRollups(rollups);
+		});
+	}
+
+	private void upsertRollups(Map<RollupKey, Long> rollups) {
+		List<RollupKey> keys = new ArrayList<>(rollups.keySet());
+		List<Object[]> updateArgs = new ArrayList<>(keys.size());
+		for (RollupKey key : keys) {
+			updateArgs.add(new Object[] { rollups.get(key), key.slug(), key.granularity().name(), utc(key.bucketStart()) });
+		}
+		int[] updated = jdbcTemplate.batchUpdate(UPDATE_ROLLUP_SQL, updateArgs);
+
+		List<Object[]> insertArgs = new ArrayList<>();
+		for (int i = 0; i < keys.size(); i++) {
+			if (updated[i] == 0) {
+				RollupKey key = keys.get(i);
+				insertArgs.add(new Object[] { key.slug(), key.granularity().name(), utc(key.bucketStart()), rollups.get(key) });
+			}
+		}
+		if (!insertArgs.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT_ROLLUP_SQL, insertArgs);
+		}
+	}
+
+	private static OffsetDateTime utc(Instant instant) {
+		return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+	}
+
+	private record RollupKey(String slug, Granularity granularity, Instant bucketStart) {
+	}
+}
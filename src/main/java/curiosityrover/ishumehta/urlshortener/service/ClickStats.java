@@ -0,0 +1,13 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Instant;
+import java.util.List;
+
+import curiosityrover.ishumehta.urlshortener.model.ClickRollup.Granularity;
+
+public record ClickStats(String slug, Granularity granularity, Instant from, Instant to, long totalClicks,
+	List<Bucket> buckets) {
+
+	public record Bucket(Instant start, long clicks) {
+	}
+}
@@ -0,0 +1,92 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring placing {@code virtualNodes} points per shard, named {@code <shard name>#<i>}. A key belongs
+ * to the first point clockwise from its hash, so adding a shard only moves the keys that land on the new shard's
+ * points (about {@code 1/n} of them) and leaves every other key where it was.
+ * <p>
+ * Placement depends only on the shard names and this hash, which therefore must never change once data is stored.
+ */
+public final class ConsistentHashRing {
+
+	private final int shardCount;
+	private final long[] points;
+	private final int[] owners;
+
+	public ConsistentHashRing(List<String> shardNames, int virtualNodes) {
+		if (shardNames.isEmpty()) {
+			throw new IllegalArgumentException("At least one shard is required");
+		}
+		if (virtualNodes < 1) {
+			throw new IllegalArgumentException("virtualNodes must be positive");
+		}
+		TreeMap<Long, Integer> ring = new TreeMap<>();
+		for (int shard = 0; shard < shardNames.size(); shard++) {
+			for (int i = 0; i < virtualNodes; i++) {
+				// On the (astronomically unlikely) collision the earlier shard keeps the point, deterministically
+				ring.putIfAbsent(hash(shardNames.get(shard) + "#" + i), shard);
+			}
+		}
+		this.shardCount = shardNames.size();
+		this.points = new long[ring.size()];
+		this.owners = new int[ring.size()];
+		int i = 0;
+		for (Map.Entry<Long, Integer> point : ring.entrySet()) {
+			points[i] = point.getKey();
+			owners[i] = point.getValue();
+			i++;
+		}
+	}
+
+	public int shardFor(String key) {
+		int index = Arrays.binarySearch(points, hash(key));
+		if (index < 0) {
+			index = -index - 1;
+		}
+		return owners[index == points.length ? 0 : index];
+	}
+
+	public int shardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * Fraction of the hash space each shard owns, indexed by shard.
+	 */
+	public double[] ownership() {
+		double[] share = new double[shardCount];
+		if (points.length == 1) {
+			share[owners[0]] = 1.0;
+			return share;
+		}
+		for (int i = 0; i < points.length; i++) {
+			// Point i owns the arc after the previous point up to itself; the subtraction wraps around for i = 0
+			long arc = points[i] - points[i == 0 ? points.length - 1 : i - 1];
+			share[owners[i]] += ((arc >>> 1) * 2.0 + (arc & 1)) / 0x1p64;
+		}
+		return share;
+	}
+
+	/**
+	 * FNV-1a over the UTF-16 code units followed by the MurmurHash3 finaliser, which spreads the short, similar
+	 * strings used as slugs and point names evenly over the 64-bit ring.
+	 */
+	static long hash(String value) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			h ^= value.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,119 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
+import curiosityrover.ishumehta.urlshortener.repository.ShortUrlRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Finds an existing link for a create request, so that shortening the same destination again returns the same slug
+ * instead of a new row. Links match when their normalized destination, expiry and redirect policy are all equal;
+ * the SHA-256 of those is stored in the indexed {@code dedup_key} column, which is unique per shard.
+ * <p>
+ * Recently seen keys are remembered with their slug. That saves the index lookup, and with sharding it saves asking
+ * every shard, since a key does not tell which shard holds its row. A remembered slug is re-read and its key checked
+ * before it is returned, so a link that was since deleted or changed is not handed out.
+ */
+@Component
+public class DestinationDeduplicator implements MeterBinder {
+
+	private final ShortUrlRepository repository;
+	private final ShardRouter shardRouter;
+	private final boolean enabled;
+	private final Cache<String, String> recentSlugs;
+
+	public DestinationDeduplicator(ShortUrlRepository repository, ShardRouter shardRouter,
+		@Value("${app.shortener.dedup.enabled:false}") boolean enabled,
+		@Value("${app.shortener.dedup.cache-size:10000}") long cacheSize) {
+		this.repository = repository;
+		this.shardRouter = shardRouter;
+		this.enabled = enabled;
+		this.recentSlugs = Caffeine.newBuilder()
+			.maximumSize(Math.max(0, cacheSize))
+			.recordStats()
+			.build();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * The dedup key for a create request, or {@code null} when deduplication is disabled.
+	 */
+	public String keyFor(String normalizedUrl, Instant expiresAt, RedirectPolicy redirectPolicy) {
+		if (!enabled) {
+			return null;
+		}
+		String identity = normalizedUrl + '\n' + (expiresAt != null ? expiresAt : "") + '\n'
+			+ (redirectPolicy != null ? redirectPolicy.name() : "");
+		return HexFormat.of().formatHex(sha256().digest(identity.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * The link stored under {@code dedupKey}, if any.
+	 */
+	public Optional<ShortUrl> find(String dedupKey) {
+		String slug = recentSlugs.getIfPresent(dedupKey);
+		if (slug != null) {
+			Optional<ShortUrl> remembered = shardRouter.onShardOf(slug, () -> repository.findBySlug(slug))
+				.filter(shortUrl -> dedupKey.equals(shortUrl.getDedupKey()));
+			if (remembered.isPresent()) {
+				return remembered;
+			}
+			recentSlugs.invalidate(dedupKey);
+		}
+		Optional<ShortUrl> found = shardRouter.gather(shard -> repository.findByDedupKey(dedupKey)).stream()
+			.flatMap(Optional::stream)
+			.findFirst();
+		found.ifPresent(this::remember);
+		return found;
+	}
+
+	/**
+	 * After an insert on {@code slug}'s shard failed: the link that won a concurrent create of the same key, read
+	 * from the primary.
+	 */
+	public Optional<ShortUrl> findConflicting(String dedupKey, String slug) {
+		Optional<ShortUrl> found = shardRouter.onShardOf(slug, () -> repository.findByDedupKeyOnPrimary(dedupKey));
+		found.ifPresent(this::remember);
+		return found;
+	}
+
+	public void remember(ShortUrl shortUrl) {
+		if (enabled && shortUrl.getDedupKey() != null) {
+			recentSlugs.put(shortUrl.getDedupKey(), shortUrl.getSlug());
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		if (enabled) {
+			CaffeineCacheMetrics.monitor(registry, recentSlugs, "destinations");
+		}
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+}
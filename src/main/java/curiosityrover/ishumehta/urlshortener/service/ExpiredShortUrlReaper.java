@@ -0,0 +1,216 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Removes short URLs whose {@code expires_at} lies more than the grace period in the past. Candidates are read in
+ * keyset order over {@code idx_short_urls_expires_at}, and each batch is archived to {@code short_urls_archive} (or
+ * deleted) in its own short transaction, then evicted from the slug cache. Until the grace period is over an expired
+ * link keeps answering 410 rather than 404. Each shard is reaped in turn, with the same per-run row limit.
+ */
+@Component
+public class ExpiredShortUrlReaper {
+
+	private static final Logger log = LoggerFactory.getLogger(ExpiredShortUrlReaper.class);
+
+	static final String SELECT_FIRST_SQL = """
+		SELECT id, slug, expires_at FROM short_urls
+		WHERE expires_at < ?
+		ORDER BY expires_at, id
+		LIMIT ?""";
+	static final String SELECT_NEXT_SQL = """
+		SELECT id, slug, expires_at FROM short_urls
+		WHERE expires_at < ? AND (expires_at > ? OR (expires_at = ? AND id > ?))
+		ORDER BY expires_at, id
+		LIMIT ?""";
+	static final String ARCHIVE_SQL = """
+		INSERT INTO short_urls_archive
+		  (id, slug, destination_url, created_at, last_accessed_at, hit_count, expires_at, redirect_policy, archived_at)
+		SELECT id, slug, destination_url, created_at, last_accessed_at, hit_count, expires_at, redirect_policy, ?
+		FROM short_urls WHERE expires_at < ? AND id IN (%s)""";
+	static final String DELETE_SQL = "DELETE FROM short_urls WHERE expires_at < ? AND id IN (%s)";
+	static final String PURGE_ARCHIVE_SQL = """
+		DELETE FROM short_urls_archive WHERE id IN (
+		  SELECT id FROM short_urls_archive WHERE archived_at < ? ORDER BY archived_at LIMIT ?)""";
+
+	private static final RowMapper<ExpiredRow> ROW_MAPPER = (rs, rowNum) -> new ExpiredRow(
+		rs.getLong("id"), rs.getString("slug"), rs.getObject("expires_at", OffsetDateTime.class));
+
+	public enum Mode {
+		ARCHIVE, DELETE
+	}
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final ShortUrlCache shortUrlCache;
+	private final ShardRouter shardRouter;
+	private final boolean enabled;
+	private final Mode mode;
+	private final Duration gracePeriod;
+	private final Duration archiveRetention;
+	private final int batchSize;
+	private final long maxRowsPerRun;
+	private final Counter reclaimedCounter;
+	private final Counter archivePurgedCounter;
+	private final ReentrantLock runLock = new ReentrantLock();
+
+	public ExpiredShortUrlReaper(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+		ShortUrlCache shortUrlCache, ShardRouter shardRouter, MeterRegistry meterRegistry,
+		@Value("${app.shortener.expiry.reaper-enabled:true}") boolean enabled,
+		@Value("${app.shortener.expiry.mode:archive}") Mode mode,
+		@Value("${app.shortener.expiry.grace-period:P1D}") Duration gracePeriod,
+		@Value("${app.shortener.expiry.archive-retention:P90D}") Duration archiveRetention,
+		@Value("${app.shortener.expiry.batch-size:500}") int batchSize,
+		@Value("${app.shortener.expiry.max-rows-per-run:100000}") long maxRowsPerRun) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.shortUrlCache = shortUrlCache;
+		this.shardRouter = shardRouter;
+		this.enabled = enabled;
+		this.mode = mode;
+		this.gracePeriod = gracePeriod;
+		this.archiveRetention = archiveRetention;
+		this.batchSize = Math.max(1, batchSize);
+		this.maxRowsPerRun = Math.max(1L, maxRowsPerRun);
+		this.reclaimedCounter = Counter.builder("shortener.expiry.reclaimed")
+			.description("Expired short URLs removed from short_urls")
+			.tag("mode", mode.name().toLowerCase(Locale.ROOT))
+			.register(meterRegistry);
+		this.archivePurgedCounter = Counter.builder("shortener.expiry.archive.purged")
+			.description("Archived short URLs deleted after the archive retention")
+			.register(meterRegistry);
+	}
+
+	@Scheduled(fixedDelayString = "${app.shortener.expiry.reaper-interval:PT5M}",
+		initialDelayString = "${app.shortener.expiry.reaper-interval:PT5M}")
+	public void scheduledReap() {
+		if (enabled) {
+			reap();
+		}
+	}
+
+	/**
+	 * Runs one reaper pass unless another one is in progress on this instance.
+	 */
+	public ReapResult reap() {
+		if (!runLock.tryLock()) {
+			return ReapResult.SKIPPED;
+		}
+		try {
+			long started = System.nanoTime();
+			Instant now = Instant.now();
+			long reclaimed = 0;
+			long purged = 0;
+			for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+				reclaimed += shardRouter.onShard(shard, () -> reclaimExpired(now.minus(gracePeriod), now));
+				if (mode == Mode.ARCHIVE) {
+					purged += shardRouter.onShard(shard, () -> purgeArchive(now.minus(archiveRetention)));
+				}
+			}
+			ReapResult result = new ReapResult(reclaimed, purged, Duration.ofNanos(System.nanoTime() - started));
+			if (reclaimed > 0 || purged > 0) {
+				log.info("Expiry reaper ({}) reclaimed {} short URLs and purged {} archived rows in {} ms",
+					mode.name().toLowerCase(Locale.ROOT), reclaimed, purged, result.elapsed().toMillis());
+			}
+			return result;
+		}
+		finally {
+			runLock.unlock();
+		}
+	}
+
+	private long reclaimExpired(Instant cutoff, Instant now) {
+		OffsetDateTime expiredBefore = utc(cutoff);
+		OffsetDateTime archivedAt = utc(now);
+		long reclaimed = 0;
+		ExpiredRow cursor = null;
+		while (reclaimed < maxRowsPerRun) {
+			int limit = (int) Math.min(batchSize, maxRowsPerRun - reclaimed);
+			List<ExpiredRow> batch = cursor == null
+				? jdbcTemplate.query(SELECT_FIRST_SQL, ROW_MAPPER, expiredBefore, limit)
+				: jdbcTemplate.query(SELECT_NEXT_SQL, ROW_MAPPER, expiredBefore, cursor.expiresAt(),
+					cursor.expiresAt(), cursor.id(), limit);
+			if (batch.isEmpty()) {
+				break;
+			}
+			try {
+				reclaimed += removeBatch(batch, expiredBefore, archivedAt);
+			}
+			catch (DuplicateKeyException ex) {
+				// Another instance is archiving the same rows; leave the rest of this run to it
+				log.debug("Expired short URLs are being archived concurrently, stopping this run");
+				break;
+			}
+			batch.forEach(row -> shortUrlCache.invalidate(row.slug()));
+			if (batch.size() < limit) {
+				break;
+			}
+			cursor = batch.get(batch.size() - 1);
+		}
+		reclaimedCounter.increment(reclaimed);
+		return reclaimed;
+	}
+
+	private int removeBatch(List<ExpiredRow> batch, OffsetDateTime expiredBefore, OffsetDateTime archivedAt) {
+		String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+		List<Object> deleteArgs = new ArrayList<>(batch.size() + 1);
+		deleteArgs.add(expiredBefore);
+		batch.forEach(row -> deleteArgs.add(row.id()));
+		Integer deleted = transactionTemplate.execute(status -> {
+			if (mode == Mode.ARCHIVE) {
+				List<Object> archiveArgs = new ArrayList<>(batch.size() + 2);
+				archiveArgs.add(archivedAt);
+				archiveArgs.addAll(deleteArgs);
+				jdbcTemplate.update(ARCHIVE_SQL.formatted(placeholders), archiveArgs.toArray());
+			}
+			// expires_at is re-checked in case the link was extended since it was selected
+			return jdbcTemplate.update(DELETE_SQL.formatted(placeholders), deleteArgs.toArray());
+		});
+		return deleted != null ? deleted : 0;
+	}
+
+	private long purgeArchive(Instant cutoff) {
+		long purged = 0;
+		int deleted;
+		do {
+			deleted = jdbcTemplate.update(PURGE_ARCHIVE_SQL, utc(cutoff), batchSize);
+			purged += deleted;
+		}
+		while (deleted == batchSize);
+		archivePurgedCounter.increment(purged);
+		return purged;
+	}
+
+	private static OffsetDateTime utc(Instant instant) {
+		return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+	}
+
+	public record ReapResult(long reclaimed, long archivePurged, Duration elapsed) {
+
+		static final ReapResult SKIPPED = new ReapResult(0, 0, Duration.ZERO);
+	}
+
+	record ExpiredRow(long id, String slug, OffsetDateTime expiresAt) {
+	}
+}
@@ -0,0 +1,67 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+/**
+ * Keyed bijection over {@code [0, domain)}. A balanced Feistel network permutes the smallest even-width bit range
+ * covering the domain and cycle-walks until the result falls back inside it, so sequential counters map to
+ * unique, non-sequential values.
+ */
+final class FeistelPermutation {
+
+	private static final int ROUNDS = 4;
+
+	private final long domain;
+	private final int halfBits;
+	private final long halfMask;
+	private final long[] roundKeys = new long[ROUNDS];
+
+	FeistelPermutation(long domain, long key) {
+		if (domain < 2) {
+			throw new IllegalArgumentException("Domain must contain at least two values");
+		}
+		this.domain = domain;
+		int bits = 64 - Long.numberOfLeadingZeros(domain - 1);
+		if (bits > 62) {
+			throw new IllegalArgumentException("Domain is too large to permute");
+		}
+		this.halfBits = (bits + 1) / 2;
+		this.halfMask = (1L << halfBits) - 1;
+		long state = key;
+		for (int i = 0; i < ROUNDS; i++) {
+			state += 0x9E3779B97F4A7C15L;
+			roundKeys[i] = mix(state);
+		}
+	}
+
+	long domain() {
+		return domain;
+	}
+
+	long permute(long value) {
+		if (value < 0 || value >= domain) {
+			throw new IllegalArgumentException("Value outside of permutation domain: " + value);
+		}
+		long result = value;
+		do {
+			result = encrypt(result);
+		}
+		while (result >= domain);
+		return result;
+	}
+
+	private long encrypt(long value) {
+		long left = value >>> halfBits;
+		long right = value & halfMask;
+		for (long roundKey : roundKeys) {
+			long next = left ^ (mix(right ^ roundKey) & halfMask);
+			left = right;
+			right = next;
+		}
+		return (left << halfBits) | right;
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
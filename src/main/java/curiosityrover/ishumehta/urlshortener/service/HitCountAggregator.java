@@ -0,0 +1,129 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import curiosityrover.ishumehta.urlshortener.service.PendingHitCounts.HitDelta;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Accumulates redirect hits per slug in memory and writes them to {@code short_urls} in periodic batched
+ * {@code UPDATE ... SET hit_count = hit_count + ?} statements, so a redirect never takes a row lock.
+ * Hits recorded since the last successful flush are lost if the process dies; the flush interval bounds that window.
+ * Each flush writes every shard's hits to that shard.
+ */
+@Component
+public class HitCountAggregator {
+
+	private static final Logger log = LoggerFactory.getLogger(HitCountAggregator.class);
+
+	static final String INCREMENT_SQL = """
+		UPDATE short_urls
+		SET hit_count = hit_count + ?,
+		    last_accessed_at = CASE WHEN last_accessed_at IS NULL OR last_accessed_at < ? THEN ? ELSE last_accessed_at END
+		WHERE slug = ?""";
+
+	private final PendingHitCounts pending = new PendingHitCounts();
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final JdbcTemplate jdbcTemplate;
+	private final ShardRouter shardRouter;
+	private final boolean writeBehind;
+	private final int batchSize;
+
+	public HitCountAggregator(JdbcTemplate jdbcTemplate, ShardRouter shardRouter,
+		@Value("${app.shortener.hits.write-behind:true}") boolean writeBehind,
+		@Value("${app.shortener.hits.batch-size:500}") int batchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.shardRouter = shardRouter;
+		this.writeBehind = writeBehind;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	public void record(String slug) {
+		long now = System.currentTimeMillis();
+		if (!writeBehind) {
+			shardRouter.onShardOf(slug, () -> jdbcTemplate.update(INCREMENT_SQL, incrementArgs(slug, 1L, now)));
+			return;
+		}
+		pending.record(slug, 1L, now);
+	}
+
+	public long pendingSlugCount() {
+		return pending.size();
+	}
+
+	@Scheduled(fixedDelayString = "${app.shortener.hits.flush-interval:PT5S}")
+	public void flush() {
+		if (!flushLock.tryLock()) {
+			return;
+		}
+		try {
+			flushPending();
+		}
+		finally {
+			flushLock.unlock();
+		}
+	}
+
+	@PreDestroy
+	public void flushOnShutdown() {
+		flushLock.lock();
+		try {
+			flushPending();
+		}
+		finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void flushPending() {
+		List<HitDelta> deltas = pending.drain();
+		if (deltas.isEmpty()) {
+			return;
+		}
+		shardRouter.partition(deltas, HitDelta::slug).forEach((shard, shardDeltas) ->
+			shardRouter.onShard(shard, () -> flushShard(shardDeltas)));
+		log.debug("Flushed hit counters for {} slugs", deltas.size());
+	}
+
+	private void flushShard(List<HitDelta> deltas) {
+		for (int from = 0; from < deltas.size(); from += batchSize) {
+			List<HitDelta> chunk = deltas.subList(from, Math.min(deltas.size(), from + batchSize));
+			try {
+				writeChunk(chunk);
+			}
+			catch (DataAccessException ex) {
+				// Put the unwritten hits back so the next flush retries them
+				List<HitDelta> unwritten = deltas.subList(from, deltas.size());
+				unwritten.forEach(pending::restore);
+				log.warn("Failed to flush {} pending hit counters, will retry: {}", unwritten.size(), ex.getMessage());
+				return;
+			}
+		}
+	}
+
+	private void writeChunk(List<HitDelta> chunk) {
+		List<Object[]> args = new ArrayList<>(chunk.size());
+		for (HitDelta delta : chunk) {
+			args.add(incrementArgs(delta.slug(), delta.hits(), delta.lastAccessMillis()));
+		}
+		jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+	}
+
+	private static Object[] incrementArgs(String slug, long hits, long lastAccessMillis) {
+		OffsetDateTime accessedAt = OffsetDateTime.ofInstant(Instant.ofEpochMilli(lastAccessMillis), ZoneOffset.UTC);
+		return new Object[] { hits, accessedAt, accessedAt, slug };
+	}
+}
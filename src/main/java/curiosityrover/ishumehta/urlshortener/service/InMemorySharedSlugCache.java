@@ -0,0 +1,91 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for the shared cache tier, with the same expiry, lease and broadcast semantics as
+ * {@link RedisSharedSlugCache}. Several {@link ShortUrlCache}s built on one instance behave like nodes sharing one
+ * Redis, which is how the two-level cache is tested; it is also usable for local runs without Redis.
+ */
+public class InMemorySharedSlugCache implements SharedSlugCache {
+
+	private final Map<String, Entry> values = new ConcurrentHashMap<>();
+	private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+	private final List<Consumer<Invalidation>> listeners = new CopyOnWriteArrayList<>();
+
+	@Override
+	public String get(String slug) {
+		Entry entry = values.get(slug);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.expiresAtNanos() - System.nanoTime() <= 0) {
+			values.remove(slug, entry);
+			return null;
+		}
+		return entry.value();
+	}
+
+	@Override
+	public void put(String slug, String value, Duration ttl) {
+		if (ttl.isZero() || ttl.isNegative()) {
+			values.remove(slug);
+			return;
+		}
+		values.put(slug, new Entry(value, System.nanoTime() + ttl.toNanos()));
+	}
+
+	@Override
+	public void evict(String slug) {
+		values.remove(slug);
+		leases.remove(slug);
+	}
+
+	@Override
+	public String tryLease(String slug, Duration leaseTime) {
+		long now = System.nanoTime();
+		Lease lease = new Lease(Long.toHexString(ThreadLocalRandom.current().nextLong()), now + leaseTime.toNanos());
+		Lease held = leases.compute(slug,
+			(key, current) -> current != null && current.expiresAtNanos() - now > 0 ? current : lease);
+		return held == lease ? lease.token() : null;
+	}
+
+	@Override
+	public void putLeased(String slug, String leaseToken, String value, Duration ttl) {
+		boolean[] held = new boolean[1];
+		leases.computeIfPresent(slug, (key, current) -> {
+			held[0] = current.token().equals(leaseToken) && current.expiresAtNanos() - System.nanoTime() > 0;
+			return current.token().equals(leaseToken) ? null : current;
+		});
+		if (held[0] && value != null) {
+			put(slug, value, ttl);
+		}
+	}
+
+	@Override
+	public void publish(Invalidation invalidation) {
+		listeners.forEach(listener -> listener.accept(invalidation));
+	}
+
+	@Override
+	public void subscribe(Consumer<Invalidation> listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public String type() {
+		return "in-memory";
+	}
+
+	private record Entry(String value, long expiresAtNanos) {
+	}
+
+	private record Lease(String token, long expiresAtNanos) {
+	}
+}
@@ -0,0 +1,88 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hits per slug not yet written to the database, with the latest access time of each. Recording is a
+ * {@code LongAdder} increment once the slug has an entry, so hot slugs do not contend on a lock. Entries that see no
+ * hits for a whole drain interval are dropped on the next drain.
+ * <p>
+ * A recorder may still hold a dropped entry and add to it. Dropped entries are therefore marked retired, and whoever
+ * meets a retired entry (the drain that dropped it, or a recorder that sees the mark after adding) moves what it
+ * still holds into the live entry. {@code sumThenReset} takes each cell atomically, so every hit is moved exactly
+ * once: a recorder that does not see the mark added before it was set, so the drain's move finds that hit.
+ */
+public final class PendingHitCounts {
+
+	private final ConcurrentHashMap<String, PendingHits> pending = new ConcurrentHashMap<>();
+
+	public void record(String slug, long hits, long accessedAtMillis) {
+		PendingHits entry = pending.get(slug);
+		if (entry == null) {
+			entry = pending.computeIfAbsent(slug, key -> new PendingHits());
+		}
+		entry.record(hits, accessedAtMillis);
+		if (entry.retired) {
+			moveToLiveEntry(slug, entry);
+		}
+	}
+
+	public int size() {
+		return pending.size();
+	}
+
+	/**
+	 * Takes every pending count, leaving the counters at zero.
+	 */
+	public List<HitDelta> drain() {
+		List<HitDelta> deltas = new ArrayList<>();
+		for (var entry : pending.entrySet()) {
+			PendingHits hits = entry.getValue();
+			long count = hits.count.sumThenReset();
+			if (count == 0) {
+				// Idle for a whole interval: drop the entry, then move any hits that raced with the removal
+				if (pending.remove(entry.getKey(), hits)) {
+					hits.retired = true;
+					moveToLiveEntry(entry.getKey(), hits);
+				}
+				continue;
+			}
+			deltas.add(new HitDelta(entry.getKey(), count, hits.lastAccessMillis.getThenReset()));
+		}
+		return deltas;
+	}
+
+	/**
+	 * Puts back a drained count that could not be written, so the next drain returns it again.
+	 */
+	public void restore(HitDelta delta) {
+		record(delta.slug(), delta.hits(), delta.lastAccessMillis());
+	}
+
+	private void moveToLiveEntry(String slug, PendingHits retired) {
+		long count = retired.count.sumThenReset();
+		if (count != 0) {
+			record(slug, count, retired.lastAccessMillis.get());
+		}
+	}
+
+	public record HitDelta(String slug, long hits, long lastAccessMillis) {
+	}
+
+	private static final class PendingHits {
+
+		private final LongAdder count = new LongAdder();
+		private final LongAccumulator lastAccessMillis = new LongAccumulator(Math::max, 0L);
+		private volatile boolean retired;
+
+		private void record(long hits, long accessedAtMillis) {
+			// Access time first, so whoever takes these hits also sees it
+			lastAccessMillis.accumulate(accessedAtMillis);
+			count.add(hits);
+		}
+	}
+}
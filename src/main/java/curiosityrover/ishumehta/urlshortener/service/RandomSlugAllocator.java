@@ -0,0 +1,69 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import curiosityrover.ishumehta.urlshortener.repository.ShortUrlRepository;
+
+/**
+ * Draws random slugs from {@link SlugGenerator} and checks each candidate against the shard that would own it until
+ * a free one is found. Every taken candidate counts as a slug retry.
+ */
+public class RandomSlugAllocator implements SlugAllocator {
+
+	private final SlugGenerator slugGenerator;
+	private final ShortUrlRepository repository;
+	private final ShardRouter shardRouter;
+	private final ShortUrlMetrics metrics;
+	private final int slugLength;
+
+	public RandomSlugAllocator(SlugGenerator slugGenerator, ShortUrlRepository repository, ShardRouter shardRouter,
+		ShortUrlMetrics metrics, int slugLength) {
+		this.slugGenerator = slugGenerator;
+		this.repository = repository;
+		this.shardRouter = shardRouter;
+		this.metrics = metrics;
+		this.slugLength = slugLength;
+	}
+
+	@Override
+	public String nextSlug() {
+		while (true) {
+			String generatedSlug = slugGenerator.generateSlug(slugLength);
+			if (!shardRouter.onShardOf(generatedSlug, () -> repository.existsBySlug(generatedSlug))) {
+				return generatedSlug;
+			}
+			metrics.recordSlugRetries(1);
+		}
+	}
+
+	/**
+	 * Draws {@code count} distinct candidates and checks them with set queries instead of one lookup per slug.
+	 */
+	@Override
+	public List<String> nextSlugs(int count) {
+		Set<String> slugs = new LinkedHashSet<>(count);
+		while (slugs.size() < count) {
+			Set<String> candidates = new LinkedHashSet<>();
+			while (slugs.size() + candidates.size() < count) {
+				for (String candidate : slugGenerator.generateSlugs(count - slugs.size() - candidates.size(), slugLength)) {
+					if (!slugs.contains(candidate)) {
+						candidates.add(candidate);
+					}
+				}
+			}
+			int drawn = candidates.size();
+			candidates.removeAll(shardRouter.queryBySlug(candidates, repository::findTakenSlugs));
+			metrics.recordSlugRetries(drawn - candidates.size());
+			slugs.addAll(candidates);
+		}
+		return new ArrayList<>(slugs);
+	}
+
+	@Override
+	public String strategyName() {
+		return "random";
+	}
+}
@@ -0,0 +1,163 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Per-client token buckets, with a separate budget for each {@link Scope}. A bucket holds up to {@code burst}
+ * requests and refills at {@code rate} per second. The {@link Scope#BATCH} budget counts items rather than requests:
+ * a bulk call takes one token per item it carries.
+ * <p>
+ * Each bucket is a single {@code AtomicLong} updated by compare-and-set, using the generic cell rate algorithm: it
+ * stores the time at which the bucket will be full again, which is equivalent to a token count but needs no separate
+ * refill step. Buckets are kept in a size-bounded Caffeine cache, and a periodic sweep drops the ones that have
+ * refilled completely, so forgetting an idle client gives it nothing a fresh bucket would not. The cache only evicts
+ * partly used buckets when more than {@code max-clients} clients are active at once. Idle expiry is left to the sweep
+ * because Caffeine's {@code expireAfterAccess} bookkeeping costs several times the check itself.
+ */
+@Component
+public class RateLimiter implements MeterBinder {
+
+	public enum Scope {
+		CREATE, REDIRECT, BATCH;
+
+		public String label() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private final boolean enabled;
+	private final Map<Scope, Budget> budgets = new EnumMap<>(Scope.class);
+
+	public RateLimiter(
+		@Value("${app.shortener.rate-limit.enabled:false}") boolean enabled,
+		@Value("${app.shortener.rate-limit.max-clients:100000}") long maxClients,
+		@Value("${app.shortener.rate-limit.create.rate:5}") double createRate,
+		@Value("${app.shortener.rate-limit.create.burst:50}") int createBurst,
+		@Value("${app.shortener.rate-limit.redirect.rate:200}") double redirectRate,
+		@Value("${app.shortener.rate-limit.redirect.burst:400}") int redirectBurst,
+		@Value("${app.shortener.rate-limit.batch.rate:100}") double batchRate,
+		@Value("${app.shortener.rate-limit.batch.burst:20000}") int batchBurst) {
+		this.enabled = enabled;
+		budgets.put(Scope.CREATE, new Budget(createRate, createBurst, maxClients));
+		budgets.put(Scope.REDIRECT, new Budget(redirectRate, redirectBurst, maxClients));
+		budgets.put(Scope.BATCH, new Budget(batchRate, batchBurst, maxClients));
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Takes one request from the client's bucket for {@code scope}. Returns 0 if it was allowed, otherwise how many
+	 * nanoseconds the client has to wait before the next request would be.
+	 */
+	public long tryAcquire(Scope scope, String clientKey) {
+		return enabled ? acquire(scope, clientKey, 1, System.nanoTime()) : 0;
+	}
+
+	/**
+	 * Takes {@code permits} tokens at once, or none. Returns 0 if they were taken, otherwise how many nanoseconds
+	 * the client has to wait until they would be.
+	 *
+	 * @throws IllegalArgumentException if {@code permits} exceeds the burst, so the request could never pass
+	 */
+	public long tryAcquireMany(Scope scope, String clientKey, int permits) {
+		return enabled ? acquire(scope, clientKey, permits, System.nanoTime()) : 0;
+	}
+
+	long tryAcquire(Scope scope, String clientKey, long now) {
+		return acquire(scope, clientKey, 1, now);
+	}
+
+	long acquire(Scope scope, String clientKey, int permits, long now) {
+		Budget budget = budgets.get(scope);
+		if (permits > budget.burst) {
+			throw new IllegalArgumentException("A request of " + permits + " items exceeds the " + scope.label()
+				+ " rate limit burst of " + budget.burst);
+		}
+		AtomicLong fullAt = budget.buckets.getIfPresent(clientKey);
+		if (fullAt == null) {
+			fullAt = budget.buckets.get(clientKey, key -> new AtomicLong(now));
+		}
+		while (true) {
+			long current = fullAt.get();
+			long next = Math.max(current, now) + budget.intervalNanos * permits;
+			long wait = next - now - budget.windowNanos;
+			if (wait > 0) {
+				budget.rejected.increment();
+				return wait;
+			}
+			if (fullAt.compareAndSet(current, next)) {
+				return 0;
+			}
+		}
+	}
+
+	long trackedClients(Scope scope) {
+		return budgets.get(scope).buckets.estimatedSize();
+	}
+
+	@Scheduled(fixedDelayString = "${app.shortener.rate-limit.sweep-interval:PT1M}")
+	public void evictIdle() {
+		if (!enabled) {
+			return;
+		}
+		long now = System.nanoTime();
+		budgets.values().forEach(budget -> budget.buckets.asMap().values().removeIf(fullAt -> fullAt.get() - now <= 0));
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		if (!enabled) {
+			return;
+		}
+		budgets.forEach((scope, budget) -> {
+			FunctionCounter.builder("shortener.ratelimit.rejected", budget.rejected, LongAdder::sum)
+				.description("Requests refused with 429 because the client exceeded its budget")
+				.tag("scope", scope.label())
+				.register(registry);
+			Gauge.builder("shortener.ratelimit.clients", budget.buckets, Cache::estimatedSize)
+				.description("Clients with a tracked budget")
+				.tag("scope", scope.label())
+				.register(registry);
+		});
+	}
+
+	private static final class Budget {
+
+		private final int burst;
+		private final long intervalNanos;
+		private final long windowNanos;
+		private final Cache<String, AtomicLong> buckets;
+		private final LongAdder rejected = new LongAdder();
+
+		private Budget(double ratePerSecond, int burst, long maxClients) {
+			if (ratePerSecond <= 0 || burst < 1) {
+				throw new IllegalArgumentException("Rate limits need a positive rate and a burst of at least 1");
+			}
+			this.burst = burst;
+			this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+			this.windowNanos = intervalNanos * burst;
+			this.buckets = Caffeine.newBuilder()
+				.maximumSize(Math.max(1L, maxClients))
+				.build();
+		}
+	}
+}
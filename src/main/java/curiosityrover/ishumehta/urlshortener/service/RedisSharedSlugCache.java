@@ -0,0 +1,281 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Shared cache tier on any server speaking the Redis protocol (Redis, Valkey, KeyDB, ...). Entries are plain string
+ * keys {@code <prefix>slug:<slug>} with a {@code PX} expiry. Leases are random tokens set with {@code SET NX PX} on
+ * {@code <prefix>lease:<slug>}, checked by a small Lua script before a leased value is stored. Invalidations go
+ * over the pub/sub channel {@code <prefix>invalidations}.
+ * <p>
+ * Every command is bounded by {@code timeout} and fails fast while disconnected, so a slow or unavailable server
+ * costs each lookup at most that long before it falls through to the database. If the server is down at startup,
+ * connecting is retried at most every few seconds from the request path; once connected, Lettuce reconnects and
+ * resubscribes on its own. Invalidations published while a node is disconnected are lost to it, which is why its
+ * near-cache entries still expire after {@code app.shortener.cache.ttl}.
+ */
+public class RedisSharedSlugCache implements SharedSlugCache, MeterBinder, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(RedisSharedSlugCache.class);
+
+	private static final long RECONNECT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(1);
+
+	// KEYS: lease, value; ARGV: token, value ('' to only end the lease), ttl in millis
+	private static final String PUT_LEASED_SCRIPT = """
+		if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+		  return 0
+		end
+		redis.call('DEL', KEYS[1])
+		if ARGV[2] ~= '' and tonumber(ARGV[3]) > 0 then
+		  redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3])
+		end
+		return 1""";
+
+	private final RedisClient client;
+	private final String keyPrefix;
+	private final String channel;
+	private final List<Consumer<Invalidation>> listeners = new CopyOnWriteArrayList<>();
+	private final LongAdder errors = new LongAdder();
+	private final ReentrantLock connectLock = new ReentrantLock();
+	private volatile StatefulRedisConnection<String, String> connection;
+	private volatile StatefulRedisPubSubConnection<String, String> subscription;
+	private volatile long nextConnectAttempt;
+
+	public RedisSharedSlugCache(String url, Duration timeout, String keyPrefix) {
+		RedisURI uri = RedisURI.create(url);
+		uri.setTimeout(timeout);
+		this.client = RedisClient.create(uri);
+		this.client.setOptions(ClientOptions.builder()
+			.autoReconnect(true)
+			.disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+			.timeoutOptions(TimeoutOptions.enabled(timeout))
+			// only one request thread at a time tries to (re)connect, but it should not hang for long doing so
+			.socketOptions(SocketOptions.builder().connectTimeout(CONNECT_TIMEOUT).build())
+			.build());
+		this.keyPrefix = keyPrefix;
+		this.channel = keyPrefix + "invalidations";
+		this.nextConnectAttempt = System.nanoTime();
+		connect();
+	}
+
+	@Override
+	public String get(String slug) {
+		RedisCommands<String, String> commands = commands();
+		if (commands == null) {
+			return null;
+		}
+		try {
+			return commands.get(valueKey(slug));
+		}
+		catch (RuntimeException ex) {
+			recordError("GET", ex);
+			return null;
+		}
+	}
+
+	@Override
+	public void put(String slug, String value, Duration ttl) {
+		RedisCommands<String, String> commands = commands();
+		if (commands == null) {
+			return;
+		}
+		try {
+			if (ttl.toMillis() > 0) {
+				commands.set(valueKey(slug), value, SetArgs.Builder.px(ttl.toMillis()));
+			}
+			else {
+				commands.del(valueKey(slug));
+			}
+		}
+		catch (RuntimeException ex) {
+			recordError("SET", ex);
+		}
+	}
+
+	@Override
+	public void evict(String slug) {
+		RedisCommands<String, String> commands = commands();
+		if (commands == null) {
+			return;
+		}
+		try {
+			commands.del(valueKey(slug), leaseKey(slug));
+		}
+		catch (RuntimeException ex) {
+			recordError("DEL", ex);
+		}
+	}
+
+	@Override
+	public String tryLease(String slug, Duration leaseTime) {
+		RedisCommands<String, String> commands = commands();
+		if (commands == null) {
+			return "";
+		}
+		String token = Long.toHexString(ThreadLocalRandom.current().nextLong());
+		try {
+			String reply = commands.set(leaseKey(slug), token, SetArgs.Builder.nx().px(Math.max(1, leaseTime.toMillis())));
+			return "OK".equals(reply) ? token : null;
+		}
+		catch (RuntimeException ex) {
+			recordError("SET NX", ex);
+			return "";
+		}
+	}
+
+	@Override
+	public void putLeased(String slug, String leaseToken, String value, Duration ttl) {
+		if (leaseToken.isEmpty()) {
+			// the lease was "granted" because the server could not be reached
+			return;
+		}
+		RedisCommands<String, String> commands = commands();
+		if (commands == null) {
+			return;
+		}
+		try {
+			commands.eval(PUT_LEASED_SCRIPT, ScriptOutputType.INTEGER, new String[] { leaseKey(slug), valueKey(slug) },
+				leaseToken, value != null ? value : "", Long.toString(ttl.toMillis()));
+		}
+		catch (RuntimeException ex) {
+			recordError("EVAL", ex);
+		}
+	}
+
+	@Override
+	public void publish(Invalidation invalidation) {
+		RedisCommands<String, String> commands = commands();
+		if (commands == null) {
+			return;
+		}
+		try {
+			commands.publish(channel, invalidation.encode());
+		}
+		catch (RuntimeException ex) {
+			recordError("PUBLISH", ex);
+		}
+	}
+
+	@Override
+	public void subscribe(Consumer<Invalidation> listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public String type() {
+		return "redis";
+	}
+
+	public boolean isConnected() {
+		StatefulRedisConnection<String, String> current = connection;
+		return current != null && current.isOpen();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("shortener.cache.shared.errors", errors, LongAdder::sum)
+			.description("Shared cache commands that failed or timed out and fell through to the database")
+			.register(registry);
+	}
+
+	@Override
+	public void destroy() {
+		StatefulRedisPubSubConnection<String, String> currentSubscription = subscription;
+		if (currentSubscription != null) {
+			currentSubscription.close();
+		}
+		StatefulRedisConnection<String, String> current = connection;
+		if (current != null) {
+			current.close();
+		}
+		client.shutdown();
+	}
+
+	private RedisCommands<String, String> commands() {
+		StatefulRedisConnection<String, String> current = connection;
+		if (current == null) {
+			current = connect();
+		}
+		return current != null ? current.sync() : null;
+	}
+
+	private StatefulRedisConnection<String, String> connect() {
+		if (System.nanoTime() - nextConnectAttempt < 0 || !connectLock.tryLock()) {
+			return null;
+		}
+		try {
+			if (connection == null) {
+				StatefulRedisPubSubConnection<String, String> pubSub = client.connectPubSub();
+				pubSub.addListener(new RedisPubSubAdapter<>() {
+					@Override
+					public void message(String messageChannel, String message) {
+						Invalidation invalidation = Invalidation.decode(message);
+						if (invalidation != null) {
+							listeners.forEach(listener -> listener.accept(invalidation));
+						}
+					}
+				});
+				pubSub.sync().subscribe(channel);
+				subscription = pubSub;
+				connection = client.connect();
+				log.info("Connected to the shared slug cache, listening for invalidations on '{}'", channel);
+			}
+			return connection;
+		}
+		catch (RuntimeException ex) {
+			StatefulRedisPubSubConnection<String, String> pubSub = subscription;
+			if (pubSub != null) {
+				pubSub.close();
+				subscription = null;
+			}
+			nextConnectAttempt = System.nanoTime() + RECONNECT_INTERVAL_NANOS;
+			errors.increment();
+			log.warn("Shared slug cache is unavailable, serving from the database until it is back: {}",
+				ex.getMessage());
+			return null;
+		}
+		finally {
+			connectLock.unlock();
+		}
+	}
+
+	private void recordError(String command, RuntimeException ex) {
+		errors.increment();
+		log.debug("Shared slug cache {} failed: {}", command, ex.getMessage());
+	}
+
+	private String valueKey(String slug) {
+		return keyPrefix + "slug:" + slug;
+	}
+
+	private String leaseKey(String slug) {
+		return keyPrefix + "lease:" + slug;
+	}
+}
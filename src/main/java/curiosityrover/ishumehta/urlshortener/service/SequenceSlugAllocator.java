@@ -0,0 +1,108 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Allocates slugs from a database sequence without touching {@code short_urls}. Each node leases a block of consecutive
+ * ids with a single {@code nextval} call and hands them out from memory. Each id is base62-encoded, optionally after a
+ * keyed {@link FeistelPermutation} so consecutive slugs are not guessable. The V5 migration creates the sequence with
+ * {@code blockSize} as its increment, and a block is always as long as the increment the sequence actually has, so
+ * blocks never overlap even when nodes disagree on {@code blockSize}; slugs are unique across nodes. The sequence lives
+ * in the primary database, which is also shard 0 when {@code short_urls} is sharded, so slugs are unique across shards.
+ */
+public class SequenceSlugAllocator implements SlugAllocator {
+
+	private static final Logger log = LoggerFactory.getLogger(SequenceSlugAllocator.class);
+
+	static final String SEQUENCE_NAME = "short_url_slug_seq";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final int blockSize;
+	private final int slugLength;
+	private final FeistelPermutation permutation;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private long increment;
+	private long next;
+	private long limit;
+
+	public SequenceSlugAllocator(JdbcTemplate jdbcTemplate, int blockSize, int slugLength, boolean scramble,
+		long scrambleKey) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("Sequence block size must be positive");
+		}
+		if (scramble && scrambleKey == 0) {
+			// A well-known key lets anyone invert slugs back to sequence ids and enumerate every link
+			throw new IllegalArgumentException("app.shortener.sequence.scramble-key must be set to a secret non-zero "
+				+ "value when app.shortener.sequence.scramble is enabled");
+		}
+		this.jdbcTemplate = jdbcTemplate;
+		this.blockSize = blockSize;
+		this.slugLength = slugLength;
+		this.permutation = scramble ? new FeistelPermutation(Base62.capacity(slugLength), scrambleKey) : null;
+	}
+
+	@Override
+	public String nextSlug() {
+		return encode(nextId());
+	}
+
+	@Override
+	public String strategyName() {
+		return permutation != null ? "sequence (scrambled)" : "sequence";
+	}
+
+	long nextId() {
+		lock.lock();
+		try {
+			if (next >= limit) {
+				leaseBlock();
+			}
+			return next++;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	String encode(long id) {
+		if (permutation == null) {
+			return Base62.encode(id, slugLength);
+		}
+		if (id >= permutation.domain()) {
+			throw new IllegalStateException("Slug space of length " + slugLength + " is exhausted; increase "
+				+ "app.shortener.slug-length");
+		}
+		return Base62.encode(permutation.permute(id), slugLength);
+	}
+
+	private void leaseBlock() {
+		if (increment == 0) {
+			increment = readIncrement();
+		}
+		Long start = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE_NAME + "')", Long.class);
+		if (start == null) {
+			throw new IllegalStateException("Sequence " + SEQUENCE_NAME + " returned no value");
+		}
+		next = start;
+		limit = start + increment;
+		log.debug("Leased slug id block [{}, {})", next, limit);
+	}
+
+	private long readIncrement() {
+		Long stored = jdbcTemplate.queryForObject("SELECT increment FROM information_schema.sequences "
+			+ "WHERE sequence_name = ? AND sequence_schema = current_schema()", Long.class, SEQUENCE_NAME);
+		if (stored == null || stored <= 0) {
+			throw new IllegalStateException("Sequence " + SEQUENCE_NAME + " has no positive increment");
+		}
+		if (stored != blockSize) {
+			log.warn("Sequence {} increments by {}, not app.shortener.sequence.block-size={}; leasing blocks of {}. "
+				+ "Use ALTER SEQUENCE to change the block size", SEQUENCE_NAME, stored, blockSize, stored);
+		}
+		return stored;
+	}
+}
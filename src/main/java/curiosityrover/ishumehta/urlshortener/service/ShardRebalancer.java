@@ -0,0 +1,185 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import curiosityrover.ishumehta.urlshortener.repository.ShortUrlRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Moves {@code short_urls} rows to the shard that owns them on the current ring, after shards were added. Each shard
+ * is scanned in id order in batches; rows it no longer owns are copied to their owner in one transaction and then
+ * deleted from the source in another, so a run can be stopped at any point and simply started again.
+ * <p>
+ * While rows are in flight, set {@code app.datasource.shards.lookup-fallback=true} so lookups that miss on the new
+ * owner still find the old copy. Hits counted for a row between its copy and its delete are lost. A slug that
+ * already exists on its owner (created there after the ring changed) is left where it is and reported as a conflict.
+ */
+@Component
+public class ShardRebalancer {
+
+	private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+	static final String SELECT_SQL = """
+		SELECT id, slug, destination_url, created_at, last_accessed_at, hit_count, expires_at, redirect_policy
+		FROM short_urls WHERE id > ? ORDER BY id LIMIT ?""";
+	static final String COPY_SQL = """
+		INSERT INTO short_urls
+		  (slug, destination_url, created_at, last_accessed_at, hit_count, expires_at, redirect_policy)
+		VALUES (?, ?, ?, ?, ?, ?, ?)""";
+	static final String DELETE_SQL = "DELETE FROM short_urls WHERE id IN (%s)";
+
+	private static final RowMapper<StoredRow> ROW_MAPPER = (rs, rowNum) -> new StoredRow(
+		rs.getLong("id"), rs.getString("slug"), rs.getString("destination_url"),
+		rs.getObject("created_at", OffsetDateTime.class), rs.getObject("last_accessed_at", OffsetDateTime.class),
+		rs.getLong("hit_count"), rs.getObject("expires_at", OffsetDateTime.class), rs.getString("redirect_policy"));
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final ShortUrlRepository repository;
+	private final ShortUrlCache shortUrlCache;
+	private final ShardRouter shardRouter;
+	private final int batchSize;
+	private final Counter movedCounter;
+	private final ReentrantLock runLock = new ReentrantLock();
+
+	public ShardRebalancer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+		ShortUrlRepository repository, ShortUrlCache shortUrlCache, ShardRouter shardRouter, MeterRegistry meterRegistry,
+		@Value("${app.datasource.shards.rebalance-batch-size:500}") int batchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.repository = repository;
+		this.shortUrlCache = shortUrlCache;
+		this.shardRouter = shardRouter;
+		this.batchSize = Math.max(1, batchSize);
+		this.movedCounter = Counter.builder("shortener.shards.rebalanced")
+			.description("Short URLs moved to the shard that owns them")
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Runs one pass over every shard unless another one is in progress on this instance.
+	 */
+	public RebalanceResult rebalance() {
+		if (!shardRouter.isSharded() || !runLock.tryLock()) {
+			return RebalanceResult.SKIPPED;
+		}
+		try {
+			long started = System.nanoTime();
+			long scanned = 0;
+			long moved = 0;
+			long conflicts = 0;
+			for (int source = 0; source < shardRouter.shardCount(); source++) {
+				long cursor = 0;
+				List<StoredRow> batch;
+				do {
+					long after = cursor;
+					batch = shardRouter.onShard(source, () -> jdbcTemplate.query(SELECT_SQL, ROW_MAPPER, after, batchSize));
+					scanned += batch.size();
+					BatchOutcome outcome = moveMisplaced(source, batch);
+					moved += outcome.moved();
+					conflicts += outcome.conflicts();
+					if (!batch.isEmpty()) {
+						cursor = batch.get(batch.size() - 1).id();
+					}
+				}
+				while (batch.size() == batchSize);
+			}
+			movedCounter.increment(moved);
+			RebalanceResult result = new RebalanceResult(scanned, moved, conflicts,
+				Duration.ofNanos(System.nanoTime() - started));
+			log.info("Shard rebalance scanned {} short URLs, moved {}, left {} conflicting in {} ms", scanned, moved,
+				conflicts, result.elapsed().toMillis());
+			return result;
+		}
+		finally {
+			runLock.unlock();
+		}
+	}
+
+	private BatchOutcome moveMisplaced(int source, List<StoredRow> batch) {
+		List<StoredRow> misplaced = batch.stream().filter(row -> shardRouter.shardOf(row.slug()) != source).toList();
+		if (misplaced.isEmpty()) {
+			return new BatchOutcome(0, 0);
+		}
+		List<StoredRow> copied = new ArrayList<>(misplaced.size());
+		shardRouter.partition(misplaced, StoredRow::slug).forEach((target, rows) ->
+			copied.addAll(shardRouter.onShard(target, () -> transactionTemplate.execute(status -> copy(rows)))));
+		if (!copied.isEmpty()) {
+			String placeholders = String.join(", ", Collections.nCopies(copied.size(), "?"));
+			Object[] ids = copied.stream().map(StoredRow::id).toArray();
+			shardRouter.onShard(source, () -> transactionTemplate.execute(status ->
+				jdbcTemplate.update(DELETE_SQL.formatted(placeholders), ids)));
+			copied.forEach(row -> shortUrlCache.invalidate(row.slug()));
+		}
+		return new BatchOutcome(copied.size(), misplaced.size() - copied.size());
+	}
+
+	private List<StoredRow> copy(List<StoredRow> rows) {
+		Set<String> taken = repository.findTakenSlugs(rows.stream().map(StoredRow::slug).toList());
+		List<StoredRow> toCopy = rows.stream().filter(row -> !taken.contains(row.slug())).toList();
+		if (!taken.isEmpty()) {
+			log.warn("Slugs {} exist on both {} and another shard; leaving the misplaced copies in place", taken,
+				shardRouter.shardName(shardRouter.shardOf(rows.get(0).slug())));
+		}
+		List<Object[]> args = new ArrayList<>(toCopy.size());
+		for (StoredRow row : toCopy) {
+			args.add(new Object[] { row.slug(), row.destinationUrl(), row.createdAt(), row.lastAccessedAt(),
+				row.hitCount(), row.expiresAt(), row.redirectPolicy() });
+		}
+		if (!args.isEmpty()) {
+			jdbcTemplate.batchUpdate(COPY_SQL, args);
+		}
+		return toCopy;
+	}
+
+	/**
+	 * Row count and share of the hash ring per shard.
+	 */
+	public Map<String, Object> stats() {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("sharded", shardRouter.isSharded());
+		body.put("lookupFallback", shardRouter.isLookupFallback());
+		List<Long> rows = shardRouter.gather(shard -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM short_urls",
+			Long.class));
+		double[] ownership = shardRouter.ownership();
+		List<Map<String, Object>> shards = new ArrayList<>(rows.size());
+		for (int shard = 0; shard < rows.size(); shard++) {
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("name", shardRouter.shardName(shard));
+			entry.put("rows", rows.get(shard));
+			entry.put("ringShare", ownership[shard]);
+			shards.add(entry);
+		}
+		body.put("shards", shards);
+		return body;
+	}
+
+	public record RebalanceResult(long scanned, long moved, long conflicts, Duration elapsed) {
+
+		static final RebalanceResult SKIPPED = new RebalanceResult(0, 0, 0, Duration.ZERO);
+	}
+
+	private record BatchOutcome(long moved, long conflicts) {
+	}
+
+	record StoredRow(long id, String slug, String destinationUrl, OffsetDateTime createdAt,
+		OffsetDateTime lastAccessedAt, long hitCount, OffsetDateTime expiresAt, String redirectPolicy) {
+	}
+}
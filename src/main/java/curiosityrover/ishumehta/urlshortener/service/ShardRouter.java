@@ -0,0 +1,189 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Decides which shard owns a slug and runs data access against it. Every {@code short_urls} row lives on exactly
+ * one shard, chosen by a {@link ConsistentHashRing} over the slug; shard 0 is the primary {@code spring.datasource}
+ * and also holds everything that is not keyed by slug (click analytics, the slug sequence).
+ * <p>
+ * {@link #onShard} sets the shard for the current thread, and the routing {@code DataSource} hands out connections
+ * to it. The shard has to be chosen before a transaction starts, because the transaction keeps the connection it
+ * opened with. Code that runs outside {@code onShard} uses shard 0.
+ */
+public class ShardRouter implements DisposableBean {
+
+	private static final ShardRouter SINGLE = new ShardRouter(List.of("shard-0"), 1, false);
+
+	private final List<String> shardNames;
+	private final ConsistentHashRing ring;
+	private final boolean lookupFallback;
+	private final ThreadLocal<Integer> currentShard = new ThreadLocal<>();
+	private final ExecutorService gatherExecutor;
+
+	public ShardRouter(List<String> shardNames, int virtualNodes, boolean lookupFallback) {
+		this.shardNames = List.copyOf(shardNames);
+		this.ring = new ConsistentHashRing(shardNames, virtualNodes);
+		this.lookupFallback = lookupFallback && shardNames.size() > 1;
+		this.gatherExecutor = shardNames.size() > 1 ? Executors.newVirtualThreadPerTaskExecutor() : null;
+	}
+
+	/**
+	 * A router for a single, unsharded database.
+	 */
+	public static ShardRouter single() {
+		return SINGLE;
+	}
+
+	public boolean isSharded() {
+		return shardNames.size() > 1;
+	}
+
+	public int shardCount() {
+		return shardNames.size();
+	}
+
+	public String shardName(int shard) {
+		return shardNames.get(shard);
+	}
+
+	public int shardOf(String slug) {
+		return isSharded() ? ring.shardFor(slug) : 0;
+	}
+
+	public double[] ownership() {
+		return ring.ownership();
+	}
+
+	/**
+	 * Whether a slug missing on its owning shard should also be looked up on the others, for while rows are still
+	 * being moved after a shard was added.
+	 */
+	public boolean isLookupFallback() {
+		return lookupFallback;
+	}
+
+	/**
+	 * The shard selected for this thread, or {@code null} when none is (which the routing {@code DataSource} treats
+	 * as shard 0).
+	 */
+	public Integer currentShard() {
+		return currentShard.get();
+	}
+
+	public <T> T onShard(int shard, Supplier<T> action) {
+		if (!isSharded()) {
+			return action.get();
+		}
+		Integer previous = currentShard.get();
+		if (TransactionSynchronizationManager.isActualTransactionActive()
+			&& shard != (previous != null ? previous : 0)) {
+			throw new IllegalStateException("Cannot switch to " + shardName(shard)
+				+ " inside a transaction that is bound to another shard");
+		}
+		currentShard.set(shard);
+		try {
+			return action.get();
+		}
+		finally {
+			if (previous != null) {
+				currentShard.set(previous);
+			}
+			else {
+				currentShard.remove();
+			}
+		}
+	}
+
+	public void onShard(int shard, Runnable action) {
+		onShard(shard, () -> {
+			action.run();
+			return null;
+		});
+	}
+
+	public <T> T onShardOf(String slug, Supplier<T> action) {
+		return onShard(shardOf(slug), action);
+	}
+
+	/**
+	 * Groups items by the shard owning their slug, keeping their order within each shard.
+	 */
+	public <T> Map<Integer, List<T>> partition(Collection<T> items, Function<T, String> slugOf) {
+		Map<Integer, List<T>> byShard = new LinkedHashMap<>();
+		if (!isSharded()) {
+			byShard.put(0, items instanceof List<T> list ? list : new ArrayList<>(items));
+			return byShard;
+		}
+		for (T item : items) {
+			byShard.computeIfAbsent(shardOf(slugOf.apply(item)), shard -> new ArrayList<>()).add(item);
+		}
+		return byShard;
+	}
+
+	/**
+	 * Runs a slug-keyed query on each shard with only the slugs that shard owns, and unions the results.
+	 */
+	public <T> Set<T> queryBySlug(Collection<String> slugs, Function<List<String>, Collection<T>> query) {
+		Set<T> results = new HashSet<>();
+		partition(slugs, Function.identity())
+			.forEach((shard, shardSlugs) -> results.addAll(onShard(shard, () -> query.apply(shardSlugs))));
+		return results;
+	}
+
+	/**
+	 * Scatter-gather: runs {@code perShard} on every shard concurrently and returns the results in shard order.
+	 */
+	public <T> List<T> gather(IntFunction<T> perShard) {
+		if (!isSharded()) {
+			return List.of(perShard.apply(0));
+		}
+		List<Future<T>> futures = new ArrayList<>(shardNames.size());
+		for (int shard = 0; shard < shardNames.size(); shard++) {
+			int target = shard;
+			futures.add(gatherExecutor.submit(() -> onShard(target, () -> perShard.apply(target))));
+		}
+		List<T> results = new ArrayList<>(futures.size());
+		for (Future<T> future : futures) {
+			try {
+				results.add(future.get());
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				futures.forEach(f -> f.cancel(true));
+				throw new IllegalStateException("Interrupted while querying shards", ex);
+			}
+			catch (ExecutionException ex) {
+				futures.forEach(f -> f.cancel(true));
+				if (ex.getCause() instanceof RuntimeException runtime) {
+					throw runtime;
+				}
+				throw new IllegalStateException(ex.getCause());
+			}
+		}
+		return results;
+	}
+
+	@Override
+	public void destroy() {
+		if (gatherExecutor != null) {
+			gatherExecutor.shutdownNow();
+		}
+	}
+}
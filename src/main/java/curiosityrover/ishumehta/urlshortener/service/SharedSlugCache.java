@@ -0,0 +1,123 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Cache tier shared by every node, sitting between each node's {@link ShortUrlCache} and the database. Values are
+ * opaque strings (encoded by {@code ShortUrlCache}). Invalidations are broadcast to all nodes, including the sender.
+ * <p>
+ * A node that misses takes a short-lived lease on the slug before loading it, and the other nodes wait for its
+ * result instead of querying too. {@link #evict} revokes the lease along with the value, so a load that read the row
+ * before an update cannot store its stale result afterwards: {@link #putLeased} only stores while the lease is held.
+ * <p>
+ * The shared tier is an optimisation only: implementations never throw, and treat a failing backend as a miss, a
+ * granted lease and a dropped message, so lookups fall through to the database.
+ */
+public interface SharedSlugCache {
+
+	/**
+	 * The encoded value for {@code slug}, or {@code null} on a miss.
+	 */
+	String get(String slug);
+
+	/**
+	 * Stores a value unconditionally, for slugs that were just written.
+	 */
+	void put(String slug, String value, Duration ttl);
+
+	/**
+	 * Removes the value and revokes any outstanding lease.
+	 */
+	void evict(String slug);
+
+	/**
+	 * Takes the load lease for {@code slug} and returns its token, or {@code null} while another node holds it. The
+	 * lease lapses after {@code leaseTime} in case its holder dies before calling {@link #putLeased}.
+	 */
+	String tryLease(String slug, Duration leaseTime);
+
+	/**
+	 * Ends the lease and, if it was still held (not revoked or lapsed), stores {@code value}. A {@code null} value
+	 * only ends the lease.
+	 */
+	void putLeased(String slug, String leaseToken, String value, Duration ttl);
+
+	void publish(Invalidation invalidation);
+
+	void subscribe(Consumer<Invalidation> listener);
+
+	String type();
+
+	default boolean isEnabled() {
+		return true;
+	}
+
+	static SharedSlugCache none() {
+		return NoSharedSlugCache.INSTANCE;
+	}
+
+	/**
+	 * A slug whose cached entries are stale. {@code created} marks a new slug (so nodes that remembered it as
+	 * unknown must forget that); {@code origin} identifies the sending node.
+	 */
+	record Invalidation(String origin, String slug, boolean created) {
+
+		String encode() {
+			return (created ? "C " : "I ") + origin + " " + slug;
+		}
+
+		static Invalidation decode(String message) {
+			String[] parts = message.split(" ", 3);
+			if (parts.length != 3 || !(parts[0].equals("C") || parts[0].equals("I"))) {
+				return null;
+			}
+			return new Invalidation(parts[1], parts[2], parts[0].equals("C"));
+		}
+	}
+
+	final class NoSharedSlugCache implements SharedSlugCache {
+
+		private static final NoSharedSlugCache INSTANCE = new NoSharedSlugCache();
+
+		@Override
+		public String get(String slug) {
+			return null;
+		}
+
+		@Override
+		public void put(String slug, String value, Duration ttl) {
+		}
+
+		@Override
+		public void evict(String slug) {
+		}
+
+		@Override
+		public String tryLease(String slug, Duration leaseTime) {
+			return "";
+		}
+
+		@Override
+		public void putLeased(String slug, String leaseToken, String value, Duration ttl) {
+		}
+
+		@Override
+		public void publish(Invalidation invalidation) {
+		}
+
+		@Override
+		public void subscribe(Consumer<Invalidation> listener) {
+		}
+
+		@Override
+		public String type() {
+			return "none";
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+	}
+}
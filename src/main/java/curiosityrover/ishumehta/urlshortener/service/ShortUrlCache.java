@@ -0,0 +1,283 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded in-process cache of resolved slugs sitting in front of {@code ShortUrlRepository} on the redirect path.
+ * Unknown slugs are cached as empty (negative) entries with a shorter lifetime, and positive entries never outlive
+ * the link's own {@code expiresAt}.
+ * <p>
+ * Concurrent misses for the same slug share one load, but the load runs on the calling thread outside of any map
+ * lock: a synchronous {@code Cache.get(key, loader)} would run the database query inside
+ * {@code ConcurrentHashMap.compute}, which pins virtual threads to their carrier while they wait on I/O.
+ * <p>
+ * With a {@link SharedSlugCache} configured this is the near-cache of a two-level cache: a local miss first asks
+ * the shared tier, and only the node holding the slug's lease queries the database while the others wait for its
+ * result. Creating, changing or removing a slug evicts it from the shared tier and broadcasts an invalidation that
+ * drops it from every other node's near-cache.
+ */
+@Component
+public class ShortUrlCache implements MeterBinder {
+
+	private static final long LEASE_POLL_INTERVAL_MILLIS = 5;
+
+	private final AsyncCache<String, Optional<ResolvedShortUrl>> cache;
+	private final ConcurrentStatsCounter statsCounter = new ConcurrentStatsCounter();
+	private final boolean enabled;
+	private final SharedSlugCache sharedCache;
+	private final SlugCacheExpiry sharedExpiry;
+	private final Duration leaseTime;
+	private final String nodeId = UUID.randomUUID().toString();
+	private final LongAdder sharedHits = new LongAdder();
+	private final LongAdder sharedMisses = new LongAdder();
+	private final LongAdder sharedLeaseWaits = new LongAdder();
+
+	public ShortUrlCache(SharedSlugCache sharedCache,
+		@Value("${app.shortener.cache.maximum-size:100000}") long maximumSize,
+		@Value("${app.shortener.cache.ttl:PT10M}") Duration ttl,
+		@Value("${app.shortener.cache.negative-ttl:PT30S}") Duration negativeTtl,
+		@Value("${app.shortener.shared-cache.ttl:PT1H}") Duration sharedTtl,
+		@Value("${app.shortener.shared-cache.lease-time:PT0.2S}") Duration leaseTime) {
+		// Caffeine evicts asynchronously, so a zero-sized cache would still serve hits until maintenance runs
+		this.enabled = maximumSize > 0;
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(Math.max(0L, maximumSize))
+			.expireAfter(new SlugCacheExpiry(ttl, negativeTtl))
+			.recordStats(() -> statsCounter)
+			.buildAsync();
+		this.sharedCache = sharedCache;
+		this.sharedExpiry = new SlugCacheExpiry(sharedTtl, negativeTtl);
+		this.leaseTime = leaseTime;
+		sharedCache.subscribe(this::onInvalidation);
+	}
+
+	public Optional<ResolvedShortUrl> resolve(String slug, Function<String, Optional<ResolvedShortUrl>> loader) {
+		if (!enabled) {
+			return loadShared(slug, loader);
+		}
+		// Hits go through the map view, which neither allocates nor records stats, so count them here
+		CompletableFuture<Optional<ResolvedShortUrl>> future = cache.asMap().get(slug);
+		if (future != null) {
+			statsCounter.recordHits(1);
+			return join(future);
+		}
+		CompletableFuture<Optional<ResolvedShortUrl>> loading = new CompletableFuture<>();
+		future = cache.get(slug, (key, executor) -> loading);
+		if (future == loading) {
+			try {
+				loading.complete(loadShared(slug, loader));
+			}
+			catch (RuntimeException ex) {
+				// Failed loads are dropped from the cache by Caffeine; waiters see the same exception
+				loading.completeExceptionally(ex);
+			}
+		}
+		return join(future);
+	}
+
+	/**
+	 * Caches a link that was just created, on this node and in the shared tier.
+	 */
+	public void put(ResolvedShortUrl resolved) {
+		if (enabled) {
+			cache.put(resolved.slug(), CompletableFuture.completedFuture(Optional.of(resolved)));
+		}
+		if (sharedCache.isEnabled()) {
+			Optional<ResolvedShortUrl> value = Optional.of(resolved);
+			sharedCache.put(resolved.slug(), encode(value), sharedLifetime(value));
+			sharedCache.publish(new SharedSlugCache.Invalidation(nodeId, resolved.slug(), true));
+		}
+	}
+
+	/**
+	 * Drops a slug that was changed or removed from every node's cache.
+	 */
+	public void invalidate(String slug) {
+		invalidate(slug, false);
+	}
+
+	/**
+	 * Drops a slug that was just created (and may have been cached as unknown) from every node's cache.
+	 */
+	public void invalidateCreated(String slug) {
+		invalidate(slug, true);
+	}
+
+	/**
+	 * Clears this node's near-cache only; the shared tier and other nodes keep their entries.
+	 */
+	public void invalidateAll() {
+		cache.synchronous().invalidateAll();
+	}
+
+	private void invalidate(String slug, boolean created) {
+		cache.synchronous().invalidate(slug);
+		if (sharedCache.isEnabled()) {
+			sharedCache.evict(slug);
+			sharedCache.publish(new SharedSlugCache.Invalidation(nodeId, slug, created));
+		}
+	}
+
+	private void onInvalidation(SharedSlugCache.Invalidation invalidation) {
+		if (!nodeId.equals(invalidation.origin())) {
+			cache.synchronous().invalidate(invalidation.slug());
+		}
+	}
+
+	private Optional<ResolvedShortUrl> loadShared(String slug, Function<String, Optional<ResolvedShortUrl>> loader) {
+		if (!sharedCache.isEnabled()) {
+			return loader.apply(slug);
+		}
+		Optional<ResolvedShortUrl> shared = decode(slug, sharedCache.get(slug));
+		if (shared != null) {
+			sharedHits.increment();
+			return shared;
+		}
+		sharedMisses.increment();
+		String leaseToken = sharedCache.tryLease(slug, leaseTime);
+		if (leaseToken == null) {
+			// Another node is loading this slug; its result is usually in the shared tier within a few millis
+			sharedLeaseWaits.increment();
+			long deadline = System.nanoTime() + leaseTime.toNanos();
+			while (System.nanoTime() - deadline < 0 && sleep(LEASE_POLL_INTERVAL_MILLIS)) {
+				shared = decode(slug, sharedCache.get(slug));
+				if (shared != null) {
+					return shared;
+				}
+			}
+			// The lease holder is slow or gone. Load without storing: only a lease holder may write the shared tier
+			return loader.apply(slug);
+		}
+		Optional<ResolvedShortUrl> loaded = null;
+		try {
+			loaded = loader.apply(slug);
+			return loaded;
+		}
+		finally {
+			sharedCache.putLeased(slug, leaseToken, loaded != null ? encode(loaded) : null, sharedLifetime(loaded));
+		}
+	}
+
+	private Duration sharedLifetime(Optional<ResolvedShortUrl> value) {
+		return value != null ? Duration.ofNanos(sharedExpiry.lifetime(value)) : Duration.ZERO;
+	}
+
+	private static boolean sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+			return true;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	static String encode(Optional<ResolvedShortUrl> value) {
+		if (value.isEmpty()) {
+			return "-";
+		}
+		ResolvedShortUrl resolved = value.get();
+		return "1|" + (resolved.id() != null ? resolved.id() : "")
+			+ "|" + (resolved.expiresAt() != null ? resolved.expiresAt() : "")
+			+ "|" + (resolved.redirectPolicy() != null ? resolved.redirectPolicy().name() : "")
+			+ "|" + resolved.destinationUrl();
+	}
+
+	/**
+	 * The cached value, or {@code null} for a miss or an entry this version cannot read.
+	 */
+	static Optional<ResolvedShortUrl> decode(String slug, String encoded) {
+		if (encoded == null) {
+			return null;
+		}
+		if (encoded.equals("-")) {
+			return Optional.empty();
+		}
+		String[] fields = encoded.split("\\|", 5);
+		if (fields.length != 5 || !fields[0].equals("1")) {
+			return null;
+		}
+		try {
+			return Optional.of(new ResolvedShortUrl(
+				fields[1].isEmpty() ? null : Long.valueOf(fields[1]),
+				slug,
+				fields[4],
+				fields[2].isEmpty() ? null : Instant.parse(fields[2]),
+				fields[3].isEmpty() ? null : RedirectPolicy.valueOf(fields[3])));
+		}
+		catch (RuntimeException ex) {
+			return null;
+		}
+	}
+
+	public long estimatedSize() {
+		return cache.synchronous().estimatedSize();
+	}
+
+	public CacheStats stats() {
+		return cache.synchronous().stats();
+	}
+
+	public String sharedCacheType() {
+		return sharedCache.type();
+	}
+
+	/**
+	 * Shared tier lookups that found the slug, that missed, and that waited for another node's load.
+	 */
+	public long[] sharedStats() {
+		return new long[] { sharedHits.sum(), sharedMisses.sum(), sharedLeaseWaits.sum() };
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "slugs");
+		if (sharedCache.isEnabled()) {
+			registerSharedCounter(registry, "hit", sharedHits);
+			registerSharedCounter(registry, "miss", sharedMisses);
+			registerSharedCounter(registry, "lease-wait", sharedLeaseWaits);
+		}
+	}
+
+	private static void registerSharedCounter(MeterRegistry registry, String result, LongAdder adder) {
+		FunctionCounter.builder("shortener.cache.shared", adder, LongAdder::sum)
+			.description("Shared cache tier lookups after a near-cache miss")
+			.tag("result", result)
+			.register(registry);
+	}
+
+	private static Optional<ResolvedShortUrl> join(CompletableFuture<Optional<ResolvedShortUrl>> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlFilter;
+
+/**
+ * Lists short URLs in {@code (created_at, id)} order with keyset pagination over {@code idx_short_urls_created_at},
+ * and exports them through a forward-only cursor.
+ * <p>
+ * Pages are fetched by scatter-gather: every shard returns up to {@code limit + 1} rows after the cursor, and the
+ * merged page is cut at {@code limit}. Ids are only unique per shard, so the cursor records {@code created_at},
+ * shard and id, and rows are ordered by those three across shards. Each page costs one index range scan per shard
+ * however deep into the listing it is.
+ * <p>
+ * Exports walk one shard after another, each with a single query streamed {@code fetch-size} rows at a time, so
+ * memory use does not depend on the number of rows. Both run in read-only transactions and are therefore served by a
+ * read replica when one is configured.
+ */
+@Service
+public class ShortUrlListingService {
+
+	private static final String COLUMNS =
+		"id, slug, destination_url, created_at, last_accessed_at, hit_count, expires_at, redirect_policy";
+
+	private static final RowMapper<ShortUrl> ROW_MAPPER = (rs, rowNum) -> {
+		String redirectPolicy = rs.getString("redirect_policy");
+		return ShortUrl.builder()
+			.id(rs.getLong("id"))
+			.slug(rs.getString("slug"))
+			.destinationUrl(rs.getString("destination_url"))
+			.createdAt(toInstant(rs.getObject("created_at", OffsetDateTime.class)))
+			.lastAccessedAt(toInstant(rs.getObject("last_accessed_at", OffsetDateTime.class)))
+			.hitCount(rs.getLong("hit_count"))
+			.expiresAt(toInstant(rs.getObject("expires_at", OffsetDateTime.class)))
+			.redirectPolicy(redirectPolicy != null ? RedirectPolicy.valueOf(redirectPolicy) : null)
+			.build();
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+	private final JdbcTemplate streamingJdbcTemplate;
+	private final TransactionTemplate readOnlyTransaction;
+	private final ShardRouter shardRouter;
+	private final int maxPageSize;
+
+	public ShortUrlListingService(JdbcTemplate jdbcTemplate, DataSource dataSource,
+		PlatformTransactionManager transactionManager, ShardRouter shardRouter,
+		@Value("${app.shortener.listing.max-page-size:1000}") int maxPageSize,
+		@Value("${app.shortener.listing.export-fetch-size:1000}") int exportFetchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		// PostgreSQL only streams a result set with a fetch size inside a transaction
+		this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+		this.streamingJdbcTemplate.setFetchSize(Math.max(1, exportFetchSize));
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.shardRouter = shardRouter;
+		this.maxPageSize = Math.max(1, maxPageSize);
+	}
+
+	public int maxPageSize() {
+		return maxPageSize;
+	}
+
+	/**
+	 * One page of links matching {@code filter}, starting after {@code cursor} ({@code null} for the first page).
+	 */
+	public Page list(ShortUrlFilter filter, String cursor, int limit, boolean descending) {
+		if (limit < 1 || limit > maxPageSize) {
+			throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+		}
+		Cursor after = cursor != null && !cursor.isEmpty() ? Cursor.decode(cursor) : null;
+		Instant now = Instant.now();
+		List<List<ShardRow>> perShard = shardRouter.gather(shard -> {
+			List<Object> args = new ArrayList<>();
+			StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM short_urls WHERE 1 = 1");
+			appendFilter(filter, now, sql, args);
+			if (after != null) {
+				appendAfter(after, shard, descending, sql, args);
+			}
+			String direction = descending ? " DESC" : "";
+			sql.append(" ORDER BY created_at").append(direction).append(", id").append(direction).append(" LIMIT ?");
+			args.add(limit + 1);
+			List<ShortUrl> rows = readOnlyTransaction.execute(status ->
+				jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray()));
+			return rows.stream().map(row -> new ShardRow(shard, row)).toList();
+		});
+
+		Comparator<ShardRow> order = Comparator.<ShardRow, Instant>comparing(row -> row.shortUrl().getCreatedAt())
+			.thenComparingInt(ShardRow::shard)
+			.thenComparingLong(row -> row.shortUrl().getId());
+		List<ShardRow> merged = perShard.stream()
+			.flatMap(List::stream)
+			.sorted(descending ? order.reversed() : order)
+			.toList();
+		List<ShortUrl> items = merged.stream().limit(limit).map(ShardRow::shortUrl).toList();
+		String nextCursor = null;
+		if (merged.size() > limit) {
+			ShardRow last = merged.get(limit - 1);
+			nextCursor = new Cursor(last.shortUrl().getCreatedAt(), last.shard(), last.shortUrl().getId()).encode();
+		}
+		return new Page(items, nextCursor);
+	}
+
+	/**
+	 * Streams every link matching {@code filter} to {@code sink}, shard by shard and in {@code (created_at, id)}
+	 * order within a shard, and returns the number of rows written.
+	 */
+	public long export(ShortUrlFilter filter, RowSink sink) throws IOException {
+		Instant now = Instant.now();
+		List<Object> args = new ArrayList<>();
+		StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM short_urls WHERE 1 = 1");
+		appendFilter(filter, now, sql, args);
+		sql.append(" ORDER BY created_at, id");
+		long[] rows = new long[1];
+		try {
+			for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+				shardRouter.onShard(shard, () -> readOnlyTransaction.executeWithoutResult(status ->
+					streamingJdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> {
+						try {
+							sink.accept(ROW_MAPPER.mapRow(rs, 0));
+						}
+						catch (IOException ex) {
+							throw new UncheckedIOException(ex);
+						}
+						rows[0]++;
+					}, args.toArray())));
+			}
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		return rows[0];
+	}
+
+	static void appendFilter(ShortUrlFilter filter, Instant now, StringBuilder sql, List<Object> args) {
+		if (filter.expired() != null) {
+			sql.append(filter.expired()
+				? " AND expires_at IS NOT NULL AND expires_at < ?"
+				: " AND (expires_at IS NULL OR expires_at >= ?)");
+			args.add(utc(now));
+		}
+		if (filter.minHits() != null) {
+			sql.append(" AND hit_count >= ?");
+			args.add(filter.minHits());
+		}
+		if (filter.maxHits() != null) {
+			sql.append(" AND hit_count <= ?");
+			args.add(filter.maxHits());
+		}
+		if (filter.createdFrom() != null) {
+			sql.append(" AND created_at >= ?");
+			args.add(utc(filter.createdFrom()));
+		}
+		if (filter.createdTo() != null) {
+			sql.append(" AND created_at < ?");
+			args.add(utc(filter.createdTo()));
+		}
+	}
+
+	/**
+	 * Restricts a shard to rows after the cursor in {@code (created_at, shard, id)} order: shards that come before
+	 * the cursor's shard only contribute later timestamps, its own shard continues after its id, and shards that come
+	 * after it may repeat the cursor's timestamp.
+	 */
+	private static void appendAfter(Cursor after, int shard, boolean descending, StringBuilder sql,
+		List<Object> args) {
+		String later = descending ? "<" : ">";
+		OffsetDateTime createdAt = utc(after.createdAt());
+		if (shard == after.shard()) {
+			sql.append(" AND (created_at ").append(later).append(" ? OR (created_at = ? AND id ").append(later)
+				.append(" ?))");
+			args.add(createdAt);
+			args.add(createdAt);
+			args.add(after.id());
+		}
+		else {
+			boolean shardComesLater = descending ? shard < after.shard() : shard > after.shard();
+			sql.append(" AND created_at ").append(later).append(shardComesLater ? "= ?" : " ?");
+			args.add(createdAt);
+		}
+	}
+
+	private static OffsetDateTime utc(Instant instant) {
+		return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+	}
+
+	private static Instant toInstant(OffsetDateTime value) {
+		return value != null ? value.toInstant() : null;
+	}
+
+	public record Page(List<ShortUrl> items, String nextCursor) {
+	}
+
+	@FunctionalInterface
+	public interface RowSink {
+
+		void accept(ShortUrl shortUrl) throws IOException;
+	}
+
+	private record ShardRow(int shard, ShortUrl shortUrl) {
+	}
+
+	/**
+	 * Position after the last row of a page, opaque to clients: base64url of {@code createdAt|shard|id}.
+	 */
+	record Cursor(Instant createdAt, int shard, long id) {
+
+		String encode() {
+			String raw = createdAt + "|" + shard + "|" + id;
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+		}
+
+		static Cursor decode(String cursor) {
+			try {
+				String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+				String[] parts = raw.split("\\|");
+				if (parts.length == 3) {
+					return new Cursor(Instant.parse(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+				}
+			}
+			catch (IllegalArgumentException | DateTimeParseException ex) {
+				// fall through
+			}
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+	}
+}
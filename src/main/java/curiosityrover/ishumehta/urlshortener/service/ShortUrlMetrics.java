@@ -0,0 +1,86 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters for the create and redirect paths. Every tag combination is registered up front, so recording is a
+ * {@code nanoTime} pair and a timer update with no registry lookup or allocation. Histogram buckets and percentiles
+ * come from the {@code management.metrics.distribution.*} properties.
+ */
+@Component
+public class ShortUrlMetrics {
+
+	public enum RedirectOutcome {
+		HIT, NOT_FOUND, EXPIRED
+	}
+
+	public enum CreateOutcome {
+		CREATED, DEDUPLICATED, CONFLICT, INVALID
+	}
+
+	public enum DatabaseOperation {
+		RESOLVE, INSERT
+	}
+
+	private final Timer[] redirectTimers;
+	private final Timer[] createTimers;
+	private final Timer[] databaseTimers;
+	private final Counter slugRetries;
+
+	public ShortUrlMetrics(MeterRegistry registry) {
+		this.redirectTimers = timers(registry, "shortener.redirect", "outcome", RedirectOutcome.values(),
+			"Time to resolve a slug for a redirect, including cache and database lookups");
+		this.createTimers = timers(registry, "shortener.create", "outcome", CreateOutcome.values(),
+			"Time to validate and persist a single short URL");
+		this.databaseTimers = timers(registry, "shortener.db", "operation", DatabaseOperation.values(),
+			"Database time spent inside shortener.redirect and shortener.create");
+		this.slugRetries = Counter.builder("shortener.slug.retries")
+			.description("Generated slug candidates that were already taken, found by the allocator's lookup or on insert")
+			.register(registry);
+	}
+
+	public void recordRedirect(RedirectOutcome outcome, long startNanos) {
+		record(redirectTimers[outcome.ordinal()], startNanos);
+	}
+
+	public void recordCreate(CreateOutcome outcome, long startNanos) {
+		record(createTimers[outcome.ordinal()], startNanos);
+	}
+
+	public void recordDatabase(DatabaseOperation operation, long startNanos) {
+		record(databaseTimers[operation.ordinal()], startNanos);
+	}
+
+	public void recordSlugRetry() {
+		slugRetries.increment();
+	}
+
+	public void recordSlugRetries(int count) {
+		if (count > 0) {
+			slugRetries.increment(count);
+		}
+	}
+
+	private static void record(Timer timer, long startNanos) {
+		timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private static Timer[] timers(MeterRegistry registry, String name, String tag, Enum<?>[] values,
+		String description) {
+		Timer[] timers = new Timer[values.length];
+		for (Enum<?> value : values) {
+			timers[value.ordinal()] = Timer.builder(name)
+				.description(description)
+				.tag(tag, value.name().toLowerCase(Locale.ROOT))
+				.register(registry);
+		}
+		return timers;
+	}
+}
@@ -1,63 +1,234 @@
 package curiosityrover.ishumehta.urlshortener.service;
 
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.time.Instant;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import curiosityrover.ishumehta.urlshortener.exception.ShortUrlExpiredException;
 import curiosityrover.ishumehta.urlshortener.exception.ShortUrlNotFoundException;
 import curiosityrover.ishumehta.urlshortener.exception.SlugAlreadyExistsException;
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
 import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
 import curiosityrover.ishumehta.urlshortener.repository.ShortUrlRepository;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlMetrics.CreateOutcome;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlMetrics.DatabaseOperation;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlMetrics.RedirectOutcome;
 
 @Service
 public class ShortUrlService {
 
 	private static final Logger log = LoggerFactory.getLogger(ShortUrlService.class);
 
-	private final ShortUrlRepository repository;
-	private final SlugGenerator slugGenerator;
-
-	@Value("${app.shortener.base-url:http://localhost:8080}")
-	private String baseUrl;
+	static final int MAX_GENERATED_SLUG_ATTEMPTS = 3;
+	private static final Set<String> LOOPBACK_HOSTS = Set.of("localhost", "127.0.0.1", "0.0.0.0");
+	static final int MAX_SLUG_LENGTH = 64;
+	static final int MAX_DESTINATION_URL_LENGTH = 2048;
 
-	@Value("${app.shortener.slug-length:8}")
-	private int slugLength;
+	private final ShortUrlRepository repository;
+	private final SlugAllocator slugAllocator;
+	private final ShortUrlCache shortUrlCache;
+	private final HitCountAggregator hitCountAggregator;
+	private final ShortUrlMetrics metrics;
+	private final SlugPresenceFilter slugPresenceFilter;
+	private final ShardRouter shardRouter;
+	private final DestinationDeduplicator deduplicator;
+	private final SlugSnapshotStore snapshotStore;
+	private final boolean replicaReads;
+	private final Optional<String> configuredBaseUrl;
+	private final Optional<String> publicBaseUrl;
+	private final String shortUrlPrefix;
 
-	public ShortUrlService(ShortUrlRepository repository, SlugGenerator slugGenerator) {
+	public ShortUrlService(ShortUrlRepository repository, SlugAllocator slugAllocator, ShortUrlCache shortUrlCache,
+		HitCountAggregator hitCountAggregator, ShortUrlMetrics metrics, SlugPresenceFilter slugPresenceFilter,
+		ShardRouter shardRouter, DestinationDeduplicator deduplicator, SlugSnapshotStore snapshotStore,
+		@Value("${app.shortener.base-url:http://localhost:8080}") String baseUrl,
+		@Value("${app.datasource.replica.enabled:false}") boolean replicaReads) {
 		this.repository = repository;
-		this.slugGenerator = slugGenerator;
+		this.slugAllocator = slugAllocator;
+		this.shortUrlCache = shortUrlCache;
+		this.hitCountAggregator = hitCountAggregator;
+		this.metrics = metrics;
+		this.slugPresenceFilter = slugPresenceFilter;
+		this.shardRouter = shardRouter;
+		this.deduplicator = deduplicator;
+		this.snapshotStore = snapshotStore;
+		this.replicaReads = replicaReads;
+		this.configuredBaseUrl = Optional.ofNullable(StringUtils.hasText(baseUrl)
+			? ShortUrlSyntax.stripTrailingSlash(baseUrl.trim())
+			: null);
+		this.publicBaseUrl = configuredBaseUrl.filter(base -> !isLoopbackBase(base));
+		this.shortUrlPrefix = configuredBaseUrl.map(base -> base + "/").orElse("");
 	}
 
-	@SuppressWarnings("null")
-	@Transactional
 	public ShortUrl createShortUrl(String destinationUrl, String customSlug, Instant expiresAt) {
+		return createShortUrl(destinationUrl, customSlug, expiresAt, null);
+	}
+
+	/**
+	 * @param redirectPolicy {@code null} to follow the configured default policy
+	 */
+	public ShortUrl createShortUrl(String destinationUrl, String customSlug, Instant expiresAt,
+		RedirectPolicy redirectPolicy) {
+		long start = System.nanoTime();
+		try {
+			Creation creation = create(destinationUrl, customSlug, expiresAt, redirectPolicy);
+			metrics.recordCreate(creation.reused() ? CreateOutcome.DEDUPLICATED : CreateOutcome.CREATED, start);
+			return creation.shortUrl();
+		}
+		catch (SlugAlreadyExistsException ex) {
+			metrics.recordCreate(CreateOutcome.CONFLICT, start);
+			throw ex;
+		}
+		catch (IllegalArgumentException ex) {
+			metrics.recordCreate(CreateOutcome.INVALID, start);
+			throw ex;
+		}
+	}
+
+	private Creation create(String destinationUrl, String customSlug, Instant expiresAt,
+		RedirectPolicy redirectPolicy) {
 		String normalizedUrl = normalizeDestinationUrl(destinationUrl);
-		String slug = determineSlug(customSlug);
 		Instant normalizedExpiry = normalizeExpiry(expiresAt);
 
-		if (repository.existsBySlug(slug)) {
-			throw new SlugAlreadyExistsException(slug);
+		if (StringUtils.hasText(customSlug)) {
+			String slug = sanitizeCustomSlug(customSlug);
+			return new Creation(shardRouter.onShardOf(slug, () -> {
+				if (repository.existsBySlug(slug)) {
+					throw new SlugAlreadyExistsException(slug);
+				}
+				return persist(slug, normalizedUrl, normalizedExpiry, redirectPolicy, null);
+			}), false);
+		}
+
+		// A custom slug is an explicit request for a new link, so only generated slugs are deduplicated
+		String dedupKey = deduplicator.keyFor(normalizedUrl, normalizedExpiry, redirectPolicy);
+		if (dedupKey != null) {
+			Optional<ShortUrl> existing = deduplicator.find(dedupKey);
+			if (existing.isPresent()) {
+				return new Creation(existing.get(), true);
+			}
+		}
+
+		// Allocated slugs are already known to be free; only a clash with a concurrently created custom slug can
+		// make the insert fail, in which case we simply take the next one. With deduplication the clash can also be
+		// a concurrent create of the same destination on the same shard, whose link is then returned.
+		for (int attempt = 1; ; attempt++) {
+			String slug = slugAllocator.nextSlug();
+			try {
+				ShortUrl created = shardRouter.onShardOf(slug,
+					() -> persist(slug, normalizedUrl, normalizedExpiry, redirectPolicy, dedupKey));
+				deduplicator.remember(created);
+				return new Creation(created, false);
+			}
+			catch (SlugAlreadyExistsException e) {
+				if (dedupKey != null) {
+					Optional<ShortUrl> winner = deduplicator.findConflicting(dedupKey, slug);
+					if (winner.isPresent()) {
+						return new Creation(winner.get(), true);
+					}
+				}
+				if (attempt >= MAX_GENERATED_SLUG_ATTEMPTS) {
+					throw e;
+				}
+				metrics.recordSlugRetry();
+				log.debug("Allocated slug '{}' is taken, retrying", slug);
+			}
+		}
+	}
+
+	public ShortUrl getShortUrl(String slug) {
+		// Repository finders run in their own read-only transaction, opened once the slug's shard is selected
+		return shardRouter.onShardOf(slug, () -> repository.findBySlug(slug))
+			.or(() -> shardRouter.isLookupFallback() ? findOnOtherShards(slug, repository::findBySlug) : Optional.empty())
+			.orElseThrow(() -> new ShortUrlNotFoundException(slug));
+	}
+
+	public ResolvedShortUrl resolve(String slug) {
+		return shortUrlCache.resolve(slug, this::loadResolved)
+			.orElseThrow(() -> new ShortUrlNotFoundException(slug));
+	}
+
+	public ResolvedShortUrl registerHit(String slug) {
+		long start = System.nanoTime();
+		ResolvedShortUrl resolved;
+		try {
+			resolved = resolve(slug);
+			ensureNotExpired(resolved);
+		}
+		catch (ShortUrlNotFoundException ex) {
+			metrics.recordRedirect(RedirectOutcome.NOT_FOUND, start);
+			throw ex;
 		}
+		catch (ShortUrlExpiredException ex) {
+			metrics.recordRedirect(RedirectOutcome.EXPIRED, start);
+			throw ex;
+		}
+		hitCountAggregator.record(slug);
+		metrics.recordRedirect(RedirectOutcome.HIT, start);
+		// Per-hit logging costs more than the redirect itself at volume; shortener.redirect counts hits instead
+		log.debug("Hit short URL slug='{}' destination='{}'", resolved.slug(), resolved.destinationUrl());
+		return resolved;
+	}
+
+	public String buildPublicShortUrl(String slug) {
+		return buildPublicShortUrl(slug, null);
+	}
 
+	public String buildPublicShortUrl(String slug, String requestBaseUrl) {
+		if (StringUtils.hasText(requestBaseUrl)) {
+			return requestBaseUrl.endsWith("/") ? requestBaseUrl + slug : requestBaseUrl + "/" + slug;
+		}
+		return shortUrlPrefix.isEmpty() ? slug : shortUrlPrefix.concat(slug);
+	}
+
+	public Optional<String> getConfiguredBaseUrl() {
+		return configuredBaseUrl;
+	}
+
+	/**
+	 * The configured base URL unless it points at a loopback host, in which case links should be built from the
+	 * incoming request instead.
+	 */
+	public Optional<String> getPublicBaseUrl() {
+		return publicBaseUrl;
+	}
+
+	@SuppressWarnings("null")
+	private ShortUrl persist(String slug, String normalizedUrl, Instant normalizedExpiry,
+		RedirectPolicy redirectPolicy, String dedupKey) {
 		ShortUrl shortUrl = ShortUrl.builder()
 			.slug(slug)
 			.destinationUrl(normalizedUrl)
 			.expiresAt(normalizedExpiry)
+			.redirectPolicy(redirectPolicy)
+			.dedupKey(dedupKey)
 			.build();
 
+		long start = System.nanoTime();
 		try {
 			ShortUrl persisted = repository.save(shortUrl);
+			metrics.recordDatabase(DatabaseOperation.INSERT, start);
+			ResolvedShortUrl resolved = ResolvedShortUrl.from(persisted);
+			afterCommit(() -> {
+				slugPresenceFilter.put(resolved.slug());
+				shortUrlCache.put(resolved);
+			});
 			log.info(
 				"Created short URL slug='{}' shortUrl='{}' destination='{}' expiresAt={}",
 				persisted.getSlug(),
@@ -68,103 +239,64 @@ public class ShortUrlService {
 			return Objects.requireNonNull(persisted, "Short URL could not be persisted");
 		}
 		catch (DataIntegrityViolationException e) {
+			metrics.recordDatabase(DatabaseOperation.INSERT, start);
 			throw new SlugAlreadyExistsException(slug);
 		}
 	}
 
-	@Transactional(readOnly = true)
-	public ShortUrl getShortUrl(String slug) {
-		return repository.findBySlug(slug)
-			.orElseThrow(() -> new ShortUrlNotFoundException(slug));
-	}
-
-	@Transactional
-	public ShortUrl registerHit(String slug) {
-		ShortUrl shortUrl = getShortUrl(slug);
-		ensureNotExpired(shortUrl);
-		shortUrl.setHitCount(shortUrl.getHitCount() + 1);
-		shortUrl.setLastAccessedAt(Instant.now());
-		ShortUrl updated = repository.save(shortUrl);
-		log.info(
-			"Hit short URL slug='{}' destination='{}' totalHits={}",
-			updated.getSlug(),
-			updated.getDestinationUrl(),
-			updated.getHitCount()
-		);
-		return updated;
-	}
-
-	public String buildPublicShortUrl(String slug) {
-		return buildPublicShortUrl(slug, null);
-	}
-
-	public String buildPublicShortUrl(String slug, String requestBaseUrl) {
-		String effectiveBase = StringUtils.hasText(requestBaseUrl) ? requestBaseUrl : baseUrl;
-		if (!StringUtils.hasText(effectiveBase)) {
-			return slug;
-		}
-		String trimmedBase = effectiveBase.endsWith("/") ? effectiveBase.substring(0, effectiveBase.length() - 1)
-			: effectiveBase;
-		return trimmedBase + "/" + slug;
-	}
-
-	public Optional<String> getConfiguredBaseUrl() {
-		if (!StringUtils.hasText(baseUrl)) {
-			return Optional.empty();
+	String sanitizeCustomSlug(String requestedSlug) {
+		String sanitized = sanitizeSlug(requestedSlug);
+		if (sanitized.length() < 3) {
+			throw new IllegalArgumentException("Custom slug must be at least 3 characters");
 		}
-		String trimmedBase = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
-		return Optional.of(trimmedBase);
-	}
-
-	private String determineSlug(String requestedSlug) {
-		if (StringUtils.hasText(requestedSlug)) {
-			String sanitized = sanitizeSlug(requestedSlug);
-			if (sanitized.length() < 3) {
-				throw new IllegalArgumentException("Custom slug must be at least 3 characters");
-			}
-			return sanitized;
+		if (sanitized.length() > MAX_SLUG_LENGTH) {
+			throw new IllegalArgumentException("Custom slug must be at most " + MAX_SLUG_LENGTH + " characters");
 		}
-
-		int effectiveLength = slugLength > 0 ? slugLength : 8;
-		String generatedSlug;
-		do {
-			generatedSlug = slugGenerator.generateSlug(effectiveLength);
+		if (sanitized.equals("export")) {
+			// GET /api/urls/export is the export endpoint, so this slug's metadata could not be read
+			throw new IllegalArgumentException("Custom slug 'export' is reserved");
 		}
-		while (repository.existsBySlug(generatedSlug));
-		return generatedSlug;
+		return sanitized;
 	}
 
 	private String sanitizeSlug(String slug) {
 		String trimmed = slug.trim();
-		if (!trimmed.matches("^[A-Za-z0-9_-]+$")) {
+		if (!ShortUrlSyntax.isSlug(trimmed)) {
 			throw new IllegalArgumentException("Slug may only contain letters, numbers, '-' or '_'");
 		}
 		return trimmed;
 	}
 
-	private String normalizeDestinationUrl(String destinationUrl) {
+	String normalizeDestinationUrl(String destinationUrl) {
 		if (!StringUtils.hasText(destinationUrl)) {
 			throw new IllegalArgumentException("Destination URL is required");
 		}
 
 		String trimmed = destinationUrl.trim();
-		try {
-			URI uri = new URI(trimmed);
-			String scheme = uri.getScheme();
-			if (scheme == null || (!scheme.equalsIgnoreCase("http") && !scheme.equalsIgnoreCase("https"))) {
-				throw new IllegalArgumentException("Destination URL must start with http or https");
-			}
-			if (!StringUtils.hasText(uri.getHost())) {
-				throw new IllegalArgumentException("Destination URL must include a valid host");
-			}
-			return uri.toString();
+		if (trimmed.length() > MAX_DESTINATION_URL_LENGTH) {
+			throw new IllegalArgumentException("Destination URL is too long");
 		}
-		catch (URISyntaxException e) {
-			throw new IllegalArgumentException("Destination URL is invalid");
+		return switch (ShortUrlSyntax.checkHttpUrl(trimmed)) {
+			case VALID -> asciiDestination(trimmed);
+			case UNSUPPORTED_SCHEME -> throw new IllegalArgumentException("Destination URL must start with http or https");
+			case MISSING_HOST -> throw new IllegalArgumentException("Destination URL must include a valid host");
+			case MALFORMED -> throw new IllegalArgumentException("Destination URL is invalid");
+		};
+	}
+
+	/**
+	 * Stores the percent-encoded form of URLs with non-ASCII characters, which {@code java.net.URI} accepts but an
+	 * HTTP header cannot carry, so redirects can send the stored string as the {@code Location} unchanged.
+	 */
+	private static String asciiDestination(String url) {
+		String ascii = ShortUrlSyntax.toAscii(url);
+		if (ascii.length() > MAX_DESTINATION_URL_LENGTH) {
+			throw new IllegalArgumentException("Destination URL is too long");
 		}
+		return ascii;
 	}
 
-	private Instant normalizeExpiry(Instant expiresAt) {
+	Instant normalizeExpiry(Instant expiresAt) {
 		if (expiresAt == null) {
 			return null;
 		}
@@ -175,10 +307,85 @@ public class ShortUrlService {
 		return expiresAt;
 	}
 
-	private void ensureNotExpired(ShortUrl shortUrl) {
-		if (shortUrl.isExpired()) {
-			throw new ShortUrlExpiredException(shortUrl.getSlug());
+	private Optional<ResolvedShortUrl> loadResolved(String slug) {
+		if (!slugPresenceFilter.mightContain(slug)) {
+			return Optional.empty();
+		}
+		long start = System.nanoTime();
+		try {
+			int shard = shardRouter.shardOf(slug);
+			Optional<ResolvedShortUrl> resolved = shardRouter.onShard(shard, () -> repository.findResolvedBySlug(slug));
+			if (resolved.isEmpty() && replicaReads && shard == 0) {
+				// The replica may not have caught up with a link just created on another instance; check the primary
+				// before a 404 is returned and negatively cached
+				resolved = repository.findResolvedBySlugOnPrimary(slug);
+			}
+			if (resolved.isEmpty() && shardRouter.isLookupFallback()) {
+				resolved = findOnOtherShards(slug, repository::findResolvedBySlug);
+			}
+			return resolved;
+		}
+		catch (DataAccessException | TransactionException ex) {
+			if (snapshotStore.isEnabled()) {
+				// A link missing from the snapshot may still exist, so that stays an error rather than a 404
+				Optional<ResolvedShortUrl> snapshot = snapshotStore.find(slug);
+				if (snapshot.isPresent()) {
+					log.debug("Database unavailable, resolved slug '{}' from the snapshot: {}", slug, ex.getMessage());
+					return snapshot;
+				}
+			}
+			throw ex;
+		}
+		finally {
+			metrics.recordDatabase(DatabaseOperation.RESOLVE, start);
+		}
+	}
+
+	/**
+	 * Looks for a slug on the shards that do not own it, where it can still be while rows are being rebalanced.
+	 */
+	private <T> Optional<T> findOnOtherShards(String slug, Function<String, Optional<T>> finder) {
+		int owner = shardRouter.shardOf(slug);
+		for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+			if (shard != owner) {
+				Optional<T> found = shardRouter.onShard(shard, () -> finder.apply(slug));
+				if (found.isPresent()) {
+					return found;
+				}
+			}
 		}
+		return Optional.empty();
 	}
-}
 
+	private void ensureNotExpired(ResolvedShortUrl resolved) {
+		if (resolved.isExpired()) {
+			throw new ShortUrlExpiredException(resolved.slug());
+		}
+	}
+
+	private static boolean isLoopbackBase(String base) {
+		try {
+			String host = URI.create(base).getHost();
+			return !StringUtils.hasText(host) || LOOPBACK_HOSTS.contains(host.toLowerCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException ex) {
+			return false;
+		}
+	}
+
+	static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	private record Creation(ShortUrl shortUrl, boolean reused) {
+	}
+}
@@ -0,0 +1,290 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Allocation-free syntax checks for the values accepted on the create path. {@link #checkHttpUrl} accepts exactly
+ * the absolute http(s) URLs that {@code java.net.URI} parses with a server-based authority, in a single pass over
+ * the string and without building a {@code URI}.
+ */
+public final class ShortUrlSyntax {
+
+	enum UrlCheck {
+		VALID,
+		UNSUPPORTED_SCHEME,
+		MISSING_HOST,
+		MALFORMED
+	}
+
+	private static final boolean[] SLUG = new boolean[128];
+	private static final boolean[] UNRESERVED = new boolean[128];
+	private static final boolean[] USERINFO = new boolean[128];
+	private static final boolean[] AUTHORITY = new boolean[128];
+	private static final boolean[] PATH = new boolean[128];
+	private static final boolean[] QUERY = new boolean[128];
+	private static final boolean[] FRAGMENT = new boolean[128];
+
+	static {
+		for (char c = '0'; c <= '9'; c++) {
+			SLUG[c] = true;
+			UNRESERVED[c] = true;
+		}
+		for (char c = 'a'; c <= 'z'; c++) {
+			SLUG[c] = true;
+			SLUG[Character.toUpperCase(c)] = true;
+			UNRESERVED[c] = true;
+			UNRESERVED[Character.toUpperCase(c)] = true;
+		}
+		SLUG['-'] = true;
+		SLUG['_'] = true;
+		mark(UNRESERVED, "-_.!~*'()");
+		mark(USERINFO, UNRESERVED, ";:&=+$,");
+		mark(AUTHORITY, UNRESERVED, ";:&=+$,@[]");
+		mark(PATH, UNRESERVED, ";/:@&=+$,");
+		mark(QUERY, UNRESERVED, ";/?:@&=+$,[]");
+		mark(FRAGMENT, QUERY, "");
+	}
+
+	private ShortUrlSyntax() {
+	}
+
+	static boolean isSlug(String value) {
+		return isSlug(value, 0, value.length());
+	}
+
+	/**
+	 * Whether {@code value[from, to)} is a non-empty run of slug characters.
+	 */
+	public static boolean isSlug(String value, int from, int to) {
+		if (from >= to) {
+			return false;
+		}
+		for (int i = from; i < to; i++) {
+			char c = value.charAt(i);
+			if (c >= 128 || !SLUG[c]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static UrlCheck checkHttpUrl(String url) {
+		int length = url.length();
+		int colon = schemeEnd(url);
+		if (colon < 0 || !isHttpScheme(url, colon)) {
+			return UrlCheck.UNSUPPORTED_SCHEME;
+		}
+		int authorityStart = colon + 3;
+		if (!url.startsWith("//", colon + 1) || authorityStart == length) {
+			return UrlCheck.MISSING_HOST;
+		}
+		int authorityEnd = authorityStart;
+		while (authorityEnd < length) {
+			char c = url.charAt(authorityEnd);
+			if (c == '/' || c == '?' || c == '#') {
+				break;
+			}
+			authorityEnd++;
+		}
+		if (!scan(url, authorityStart, authorityEnd, AUTHORITY)) {
+			return UrlCheck.MALFORMED;
+		}
+		int hash = url.indexOf('#', authorityEnd);
+		int pathEnd = hash < 0 ? length : hash;
+		int question = url.indexOf('?', authorityEnd);
+		if (question >= 0 && question < pathEnd) {
+			pathEnd = question;
+		}
+		if (!scan(url, authorityEnd, pathEnd, PATH)) {
+			return UrlCheck.MALFORMED;
+		}
+		if (pathEnd < length && url.charAt(pathEnd) == '?'
+			&& !scan(url, pathEnd + 1, hash < 0 ? length : hash, QUERY)) {
+			return UrlCheck.MALFORMED;
+		}
+		if (hash >= 0 && !scan(url, hash + 1, length, FRAGMENT)) {
+			return UrlCheck.MALFORMED;
+		}
+		int bracket = url.indexOf('[', authorityStart);
+		if (bracket >= 0 && bracket < authorityEnd) {
+			// IPv6 literals are rare enough to leave to the JDK parser
+			return checkWithUri(url);
+		}
+		return isServerAuthority(url, authorityStart, authorityEnd) ? UrlCheck.VALID : UrlCheck.MISSING_HOST;
+	}
+
+	/**
+	 * {@code url} with every non-ASCII character percent-encoded as UTF-8, as {@link URI#toASCIIString} does. Only
+	 * for URLs that passed {@link #checkHttpUrl}; ASCII-only URLs are returned without allocating.
+	 */
+	static String toAscii(String url) {
+		for (int i = 0; i < url.length(); i++) {
+			if (url.charAt(i) >= 128) {
+				return URI.create(url).toASCIIString();
+			}
+		}
+		return url;
+	}
+
+	static String stripTrailingSlash(String value) {
+		return value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+	}
+
+	private static int schemeEnd(String url) {
+		if (url.isEmpty() || !isAsciiLetter(url.charAt(0))) {
+			return -1;
+		}
+		for (int i = 1; i < url.length(); i++) {
+			char c = url.charAt(i);
+			if (c == ':') {
+				return i;
+			}
+			if (!isAsciiLetter(c) && !(c >= '0' && c <= '9') && c != '+' && c != '-' && c != '.') {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isHttpScheme(String url, int colon) {
+		return (colon == 4 && url.regionMatches(true, 0, "http", 0, 4))
+			|| (colon == 5 && url.regionMatches(true, 0, "https", 0, 5));
+	}
+
+	private static boolean scan(String url, int from, int to, boolean[] allowed) {
+		for (int i = from; i < to; i++) {
+			char c = url.charAt(i);
+			if (c < 128) {
+				if (c == '%') {
+					if (i + 2 >= to || !isHex(url.charAt(i + 1)) || !isHex(url.charAt(i + 2))) {
+						return false;
+					}
+					i += 2;
+				}
+				else if (!allowed[c]) {
+					return false;
+				}
+			}
+			else if (Character.isISOControl(c) || Character.isSpaceChar(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isServerAuthority(String url, int from, int to) {
+		int at = url.indexOf('@', from);
+		int hostStart = from;
+		if (at >= 0 && at < to) {
+			if (!scan(url, from, at, USERINFO)) {
+				return false;
+			}
+			hostStart = at + 1;
+		}
+		int hostEnd = hostStart;
+		while (hostEnd < to && url.charAt(hostEnd) != ':') {
+			hostEnd++;
+		}
+		if (hostEnd == hostStart || !(isIpv4(url, hostStart, hostEnd) || isHostname(url, hostStart, hostEnd))) {
+			return false;
+		}
+		for (int i = hostEnd + 1; i < to; i++) {
+			char c = url.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isIpv4(String url, int from, int to) {
+		int octets = 0;
+		int i = from;
+		while (i < to) {
+			int value = 0;
+			int digits = 0;
+			while (i < to && url.charAt(i) >= '0' && url.charAt(i) <= '9') {
+				value = value * 10 + (url.charAt(i) - '0');
+				digits++;
+				i++;
+			}
+			if (digits == 0 || digits > 3 || value > 255) {
+				return false;
+			}
+			octets++;
+			if (i < to) {
+				if (url.charAt(i) != '.' || octets == 4) {
+					return false;
+				}
+				i++;
+			}
+		}
+		return octets == 4 && url.charAt(to - 1) != '.';
+	}
+
+	/**
+	 * RFC 2396 hostname as {@code java.net.URI} checks it: alphanumeric labels with inner hyphens, an optional
+	 * trailing dot, and a top label starting with a letter when there is more than one label.
+	 */
+	private static boolean isHostname(String url, int from, int to) {
+		int lastLabelStart = from;
+		int i = from;
+		while (i < to) {
+			char first = url.charAt(i);
+			if (!isAsciiAlphanumeric(first)) {
+				return false;
+			}
+			lastLabelStart = i;
+			char last = first;
+			i++;
+			while (i < to && url.charAt(i) != '.') {
+				last = url.charAt(i);
+				if (!isAsciiAlphanumeric(last) && last != '-') {
+					return false;
+				}
+				i++;
+			}
+			if (last == '-') {
+				return false;
+			}
+			if (i < to) {
+				// skip the dot; a trailing dot ends the hostname
+				i++;
+			}
+		}
+		return lastLabelStart == from || isAsciiLetter(url.charAt(lastLabelStart));
+	}
+
+	private static UrlCheck checkWithUri(String url) {
+		try {
+			return new URI(url).getHost() != null ? UrlCheck.VALID : UrlCheck.MISSING_HOST;
+		}
+		catch (URISyntaxException ex) {
+			return UrlCheck.MALFORMED;
+		}
+	}
+
+	private static boolean isAsciiLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static boolean isAsciiAlphanumeric(char c) {
+		return isAsciiLetter(c) || (c >= '0' && c <= '9');
+	}
+
+	private static boolean isHex(char c) {
+		return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+	}
+
+	private static void mark(boolean[] table, String chars) {
+		for (int i = 0; i < chars.length(); i++) {
+			table[chars.charAt(i)] = true;
+		}
+	}
+
+	private static void mark(boolean[] table, boolean[] base, String chars) {
+		System.arraycopy(base, 0, table, 0, base.length);
+		mark(table, chars);
+	}
+}
@@ -0,0 +1,24 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strategy for allocating slugs when the caller does not supply a custom one. Implementations must only return
+ * slugs that are not yet in use (or, in the rare case of a clash with a custom slug, are rejected by the unique
+ * index so the caller can ask for another).
+ */
+public interface SlugAllocator {
+
+	String nextSlug();
+
+	default List<String> nextSlugs(int count) {
+		List<String> slugs = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			slugs.add(nextSlug());
+		}
+		return slugs;
+	}
+
+	String strategyName();
+}
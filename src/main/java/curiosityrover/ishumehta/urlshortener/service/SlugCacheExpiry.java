@@ -0,0 +1,60 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+
+/**
+ * Lifetime of a cached slug lookup: {@code ttl} for a link, cut short by its {@code expiresAt}, and
+ * {@code negativeTtl} for an unknown or already expired slug. Reads do not extend an entry.
+ */
+public final class SlugCacheExpiry implements Expiry<String, Optional<ResolvedShortUrl>> {
+
+	private final long ttlNanos;
+	private final long negativeTtlNanos;
+
+	public SlugCacheExpiry(Duration ttl, Duration negativeTtl) {
+		this.ttlNanos = ttl.toNanos();
+		this.negativeTtlNanos = negativeTtl.toNanos();
+	}
+
+	@Override
+	public long expireAfterCreate(String slug, Optional<ResolvedShortUrl> value, long currentTime) {
+		return lifetime(value);
+	}
+
+	long lifetime(Optional<ResolvedShortUrl> value) {
+		if (value.isEmpty()) {
+			return negativeTtlNanos;
+		}
+		Instant expiresAt = value.get().expiresAt();
+		if (expiresAt == null) {
+			return ttlNanos;
+		}
+		Instant now = Instant.now();
+		if (!expiresAt.isAfter(now)) {
+			// expired links stay gone, so remember them as long as an unknown slug
+			return negativeTtlNanos;
+		}
+		if (expiresAt.isAfter(now.plusNanos(ttlNanos))) {
+			return ttlNanos;
+		}
+		return Duration.between(now, expiresAt).toNanos();
+	}
+
+	@Override
+	public long expireAfterUpdate(String slug, Optional<ResolvedShortUrl> value, long currentTime,
+		long currentDuration) {
+		return expireAfterCreate(slug, value, currentTime);
+	}
+
+	@Override
+	public long expireAfterRead(String slug, Optional<ResolvedShortUrl> value, long currentTime,
+		long currentDuration) {
+		return currentDuration;
+	}
+}
@@ -1,24 +1,119 @@
 package curiosityrover.ishumehta.urlshortener.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.stereotype.Component;
 
+/**
+ * Random base62 slugs from a set of independent DRBG ({@code SecureRandom.getInstance("DRBG")}, NIST SP 800-90A)
+ * instances. Each is seeded once from the platform entropy source and then never blocks on it. Threads are spread
+ * over the instances by thread id, so concurrent creates rarely wait on the same lock.
+ * <p>
+ * Characters are cut from the random bytes six bits at a time. Values 62 and 63 are discarded rather than reduced
+ * modulo 62, so every character is uniform; on average a slug of {@code n} characters uses about {@code 0.78 n}
+ * random bytes, fetched with one call.
+ */
 @Component
 public class SlugGenerator {
 
-	private static final char[] ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
-	private final SecureRandom random = new SecureRandom();
+	private static final char[] ALPHABET = Base62.ALPHABET;
+	private static final int SECURITY_STRENGTH = 256;
+
+	private final SecureRandom[] stripes;
+	private final int stripeMask;
+
+	public SlugGenerator() {
+		this(2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	SlugGenerator(int minimumStripes) {
+		int count = minimumStripes <= 1 ? 1 : Integer.highestOneBit(minimumStripes - 1) << 1;
+		this.stripes = new SecureRandom[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = newDrbg(i);
+		}
+		this.stripeMask = count - 1;
+	}
 
 	public String generateSlug(int length) {
+		checkLength(length);
+		char[] slug = new char[length];
+		fill(stripe(), slug, 0, length);
+		return new String(slug);
+	}
+
+	/**
+	 * {@code count} slugs from one stripe and one draw of random bytes. Duplicates are as likely as with repeated
+	 * {@link #generateSlug} calls.
+	 */
+	public List<String> generateSlugs(int count, int length) {
+		checkLength(length);
+		if (count < 0) {
+			throw new IllegalArgumentException("Slug count must not be negative");
+		}
+		char[] chars = new char[Math.multiplyExact(count, length)];
+		fill(stripe(), chars, 0, chars.length);
+		List<String> slugs = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			slugs.add(new String(chars, i * length, length));
+		}
+		return slugs;
+	}
+
+	int stripeCount() {
+		return stripes.length;
+	}
+
+	private SecureRandom stripe() {
+		// thread ids are sequential, so the threads of a pool take the stripes in turn
+		return stripes[(int) Thread.currentThread().threadId() & stripeMask];
+	}
+
+	private static void fill(SecureRandom random, char[] out, int from, int to) {
+		// 6 * 64 / 62 bits per accepted character on average, plus slack for a run of rejections
+		byte[] bytes = new byte[(to - from) * 25 / 32 + 8];
+		random.nextBytes(bytes);
+		int next = 0;
+		long bits = 0;
+		int available = 0;
+		int position = from;
+		while (position < to) {
+			if (available < 6) {
+				if (next == bytes.length) {
+					random.nextBytes(bytes);
+					next = 0;
+				}
+				bits = (bits << 8) | (bytes[next++] & 0xFF);
+				available += 8;
+				continue;
+			}
+			available -= 6;
+			int value = (int) (bits >>> available) & 0x3F;
+			if (value < ALPHABET.length) {
+				out[position++] = ALPHABET[value];
+			}
+		}
+	}
+
+	private static void checkLength(int length) {
 		if (length <= 0) {
 			throw new IllegalArgumentException("Slug length must be positive");
 		}
-		StringBuilder slug = new StringBuilder(length);
-		for (int i = 0; i < length; i++) {
-			slug.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+	}
+
+	private static SecureRandom newDrbg(int stripe) {
+		try {
+			// no prediction resistance: the entropy source is read to instantiate, not on every request
+			return SecureRandom.getInstance("DRBG", DrbgParameters.instantiation(SECURITY_STRENGTH,
+				DrbgParameters.Capability.NONE, ("slug-generator-" + stripe).getBytes(StandardCharsets.US_ASCII)));
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("DRBG SecureRandom is not available", ex);
 		}
-		return slug.toString();
 	}
 }
-
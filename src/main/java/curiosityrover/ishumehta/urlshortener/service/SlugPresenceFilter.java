@@ -0,0 +1,206 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bloom filter over every slug in {@code short_urls}, consulted on slug cache misses so that lookups for slugs that
+ * were never created (scanners, typos) are answered without a database query.
+ * <p>
+ * The filter is built by streaming the {@code slug} column and rebuilt periodically, sized for twice the current
+ * row count. Slugs are added after their insert commits; during a rebuild they go into both the live and the new
+ * filter. Deleted slugs cannot be removed from a Bloom filter and only stop matching after the next rebuild. Until
+ * the first build completes, and while disabled, every slug "might" exist and lookups go to the database as before.
+ * <p>
+ * The filter only sees slugs created through this instance, slugs announced by other instances over the shared
+ * cache tier, and whatever existed at the last rebuild. With several instances writing to the same database it must
+ * stay disabled unless {@code app.shortener.shared-cache.type} is set: invalidations can be lost while an instance is
+ * disconnected, but only until its next rebuild.
+ */
+@Component
+public class SlugPresenceFilter implements MeterBinder {
+
+	private static final Logger log = LoggerFactory.getLogger(SlugPresenceFilter.class);
+
+	private static final int STREAM_FETCH_SIZE = 10_000;
+
+	private final JdbcTemplate streamingJdbcTemplate;
+	private final TransactionTemplate streamingTransaction;
+	private final ShardRouter shardRouter;
+	private final boolean enabled;
+	private final long minimumCapacity;
+	private final double falsePositiveRate;
+	private final ReentrantLock rebuildLock = new ReentrantLock();
+	private final LongAdder rejected = new LongAdder();
+	private volatile BloomFilter current;
+	private volatile BloomFilter building;
+	private volatile Instant lastRebuild;
+	private volatile Duration lastRebuildDuration;
+
+	public SlugPresenceFilter(DataSource dataSource, PlatformTransactionManager transactionManager,
+		ShardRouter shardRouter, SharedSlugCache sharedCache,
+		@Value("${app.shortener.slug-filter.enabled:false}") boolean enabled,
+		@Value("${app.shortener.slug-filter.minimum-capacity:1000000}") long minimumCapacity,
+		@Value("${app.shortener.slug-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+		this.shardRouter = shardRouter;
+		this.enabled = enabled;
+		this.minimumCapacity = Math.max(1L, minimumCapacity);
+		this.falsePositiveRate = falsePositiveRate;
+		if (enabled) {
+			// PostgreSQL only streams a result set with a fetch size inside a transaction. It is deliberately not
+			// read-only: that would route it to a read replica, which could still miss slugs committed just before
+			// the rebuild started, and those would then be rejected until the next rebuild.
+			this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+			this.streamingJdbcTemplate.setFetchSize(STREAM_FETCH_SIZE);
+			this.streamingTransaction = new TransactionTemplate(transactionManager);
+			// fail fast on a bad false-positive rate instead of on the first scheduled rebuild
+			BloomFilter.create(1, falsePositiveRate);
+			sharedCache.subscribe(invalidation -> {
+				if (invalidation.created()) {
+					put(invalidation.slug());
+				}
+			});
+		}
+		else {
+			this.streamingJdbcTemplate = null;
+			this.streamingTransaction = null;
+		}
+	}
+
+	/**
+	 * {@code false} only if the slug is definitely not in {@code short_urls}.
+	 */
+	public boolean mightContain(String slug) {
+		BloomFilter filter = current;
+		if (filter == null || filter.mightContain(slug)) {
+			return true;
+		}
+		rejected.increment();
+		return false;
+	}
+
+	/**
+	 * Records a slug whose insert has committed.
+	 */
+	public void put(String slug) {
+		if (!enabled) {
+			return;
+		}
+		// Read the rebuild target first: if it is still null here, the slug was committed before the rebuild
+		// started streaming and will be picked up by the query
+		BloomFilter next = building;
+		BloomFilter filter = current;
+		if (filter != null) {
+			filter.put(slug);
+		}
+		if (next != null) {
+			next.put(slug);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${app.shortener.slug-filter.rebuild-interval:PT1H}")
+	public void scheduledRebuild() {
+		if (enabled) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * Rebuilds the filter from {@code short_urls}; a no-op when disabled or when a rebuild is already running.
+	 */
+	public boolean rebuild() {
+		if (!enabled || !rebuildLock.tryLock()) {
+			return false;
+		}
+		try {
+			long started = System.nanoTime();
+			long rows = shardRouter.gather(shard -> streamingJdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM short_urls", Long.class)).stream().mapToLong(count -> count != null ? count : 0).sum();
+			BloomFilter next = BloomFilter.create(Math.max(minimumCapacity, 2 * rows), falsePositiveRate);
+			building = next;
+			try {
+				for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+					shardRouter.onShard(shard, () -> streamingTransaction.executeWithoutResult(status ->
+						streamingJdbcTemplate.query("SELECT slug FROM short_urls",
+							(RowCallbackHandler) rs -> next.put(rs.getString(1)))));
+				}
+				lastRebuild = Instant.now();
+				lastRebuildDuration = Duration.ofNanos(System.nanoTime() - started);
+				current = next;
+			}
+			finally {
+				building = null;
+			}
+			log.info("Rebuilt slug filter over {} slugs: {} KiB, {} hash functions, expected false-positive rate {}",
+				rows, next.memoryBytes() / 1024, next.hashFunctions(), String.format("%.4f",
+					next.expectedFalsePositiveRate()));
+			return true;
+		}
+		catch (DataAccessException ex) {
+			log.warn("Failed to rebuild slug filter, keeping the previous one: {}", ex.getMessage());
+			return false;
+		}
+		finally {
+			rebuildLock.unlock();
+		}
+	}
+
+	public Map<String, Object> stats() {
+		BloomFilter filter = current;
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("enabled", enabled);
+		body.put("ready", filter != null);
+		body.put("rejectedLookups", rejected.sum());
+		if (filter != null) {
+			body.put("approximateSlugs", filter.approximateElementCount());
+			body.put("bits", filter.bitSize());
+			body.put("hashFunctions", filter.hashFunctions());
+			body.put("memoryBytes", filter.memoryBytes());
+			body.put("targetFalsePositiveRate", falsePositiveRate);
+			body.put("expectedFalsePositiveRate", filter.expectedFalsePositiveRate());
+			body.put("lastRebuild", lastRebuild);
+			body.put("lastRebuildDurationMillis", lastRebuildDuration.toMillis());
+		}
+		return body;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		if (!enabled) {
+			return;
+		}
+		FunctionCounter.builder("shortener.slugfilter.rejected", rejected, LongAdder::sum)
+			.description("Slug lookups answered as not found by the slug filter without a database query")
+			.register(registry);
+		Gauge.builder("shortener.slugfilter.false.positive.rate", this,
+				f -> f.current != null ? f.current.expectedFalsePositiveRate() : Double.NaN)
+			.description("Expected false-positive rate of the slug filter at its current fill level")
+			.register(registry);
+		Gauge.builder("shortener.slugfilter.memory", this, f -> f.current != null ? f.current.memoryBytes() : 0)
+			.baseUnit("bytes")
+			.description("Size of the slug filter bit array")
+			.register(registry);
+	}
+}
@@ -0,0 +1,275 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+
+/**
+ * An immutable file of resolved links, memory-mapped read-only so that neither the links nor their index live on the
+ * heap. Lookups binary-search the index in the mapping and compare the slug in place; only a hit allocates, for the
+ * {@link ResolvedShortUrl} it returns.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * header   magic "SLUGSNAP", int version, int count, long asOf (epoch millis), long indexOffset
+ * records  byte slugLength, slug (ASCII), long id, long expiresAtSeconds (Long.MIN_VALUE if none),
+ *          int expiresAtNanos, byte redirectPolicy (0 if none, else ordinal + 1),
+ *          unsigned short destinationLength, destination (UTF-8)
+ * index    count x int slug hash, ascending; then count x long record offset, in the same order
+ * </pre>
+ * Mapped files are limited to 2 GiB, which is on the order of twenty million links.
+ */
+public final class SlugSnapshot {
+
+	private static final byte[] MAGIC = "SLUGSNAP".getBytes(StandardCharsets.US_ASCII);
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final long NO_EXPIRY = Long.MIN_VALUE;
+	private static final RedirectPolicy[] POLICIES = RedirectPolicy.values();
+
+	private final Path path;
+	private final MappedByteBuffer buffer;
+	private final int count;
+	private final Instant asOf;
+	private final int hashesOffset;
+	private final int offsetsOffset;
+
+	private SlugSnapshot(Path path, MappedByteBuffer buffer) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		buffer.get(0, magic);
+		if (!Arrays.equals(magic, MAGIC) || buffer.getInt(8) != VERSION) {
+			throw new IOException(path + " is not a version " + VERSION + " slug snapshot");
+		}
+		this.path = path;
+		this.buffer = buffer;
+		this.count = buffer.getInt(12);
+		this.asOf = Instant.ofEpochMilli(buffer.getLong(16));
+		this.hashesOffset = (int) buffer.getLong(24);
+		this.offsetsOffset = hashesOffset + 4 * count;
+		if (count < 0 || hashesOffset < HEADER_SIZE || (long) offsetsOffset + 8L * count != buffer.capacity()) {
+			throw new IOException(path + " is truncated or corrupt");
+		}
+	}
+
+	public static SlugSnapshot open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE || channel.size() < HEADER_SIZE) {
+				throw new IOException(path + " is not a slug snapshot of a supported size");
+			}
+			// the mapping stays valid after the channel is closed
+			return new SlugSnapshot(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public Path path() {
+		return path;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * When the rows in this snapshot were read: links created later are not in it.
+	 */
+	public Instant asOf() {
+		return asOf;
+	}
+
+	public Optional<ResolvedShortUrl> find(String slug) {
+		int hash = hash(slug);
+		// leftmost index entry with this hash; several slugs can share one
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (buffer.getInt(hashesOffset + 4 * mid) < hash) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		for (int i = low; i < count && buffer.getInt(hashesOffset + 4 * i) == hash; i++) {
+			int record = (int) buffer.getLong(offsetsOffset + 8 * i);
+			if (slugEquals(record, slug)) {
+				return Optional.of(read(record, slug));
+			}
+		}
+		return Optional.empty();
+	}
+
+	private boolean slugEquals(int record, String slug) {
+		int length = buffer.get(record) & 0xFF;
+		if (length != slug.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (buffer.get(record + 1 + i) != slug.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private ResolvedShortUrl read(int record, String slug) {
+		int position = record + 1 + slug.length();
+		long id = buffer.getLong(position);
+		long expiresAtSeconds = buffer.getLong(position + 8);
+		int expiresAtNanos = buffer.getInt(position + 16);
+		int policy = buffer.get(position + 20);
+		int destinationLength = buffer.getShort(position + 21) & 0xFFFF;
+		byte[] destination = new byte[destinationLength];
+		buffer.get(position + 23, destination);
+		return new ResolvedShortUrl(id, slug, new String(destination, StandardCharsets.UTF_8),
+			expiresAtSeconds != NO_EXPIRY ? Instant.ofEpochSecond(expiresAtSeconds, expiresAtNanos) : null,
+			policy != 0 ? POLICIES[policy - 1] : null);
+	}
+
+	/**
+	 * FNV-1a over the slug's characters, which are all ASCII.
+	 */
+	static int hash(CharSequence slug) {
+		int hash = 0x811C9DC5;
+		for (int i = 0; i < slug.length(); i++) {
+			hash = (hash ^ slug.charAt(i)) * 0x01000193;
+		}
+		return hash;
+	}
+
+	/**
+	 * Streams links into a new snapshot file. The file is written next to its target and only moved into place by
+	 * {@link #finish}, so readers never see a partial snapshot.
+	 */
+	public static final class Writer implements AutoCloseable {
+
+		// large enough for any single record
+		private static final int BUFFER_SIZE = 1 << 17;
+
+		private final Path target;
+		private final Path temporary;
+		private final FileChannel channel;
+		private final Instant asOf;
+		private final ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+		private long position = HEADER_SIZE;
+		private long[] keys = new long[1024];
+		private long[] offsets = new long[1024];
+		private int count;
+		private boolean finished;
+
+		public Writer(Path target, Instant asOf) throws IOException {
+			this.target = target;
+			this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+			this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+			this.asOf = asOf;
+			channel.position(HEADER_SIZE);
+		}
+
+		public void add(ResolvedShortUrl link) throws IOException {
+			String slug = link.slug();
+			if (slug.length() > 0xFF || !ShortUrlSyntax.isSlug(slug)) {
+				throw new IllegalArgumentException("Cannot store slug '" + slug + "' in a snapshot");
+			}
+			byte[] destination = link.destinationUrl().getBytes(StandardCharsets.UTF_8);
+			if (destination.length > 0xFFFF) {
+				throw new IllegalArgumentException("Destination of '" + slug + "' is too long for a snapshot");
+			}
+			if (count == keys.length) {
+				keys = Arrays.copyOf(keys, count * 2);
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			if (position + out.position() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot " + target + " would exceed 2 GiB");
+			}
+			// hash in the high half so that sorting the keys sorts by hash; the low half finds the offset again
+			keys[count] = ((long) hash(slug) << 32) | count;
+			offsets[count] = position + out.position();
+			count++;
+
+			Instant expiresAt = link.expiresAt();
+			RedirectPolicy policy = link.redirectPolicy();
+			ensureRoom(1 + slug.length() + 23 + destination.length);
+			out.put((byte) slug.length());
+			for (int i = 0; i < slug.length(); i++) {
+				out.put((byte) slug.charAt(i));
+			}
+			out.putLong(link.id() != null ? link.id() : 0L);
+			out.putLong(expiresAt != null ? expiresAt.getEpochSecond() : NO_EXPIRY);
+			out.putInt(expiresAt != null ? expiresAt.getNano() : 0);
+			out.put((byte) (policy != null ? policy.ordinal() + 1 : 0));
+			out.putShort((short) destination.length);
+			out.put(destination);
+		}
+
+		public int count() {
+			return count;
+		}
+
+		/**
+		 * Writes the index and header and moves the file to its target.
+		 */
+		public void finish() throws IOException {
+			flush();
+			long indexOffset = position;
+			if (indexOffset + 12L * count > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot " + target + " would exceed 2 GiB");
+			}
+			long[] sorted = Arrays.copyOf(keys, count);
+			Arrays.sort(sorted);
+			for (long key : sorted) {
+				ensureRoom(4);
+				out.putInt((int) (key >> 32));
+			}
+			for (long key : sorted) {
+				ensureRoom(8);
+				out.putLong(offsets[(int) key]);
+			}
+			flush();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+			header.put(MAGIC).putInt(VERSION).putInt(count).putLong(asOf.toEpochMilli()).putLong(indexOffset).flip();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+			channel.force(true);
+			channel.close();
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			finished = true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!finished) {
+				channel.close();
+				Files.deleteIfExists(temporary);
+			}
+		}
+
+		private void ensureRoom(int bytes) throws IOException {
+			if (out.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		private void flush() throws IOException {
+			out.flip();
+			while (out.hasRemaining()) {
+				position += channel.write(out);
+			}
+			out.clear();
+		}
+	}
+}
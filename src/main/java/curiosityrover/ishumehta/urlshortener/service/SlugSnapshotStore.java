@@ -0,0 +1,262 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Local {@link SlugSnapshot}s of every unexpired link, from which redirects are answered while the database cannot
+ * be reached. The snapshot is a fallback only: the database stays authoritative, and links changed or removed since
+ * the last export are served as they were.
+ * <p>
+ * A full snapshot {@code slugs-<base>.snap} is exported every {@code full-interval}. In between, each export writes a
+ * delta {@code slugs-<base>-<delta>.snap} with the links created since the full snapshot was taken (less a minute,
+ * for inserts that committed late), so there are never more than two files to search. Both are picked up again at
+ * startup, which lets a node that restarts during an outage serve redirects before the database is back.
+ */
+@Component
+public class SlugSnapshotStore implements MeterBinder {
+
+	private static final Logger log = LoggerFactory.getLogger(SlugSnapshotStore.class);
+
+	private static final Pattern FILE_NAME = Pattern.compile("slugs-(\\d+)(?:-(\\d+))?\\.snap");
+	private static final Duration COMMIT_OVERLAP = Duration.ofMinutes(1);
+
+	private final ShortUrlListingService listingService;
+	private final boolean enabled;
+	private final Path directory;
+	private final Duration fullInterval;
+	private final ReentrantLock exportLock = new ReentrantLock();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private volatile Layers layers = Layers.EMPTY;
+
+	public SlugSnapshotStore(ShortUrlListingService listingService,
+		@Value("${app.shortener.snapshot.enabled:false}") boolean enabled,
+		@Value("${app.shortener.snapshot.directory:snapshots}") Path directory,
+		@Value("${app.shortener.snapshot.full-interval:P1D}") Duration fullInterval) {
+		this.listingService = listingService;
+		this.enabled = enabled;
+		this.directory = directory;
+		this.fullInterval = fullInterval;
+		if (enabled) {
+			loadLatest();
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * The link for {@code slug} as of the last export, or empty if it was not in any snapshot.
+	 */
+	public Optional<ResolvedShortUrl> find(String slug) {
+		Layers current = layers;
+		Optional<ResolvedShortUrl> found = current.delta() != null ? current.delta().find(slug) : Optional.empty();
+		if (found.isEmpty() && current.base() != null) {
+			found = current.base().find(slug);
+		}
+		(found.isPresent() ? hits : misses).increment();
+		return found;
+	}
+
+	@Scheduled(fixedDelayString = "${app.shortener.snapshot.delta-interval:PT5M}",
+		initialDelayString = "${app.shortener.snapshot.initial-delay:PT1M}")
+	public void scheduledExport() {
+		if (enabled) {
+			try {
+				export(false);
+			}
+			catch (RuntimeException | IOException ex) {
+				// the previous snapshot stays in use
+				log.warn("Slug snapshot export failed: {}", ex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Writes a delta on top of the current full snapshot, or a new full snapshot if {@code full} is set, there is
+	 * none yet, or it is older than {@code full-interval}. Returns {@code null} if an export is already running.
+	 */
+	public SlugSnapshot export(boolean full) throws IOException {
+		if (!exportLock.tryLock()) {
+			return null;
+		}
+		try {
+			Files.createDirectories(directory);
+			Instant asOf = Instant.now();
+			SlugSnapshot base = layers.base();
+			boolean writeFull = full || base == null || base.asOf().plus(fullInterval).isBefore(asOf);
+			long started = System.nanoTime();
+			SlugSnapshot written;
+			if (writeFull) {
+				written = write(directory.resolve("slugs-" + asOf.toEpochMilli() + ".snap"), asOf, null);
+				replace(new Layers(written, null));
+			}
+			else {
+				written = write(directory.resolve("slugs-" + base.asOf().toEpochMilli() + "-" + asOf.toEpochMilli()
+					+ ".snap"), asOf, base.asOf().minus(COMMIT_OVERLAP));
+				replace(new Layers(base, written));
+			}
+			log.info("Exported {} slug snapshot {} with {} links in {} ms", writeFull ? "full" : "delta",
+				written.path().getFileName(), written.size(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+			return written;
+		}
+		finally {
+			exportLock.unlock();
+		}
+	}
+
+	public List<SlugSnapshot> layers() {
+		Layers current = layers;
+		List<SlugSnapshot> snapshots = new ArrayList<>(2);
+		if (current.base() != null) {
+			snapshots.add(current.base());
+		}
+		if (current.delta() != null) {
+			snapshots.add(current.delta());
+		}
+		return snapshots;
+	}
+
+	private SlugSnapshot write(Path target, Instant asOf, Instant createdFrom) throws IOException {
+		try (SlugSnapshot.Writer writer = new SlugSnapshot.Writer(target, asOf)) {
+			listingService.export(new ShortUrlFilter(false, null, null, createdFrom, null),
+				shortUrl -> writer.add(ResolvedShortUrl.from(shortUrl)));
+			writer.finish();
+		}
+		return SlugSnapshot.open(target);
+	}
+
+	/**
+	 * Switches lookups to {@code next} and deletes the files no longer in use. Lookups still reading an old mapping
+	 * are unaffected: the data stays mapped until the snapshot is garbage collected.
+	 */
+	private void replace(Layers next) {
+		layers = next;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "slugs-*.snap")) {
+			for (Path file : files) {
+				if (!next.contains(file)) {
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+		catch (IOException ex) {
+			log.warn("Could not remove old slug snapshots from {}: {}", directory, ex.getMessage());
+		}
+	}
+
+	private void loadLatest() {
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "slugs-*.snap")) {
+			stream.forEach(files::add);
+		}
+		catch (IOException ex) {
+			log.warn("Could not list slug snapshots in {}: {}", directory, ex.getMessage());
+			return;
+		}
+		// the newest full snapshot, then the newest delta taken on top of it
+		Path base = null;
+		long baseMillis = -1;
+		for (Path file : files) {
+			Matcher name = FILE_NAME.matcher(file.getFileName().toString());
+			if (name.matches() && name.group(2) == null && Long.parseLong(name.group(1)) > baseMillis) {
+				base = file;
+				baseMillis = Long.parseLong(name.group(1));
+			}
+		}
+		if (base == null) {
+			return;
+		}
+		Path delta = null;
+		long deltaMillis = -1;
+		for (Path file : files) {
+			Matcher name = FILE_NAME.matcher(file.getFileName().toString());
+			if (name.matches() && name.group(2) != null && Long.parseLong(name.group(1)) == baseMillis
+				&& Long.parseLong(name.group(2)) > deltaMillis) {
+				delta = file;
+				deltaMillis = Long.parseLong(name.group(2));
+			}
+		}
+		try {
+			layers = new Layers(SlugSnapshot.open(base), delta != null ? SlugSnapshot.open(delta) : null);
+			log.info("Loaded slug snapshot {} with {} links as of {}", (delta != null ? delta : base).getFileName(),
+				layers.size(), Instant.ofEpochMilli(delta != null ? deltaMillis : baseMillis));
+		}
+		catch (IOException ex) {
+			log.warn("Could not load the slug snapshot from {}, starting without one: {}", directory, ex.getMessage());
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		if (!enabled) {
+			return;
+		}
+		registerLookups(registry, "hit", hits);
+		registerLookups(registry, "miss", misses);
+		Gauge.builder("shortener.snapshot.links", this, store -> store.layers.size())
+			.description("Links in the loaded slug snapshot, counting the delta")
+			.register(registry);
+		Gauge.builder("shortener.snapshot.age", this, SlugSnapshotStore::ageSeconds)
+			.description("Seconds since the rows of the newest snapshot were read")
+			.baseUnit("seconds")
+			.register(registry);
+	}
+
+	private double ageSeconds() {
+		List<SlugSnapshot> current = layers();
+		if (current.isEmpty()) {
+			return Double.NaN;
+		}
+		Instant asOf = current.get(current.size() - 1).asOf();
+		return Duration.between(asOf, Instant.now()).toMillis() / 1000.0;
+	}
+
+	private static void registerLookups(MeterRegistry registry, String result, LongAdder adder) {
+		FunctionCounter.builder("shortener.snapshot.lookups", adder, LongAdder::sum)
+			.description("Redirects looked up in the slug snapshot because the database was unavailable")
+			.tag("result", result)
+			.register(registry);
+	}
+
+	private record Layers(SlugSnapshot base, SlugSnapshot delta) {
+
+		static final Layers EMPTY = new Layers(null, null);
+
+		boolean contains(Path file) {
+			return (base != null && base.path().equals(file)) || (delta != null && delta.path().equals(file));
+		}
+
+		int size() {
+			return (base != null ? base.size() : 0) + (delta != null ? delta.size() : 0);
+		}
+	}
+}
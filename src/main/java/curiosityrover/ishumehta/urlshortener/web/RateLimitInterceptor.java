@@ -0,0 +1,83 @@
+package curiosityrover.ishumehta.urlshortener.web;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import curiosityrover.ishumehta.urlshortener.exception.RateLimitExceededException;
+import curiosityrover.ishumehta.urlshortener.service.RateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects calls to {@link RateLimited} handlers with a {@link RateLimitExceededException} (a 429 with
+ * {@code Retry-After}, rendered by {@link RestExceptionHandler}) once the client has used up its budget.
+ * <p>
+ * Clients are identified by their address, or by the value of {@code app.shortener.rate-limit.api-key-header} when
+ * that is configured and sent. Behind a reverse proxy the address is the proxy's unless
+ * {@code server.forward-headers-strategy} is set. Keys are not validated here, so only configure the header when a
+ * gateway in front rejects unknown keys; otherwise a client could pick a new key for every request.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+	private final RateLimiter rateLimiter;
+	private final String apiKeyHeader;
+	private final Map<Method, Optional<RateLimiter.Scope>> scopes = new ConcurrentHashMap<>();
+
+	public RateLimitInterceptor(RateLimiter rateLimiter, String apiKeyHeader) {
+		this.rateLimiter = rateLimiter;
+		this.apiKeyHeader = StringUtils.hasText(apiKeyHeader) ? apiKeyHeader.trim() : null;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (rateLimiter.isEnabled() && handler instanceof HandlerMethod handlerMethod) {
+			scopes.computeIfAbsent(handlerMethod.getMethod(), method -> Optional
+				.ofNullable(AnnotatedElementUtils.findMergedAnnotation(method, RateLimited.class))
+				.map(RateLimited::value))
+				.ifPresent(scope -> check(scope, request));
+		}
+		return true;
+	}
+
+	/**
+	 * Charges one request to the caller's budget for {@code scope}.
+	 *
+	 * @throws RateLimitExceededException if the budget is used up
+	 */
+	public void check(RateLimiter.Scope scope, HttpServletRequest request) {
+		check(scope, request, 1);
+	}
+
+	/**
+	 * Charges {@code permits} to the caller's budget for {@code scope}, e.g. one per item of a bulk request.
+	 *
+	 * @throws RateLimitExceededException if the budget does not have that many left
+	 */
+	public void check(RateLimiter.Scope scope, HttpServletRequest request, int permits) {
+		if (!rateLimiter.isEnabled()) {
+			return;
+		}
+		long waitNanos = rateLimiter.tryAcquireMany(scope, clientKey(request), permits);
+		if (waitNanos > 0) {
+			throw new RateLimitExceededException(scope.label(), Duration.ofNanos(waitNanos));
+		}
+	}
+
+	private String clientKey(HttpServletRequest request) {
+		if (apiKeyHeader != null) {
+			String apiKey = request.getHeader(apiKeyHeader);
+			if (StringUtils.hasText(apiKey)) {
+				return "key:" + apiKey;
+			}
+		}
+		return request.getRemoteAddr();
+	}
+}
@@ -0,0 +1,21 @@
+package curiosityrover.ishumehta.urlshortener.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import curiosityrover.ishumehta.urlshortener.service.RateLimiter;
+
+/**
+ * Charges each call of the annotated handler method to the caller's budget for the given scope; see
+ * {@link RateLimitInterceptor}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimited {
+
+	RateLimiter.Scope value();
+}
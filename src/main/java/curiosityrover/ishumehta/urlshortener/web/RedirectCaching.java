@@ -0,0 +1,69 @@
+package curiosityrover.ishumehta.urlshortener.web;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+
+/**
+ * Status code and {@code Cache-Control} header for a redirect, shared by {@link ShortUrlRedirectController} and
+ * {@link RedirectFastPathFilter} so both paths answer identically.
+ * <p>
+ * {@link RedirectPolicy#TRACKED} links get an uncacheable 307 so every click is counted. {@link RedirectPolicy#PERMANENT}
+ * links get a 308 that browsers and CDNs may reuse for {@code app.shortener.redirect.max-age}, cut short by the
+ * link's expiry so a cached redirect never outlives the link.
+ */
+@Component
+public class RedirectCaching {
+
+	static final String NO_STORE = "no-store";
+
+	private final RedirectPolicy defaultPolicy;
+	private final long maxAgeSeconds;
+	private final String fullMaxAge;
+
+	public RedirectCaching(
+		@Value("${app.shortener.redirect.default-policy:tracked}") RedirectPolicy defaultPolicy,
+		@Value("${app.shortener.redirect.max-age:P1D}") Duration maxAge) {
+		this.defaultPolicy = defaultPolicy;
+		this.maxAgeSeconds = Math.max(0, maxAge.getSeconds());
+		this.fullMaxAge = publicMaxAge(maxAgeSeconds);
+	}
+
+	public RedirectPolicy policyOf(ResolvedShortUrl shortUrl) {
+		return shortUrl.redirectPolicy() != null ? shortUrl.redirectPolicy() : defaultPolicy;
+	}
+
+	public HttpStatus status(ResolvedShortUrl shortUrl) {
+		return policyOf(shortUrl) == RedirectPolicy.PERMANENT
+			? HttpStatus.PERMANENT_REDIRECT
+			: HttpStatus.TEMPORARY_REDIRECT;
+	}
+
+	public String cacheControl(ResolvedShortUrl shortUrl) {
+		return cacheControl(shortUrl, Instant.now());
+	}
+
+	String cacheControl(ResolvedShortUrl shortUrl, Instant now) {
+		if (policyOf(shortUrl) != RedirectPolicy.PERMANENT) {
+			return NO_STORE;
+		}
+		if (shortUrl.expiresAt() == null) {
+			return fullMaxAge;
+		}
+		long untilExpiry = Duration.between(now, shortUrl.expiresAt()).getSeconds();
+		if (untilExpiry >= maxAgeSeconds) {
+			return fullMaxAge;
+		}
+		return untilExpiry < 1 ? NO_STORE : publicMaxAge(untilExpiry);
+	}
+
+	private static String publicMaxAge(long seconds) {
+		return seconds < 1 ? NO_STORE : "public, max-age=" + seconds;
+	}
+}
@@ -0,0 +1,111 @@
+package curiosityrover.ishumehta.urlshortener.web;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import curiosityrover.ishumehta.urlshortener.exception.RateLimitExceededException;
+import curiosityrover.ishumehta.urlshortener.exception.ShortUrlExpiredException;
+import curiosityrover.ishumehta.urlshortener.exception.ShortUrlNotFoundException;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+import curiosityrover.ishumehta.urlshortener.service.ClickAnalyticsService;
+import curiosityrover.ishumehta.urlshortener.service.RateLimiter;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlService;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlSyntax;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Answers {@code GET/HEAD /{slug}} before the request reaches the {@code DispatcherServlet}: same lookup, hit
+ * recording and click capture as {@link ShortUrlRedirectController}, but the 307/308 (or the 404/410 problem detail
+ * from {@link RestExceptionHandler}) is written straight to the response. The redirect rate limit applies here just
+ * as on the MVC path. Anything that is not a single slug
+ * segment, or whose segment is owned by another handler (error page, actuator, API docs), falls through to MVC.
+ */
+public class RedirectFastPathFilter extends OncePerRequestFilter {
+
+	private final ShortUrlService shortUrlService;
+	private final ClickAnalyticsService clickAnalyticsService;
+	private final RedirectCaching redirectCaching;
+	private final RateLimitInterceptor rateLimitInterceptor;
+	private final RestExceptionHandler exceptionHandler;
+	private final ObjectMapper objectMapper;
+	private final Set<String> reservedSegments;
+
+	public RedirectFastPathFilter(ShortUrlService shortUrlService, ClickAnalyticsService clickAnalyticsService,
+		RedirectCaching redirectCaching, RateLimitInterceptor rateLimitInterceptor, RestExceptionHandler exceptionHandler,
+		ObjectMapper objectMapper, Set<String> reservedSegments) {
+		this.shortUrlService = shortUrlService;
+		this.clickAnalyticsService = clickAnalyticsService;
+		this.redirectCaching = redirectCaching;
+		this.rateLimitInterceptor = rateLimitInterceptor;
+		this.exceptionHandler = exceptionHandler;
+		this.objectMapper = objectMapper;
+		this.reservedSegments = Set.copyOf(reservedSegments);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+		throws ServletException, IOException {
+		String slug = extractSlug(request);
+		if (slug == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		try {
+			rateLimitInterceptor.check(RateLimiter.Scope.REDIRECT, request);
+			ResolvedShortUrl shortUrl = shortUrlService.registerHit(slug);
+			clickAnalyticsService.record(slug, request.getHeader(HttpHeaders.REFERER),
+				request.getHeader(HttpHeaders.USER_AGENT), request.getHeader(clickAnalyticsService.getCountryHeader()));
+			response.setStatus(redirectCaching.status(shortUrl).value());
+			// Destination URLs are stored percent-encoded to ASCII, so the stored string is a valid Location as-is
+			response.setHeader(HttpHeaders.LOCATION, shortUrl.destinationUrl());
+			response.setHeader(HttpHeaders.CACHE_CONTROL, redirectCaching.cacheControl(shortUrl));
+		}
+		catch (ShortUrlNotFoundException ex) {
+			writeProblem(request, response, exceptionHandler.handleNotFound(ex));
+		}
+		catch (ShortUrlExpiredException ex) {
+			writeProblem(request, response, exceptionHandler.handleExpired(ex));
+		}
+		catch (RateLimitExceededException ex) {
+			ResponseEntity<ProblemDetail> rejection = exceptionHandler.handleRateLimited(ex);
+			rejection.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+			writeProblem(request, response, rejection.getBody());
+		}
+	}
+
+	private String extractSlug(HttpServletRequest request) {
+		String method = request.getMethod();
+		if (!"GET".equals(method) && !"HEAD".equals(method)) {
+			return null;
+		}
+		String uri = request.getRequestURI();
+		int start = request.getContextPath().length();
+		if (uri.length() <= start + 1 || uri.charAt(start) != '/'
+			|| !ShortUrlSyntax.isSlug(uri, start + 1, uri.length())) {
+			return null;
+		}
+		String slug = uri.substring(start + 1);
+		return reservedSegments.contains(slug) ? null : slug;
+	}
+
+	private void writeProblem(HttpServletRequest request, HttpServletResponse response, ProblemDetail detail)
+		throws IOException {
+		// MVC fills in the instance from the request path; do the same so both paths produce identical bodies
+		detail.setInstance(URI.create(request.getRequestURI()));
+		response.setStatus(detail.getStatus());
+		response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), detail);
+	}
+}
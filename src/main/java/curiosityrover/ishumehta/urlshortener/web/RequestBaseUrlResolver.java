@@ -0,0 +1,68 @@
+package curiosityrover.ishumehta.urlshortener.web;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlService;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Picks the base URL for links returned to a client: the configured public base when there is one, otherwise the
+ * base derived from the request. Derived bases are cached per host name so repeat requests reuse the same string.
+ */
+@Component
+public class RequestBaseUrlResolver {
+
+	private static final int MAX_CACHED_HOSTS = 1024;
+
+	private final ShortUrlService shortUrlService;
+	private final Cache<String, RequestBase> basesByHost = Caffeine.newBuilder()
+		.maximumSize(MAX_CACHED_HOSTS)
+		.build();
+
+	public RequestBaseUrlResolver(ShortUrlService shortUrlService) {
+		this.shortUrlService = shortUrlService;
+	}
+
+	public String resolve(HttpServletRequest request) {
+		String configured = shortUrlService.getPublicBaseUrl().orElse(null);
+		if (configured != null) {
+			return configured;
+		}
+		String serverName = request.getServerName();
+		RequestBase cached = basesByHost.getIfPresent(serverName);
+		if (cached != null && cached.matches(request)) {
+			return cached.baseUrl();
+		}
+		RequestBase derived = RequestBase.of(request);
+		basesByHost.put(serverName, derived);
+		return derived.baseUrl();
+	}
+
+	private record RequestBase(String scheme, int port, String contextPath, String baseUrl) {
+
+		private static RequestBase of(HttpServletRequest request) {
+			String scheme = request.getScheme();
+			int port = request.getServerPort();
+			String contextPath = request.getContextPath();
+			boolean isDefaultPort = ("http".equalsIgnoreCase(scheme) && port == 80)
+				|| ("https".equalsIgnoreCase(scheme) && port == 443);
+			String normalizedContextPath = StringUtils.hasText(contextPath) ? contextPath : "";
+			if (normalizedContextPath.endsWith("/")) {
+				normalizedContextPath = normalizedContextPath.substring(0, normalizedContextPath.length() - 1);
+			}
+			String baseUrl = scheme + "://" + request.getServerName() + (isDefaultPort ? "" : ":" + port)
+				+ normalizedContextPath;
+			return new RequestBase(scheme, port, contextPath, baseUrl);
+		}
+
+		private boolean matches(HttpServletRequest request) {
+			return port == request.getServerPort()
+				&& scheme.equals(request.getScheme())
+				&& contextPath.equals(request.getContextPath());
+		}
+	}
+}
@@ -3,13 +3,16 @@ package curiosityrover.ishumehta.urlshortener.web;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import curiosityrover.ishumehta.urlshortener.exception.RateLimitExceededException;
 import curiosityrover.ishumehta.urlshortener.exception.ShortUrlExpiredException;
 import curiosityrover.ishumehta.urlshortener.exception.ShortUrlNotFoundException;
 import curiosityrover.ishumehta.urlshortener.exception.SlugAlreadyExistsException;
@@ -41,6 +44,16 @@ public class RestExceptionHandler {
 		return detail;
 	}
 
+	@ExceptionHandler(RateLimitExceededException.class)
+	public ResponseEntity<ProblemDetail> handleRateLimited(RateLimitExceededException exception) {
+		ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.TOO_MANY_REQUESTS);
+		detail.setTitle("Too many requests");
+		detail.setDetail(exception.getMessage());
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+			.header(HttpHeaders.RETRY_AFTER, Long.toString(exception.getRetryAfterSeconds()))
+			.body(detail);
+	}
+
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ProblemDetail handleValidation(MethodArgumentNotValidException exception) {
 		ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
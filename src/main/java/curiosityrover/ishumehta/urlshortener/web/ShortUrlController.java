@@ -1,23 +1,56 @@
 package curiosityrover.ishumehta.urlshortener.web;
 
-import java.net.URI;
-import java.util.Set;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
+import org.springframework.util.DigestUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import curiosityrover.ishumehta.urlshortener.exception.RateLimitExceededException;
+import curiosityrover.ishumehta.urlshortener.model.ClickRollup.Granularity;
 import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlDraft;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlFilter;
+import curiosityrover.ishumehta.urlshortener.service.BulkCreateResult;
+import curiosityrover.ishumehta.urlshortener.service.BulkShortUrlService;
+import curiosityrover.ishumehta.urlshortener.service.BulkShortUrlUpdateService;
+import curiosityrover.ishumehta.urlshortener.service.BulkUpdateResult;
+import curiosityrover.ishumehta.urlshortener.service.ClickAnalyticsService;
+import curiosityrover.ishumehta.urlshortener.service.RateLimiter;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlListingService;
 import curiosityrover.ishumehta.urlshortener.service.ShortUrlService;
+import curiosityrover.ishumehta.urlshortener.web.dto.BulkCreateItemResponse;
+import curiosityrover.ishumehta.urlshortener.web.dto.BulkCreateResponse;
+import curiosityrover.ishumehta.urlshortener.web.dto.BulkUpdateRequest;
+import curiosityrover.ishumehta.urlshortener.web.dto.BulkUpdateResponse;
 import curiosityrover.ishumehta.urlshortener.web.dto.CreateShortUrlRequest;
+import curiosityrover.ishumehta.urlshortener.web.dto.ShortUrlPageResponse;
 import curiosityrover.ishumehta.urlshortener.web.dto.ShortUrlResponse;
+import curiosityrover.ishumehta.urlshortener.web.dto.ShortUrlStatsResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -26,6 +59,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
@@ -34,10 +68,47 @@ import jakarta.validation.Valid;
 @Tag(name = "Short URLs", description = "API for creating and managing short URLs")
 public class ShortUrlController {
 
+	static final String NDJSON_VALUE = "application/x-ndjson";
+	static final String CSV_VALUE = "text/csv";
+
+	static final String CSV_HEADER =
+		"id,slug,destination_url,short_url,hit_count,created_at,last_accessed_at,expires_at,redirect_policy";
+
+	public enum ExportFormat {
+		CSV,
+		NDJSON
+	}
+
 	private final ShortUrlService shortUrlService;
+	private final BulkShortUrlService bulkShortUrlService;
+	private final BulkShortUrlUpdateService bulkUpdateService;
+	private final ShortUrlListingService listingService;
+	private final ClickAnalyticsService clickAnalyticsService;
+	private final RequestBaseUrlResolver baseUrlResolver;
+	private final RateLimitInterceptor rateLimitInterceptor;
+	private final ObjectMapper objectMapper;
+
+	@Value("${app.shortener.batch.max-items:10000}")
+	private int maxBatchItems;
+
+	@Value("${app.shortener.batch.stream-chunk-size:1000}")
+	private int streamChunkSize;
+
+	@Value("${app.shortener.listing.default-page-size:100}")
+	private int defaultPageSize;
 
-	public ShortUrlController(ShortUrlService shortUrlService) {
+	public ShortUrlController(ShortUrlService shortUrlService, BulkShortUrlService bulkShortUrlService,
+		BulkShortUrlUpdateService bulkUpdateService, ShortUrlListingService listingService,
+		ClickAnalyticsService clickAnalyticsService, RequestBaseUrlResolver baseUrlResolver,
+		RateLimitInterceptor rateLimitInterceptor, ObjectMapper objectMapper) {
 		this.shortUrlService = shortUrlService;
+		this.bulkShortUrlService = bulkShortUrlService;
+		this.bulkUpdateService = bulkUpdateService;
+		this.listingService = listingService;
+		this.clickAnalyticsService = clickAnalyticsService;
+		this.baseUrlResolver = baseUrlResolver;
+		this.rateLimitInterceptor = rateLimitInterceptor;
+		this.objectMapper = objectMapper;
 	}
 
 	@Operation(
@@ -59,20 +130,270 @@ public class ShortUrlController {
 			responseCode = "409",
 			description = "Custom slug already exists",
 			content = @Content
+		),
+		@ApiResponse(
+			responseCode = "429",
+			description = "Rate limit exceeded; retry after the number of seconds in Retry-After",
+			content = @Content
 		)
 	})
+	@RateLimited(RateLimiter.Scope.CREATE)
 	@PostMapping
 	public ResponseEntity<ShortUrlResponse> create(@Valid @RequestBody CreateShortUrlRequest request,
 		HttpServletRequest servletRequest) {
-		ShortUrl created = shortUrlService.createShortUrl(request.destinationUrl(), request.customSlug(), request.expiresAt());
-		String requestBaseUrl = resolveBaseUrl(servletRequest);
+		ShortUrl created = shortUrlService.createShortUrl(request.destinationUrl(), request.customSlug(),
+			request.expiresAt(), request.redirectPolicy());
+		String requestBaseUrl = baseUrlResolver.resolve(servletRequest);
 		return ResponseEntity.status(HttpStatus.CREATED)
 			.body(ShortUrlResponse.from(created, shortUrlService.buildPublicShortUrl(created.getSlug(), requestBaseUrl)));
 	}
 
+	@Operation(
+		summary = "Create short URLs in bulk",
+		description = "Creates up to app.shortener.batch.max-items short URLs in one request. Every item gets its own "
+			+ "result (CREATED, INVALID, CONFLICT or FAILED); one bad item does not fail the batch. Each item is charged "
+			+ "to the caller's batch rate limit budget."
+	)
+	@ApiResponses(value = {
+		@ApiResponse(
+			responseCode = "200",
+			description = "Batch processed; see per-item results",
+			content = @Content(schema = @Schema(implementation = BulkCreateResponse.class))
+		),
+		@ApiResponse(
+			responseCode = "400",
+			description = "Batch is too large",
+			content = @Content
+		),
+		@ApiResponse(
+			responseCode = "429",
+			description = "Batch rate limit exceeded; retry after the number of seconds in Retry-After",
+			content = @Content
+		)
+	})
+	@PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public BulkCreateResponse createBatch(@RequestBody List<CreateShortUrlRequest> requests,
+		HttpServletRequest servletRequest) {
+		if (requests.size() > maxBatchItems) {
+			throw new IllegalArgumentException("A batch may contain at most " + maxBatchItems + " items; "
+				+ "use the application/x-ndjson variant for larger imports");
+		}
+		rateLimitInterceptor.check(RateLimiter.Scope.BATCH, servletRequest, Math.max(1, requests.size()));
+		List<ShortUrlDraft> drafts = requests.stream()
+			.map(ShortUrlController::toDraft)
+			.toList();
+		List<BulkCreateResult> results = bulkShortUrlService.createAll(drafts);
+		String requestBaseUrl = baseUrlResolver.resolve(servletRequest);
+
+		List<BulkCreateItemResponse> items = new ArrayList<>(results.size());
+		int created = 0;
+		for (BulkCreateResult result : results) {
+			items.add(toItemResponse(result, result.index(), requestBaseUrl));
+			if (result.status() == BulkCreateResult.Status.CREATED) {
+				created++;
+			}
+		}
+		return new BulkCreateResponse(created, results.size() - created, items);
+	}
+
+	@Operation(
+		summary = "Create short URLs from an NDJSON stream",
+		description = "Streaming variant of the bulk endpoint: one create request per line in, one result per line "
+			+ "out, processed in chunks so imports of any size run in constant memory. Each chunk is charged to the "
+			+ "caller's batch rate limit budget; once it runs out, the remaining lines are answered RATE_LIMITED."
+	)
+	@ApiResponse(responseCode = "200", description = "Stream processed; one result line per input line")
+	@ApiResponse(responseCode = "429",
+		description = "Batch rate limit exceeded before the first chunk; retry after the number of seconds in Retry-After")
+	@PostMapping(path = "/batch", consumes = NDJSON_VALUE, produces = NDJSON_VALUE)
+	public void createBatchStream(HttpServletRequest servletRequest, HttpServletResponse servletResponse)
+		throws IOException {
+		String requestBaseUrl = baseUrlResolver.resolve(servletRequest);
+		servletResponse.setContentType(NDJSON_VALUE);
+		servletResponse.setCharacterEncoding("UTF-8");
+
+		BufferedReader reader = servletRequest.getReader();
+		Writer writer = servletResponse.getWriter();
+		int chunkSize = Math.max(1, streamChunkSize);
+		List<String> lines = new ArrayList<>(chunkSize);
+		int firstIndex = 0;
+		RateLimitExceededException limited = null;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.isBlank()) {
+				continue;
+			}
+			lines.add(line);
+			if (lines.size() == chunkSize) {
+				limited = processStreamChunk(lines, firstIndex, requestBaseUrl, servletRequest, servletResponse, writer,
+					limited);
+				firstIndex += lines.size();
+				lines.clear();
+			}
+		}
+		if (!lines.isEmpty()) {
+			processStreamChunk(lines, firstIndex, requestBaseUrl, servletRequest, servletResponse, writer, limited);
+		}
+		writer.flush();
+	}
+
+	@Operation(
+		summary = "Update short URLs in bulk",
+		description = "Sets or clears the expiry, deactivates, or changes the destination of the listed slugs (at most "
+			+ "app.shortener.batch.max-items) or of every short URL matching a filter, with chunked set-based updates."
+	)
+	@ApiResponses(value = {
+		@ApiResponse(
+			responseCode = "200",
+			description = "Update applied; see the number of changed short URLs",
+			content = @Content(schema = @Schema(implementation = BulkUpdateResponse.class))
+		),
+		@ApiResponse(
+			responseCode = "400",
+			description = "Invalid change or selection, or too many slugs",
+			content = @Content
+		),
+		@ApiResponse(
+			responseCode = "429",
+			description = "Batch rate limit exceeded; retry after the number of seconds in Retry-After",
+			content = @Content
+		)
+	})
+	@PatchMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+		produces = MediaType.APPLICATION_JSON_VALUE)
+	public BulkUpdateResponse updateBatch(@Valid @RequestBody BulkUpdateRequest request,
+		HttpServletRequest servletRequest) {
+		if ((request.slugs() == null) == (request.filter() == null)) {
+			throw new IllegalArgumentException("Give either slugs or filter");
+		}
+		BulkUpdateResult result;
+		if (request.slugs() != null) {
+			if (request.slugs().size() > maxBatchItems) {
+				throw new IllegalArgumentException("A batch may contain at most " + maxBatchItems + " slugs; "
+					+ "select larger sets with a filter");
+			}
+			rateLimitInterceptor.check(RateLimiter.Scope.BATCH, servletRequest, Math.max(1, request.slugs().size()));
+			result = bulkUpdateService.updateSlugs(request.slugs(), request.toUpdate());
+		}
+		else {
+			// How many rows match is only known afterwards; charge a filter update like a full batch
+			rateLimitInterceptor.check(RateLimiter.Scope.BATCH, servletRequest, maxBatchItems);
+			result = bulkUpdateService.updateMatching(request.filter().toFilter(), request.toUpdate());
+		}
+		return BulkUpdateResponse.from(result);
+	}
+
+	@Operation(
+		summary = "List short URLs",
+		description = "Pages through short URLs ordered by creation time, with keyset pagination: pass the nextCursor "
+			+ "of one page as cursor to get the next. Every page costs the same however deep into the listing it is."
+	)
+	@ApiResponses(value = {
+		@ApiResponse(
+			responseCode = "200",
+			description = "One page of short URLs",
+			content = @Content(schema = @Schema(implementation = ShortUrlPageResponse.class))
+		),
+		@ApiResponse(
+			responseCode = "400",
+			description = "Invalid filter, cursor or limit",
+			content = @Content
+		)
+	})
+	@GetMapping
+	public ShortUrlPageResponse list(
+		@Parameter(description = "Only expired (true) or only unexpired (false) links")
+		@RequestParam(required = false) Boolean expired,
+		@Parameter(description = "Minimum hit count, inclusive")
+		@RequestParam(required = false) Long minHits,
+		@Parameter(description = "Maximum hit count, inclusive")
+		@RequestParam(required = false) Long maxHits,
+		@Parameter(description = "Created at or after (ISO-8601)")
+		@RequestParam(required = false) Instant createdFrom,
+		@Parameter(description = "Created before (ISO-8601)")
+		@RequestParam(required = false) Instant createdTo,
+		@Parameter(description = "Sort order by creation time: ASC or DESC", example = "ASC")
+		@RequestParam(defaultValue = "ASC") Sort.Direction order,
+		@Parameter(description = "nextCursor of the previous page; omit for the first page")
+		@RequestParam(required = false) String cursor,
+		@Parameter(description = "Page size, at most app.shortener.listing.max-page-size", example = "100")
+		@RequestParam(required = false) Integer limit,
+		HttpServletRequest servletRequest) {
+		ShortUrlFilter filter = new ShortUrlFilter(expired, minHits, maxHits, createdFrom, createdTo);
+		ShortUrlListingService.Page page = listingService.list(filter, cursor,
+			limit != null ? limit : Math.min(defaultPageSize, listingService.maxPageSize()), order.isDescending());
+		String requestBaseUrl = baseUrlResolver.resolve(servletRequest);
+		List<ShortUrlResponse> items = page.items().stream()
+			.map(shortUrl -> ShortUrlResponse.from(shortUrl,
+				shortUrlService.buildPublicShortUrl(shortUrl.getSlug(), requestBaseUrl)))
+			.toList();
+		return new ShortUrlPageResponse(items, page.nextCursor());
+	}
+
+	@Operation(
+		summary = "Export short URLs",
+		description = "Streams every short URL matching the filters as CSV or NDJSON, straight from a database cursor, "
+			+ "so exports of any size run in constant memory. Rows come shard by shard, by creation time within a shard."
+	)
+	@ApiResponse(responseCode = "200", description = "The export; one row per line")
+	@ApiResponse(responseCode = "400", description = "Invalid filter")
+	@GetMapping("/export")
+	public void export(
+		@Parameter(description = "CSV (with a header line) or NDJSON", example = "CSV")
+		@RequestParam(defaultValue = "CSV") ExportFormat format,
+		@Parameter(description = "Only expired (true) or only unexpired (false) links")
+		@RequestParam(required = false) Boolean expired,
+		@Parameter(description = "Minimum hit count, inclusive")
+		@RequestParam(required = false) Long minHits,
+		@Parameter(description = "Maximum hit count, inclusive")
+		@RequestParam(required = false) Long maxHits,
+		@Parameter(description = "Created at or after (ISO-8601)")
+		@RequestParam(required = false) Instant createdFrom,
+		@Parameter(description = "Created before (ISO-8601)")
+		@RequestParam(required = false) Instant createdTo,
+		HttpServletRequest servletRequest, HttpServletResponse servletResponse) throws IOException {
+		ShortUrlFilter filter = new ShortUrlFilter(expired, minHits, maxHits, createdFrom, createdTo);
+		String requestBaseUrl = baseUrlResolver.resolve(servletRequest);
+		servletResponse.setContentType(format == ExportFormat.CSV ? CSV_VALUE : NDJSON_VALUE);
+		servletResponse.setCharacterEncoding("UTF-8");
+		servletResponse.setHeader("Content-Disposition", "attachment; filename=\"short-urls."
+			+ format.name().toLowerCase(Locale.ROOT) + "\"");
+
+		Writer writer = servletResponse.getWriter();
+		if (format == ExportFormat.CSV) {
+			writer.write(CSV_HEADER);
+			writer.write('\n');
+		}
+		listingService.export(filter, shortUrl -> {
+			ShortUrlResponse row = ShortUrlResponse.from(shortUrl,
+				shortUrlService.buildPublicShortUrl(shortUrl.getSlug(), requestBaseUrl));
+			writer.write(format == ExportFormat.CSV ? toCsv(row) : objectMapper.writeValueAsString(row));
+			writer.write('\n');
+		});
+		writer.flush();
+	}
+
+	static String toCsv(ShortUrlResponse row) {
+		return row.id() + "," + csvField(row.slug()) + "," + csvField(row.destinationUrl()) + ","
+			+ csvField(row.shortUrl()) + "," + row.hitCount() + "," + csvField(row.createdAt()) + ","
+			+ csvField(row.lastAccessedAt()) + "," + csvField(row.expiresAt()) + "," + csvField(row.redirectPolicy());
+	}
+
+	private static String csvField(Object value) {
+		if (value == null) {
+			return "";
+		}
+		String text = value.toString();
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+			return text;
+		}
+		return '"' + text.replace("\"", "\"\"") + '"';
+	}
+
 	@Operation(
 		summary = "Get short URL details",
-		description = "Retrieves details of a short URL by its slug, including hit count and expiration information."
+		description = "Retrieves details of a short URL by its slug, including hit count and expiration information. "
+			+ "The response carries an ETag; send it back in If-None-Match to get a 304 while nothing has changed."
 	)
 	@ApiResponses(value = {
 		@ApiResponse(
@@ -80,6 +401,11 @@ public class ShortUrlController {
 			description = "Short URL found",
 			content = @Content(schema = @Schema(implementation = ShortUrlResponse.class))
 		),
+		@ApiResponse(
+			responseCode = "304",
+			description = "Short URL unchanged since the ETag in If-None-Match",
+			content = @Content
+		),
 		@ApiResponse(
 			responseCode = "404",
 			description = "Short URL not found",
@@ -92,48 +418,145 @@ public class ShortUrlController {
 		)
 	})
 	@GetMapping("/{slug}")
-	public ShortUrlResponse get(
+	public ResponseEntity<ShortUrlResponse> get(
 		@Parameter(description = "The slug identifier of the short URL", required = true, example = "abc12345")
 		@PathVariable String slug,
 		HttpServletRequest servletRequest) {
 		ShortUrl shortUrl = shortUrlService.getShortUrl(slug);
-		String requestBaseUrl = resolveBaseUrl(servletRequest);
-		return ShortUrlResponse.from(shortUrl, shortUrlService.buildPublicShortUrl(shortUrl.getSlug(), requestBaseUrl));
+		String requestBaseUrl = baseUrlResolver.resolve(servletRequest);
+		ShortUrlResponse body = ShortUrlResponse.from(shortUrl,
+			shortUrlService.buildPublicShortUrl(shortUrl.getSlug(), requestBaseUrl));
+		// The ETag covers every field, hit count included; MVC answers a matching If-None-Match with a 304
+		return ResponseEntity.ok()
+			.eTag(eTag(body))
+			.cacheControl(CacheControl.noCache())
+			.body(body);
+	}
+
+	private static String eTag(ShortUrlResponse response) {
+		String state = response.id() + "|" + response.slug() + "|" + response.destinationUrl() + "|"
+			+ response.shortUrl() + "|" + response.hitCount() + "|" + response.createdAt() + "|"
+			+ response.lastAccessedAt() + "|" + response.expiresAt() + "|" + response.redirectPolicy();
+		return DigestUtils.md5DigestAsHex(state.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Operation(
+		summary = "Get click statistics",
+		description = "Returns click counts for a short URL bucketed by minute, hour or day. Served from pre-aggregated "
+			+ "rollups; clicks appear after the analytics writer's next flush."
+	)
+	@ApiResponses(value = {
+		@ApiResponse(
+			responseCode = "200",
+			description = "Statistics for the requested range",
+			content = @Content(schema = @Schema(implementation = ShortUrlStatsResponse.class))
+		),
+		@ApiResponse(
+			responseCode = "400",
+			description = "Invalid range",
+			content = @Content
+		),
+		@ApiResponse(
+			responseCode = "404",
+			description = "Short URL not found",
+			content = @Content
+		)
+	})
+	@GetMapping("/{slug}/stats")
+	public ShortUrlStatsResponse stats(
+		@Parameter(description = "The slug identifier of the short URL", required = true, example = "abc12345")
+		@PathVariable String slug,
+		@Parameter(description = "Bucket size: MINUTE, HOUR or DAY", example = "HOUR")
+		@RequestParam(defaultValue = "HOUR") Granularity granularity,
+		@Parameter(description = "Range start (ISO-8601); defaults to one hour/day/30 days before 'to'")
+		@RequestParam(required = false) Instant from,
+		@Parameter(description = "Range end, exclusive (ISO-8601); defaults to now")
+		@RequestParam(required = false) Instant to) {
+		shortUrlService.resolve(slug);
+		Instant effectiveTo = to != null ? to : Instant.now();
+		Instant effectiveFrom = from != null ? from : effectiveTo.minus(defaultStatsRange(granularity));
+		return ShortUrlStatsResponse.from(clickAnalyticsService.getStats(slug, granularity, effectiveFrom, effectiveTo));
 	}
 
-	private String resolveBaseUrl(HttpServletRequest request) {
-		return shortUrlService.getConfiguredBaseUrl()
-			.filter(base -> !isLoopbackBase(base))
-			.orElseGet(() -> buildBaseFromRequest(request));
+	private static Duration defaultStatsRange(Granularity granularity) {
+		return switch (granularity) {
+			case MINUTE -> Duration.ofHours(1);
+			case HOUR -> Duration.ofDays(1);
+			case DAY -> Duration.ofDays(30);
+		};
 	}
 
-	private boolean isLoopbackBase(String base) {
-		try {
-			URI uri = URI.create(base);
-			String host = uri.getHost();
-			if (!StringUtils.hasText(host)) {
-				return true;
+	/**
+	 * Charges the chunk to the batch budget and writes its results. Once the budget has run out, this and every later
+	 * chunk is answered {@code RATE_LIMITED} without being created; returns the rejection that started that.
+	 */
+	private RateLimitExceededException processStreamChunk(List<String> lines, int firstIndex, String requestBaseUrl,
+		HttpServletRequest servletRequest, HttpServletResponse servletResponse, Writer writer,
+		RateLimitExceededException limited) throws IOException {
+		if (limited == null) {
+			try {
+				rateLimitInterceptor.check(RateLimiter.Scope.BATCH, servletRequest, lines.size());
+			}
+			catch (RateLimitExceededException ex) {
+				if (firstIndex == 0) {
+					// Nothing has been written yet: drop the NDJSON content type so this can still be a plain 429
+					servletResponse.reset();
+					throw ex;
+				}
+				limited = ex;
 			}
-			Set<String> loopbackHosts = Set.of("localhost", "127.0.0.1", "0.0.0.0");
-			return loopbackHosts.contains(host.toLowerCase());
 		}
-		catch (IllegalArgumentException ex) {
-			return false;
+		if (limited == null) {
+			writeStreamChunk(lines, firstIndex, requestBaseUrl, writer);
+			return null;
 		}
+		for (int i = 0; i < lines.size(); i++) {
+			writer.write(objectMapper.writeValueAsString(
+				BulkCreateItemResponse.rateLimited(firstIndex + i, limited.getMessage())));
+			writer.write('\n');
+		}
+		writer.flush();
+		return limited;
 	}
 
-	private String buildBaseFromRequest(HttpServletRequest request) {
-		String scheme = request.getScheme();
-		String serverName = request.getServerName();
-		int port = request.getServerPort();
-		boolean isDefaultPort = ("http".equalsIgnoreCase(scheme) && port == 80)
-			|| ("https".equalsIgnoreCase(scheme) && port == 443);
-		String contextPath = request.getContextPath();
-		String normalizedContextPath = StringUtils.hasText(contextPath) ? contextPath : "";
-		if (normalizedContextPath.endsWith("/")) {
-			normalizedContextPath = normalizedContextPath.substring(0, normalizedContextPath.length() - 1);
+	private void writeStreamChunk(List<String> lines, int firstIndex, String requestBaseUrl, Writer writer)
+		throws IOException {
+		BulkCreateItemResponse[] items = new BulkCreateItemResponse[lines.size()];
+		List<ShortUrlDraft> drafts = new ArrayList<>(lines.size());
+		List<Integer> draftPositions = new ArrayList<>(lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			try {
+				drafts.add(toDraft(objectMapper.readValue(lines.get(i), CreateShortUrlRequest.class)));
+				draftPositions.add(i);
+			}
+			catch (JsonProcessingException ex) {
+				items[i] = BulkCreateItemResponse.invalid(firstIndex + i, "Malformed JSON line");
+			}
+		}
+		List<BulkCreateResult> results = bulkShortUrlService.createAll(drafts);
+		for (int i = 0; i < results.size(); i++) {
+			int position = draftPositions.get(i);
+			items[position] = toItemResponse(results.get(i), firstIndex + position, requestBaseUrl);
 		}
-		return scheme + "://" + serverName + (isDefaultPort ? "" : ":" + port) + normalizedContextPath;
+		for (BulkCreateItemResponse item : items) {
+			writer.write(objectMapper.writeValueAsString(item));
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	private BulkCreateItemResponse toItemResponse(BulkCreateResult result, int index, String requestBaseUrl) {
+		String publicShortUrl = result.status() == BulkCreateResult.Status.CREATED
+			? shortUrlService.buildPublicShortUrl(result.slug(), requestBaseUrl)
+			: null;
+		return BulkCreateItemResponse.from(result, index, publicShortUrl);
 	}
-}
 
+	private static ShortUrlDraft toDraft(CreateShortUrlRequest request) {
+		if (request == null) {
+			return new ShortUrlDraft(null, null, null, null);
+		}
+		return new ShortUrlDraft(request.destinationUrl(), request.customSlug(), request.expiresAt(),
+			request.redirectPolicy());
+	}
+}
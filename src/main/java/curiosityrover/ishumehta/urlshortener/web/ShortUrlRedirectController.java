@@ -1,15 +1,14 @@
 package curiosityrover.ishumehta.urlshortener.web;
 
-import java.net.URI;
-
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
-import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+import curiosityrover.ishumehta.urlshortener.service.ClickAnalyticsService;
+import curiosityrover.ishumehta.urlshortener.service.RateLimiter;
 import curiosityrover.ishumehta.urlshortener.service.ShortUrlService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,25 +16,37 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 
 @Controller
 @Tag(name = "URL Redirection", description = "API for redirecting short URLs to their destination")
 public class ShortUrlRedirectController {
 
 	private final ShortUrlService shortUrlService;
+	private final ClickAnalyticsService clickAnalyticsService;
+	private final RedirectCaching redirectCaching;
 
-	public ShortUrlRedirectController(ShortUrlService shortUrlService) {
+	public ShortUrlRedirectController(ShortUrlService shortUrlService, ClickAnalyticsService clickAnalyticsService,
+		RedirectCaching redirectCaching) {
 		this.shortUrlService = shortUrlService;
+		this.clickAnalyticsService = clickAnalyticsService;
+		this.redirectCaching = redirectCaching;
 	}
 
 	@Operation(
 		summary = "Redirect to destination URL",
-		description = "Redirects to the destination URL associated with the given slug. This endpoint registers a hit and returns a 308 Permanent Redirect."
+		description = "Redirects to the destination URL associated with the given slug and registers a hit. Links with the "
+			+ "TRACKED policy return an uncacheable 307; PERMANENT links return a 308 that clients may cache until the "
+			+ "configured max-age or the link's expiry, whichever comes first."
 	)
 	@ApiResponses(value = {
+		@ApiResponse(
+			responseCode = "307",
+			description = "Temporary redirect to destination URL (Cache-Control: no-store)"
+		),
 		@ApiResponse(
 			responseCode = "308",
-			description = "Permanent redirect to destination URL"
+			description = "Permanent redirect to destination URL (Cache-Control: public, max-age)"
 		),
 		@ApiResponse(
 			responseCode = "404",
@@ -46,16 +57,27 @@ public class ShortUrlRedirectController {
 			responseCode = "410",
 			description = "Short URL has expired",
 			content = @Content
+		),
+		@ApiResponse(
+			responseCode = "429",
+			description = "Rate limit exceeded; retry after the number of seconds in Retry-After",
+			content = @Content
 		)
 	})
+	@RateLimited(RateLimiter.Scope.REDIRECT)
 	@GetMapping("/{slug:[A-Za-z0-9_-]+}")
 	public ResponseEntity<Void> redirect(
 		@Parameter(description = "The slug identifier of the short URL", required = true, example = "abc12345")
-		@PathVariable String slug) {
-		ShortUrl shortUrl = shortUrlService.registerHit(slug);
-		HttpHeaders headers = new HttpHeaders();
-		headers.setLocation(URI.create(shortUrl.getDestinationUrl()));
-		return new ResponseEntity<>(headers, HttpStatus.PERMANENT_REDIRECT);
+		@PathVariable String slug,
+		HttpServletRequest request) {
+		ResolvedShortUrl shortUrl = shortUrlService.registerHit(slug);
+		clickAnalyticsService.record(slug, request.getHeader(HttpHeaders.REFERER),
+			request.getHeader(HttpHeaders.USER_AGENT), request.getHeader(clickAnalyticsService.getCountryHeader()));
+		// Destination URLs are stored percent-encoded to ASCII, so the stored string is a valid Location as-is
+		return ResponseEntity.status(redirectCaching.status(shortUrl))
+			.header(HttpHeaders.LOCATION, shortUrl.destinationUrl())
+			.header(HttpHeaders.CACHE_CONTROL, redirectCaching.cacheControl(shortUrl))
+			.build();
 	}
 }
 
@@ -0,0 +1,48 @@
+package curiosityrover.ishumehta.urlshortener.web.dto;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import curiosityrover.ishumehta.urlshortener.service.BulkCreateResult;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Outcome for one item of a bulk create request")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkCreateItemResponse(
+	@Schema(description = "Zero-based position of the item in the request", example = "0")
+	int index,
+	@Schema(description = "CREATED, INVALID, CONFLICT, FAILED or RATE_LIMITED", example = "CREATED")
+	BulkCreateResult.Status status,
+	@Schema(description = "The slug identifier", example = "abc12345")
+	String slug,
+	@Schema(description = "The complete short URL", example = "http://localhost:8080/abc12345")
+	String shortUrl,
+	@Schema(description = "The normalized destination URL", example = "https://www.example.com/very/long/url/path")
+	String destinationUrl,
+	@Schema(description = "Expiration timestamp (null if no expiration)", example = "2025-12-31T23:59:59Z")
+	Instant expiresAt,
+	@Schema(description = "Why the item was not created", example = "Slug already in use: spring")
+	String error
+) {
+
+	public static BulkCreateItemResponse invalid(int index, String error) {
+		return new BulkCreateItemResponse(index, BulkCreateResult.Status.INVALID, null, null, null, null, error);
+	}
+
+	public static BulkCreateItemResponse rateLimited(int index, String error) {
+		return new BulkCreateItemResponse(index, BulkCreateResult.Status.RATE_LIMITED, null, null, null, null, error);
+	}
+
+	public static BulkCreateItemResponse from(BulkCreateResult result, int index, String publicShortUrl) {
+		return new BulkCreateItemResponse(
+			index,
+			result.status(),
+			result.slug(),
+			publicShortUrl,
+			result.destinationUrl(),
+			result.expiresAt(),
+			result.error()
+		);
+	}
+}
@@ -0,0 +1,17 @@
+package curiosityrover.ishumehta.urlshortener.web.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Per-item results of a bulk create request")
+public record BulkCreateResponse(
+	@Schema(description = "Number of short URLs created", example = "998")
+	int created,
+	@Schema(description = "Number of items not created: every result with status INVALID, CONFLICT, FAILED or "
+		+ "RATE_LIMITED", example = "2")
+	int failed,
+	@Schema(description = "One result per request item, in request order")
+	List<BulkCreateItemResponse> results
+) {
+}
@@ -0,0 +1,58 @@
+package curiosityrover.ishumehta.urlshortener.web.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlFilter;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlUpdate;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+
+@Schema(description = "Change to apply to a list of short URLs, or to every short URL matching a filter")
+public record BulkUpdateRequest(
+
+	@Schema(description = "Slugs to update; give either slugs or filter", example = "[\"abc12345\", \"spring\"]")
+	List<String> slugs,
+
+	@Schema(description = "Criteria selecting the short URLs to update; give either slugs or filter")
+	Filter filter,
+
+	@Schema(description = "New destination URL", example = "https://www.example.com/campaign/2025")
+	@Size(max = 2048, message = "destinationUrl is too long")
+	String destinationUrl,
+
+	@Schema(description = "New expiration date/time (must be in the future)", example = "2025-12-31T23:59:59Z")
+	Instant expiresAt,
+
+	@Schema(description = "Remove the expiration date/time", example = "false")
+	Boolean clearExpiry,
+
+	@Schema(description = "Expire the short URLs now, so they answer 410; already expired ones are left as they are",
+		example = "false")
+	Boolean deactivate
+) {
+
+	public ShortUrlUpdate toUpdate() {
+		return new ShortUrlUpdate(destinationUrl, expiresAt, Boolean.TRUE.equals(clearExpiry),
+			Boolean.TRUE.equals(deactivate));
+	}
+
+	@Schema(description = "Selection criteria, as for GET /api/urls; at least one must be set")
+	public record Filter(
+		@Schema(description = "Only expired (true) or only unexpired (false) links")
+		Boolean expired,
+		@Schema(description = "Minimum hit count, inclusive")
+		Long minHits,
+		@Schema(description = "Maximum hit count, inclusive")
+		Long maxHits,
+		@Schema(description = "Created at or after (ISO-8601)")
+		Instant createdFrom,
+		@Schema(description = "Created before (ISO-8601)")
+		Instant createdTo
+	) {
+
+		public ShortUrlFilter toFilter() {
+			return new ShortUrlFilter(expired, minHits, maxHits, createdFrom, createdTo);
+		}
+	}
+}
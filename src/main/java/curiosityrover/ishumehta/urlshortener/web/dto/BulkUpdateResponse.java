@@ -0,0 +1,18 @@
+package curiosityrover.ishumehta.urlshortener.web.dto;
+
+import curiosityrover.ishumehta.urlshortener.service.BulkUpdateResult;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Summary of a bulk update")
+public record BulkUpdateResponse(
+	@Schema(description = "Number of short URLs changed", example = "4980")
+	long updated,
+	@Schema(description = "Requested slugs that were not changed because they do not exist or, when deactivating, "
+		+ "had already expired; null for updates selected by filter", example = "20")
+	Long unchanged
+) {
+
+	public static BulkUpdateResponse from(BulkUpdateResult result) {
+		return new BulkUpdateResponse(result.updated(), result.unchanged());
+	}
+}
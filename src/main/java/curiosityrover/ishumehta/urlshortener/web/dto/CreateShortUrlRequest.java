@@ -2,6 +2,7 @@ package curiosityrover.ishumehta.urlshortener.web.dto;
 
 import java.time.Instant;
 
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
@@ -23,7 +24,12 @@ public record CreateShortUrlRequest(
 
 	@Schema(description = "Optional expiration date/time (must be in the future)", example = "2025-12-31T23:59:59Z")
 	@Future(message = "expiresAt must be in the future")
-	Instant expiresAt
+	Instant expiresAt,
+
+	@Schema(description = "Optional redirect caching policy: PERMANENT (cacheable 308, repeat clicks may not be counted) "
+		+ "or TRACKED (uncacheable 307, every click counted). Defaults to app.shortener.redirect.default-policy",
+		example = "TRACKED")
+	RedirectPolicy redirectPolicy
 ) {
 }
 
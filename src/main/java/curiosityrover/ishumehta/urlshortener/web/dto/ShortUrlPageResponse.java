@@ -0,0 +1,14 @@
+package curiosityrover.ishumehta.urlshortener.web.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "One page of short URLs")
+public record ShortUrlPageResponse(
+	@Schema(description = "Short URLs on this page, in the requested order")
+	List<ShortUrlResponse> items,
+	@Schema(description = "Cursor for the next page (null on the last page)", example = "MjAyNC0wMS0xNVQxMDozMDowMFp8MHw0Mg")
+	String nextCursor
+) {
+}
@@ -2,6 +2,7 @@ package curiosityrover.ishumehta.urlshortener.web.dto;
 
 import java.time.Instant;
 
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
 import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
 import io.swagger.v3.oas.annotations.media.Schema;
 
@@ -22,7 +23,9 @@ public record ShortUrlResponse(
 	@Schema(description = "Timestamp of the last access", example = "2024-01-20T14:22:00Z")
 	Instant lastAccessedAt,
 	@Schema(description = "Expiration timestamp (null if no expiration)", example = "2025-12-31T23:59:59Z")
-	Instant expiresAt
+	Instant expiresAt,
+	@Schema(description = "Redirect caching policy (null if the link follows the server default)", example = "TRACKED")
+	RedirectPolicy redirectPolicy
 ) {
 
 	public static ShortUrlResponse from(ShortUrl entity, String publicShortUrl) {
@@ -34,7 +37,8 @@ public record ShortUrlResponse(
 			entity.getHitCount(),
 			entity.getCreatedAt(),
 			entity.getLastAccessedAt(),
-			entity.getExpiresAt()
+			entity.getExpiresAt(),
+			entity.getRedirectPolicy()
 		);
 	}
 }
@@ -0,0 +1,44 @@
+package curiosityrover.ishumehta.urlshortener.web.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import curiosityrover.ishumehta.urlshortener.model.ClickRollup.Granularity;
+import curiosityrover.ishumehta.urlshortener.service.ClickStats;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Click counts for a short URL, bucketed by time")
+public record ShortUrlStatsResponse(
+	@Schema(description = "The slug identifier", example = "abc12345")
+	String slug,
+	@Schema(description = "Bucket size", example = "HOUR")
+	Granularity granularity,
+	@Schema(description = "Start of the first bucket (inclusive)", example = "2024-01-20T00:00:00Z")
+	Instant from,
+	@Schema(description = "End of the range (exclusive)", example = "2024-01-21T00:00:00Z")
+	Instant to,
+	@Schema(description = "Total clicks in the range", example = "1234")
+	long totalClicks,
+	@Schema(description = "Non-empty buckets in chronological order")
+	List<Bucket> buckets
+) {
+
+	public record Bucket(
+		@Schema(description = "Bucket start", example = "2024-01-20T14:00:00Z")
+		Instant start,
+		@Schema(description = "Clicks in the bucket", example = "42")
+		long clicks
+	) {
+	}
+
+	public static ShortUrlStatsResponse from(ClickStats stats) {
+		return new ShortUrlStatsResponse(
+			stats.slug(),
+			stats.granularity(),
+			stats.from(),
+			stats.to(),
+			stats.totalClicks(),
+			stats.buckets().stream().map(bucket -> new Bucket(bucket.start(), bucket.clicks())).toList()
+		);
+	}
+}
@@ -0,0 +1,44 @@
+-- Schema as previously created by Hibernate's ddl-auto=update. Every statement is
+-- idempotent so existing databases can be baselined at version 0 and migrated.
+
+CREATE TABLE IF NOT EXISTS short_urls (
+	id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	slug varchar(64) NOT NULL,
+	destination_url varchar(2048) NOT NULL,
+	created_at timestamp(6) with time zone NOT NULL,
+	last_accessed_at timestamp(6) with time zone,
+	hit_count bigint NOT NULL,
+	expires_at timestamp(6) with time zone
+);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_short_urls_slug ON short_urls (slug);
+CREATE INDEX IF NOT EXISTS idx_short_urls_expires_at ON short_urls (expires_at, id);
+
+CREATE TABLE IF NOT EXISTS short_urls_archive (
+	id bigint PRIMARY KEY,
+	slug varchar(64) NOT NULL,
+	destination_url varchar(2048) NOT NULL,
+	created_at timestamp(6) with time zone NOT NULL,
+	last_accessed_at timestamp(6) with time zone,
+	hit_count bigint NOT NULL,
+	expires_at timestamp(6) with time zone NOT NULL,
+	archived_at timestamp(6) with time zone NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_short_urls_archive_archived_at ON short_urls_archive (archived_at);
+
+CREATE TABLE IF NOT EXISTS click_events (
+	id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	slug varchar(64) NOT NULL,
+	clicked_at timestamp(6) with time zone NOT NULL,
+	referrer_host varchar(255),
+	user_agent_class varchar(16) NOT NULL,
+	country varchar(2)
+);
+CREATE INDEX IF NOT EXISTS idx_click_events_clicked_at ON click_events (clicked_at);
+
+CREATE TABLE IF NOT EXISTS click_rollups (
+	slug varchar(64) NOT NULL,
+	granularity varchar(8) NOT NULL,
+	bucket_start timestamp(6) with time zone NOT NULL,
+	clicks bigint NOT NULL,
+	PRIMARY KEY (slug, granularity, bucket_start)
+);
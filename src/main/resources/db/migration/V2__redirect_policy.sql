@@ -0,0 +1,3 @@
+-- Per-link redirect caching policy; NULL means app.shortener.redirect.default-policy.
+ALTER TABLE short_urls ADD COLUMN IF NOT EXISTS redirect_policy varchar(16);
+ALTER TABLE short_urls_archive ADD COLUMN IF NOT EXISTS redirect_policy varchar(16);
@@ -0,0 +1,2 @@
+-- Keyset pagination for GET /api/urls and the export walk (created_at, id).
+CREATE INDEX IF NOT EXISTS idx_short_urls_created_at ON short_urls (created_at, id);
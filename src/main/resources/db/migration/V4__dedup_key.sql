@@ -0,0 +1,4 @@
+-- Destination deduplication (app.shortener.dedup.enabled): SHA-256 of the normalized
+-- destination, expiry and redirect policy. NULL for rows created without it.
+ALTER TABLE short_urls ADD COLUMN IF NOT EXISTS dedup_key varchar(64);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_short_urls_dedup_key ON short_urls (dedup_key);
@@ -0,0 +1,4 @@
+-- Slug ids for app.shortener.slug-strategy=sequence. Each nextval leases a block of
+-- app.shortener.sequence.block-size ids; the allocator leases by the increment stored here,
+-- so changing block-size later has no effect until the sequence is altered.
+CREATE SEQUENCE IF NOT EXISTS short_url_slug_seq START WITH 0 MINVALUE 0 INCREMENT BY ${slug_block_size};
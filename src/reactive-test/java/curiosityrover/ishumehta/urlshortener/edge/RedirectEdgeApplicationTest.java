@@ -0,0 +1,112 @@
+package curiosityrover.ishumehta.urlshortener.edge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Boots the edge on Netty against an H2 database migrated by Flyway and shared with a JDBC connection, which sets up
+ * the rows and reads the hit counts back.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = RedirectEdgeApplication.class,
+	properties = {
+		"spring.main.web-application-type=reactive",
+		"spring.r2dbc.url=r2dbc:h2:mem:///url_shortener_edge;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.r2dbc.username=sa",
+		"spring.r2dbc.password=",
+		"app.shortener.redirect.default-policy=tracked",
+		"app.shortener.hits.flush-interval=PT1H"
+	})
+@ActiveProfiles("edge")
+class RedirectEdgeApplicationTest {
+
+	private static final String JDBC_URL =
+		"jdbc:h2:mem:url_shortener_edge;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	private static final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(JDBC_URL, "sa", ""));
+
+	@Autowired
+	private WebTestClient client;
+
+	@Autowired
+	private ReactiveHitCountAggregator hitCountAggregator;
+
+	@BeforeAll
+	static void migrate() {
+		Flyway.configure().dataSource(JDBC_URL, "sa", "").placeholders(Map.of("slug_block_size", "100"))
+			.load().migrate();
+		jdbcTemplate.update("DELETE FROM short_urls");
+		insert("edgeperm", "https://example.com/permanent", null, "PERMANENT");
+		insert("edgetrak", "https://example.com/tracked", null, null);
+		insert("edgegone", "https://example.com/gone", Instant.now().minus(1, ChronoUnit.HOURS), null);
+	}
+
+	@Test
+	void redirectsWithTheServletStatusCodesAndCacheHeaders() {
+		client.get().uri("/edgeperm").exchange()
+			.expectStatus().isPermanentRedirect()
+			.expectHeader().location("https://example.com/permanent")
+			.expectHeader().valueMatches(HttpHeaders.CACHE_CONTROL, "public, max-age=\\d+");
+		client.head().uri("/edgetrak").exchange()
+			.expectStatus().isTemporaryRedirect()
+			.expectHeader().location("https://example.com/tracked")
+			.expectHeader().cacheControl(CacheControl.noStore());
+	}
+
+	@Test
+	void answersUnknownAndExpiredSlugsWithProblemDetails() {
+		client.get().uri("/edgemiss").exchange()
+			.expectStatus().isNotFound()
+			.expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+			.expectBody()
+			.jsonPath("$.title").isEqualTo("Short URL not found")
+			.jsonPath("$.status").isEqualTo(404)
+			.jsonPath("$.instance").isEqualTo("/edgemiss");
+		client.get().uri("/edgegone").exchange()
+			.expectStatus().isEqualTo(410)
+			.expectBody()
+			.jsonPath("$.title").isEqualTo("Short URL expired")
+			.jsonPath("$.instance").isEqualTo("/edgegone");
+	}
+
+	@Test
+	void countsHitsWriteBehind() {
+		long before = hitCount("edgetrak");
+		client.get().uri("/edgetrak").exchange().expectStatus().isTemporaryRedirect();
+		client.get().uri("/edgetrak").exchange().expectStatus().isTemporaryRedirect();
+		assertThat(hitCount("edgetrak")).isEqualTo(before);
+
+		hitCountAggregator.flush().block();
+
+		assertThat(hitCount("edgetrak")).isEqualTo(before + 2);
+		assertThat(jdbcTemplate.queryForObject("SELECT last_accessed_at FROM short_urls WHERE slug = 'edgetrak'",
+			OffsetDateTime.class)).isNotNull();
+	}
+
+	private static long hitCount(String slug) {
+		return jdbcTemplate.queryForObject("SELECT hit_count FROM short_urls WHERE slug = ?", Long.class, slug);
+	}
+
+	private static void insert(String slug, String destination, Instant expiresAt, String policy) {
+		jdbcTemplate.update("INSERT INTO short_urls (slug, destination_url, created_at, hit_count, expires_at, "
+			+ "redirect_policy) VALUES (?, ?, ?, 0, ?, ?)", slug, destination, OffsetDateTime.now(ZoneOffset.UTC),
+			expiresAt != null ? OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC) : null, policy);
+	}
+}
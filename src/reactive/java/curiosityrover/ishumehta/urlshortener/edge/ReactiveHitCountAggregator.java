@@ -0,0 +1,85 @@
+package curiosityrover.ishumehta.urlshortener.edge;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import curiosityrover.ishumehta.urlshortener.service.PendingHitCounts;
+import curiosityrover.ishumehta.urlshortener.service.PendingHitCounts.HitDelta;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@code HitCountAggregator} for the redirect edge: hits accumulate in the same {@link PendingHitCounts} and are
+ * written in batches of {@code batch-size}, but the flush is a {@link Mono} that never holds a thread while the
+ * database works. A failed batch is put back, together with the ones after it, for the next flush.
+ */
+public class ReactiveHitCountAggregator {
+
+	private static final Logger log = LoggerFactory.getLogger(ReactiveHitCountAggregator.class);
+
+	private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+	private final PendingHitCounts pending = new PendingHitCounts();
+	private final ReactiveShortUrlRepository repository;
+	private final boolean writeBehind;
+	private final int batchSize;
+
+	public ReactiveHitCountAggregator(ReactiveShortUrlRepository repository, boolean writeBehind, int batchSize) {
+		this.repository = repository;
+		this.writeBehind = writeBehind;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Counts a hit. With write-behind off the returned {@link Mono} completes once the row is updated, otherwise it
+	 * is already complete.
+	 */
+	public Mono<Void> record(String slug) {
+		long now = System.currentTimeMillis();
+		if (!writeBehind) {
+			return repository.incrementHits(List.of(new HitDelta(slug, 1L, now))).then();
+		}
+		pending.record(slug, 1L, now);
+		return Mono.empty();
+	}
+
+	public long pendingSlugCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Scheduled runs wait for the returned {@link Mono}, so flushes never overlap.
+	 */
+	@Scheduled(fixedDelayString = "${app.shortener.hits.flush-interval:PT5S}")
+	public Mono<Void> flush() {
+		List<HitDelta> deltas = pending.drain();
+		if (deltas.isEmpty()) {
+			return Mono.empty();
+		}
+		return Flux.range(0, (deltas.size() + batchSize - 1) / batchSize)
+			.concatMap(batch -> {
+				int from = batch * batchSize;
+				return repository.incrementHits(deltas.subList(from, Math.min(deltas.size(), from + batchSize)))
+					.doOnError(ex -> {
+						// Put the unwritten hits back so the next flush retries them
+						List<HitDelta> unwritten = deltas.subList(from, deltas.size());
+						unwritten.forEach(pending::restore);
+						log.warn("Failed to flush {} pending hit counters, will retry: {}", unwritten.size(),
+							ex.getMessage());
+					});
+			})
+			.then()
+			.doOnSuccess(done -> log.debug("Flushed hit counters for {} slugs", deltas.size()))
+			.onErrorComplete();
+	}
+
+	@PreDestroy
+	public void flushOnShutdown() {
+		flush().block(SHUTDOWN_FLUSH_TIMEOUT);
+	}
+}
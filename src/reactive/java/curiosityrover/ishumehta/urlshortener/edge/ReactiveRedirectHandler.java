@@ -0,0 +1,155 @@
+package curiosityrover.ishumehta.urlshortener.edge;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import curiosityrover.ishumehta.urlshortener.exception.RateLimitExceededException;
+import curiosityrover.ishumehta.urlshortener.exception.ShortUrlExpiredException;
+import curiosityrover.ishumehta.urlshortener.exception.ShortUrlNotFoundException;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+import curiosityrover.ishumehta.urlshortener.service.RateLimiter;
+import curiosityrover.ishumehta.urlshortener.service.SharedSlugCache;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlMetrics;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlMetrics.RedirectOutcome;
+import curiosityrover.ishumehta.urlshortener.service.SlugCacheExpiry;
+import curiosityrover.ishumehta.urlshortener.web.RedirectCaching;
+import curiosityrover.ishumehta.urlshortener.web.RestExceptionHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@code GET/HEAD /{slug}} on the redirect edge. Answers like {@code RedirectFastPathFilter}: the redirect rate limit,
+ * then the link from the slug cache or the database, then a 307/308 from {@link RedirectCaching} or the 404/410/429
+ * problem detail built by {@link RestExceptionHandler}.
+ * <p>
+ * The slug cache has the servlet service's size and lifetimes. Concurrent misses for a slug share one query, which
+ * keeps running if the request that started it is cancelled. When a shared cache is configured its invalidations
+ * evict here too; otherwise a changed or removed link may be served for up to {@code app.shortener.cache.ttl}.
+ */
+public class ReactiveRedirectHandler implements MeterBinder {
+
+	private final ReactiveShortUrlRepository repository;
+	private final ReactiveHitCountAggregator hitCountAggregator;
+	private final RedirectCaching redirectCaching;
+	private final ShortUrlMetrics metrics;
+	private final RateLimiter rateLimiter;
+	private final RestExceptionHandler exceptionHandler;
+	private final String apiKeyHeader;
+	private final AsyncCache<String, Optional<ResolvedShortUrl>> cache;
+
+	public ReactiveRedirectHandler(ReactiveShortUrlRepository repository, ReactiveHitCountAggregator hitCountAggregator,
+		RedirectCaching redirectCaching, ShortUrlMetrics metrics, RateLimiter rateLimiter,
+		RestExceptionHandler exceptionHandler, SharedSlugCache sharedCache, String apiKeyHeader, long cacheMaximumSize,
+		Duration cacheTtl, Duration cacheNegativeTtl) {
+		this.repository = repository;
+		this.hitCountAggregator = hitCountAggregator;
+		this.redirectCaching = redirectCaching;
+		this.metrics = metrics;
+		this.rateLimiter = rateLimiter;
+		this.exceptionHandler = exceptionHandler;
+		this.apiKeyHeader = StringUtils.hasText(apiKeyHeader) ? apiKeyHeader.trim() : null;
+		// Caffeine evicts asynchronously, so a zero-sized cache would still serve hits until maintenance runs
+		this.cache = cacheMaximumSize > 0
+			? Caffeine.newBuilder()
+				.maximumSize(cacheMaximumSize)
+				.expireAfter(new SlugCacheExpiry(cacheTtl, cacheNegativeTtl))
+				.recordStats()
+				.buildAsync()
+			: null;
+		if (cache != null) {
+			sharedCache.subscribe(invalidation -> cache.synchronous().invalidate(invalidation.slug()));
+		}
+	}
+
+	public Mono<ServerResponse> redirect(ServerRequest request) {
+		long start = System.nanoTime();
+		String slug = request.pathVariable("slug");
+		long waitNanos = rateLimiter.tryAcquire(RateLimiter.Scope.REDIRECT, clientKey(request));
+		if (waitNanos > 0) {
+			ResponseEntity<ProblemDetail> rejection = exceptionHandler.handleRateLimited(
+				new RateLimitExceededException(RateLimiter.Scope.REDIRECT.label(), Duration.ofNanos(waitNanos)));
+			return problem(request, rejection.getBody(), rejection.getHeaders());
+		}
+		return resolve(slug).flatMap(found -> {
+			if (found.isEmpty()) {
+				metrics.recordRedirect(RedirectOutcome.NOT_FOUND, start);
+				return problem(request, exceptionHandler.handleNotFound(new ShortUrlNotFoundException(slug)), null);
+			}
+			ResolvedShortUrl shortUrl = found.get();
+			if (shortUrl.isExpired()) {
+				metrics.recordRedirect(RedirectOutcome.EXPIRED, start);
+				return problem(request, exceptionHandler.handleExpired(new ShortUrlExpiredException(slug)), null);
+			}
+			return hitCountAggregator.record(slug).then(Mono.defer(() -> {
+				metrics.recordRedirect(RedirectOutcome.HIT, start);
+				// Destination URLs are stored percent-encoded to ASCII, so the stored string is a valid Location as-is
+				return ServerResponse.status(redirectCaching.status(shortUrl))
+					.header(HttpHeaders.LOCATION, shortUrl.destinationUrl())
+					.header(HttpHeaders.CACHE_CONTROL, redirectCaching.cacheControl(shortUrl))
+					.build();
+			}));
+		});
+	}
+
+	private Mono<Optional<ResolvedShortUrl>> resolve(String slug) {
+		if (cache == null) {
+			return load(slug);
+		}
+		return Mono.fromFuture(cache.get(slug, (key, executor) -> load(key).toFuture()), true);
+	}
+
+	private Mono<Optional<ResolvedShortUrl>> load(String slug) {
+		return repository.findResolvedBySlug(slug)
+			.map(Optional::of)
+			.defaultIfEmpty(Optional.empty());
+	}
+
+	private Mono<ServerResponse> problem(ServerRequest request, ProblemDetail detail, HttpHeaders headers) {
+		// MVC fills in the instance from the request path; do the same so both stacks produce identical bodies
+		detail.setInstance(URI.create(request.path()));
+		return ServerResponse.status(detail.getStatus())
+			.headers(target -> {
+				if (headers != null) {
+					target.addAll(headers);
+				}
+			})
+			.contentType(MediaType.APPLICATION_PROBLEM_JSON)
+			.bodyValue(detail);
+	}
+
+	private String clientKey(ServerRequest request) {
+		if (apiKeyHeader != null) {
+			String apiKey = request.headers().firstHeader(apiKeyHeader);
+			if (StringUtils.hasText(apiKey)) {
+				return "key:" + apiKey;
+			}
+		}
+		return request.remoteAddress()
+			.map(InetSocketAddress::getAddress)
+			.map(InetAddress::getHostAddress)
+			.orElse("unknown");
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		if (cache != null) {
+			CaffeineCacheMetrics.monitor(registry, cache, "slugs");
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package curiosityrover.ishumehta.urlshortener.edge;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+import curiosityrover.ishumehta.urlshortener.service.PendingHitCounts.HitDelta;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The two statements the redirect edge runs against {@code short_urls}: the lookup behind
+ * {@code ShortUrlRepository.findResolvedBySlug}, and the hit counter increment of {@code HitCountAggregator}.
+ */
+public class ReactiveShortUrlRepository {
+
+	static final String FIND_RESOLVED_SQL = """
+		SELECT id, slug, destination_url, expires_at, redirect_policy
+		FROM short_urls
+		WHERE slug = :slug""";
+
+	// Bound through the driver's own statement to batch it; PostgreSQL and H2 both take $n markers
+	static final String INCREMENT_SQL = """
+		UPDATE short_urls
+		SET hit_count = hit_count + $1,
+		    last_accessed_at = CASE WHEN last_accessed_at IS NULL OR last_accessed_at < $2 THEN $3 ELSE last_accessed_at END
+		WHERE slug = $4""";
+
+	private final DatabaseClient databaseClient;
+
+	public ReactiveShortUrlRepository(DatabaseClient databaseClient) {
+		this.databaseClient = databaseClient;
+	}
+
+	public Mono<ResolvedShortUrl> findResolvedBySlug(String slug) {
+		return databaseClient.sql(FIND_RESOLVED_SQL)
+			.bind("slug", slug)
+			.map(ReactiveShortUrlRepository::toResolved)
+			.one();
+	}
+
+	/**
+	 * Adds each delta to its slug's hit count in one batched statement. Emits the number of rows updated.
+	 */
+	public Mono<Long> incrementHits(List<HitDelta> deltas) {
+		if (deltas.isEmpty()) {
+			return Mono.just(0L);
+		}
+		return databaseClient.inConnection(connection -> {
+			Statement statement = connection.createStatement(INCREMENT_SQL);
+			for (int i = 0; i < deltas.size(); i++) {
+				if (i > 0) {
+					statement.add();
+				}
+				HitDelta delta = deltas.get(i);
+				OffsetDateTime accessedAt = OffsetDateTime.ofInstant(Instant.ofEpochMilli(delta.lastAccessMillis()),
+					ZoneOffset.UTC);
+				statement.bind(0, delta.hits()).bind(1, accessedAt).bind(2, accessedAt).bind(3, delta.slug());
+			}
+			return Flux.from(statement.execute())
+				.flatMap(Result::getRowsUpdated)
+				.reduce(0L, Long::sum);
+		});
+	}
+
+	private static ResolvedShortUrl toResolved(Readable row) {
+		OffsetDateTime expiresAt = row.get("expires_at", OffsetDateTime.class);
+		String policy = row.get("redirect_policy", String.class);
+		return new ResolvedShortUrl(
+			row.get("id", Long.class),
+			row.get("slug", String.class),
+			row.get("destination_url", String.class),
+			expiresAt != null ? expiresAt.toInstant() : null,
+			policy != null ? RedirectPolicy.valueOf(policy) : null
+		);
+	}
+}
@@ -0,0 +1,90 @@
+package curiosityrover.ishumehta.urlshortener.edge;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import curiosityrover.ishumehta.urlshortener.config.SharedCacheConfig;
+import curiosityrover.ishumehta.urlshortener.service.RateLimiter;
+import curiosityrover.ishumehta.urlshortener.service.SharedSlugCache;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlMetrics;
+import curiosityrover.ishumehta.urlshortener.web.RedirectCaching;
+import curiosityrover.ishumehta.urlshortener.web.RestExceptionHandler;
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * Redirect-only edge node on WebFlux and R2DBC, built with {@code -Preactive}. It answers {@code GET/HEAD /{slug}}
+ * like the servlet service, with the same status codes, {@code Cache-Control} headers, problem details, redirect rate
+ * limit and {@code shortener.redirect} metrics, from a local slug cache in front of a single R2DBC pool. Hits are
+ * counted write-behind.
+ * <p>
+ * The servlet service still owns the schema and everything else: the API, click capture, the snapshot fallback and
+ * sharding. Its component scan skips this class, which only applies to a reactive application context.
+ */
+@SpringBootConfiguration(proxyBeanMethods = false)
+@EnableAutoConfiguration(exclude = { DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+	FlywayAutoConfiguration.class })
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableScheduling
+@Import({ RedirectCaching.class, ShortUrlMetrics.class, RateLimiter.class, SharedCacheConfig.class })
+public class RedirectEdgeApplication {
+
+	public static void main(String[] args) {
+		new SpringApplicationBuilder(RedirectEdgeApplication.class)
+			.web(WebApplicationType.REACTIVE)
+			.profiles("edge")
+			.run(args);
+	}
+
+	@Bean
+	public ReactiveShortUrlRepository reactiveShortUrlRepository(ConnectionFactory connectionFactory,
+		@Value("${app.datasource.shards.enabled:false}") boolean sharded) {
+		if (sharded) {
+			throw new IllegalStateException("The redirect edge reads a single database and does not support "
+				+ "app.datasource.shards.enabled=true");
+		}
+		return new ReactiveShortUrlRepository(DatabaseClient.create(connectionFactory));
+	}
+
+	@Bean
+	public ReactiveHitCountAggregator reactiveHitCountAggregator(ReactiveShortUrlRepository repository,
+		@Value("${app.shortener.hits.write-behind:true}") boolean writeBehind,
+		@Value("${app.shortener.hits.batch-size:500}") int batchSize) {
+		return new ReactiveHitCountAggregator(repository, writeBehind, batchSize);
+	}
+
+	@Bean
+	public ReactiveRedirectHandler reactiveRedirectHandler(ReactiveShortUrlRepository repository,
+		ReactiveHitCountAggregator hitCountAggregator, RedirectCaching redirectCaching, ShortUrlMetrics metrics,
+		RateLimiter rateLimiter, SharedSlugCache sharedCache,
+		@Value("${app.shortener.rate-limit.api-key-header:}") String apiKeyHeader,
+		@Value("${app.shortener.cache.maximum-size:100000}") long cacheMaximumSize,
+		@Value("${app.shortener.cache.ttl:PT10M}") Duration cacheTtl,
+		@Value("${app.shortener.cache.negative-ttl:PT30S}") Duration cacheNegativeTtl) {
+		return new ReactiveRedirectHandler(repository, hitCountAggregator, redirectCaching, metrics, rateLimiter,
+			new RestExceptionHandler(), sharedCache, apiKeyHeader, cacheMaximumSize, cacheTtl, cacheNegativeTtl);
+	}
+
+	@Bean
+	public RouterFunction<ServerResponse> redirectRoutes(ReactiveRedirectHandler handler) {
+		return RouterFunctions.route(RequestPredicates.path("/{slug:[A-Za-z0-9_-]+}")
+			.and(RequestPredicates.methods(HttpMethod.GET, HttpMethod.HEAD)), handler::redirect);
+	}
+}
@@ -0,0 +1,100 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import curiosityrover.ishumehta.urlshortener.exception.ShortUrlNotFoundException;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlCache;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlService;
+
+/**
+ * Runs against two independent H2 databases, so a row that exists in only one of them shows where a query went.
+ */
+@SpringBootTest(properties = {
+	"app.datasource.replica.enabled=true",
+	"app.datasource.replica.urls=" + ReadReplicaRoutingTest.REPLICA_URL,
+	"app.datasource.replica.username=sa",
+	"app.datasource.replica.password=",
+	"app.datasource.replica.max-staleness=PT5S",
+	"app.datasource.replica.lag-query=SELECT seconds FROM replica_lag",
+	"app.datasource.replica.health-check-interval=PT1H"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+	static final String REPLICA_URL =
+		"jdbc:h2:mem:url_shortener_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+	@Autowired
+	private ShortUrlService shortUrlService;
+
+	@Autowired
+	private ShortUrlCache shortUrlCache;
+
+	@Autowired
+	private ReadReplicaDataSources readReplicas;
+
+	@BeforeAll
+	static void createReplica() {
+		Flyway.configure().dataSource(REPLICA_URL, "sa", "").placeholders(Map.of("slug_block_size", "100"))
+			.load().migrate();
+		replica.execute("CREATE TABLE IF NOT EXISTS replica_lag (seconds double precision)");
+		replica.update("DELETE FROM replica_lag");
+		replica.update("INSERT INTO replica_lag VALUES (0)");
+		replica.update("DELETE FROM short_urls");
+		replica.update("""
+			INSERT INTO short_urls (slug, destination_url, created_at, hit_count)
+			VALUES ('onreplica', 'https://example.com/replica', CURRENT_TIMESTAMP, 0)""");
+	}
+
+	@AfterEach
+	void restoreReplica() {
+		replica.update("UPDATE replica_lag SET seconds = 0");
+		readReplicas.checkHealth();
+		shortUrlCache.invalidateAll();
+	}
+
+	@Test
+	void readOnlyLookupsUseTheReplicaAndWritesThePrimary() {
+		assertThat(shortUrlService.getShortUrl("onreplica").getDestinationUrl())
+			.isEqualTo("https://example.com/replica");
+
+		shortUrlService.createShortUrl("https://example.com/primary", "onprimary", null);
+
+		assertThat(replica.queryForObject("SELECT COUNT(*) FROM short_urls WHERE slug = 'onprimary'", Long.class))
+			.isZero();
+		assertThatThrownBy(() -> shortUrlService.getShortUrl("onprimary"))
+			.isInstanceOf(ShortUrlNotFoundException.class);
+	}
+
+	@Test
+	void redirectMissOnTheReplicaIsRecheckedOnThePrimary() {
+		shortUrlService.createShortUrl("https://example.com/fresh", "justcreated", null);
+		shortUrlCache.invalidateAll();
+
+		assertThat(shortUrlService.registerHit("justcreated").destinationUrl()).isEqualTo("https://example.com/fresh");
+	}
+
+	@Test
+	void laggingReplicaIsTakenOutOfRotation() {
+		replica.update("UPDATE replica_lag SET seconds = 30");
+		readReplicas.checkHealth();
+
+		assertThatThrownBy(() -> shortUrlService.getShortUrl("onreplica"))
+			.isInstanceOf(ShortUrlNotFoundException.class);
+	}
+}
@@ -0,0 +1,244 @@
+package curiosityrover.ishumehta.urlshortener.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlDraft;
+import curiosityrover.ishumehta.urlshortener.exception.ShortUrlExpiredException;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlFilter;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlUpdate;
+import curiosityrover.ishumehta.urlshortener.service.BulkCreateResult;
+import curiosityrover.ishumehta.urlshortener.service.BulkShortUrlService;
+import curiosityrover.ishumehta.urlshortener.service.BulkShortUrlUpdateService;
+import curiosityrover.ishumehta.urlshortener.service.BulkUpdateResult;
+import curiosityrover.ishumehta.urlshortener.service.HitCountAggregator;
+import curiosityrover.ishumehta.urlshortener.service.ShardRebalancer;
+import curiosityrover.ishumehta.urlshortener.service.ShardRouter;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlCache;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlListingService;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlService;
+
+/**
+ * Runs with the test database as shard-0 and two more independent H2 databases, so where a row ended up can be
+ * checked in each of them directly.
+ */
+@SpringBootTest(properties = {
+	"spring.datasource.url=" + ShardedStorageTest.SHARD_0_URL,
+	"app.datasource.shards.enabled=true",
+	"app.datasource.shards.urls=" + ShardedStorageTest.SHARD_1_URL + "," + ShardedStorageTest.SHARD_2_URL,
+	"app.datasource.shards.lookup-fallback=true",
+	"app.datasource.shards.rebalance-batch-size=7",
+	"app.shortener.batch.update-chunk-size=3"
+})
+@ActiveProfiles("test")
+class ShardedStorageTest {
+
+	static final String SHARD_0_URL = "jdbc:h2:mem:url_shortener_shard0;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	static final String SHARD_1_URL = "jdbc:h2:mem:url_shortener_shard1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	static final String SHARD_2_URL = "jdbc:h2:mem:url_shortener_shard2;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	private static final List<JdbcTemplate> shards = List.of(
+		new JdbcTemplate(new DriverManagerDataSource(SHARD_0_URL, "sa", "")),
+		new JdbcTemplate(new DriverManagerDataSource(SHARD_1_URL, "sa", "")),
+		new JdbcTemplate(new DriverManagerDataSource(SHARD_2_URL, "sa", "")));
+
+	@Autowired
+	private ShortUrlService shortUrlService;
+
+	@Autowired
+	private BulkShortUrlService bulkShortUrlService;
+
+	@Autowired
+	private BulkShortUrlUpdateService bulkUpdateService;
+
+	@Autowired
+	private HitCountAggregator hitCountAggregator;
+
+	@Autowired
+	private ShardRebalancer shardRebalancer;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private ShortUrlCache shortUrlCache;
+
+	@Autowired
+	private ShortUrlListingService listingService;
+
+	@AfterEach
+	void clearShards() {
+		shards.forEach(shard -> shard.update("DELETE FROM short_urls"));
+		shortUrlCache.invalidateAll();
+	}
+
+	@Test
+	void linksAreStoredOnlyOnTheShardThatOwnsTheirSlug() {
+		List<String> slugs = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			slugs.add(shortUrlService.createShortUrl("https://example.com/" + i, null, null).getSlug());
+		}
+		List<ShortUrlDraft> drafts = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			drafts.add(new ShortUrlDraft("https://example.com/bulk/" + i, "bulk-" + i, null, null));
+		}
+		bulkShortUrlService.createAll(drafts).forEach(result -> {
+			assertThat(result.status()).isEqualTo(BulkCreateResult.Status.CREATED);
+			slugs.add(result.slug());
+		});
+
+		int[] perShard = new int[shards.size()];
+		for (String slug : slugs) {
+			int owner = shardRouter.shardOf(slug);
+			perShard[owner]++;
+			for (int shard = 0; shard < shards.size(); shard++) {
+				assertThat(countSlug(shard, slug)).as(slug + " on shard-" + shard).isEqualTo(shard == owner ? 1 : 0);
+			}
+			assertThat(shortUrlService.getShortUrl(slug).getSlug()).isEqualTo(slug);
+		}
+		assertThat(perShard).doesNotContain(0);
+	}
+
+	@Test
+	void hitsAreFlushedToTheOwningShard() {
+		String slug = shortUrlService.createShortUrl("https://example.com/hits", "hit-me", null).getSlug();
+		shortUrlCache.invalidateAll();
+
+		shortUrlService.registerHit(slug);
+		shortUrlService.registerHit(slug);
+		hitCountAggregator.flush();
+
+		assertThat(shards.get(shardRouter.shardOf(slug))
+			.queryForObject("SELECT hit_count FROM short_urls WHERE slug = ?", Long.class, slug)).isEqualTo(2L);
+	}
+
+	@Test
+	void rebalancerMovesMisplacedRowsToTheirOwner() {
+		List<String> misplaced = new ArrayList<>();
+		for (int i = 0; misplaced.size() < 15; i++) {
+			String slug = "moved-" + i;
+			int owner = shardRouter.shardOf(slug);
+			int wrongShard = (owner + 1) % shards.size();
+			shards.get(wrongShard).update("""
+				INSERT INTO short_urls (slug, destination_url, created_at, hit_count)
+				VALUES (?, 'https://example.com/moved', CURRENT_TIMESTAMP, 5)""", slug);
+			misplaced.add(slug);
+		}
+		// Still reachable through the lookup fallback before the rows are moved
+		assertThat(shortUrlService.registerHit(misplaced.get(0)).destinationUrl()).isEqualTo("https://example.com/moved");
+
+		ShardRebalancer.RebalanceResult result = shardRebalancer.rebalance();
+
+		assertThat(result.moved()).isEqualTo(15);
+		assertThat(result.conflicts()).isZero();
+		for (String slug : misplaced) {
+			int owner = shardRouter.shardOf(slug);
+			for (int shard = 0; shard < shards.size(); shard++) {
+				assertThat(countSlug(shard, slug)).as(slug + " on shard-" + shard).isEqualTo(shard == owner ? 1 : 0);
+			}
+			assertThat(shards.get(owner).queryForObject("SELECT hit_count FROM short_urls WHERE slug = ?", Long.class,
+				slug)).isEqualTo(5L);
+		}
+		assertThat(shardRebalancer.rebalance().moved()).isZero();
+	}
+
+	@Test
+	void listingPagesAcrossShardsWithoutSkippingOrRepeatingRows() throws IOException {
+		// Few distinct timestamps and per-shard ids, so pages often end inside a run of equal created_at values
+		Instant base = Instant.parse("2024-01-01T00:00:00Z");
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			String slug = "listed-" + i;
+			OffsetDateTime createdAt = OffsetDateTime.ofInstant(base.plusSeconds(i % 4), ZoneOffset.UTC);
+			shards.get(shardRouter.shardOf(slug)).update("""
+				INSERT INTO short_urls (slug, destination_url, created_at, hit_count)
+				VALUES (?, 'https://example.com/listed', ?, ?)""", slug, createdAt, i);
+			expected.add(slug);
+		}
+
+		List<ShortUrl> ascending = listAll(ShortUrlFilter.none(), false);
+		List<ShortUrl> descending = listAll(ShortUrlFilter.none(), true);
+
+		assertThat(ascending).extracting(ShortUrl::getSlug).containsExactlyInAnyOrderElementsOf(expected);
+		assertThat(ascending).isSortedAccordingTo(Comparator.comparing(ShortUrl::getCreatedAt));
+		assertThat(descending).extracting(ShortUrl::getSlug)
+			.containsExactlyElementsOf(ascending.stream().map(ShortUrl::getSlug).toList().reversed());
+
+		ShortUrlFilter busy = new ShortUrlFilter(false, 10L, 29L, base.plusSeconds(1), base.plusSeconds(3));
+		List<String> exported = new ArrayList<>();
+		assertThat(listingService.export(busy, shortUrl -> exported.add(shortUrl.getSlug()))).isEqualTo(10);
+		assertThat(listAll(busy, false)).extracting(ShortUrl::getSlug).containsExactlyInAnyOrderElementsOf(exported);
+		assertThat(exported).allSatisfy(slug -> assertThat(Integer.parseInt(slug.substring(7)) % 4).isIn(1, 2));
+	}
+
+	@Test
+	void bulkUpdatesChangeRowsOnEveryShardAndEvictTheirCachedSlugs() {
+		List<ShortUrlDraft> drafts = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			drafts.add(new ShortUrlDraft("https://example.com/old/" + i, "campaign-" + i, null, null));
+		}
+		bulkShortUrlService.createAll(drafts);
+		List<String> slugs = new ArrayList<>(drafts.stream().map(ShortUrlDraft::customSlug).toList());
+		// cached before the update, so a stale cache entry would show
+		assertThat(shortUrlService.registerHit("campaign-0").destinationUrl()).isEqualTo("https://example.com/old/0");
+
+		List<String> requested = new ArrayList<>(slugs.subList(0, 10));
+		requested.add("campaign-0");
+		requested.add("missing");
+		requested.add("not a slug");
+		BulkUpdateResult moved = bulkUpdateService.updateSlugs(requested,
+			new ShortUrlUpdate("https://example.com/new", null, false, false));
+
+		assertThat(moved.updated()).isEqualTo(10);
+		assertThat(moved.unchanged()).isEqualTo(2);
+		assertThat(shortUrlService.registerHit("campaign-0").destinationUrl()).isEqualTo("https://example.com/new");
+		assertThat(shortUrlService.getShortUrl("campaign-10").getDestinationUrl()).isEqualTo("https://example.com/old/10");
+
+		ShortUrlFilter all = new ShortUrlFilter(null, null, null, Instant.EPOCH, null);
+		ShortUrlUpdate deactivate = new ShortUrlUpdate(null, null, false, true);
+		assertThat(bulkUpdateService.updateMatching(all, deactivate).updated()).isEqualTo(20);
+		assertThatThrownBy(() -> shortUrlService.registerHit("campaign-0")).isInstanceOf(ShortUrlExpiredException.class);
+		// already inactive links keep their expiry
+		assertThat(bulkUpdateService.updateMatching(all, deactivate).updated()).isZero();
+		assertThat(bulkUpdateService.updateSlugs(slugs, deactivate).unchanged()).isEqualTo(20);
+
+		ShortUrlFilter expired = new ShortUrlFilter(true, null, null, null, null);
+		assertThat(bulkUpdateService.updateMatching(expired, new ShortUrlUpdate(null, null, true, false)).updated())
+			.isEqualTo(20);
+		assertThat(shortUrlService.registerHit("campaign-19").expiresAt()).isNull();
+	}
+
+	private List<ShortUrl> listAll(ShortUrlFilter filter, boolean descending) {
+		List<ShortUrl> all = new ArrayList<>();
+		String cursor = null;
+		do {
+			ShortUrlListingService.Page page = listingService.list(filter, cursor, 7, descending);
+			assertThat(page.items().size()).isLessThanOrEqualTo(7);
+			all.addAll(page.items());
+			cursor = page.nextCursor();
+		}
+		while (cursor != null);
+		return all;
+	}
+
+	private static long countSlug(int shard, String slug) {
+		return shards.get(shard).queryForObject("SELECT COUNT(*) FROM short_urls WHERE slug = ?", Long.class, slug);
+	}
+}
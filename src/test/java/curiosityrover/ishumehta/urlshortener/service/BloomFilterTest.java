@@ -0,0 +1,39 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+	@Test
+	void neverReportsAnAddedSlugAsMissing() {
+		BloomFilter filter = BloomFilter.create(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("slug" + i);
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("slug" + i)).isTrue();
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTargetAtCapacity() {
+		BloomFilter filter = BloomFilter.create(100_000, 0.01);
+		for (int i = 0; i < 100_000; i++) {
+			filter.put("present-" + i);
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("absent-" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives / 100_000.0).isLessThan(0.015);
+		assertThat(filter.expectedFalsePositiveRate()).isCloseTo(0.01, within(0.003));
+		assertThat(filter.memoryBytes()).isLessThan(130_000);
+	}
+}
@@ -0,0 +1,72 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class BoundedRingBufferTest {
+
+	@Test
+	void offer_rejectsWhenFullAndAcceptsAgainAfterDrain() {
+		BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(3);
+		assertThat(buffer.capacity()).isEqualTo(4);
+
+		for (int i = 0; i < 4; i++) {
+			assertThat(buffer.offer(i)).isTrue();
+		}
+		assertThat(buffer.offer(4)).isFalse();
+
+		List<Integer> drained = new ArrayList<>();
+		assertThat(buffer.drainTo(drained, 2)).isEqualTo(2);
+		assertThat(drained).containsExactly(0, 1);
+		assertThat(buffer.offer(5)).isTrue();
+
+		buffer.drainTo(drained, 10);
+		assertThat(drained).containsExactly(0, 1, 2, 3, 5);
+		assertThat(buffer.size()).isZero();
+	}
+
+	@Test
+	void concurrentProducers_neverLoseOrDuplicateAcceptedElements() throws Exception {
+		BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(1024);
+		int producers = 8;
+		int perProducer = 20_000;
+		AtomicInteger accepted = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(producers);
+		ExecutorService pool = Executors.newFixedThreadPool(producers);
+		for (int p = 0; p < producers; p++) {
+			int base = p * perProducer;
+			pool.execute(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					if (buffer.offer(base + i)) {
+						accepted.incrementAndGet();
+					}
+				}
+				done.countDown();
+			});
+		}
+
+		List<Integer> drained = new ArrayList<>();
+		while (done.getCount() > 0) {
+			buffer.drainTo(drained, 256);
+		}
+		buffer.drainTo(drained, Integer.MAX_VALUE);
+		pool.shutdown();
+		assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+		Set<Integer> unique = new HashSet<>(drained);
+		assertThat(unique).hasSameSizeAs(drained);
+		assertThat(drained).hasSize(accepted.get());
+	}
+
+}
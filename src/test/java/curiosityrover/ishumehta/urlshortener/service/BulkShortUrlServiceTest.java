@@ -0,0 +1,250 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlDraft;
+import curiosityrover.ishumehta.urlshortener.repository.ShortUrlRepository;
+
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:bulk_create_test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+	"app.shortener.rate-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BulkShortUrlServiceTest {
+
+	@Autowired
+	private BulkShortUrlService bulkShortUrlService;
+
+	@Autowired
+	private ShortUrlService shortUrlService;
+
+	@Autowired
+	private ShortUrlCache shortUrlCache;
+
+	@Autowired
+	private SlugPresenceFilter slugPresenceFilter;
+
+	@Autowired
+	private ShortUrlMetrics metrics;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ShortUrlRepository shortUrlRepository;
+
+	@Autowired
+	private SlugAllocator slugAllocator;
+
+	@AfterEach
+	void clearTable() {
+		jdbcTemplate.update("DELETE FROM short_urls");
+		shortUrlCache.invalidateAll();
+	}
+
+	@Test
+	void createAll_reportsInvalidItemsAndConflictingCustomSlugsPerItem() {
+		shortUrlService.createShortUrl("https://example.com/existing", "taken-slug", null);
+
+		List<BulkCreateResult> results = bulkShortUrlService.createAll(List.of(
+			new ShortUrlDraft("https://example.com/generated", null, null, null),
+			new ShortUrlDraft("not a url", null, null, null),
+			new ShortUrlDraft("https://example.com/taken", "taken-slug", null, null),
+			new ShortUrlDraft("https://example.com/first", "dupe-slug", null, null),
+			new ShortUrlDraft("https://example.com/second", "dupe-slug", null, null)));
+
+		assertThat(results).extracting(BulkCreateResult::status).containsExactly(
+			BulkCreateResult.Status.CREATED,
+			BulkCreateResult.Status.INVALID,
+			BulkCreateResult.Status.CONFLICT,
+			BulkCreateResult.Status.CREATED,
+			BulkCreateResult.Status.CONFLICT);
+		assertThat(results).extracting(BulkCreateResult::index).containsExactly(0, 1, 2, 3, 4);
+		assertThat(results.get(2).error()).isEqualTo("Slug already in use: taken-slug");
+		assertThat(destinationOf("dupe-slug")).isEqualTo("https://example.com/first");
+		assertThat(destinationOf("taken-slug")).isEqualTo("https://example.com/existing");
+		assertThat(destinationOf(results.get(0).slug())).isEqualTo("https://example.com/generated");
+	}
+
+	@Test
+	void createAll_fallsBackToRowByRowInsertsAfterAUniqueViolation() {
+		shortUrlService.createShortUrl("https://example.com/existing", "raced-slug", null);
+		shortUrlService.createShortUrl("https://example.com/existing", "gen00001", null);
+		// The custom slug check misses the raced slug and the allocator hands out a taken one, as under a race
+		BulkShortUrlService service = serviceWith(new ScriptedAllocator(
+			List.of("gen00001", "gen00002"), "gen00003"));
+
+		List<BulkCreateResult> results = service.createAll(List.of(
+			new ShortUrlDraft("https://example.com/a", "raced-slug", null, null),
+			new ShortUrlDraft("https://example.com/b", null, null, null),
+			new ShortUrlDraft("https://example.com/c", null, null, null),
+			new ShortUrlDraft("https://example.com/d", "fresh-slug", null, null)));
+
+		assertThat(results).extracting(BulkCreateResult::status).containsExactly(
+			BulkCreateResult.Status.CONFLICT,
+			BulkCreateResult.Status.CREATED,
+			BulkCreateResult.Status.CREATED,
+			BulkCreateResult.Status.CREATED);
+		assertThat(results).extracting(BulkCreateResult::slug)
+			.containsExactly("raced-slug", "gen00003", "gen00002", "fresh-slug");
+		assertThat(destinationOf("gen00003")).isEqualTo("https://example.com/b");
+		assertThat(destinationOf("raced-slug")).isEqualTo("https://example.com/existing");
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM short_urls", Integer.class)).isEqualTo(5);
+	}
+
+	@Test
+	void createAll_reportsAGeneratedSlugThatStaysTakenAsFailed() {
+		shortUrlService.createShortUrl("https://example.com/existing", "gen00001", null);
+		BulkShortUrlService service = serviceWith(new ScriptedAllocator(List.of("gen00001"), "gen00001"));
+
+		List<BulkCreateResult> results = service.createAll(List.of(
+			new ShortUrlDraft("https://example.com/a", null, null, null)));
+
+		assertThat(results).singleElement().satisfies(result -> {
+			assertThat(result.status()).isEqualTo(BulkCreateResult.Status.FAILED);
+			assertThat(result.slug()).isNull();
+		});
+	}
+
+	@Test
+	void createAll_reusesLinksForRepeatedDestinationsWhenDeduplicating() {
+		BulkShortUrlService service = new BulkShortUrlService(shortUrlService, shortUrlRepository, slugAllocator,
+			shortUrlCache, slugPresenceFilter, ShardRouter.single(), metrics,
+			new DestinationDeduplicator(shortUrlRepository, ShardRouter.single(), true, 100), jdbcTemplate,
+			transactionTemplate, 1000);
+
+		List<BulkCreateResult> first = service.createAll(List.of(
+			new ShortUrlDraft("https://example.com/a", null, null, null),
+			new ShortUrlDraft("https://example.com/b", null, null, null),
+			new ShortUrlDraft("https://example.com/a", null, null, null)));
+		List<BulkCreateResult> second = service.createAll(List.of(
+			new ShortUrlDraft("https://example.com/a", null, null, null),
+			new ShortUrlDraft("https://example.com/a", "custom-a", null, null),
+			new ShortUrlDraft("https://example.com/c", null, null, null)));
+
+		assertThat(first).extracting(BulkCreateResult::status).containsOnly(BulkCreateResult.Status.CREATED);
+		assertThat(second).extracting(BulkCreateResult::status).containsOnly(BulkCreateResult.Status.CREATED);
+		assertThat(first.get(2).index()).isEqualTo(2);
+		assertThat(first.get(2).slug()).isEqualTo(first.get(0).slug());
+		assertThat(first.get(1).slug()).isNotEqualTo(first.get(0).slug());
+		assertThat(second.get(0).slug()).isEqualTo(first.get(0).slug());
+		assertThat(second.get(1).slug()).isEqualTo("custom-a");
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM short_urls", Integer.class)).isEqualTo(4);
+		assertThat(jdbcTemplate.queryForObject("SELECT dedup_key FROM short_urls WHERE slug = ?", String.class,
+			"custom-a")).isNull();
+	}
+
+	@Test
+	void ndjsonBatch_answersOneLinePerNonBlankInputLine() throws Exception {
+		String body = """
+			{"destinationUrl":"https://example.com/one"}
+			{"destinationUrl":
+
+			{"destinationUrl":"https://example.com/two","customSlug":"nd-two"}
+			""";
+
+		String response = mockMvc.perform(post("/api/urls/batch")
+				.contentType("application/x-ndjson")
+				.content(body))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString();
+
+		String[] lines = response.split("\n");
+		assertThat(lines).hasSize(3);
+		assertThat(lines[0]).contains("\"index\":0", "\"status\":\"CREATED\"");
+		assertThat(lines[1]).contains("\"index\":1", "\"status\":\"INVALID\"", "Malformed JSON line");
+		assertThat(lines[2]).contains("\"index\":2", "\"status\":\"CREATED\"", "\"slug\":\"nd-two\"");
+		assertThat(destinationOf("nd-two")).isEqualTo("https://example.com/two");
+	}
+
+	@Test
+	void createAll_insertsTenThousandItemsInBatches() {
+		List<ShortUrlDraft> drafts = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			drafts.add(new ShortUrlDraft("https://example.com/items/" + i, null, null, null));
+		}
+
+		long start = System.nanoTime();
+		List<BulkCreateResult> results = bulkShortUrlService.createAll(drafts);
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertThat(results).allSatisfy(result -> assertThat(result.status()).isEqualTo(BulkCreateResult.Status.CREATED));
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM short_urls", Integer.class)).isEqualTo(10_000);
+		// A generous bound that still fails if the batch path degrades into per-row round-trips and lookups;
+		// BulkCreateBenchmark measures it properly
+		assertThat(elapsedMillis).isLessThan(30_000);
+	}
+
+	private BulkShortUrlService serviceWith(SlugAllocator allocator) {
+		ShortUrlRepository repository = mock(ShortUrlRepository.class);
+		when(repository.findTakenSlugs(any())).thenReturn(Set.of());
+		return new BulkShortUrlService(shortUrlService, repository, allocator, shortUrlCache, slugPresenceFilter,
+			ShardRouter.single(), metrics, new DestinationDeduplicator(repository, ShardRouter.single(), false, 0),
+			jdbcTemplate, transactionTemplate, 1000);
+	}
+
+	private String destinationOf(String slug) {
+		return jdbcTemplate.queryForObject("SELECT destination_url FROM short_urls WHERE slug = ?", String.class, slug);
+	}
+
+	/**
+	 * Hands out a fixed bulk allocation, then the same replacement slug forever.
+	 */
+	private static final class ScriptedAllocator implements SlugAllocator {
+
+		private final Deque<String> bulk;
+		private final String replacement;
+
+		private ScriptedAllocator(List<String> bulk, String replacement) {
+			this.bulk = new ArrayDeque<>(bulk);
+			this.replacement = replacement;
+		}
+
+		@Override
+		public String nextSlug() {
+			return replacement;
+		}
+
+		@Override
+		public List<String> nextSlugs(int count) {
+			List<String> slugs = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				slugs.add(bulk.isEmpty() ? replacement : bulk.poll());
+			}
+			return slugs;
+		}
+
+		@Override
+		public String strategyName() {
+			return "scripted";
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import curiosityrover.ishumehta.urlshortener.model.Click;
+import curiosityrover.ishumehta.urlshortener.model.Click.UserAgentClass;
+
+class ClickAnalyticsServiceTest {
+
+	@Test
+	void record_dropsClicksOnceTheBufferIsFull() {
+		ClickAnalyticsService service = new ClickAnalyticsService(mock(JdbcTemplate.class), true, 2, "CF-IPCountry");
+
+		service.record("abc", "https://News.Example.com:443/a?b", "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0)", "de");
+		service.record("abc", null, "Googlebot/2.1", null);
+		service.record("abc", null, null, null);
+
+		assertThat(service.acceptedCount()).isEqualTo(2);
+		assertThat(service.droppedCount()).isEqualTo(1);
+		List<Click> clicks = new ArrayList<>();
+		service.buffer().drainTo(clicks, 10);
+		assertThat(clicks).extracting(Click::referrerHost).containsExactly("news.example.com", null);
+		assertThat(clicks).extracting(Click::userAgentClass).containsExactly(UserAgentClass.MOBILE, UserAgentClass.BOT);
+		assertThat(clicks).extracting(Click::country).containsExactly("DE", null);
+	}
+}
@@ -0,0 +1,223 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import curiosityrover.ishumehta.urlshortener.model.Click;
+import curiosityrover.ishumehta.urlshortener.model.Click.UserAgentClass;
+import curiosityrover.ishumehta.urlshortener.model.ClickRollup.Granularity;
+
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:click_event_writer_test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+	"app.shortener.rate-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ClickEventWriterTest {
+
+	private static final Instant T0 = Instant.parse("2024-01-20T14:05:30Z");
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ShortUrlService shortUrlService;
+
+	@Autowired
+	private ShortUrlCache shortUrlCache;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@AfterEach
+	void clearTables() {
+		jdbcTemplate.update("DELETE FROM click_events");
+		jdbcTemplate.update("DELETE FROM click_rollups");
+		jdbcTemplate.update("DELETE FROM short_urls");
+		shortUrlCache.invalidateAll();
+	}
+
+	@Test
+	void drain_insertsNewRollupRowsThenAddsToThemOnLaterBatches() {
+		ClickAnalyticsService analytics = analytics();
+		ClickEventWriter writer = writer(analytics, jdbcTemplate);
+
+		offer(analytics, "abc", T0, T0.plusSeconds(20), T0.plus(Duration.ofHours(1)));
+		writer.drain();
+		offer(analytics, "abc", T0.plusSeconds(5));
+		writer.drain();
+
+		assertThat(writer.writtenCount()).isEqualTo(4);
+		assertThat(writer.failedCount()).isZero();
+		assertThat(eventCount()).isEqualTo(4);
+		assertThat(rollup("abc", Granularity.MINUTE, "2024-01-20T14:05:00Z")).isEqualTo(3);
+		assertThat(rollup("abc", Granularity.MINUTE, "2024-01-20T15:05:00Z")).isEqualTo(1);
+		assertThat(rollup("abc", Granularity.HOUR, "2024-01-20T14:00:00Z")).isEqualTo(3);
+		assertThat(rollup("abc", Granularity.HOUR, "2024-01-20T15:00:00Z")).isEqualTo(1);
+		assertThat(rollup("abc", Granularity.DAY, "2024-01-20T00:00:00Z")).isEqualTo(4);
+	}
+
+	@Test
+	void drain_retriesThroughTheUpdatePathWhenAnotherNodeInsertsARollupRowFirst() {
+		ClickAnalyticsService analytics = analytics();
+		ClickEventWriter writer = writer(analytics, new RacingJdbcTemplate(dataSource));
+
+		offer(analytics, "abc", T0, T0.plusSeconds(20));
+		writer.drain();
+
+		assertThat(writer.writtenCount()).isEqualTo(2);
+		assertThat(writer.failedCount()).isZero();
+		// The first attempt rolled back, so the raw events are written exactly once
+		assertThat(eventCount()).isEqualTo(2);
+		assertThat(rollup("abc", Granularity.DAY, "2024-01-20T00:00:00Z")).isEqualTo(5 + 2);
+		assertThat(rollup("abc", Granularity.MINUTE, "2024-01-20T14:05:00Z")).isEqualTo(2);
+	}
+
+	@Test
+	void purgeExpired_deletesRawEventsAndFineRollupsPastTheirRetention() {
+		Instant now = Instant.now();
+		insertEvent("abc", now.minus(Duration.ofDays(31)));
+		insertEvent("abc", now.minus(Duration.ofDays(29)));
+		insertRollup("abc", Granularity.MINUTE, now.minus(Duration.ofDays(8)));
+		insertRollup("abc", Granularity.MINUTE, now.minus(Duration.ofDays(6)));
+		insertRollup("abc", Granularity.HOUR, now.minus(Duration.ofDays(91)));
+		insertRollup("abc", Granularity.HOUR, now.minus(Duration.ofDays(89)));
+		insertRollup("abc", Granularity.DAY, now.minus(Duration.ofDays(400)));
+
+		writer(analytics(), jdbcTemplate).purgeExpired();
+
+		assertThat(eventCount()).isEqualTo(1);
+		assertThat(jdbcTemplate.queryForList("SELECT granularity FROM click_rollups ORDER BY granularity", String.class))
+			.containsExactly("DAY", "HOUR", "MINUTE");
+	}
+
+	@Test
+	void statsEndpoint_returnsTheRolledUpBucketsInRange() throws Exception {
+		shortUrlService.createShortUrl("https://example.com/stats", "stats-slug", null);
+		ClickAnalyticsService analytics = analytics();
+		offer(analytics, "stats-slug", T0, T0.plusSeconds(10), T0.plus(Duration.ofHours(2)), T0.plus(Duration.ofHours(5)));
+		writer(analytics, jdbcTemplate).drain();
+
+		mockMvc.perform(get("/api/urls/stats-slug/stats")
+				.param("granularity", "HOUR")
+				.param("from", "2024-01-20T14:30:00Z")
+				.param("to", "2024-01-20T17:00:00Z"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.from").value("2024-01-20T14:00:00Z"))
+			.andExpect(jsonPath("$.totalClicks").value(3))
+			.andExpect(jsonPath("$.buckets.length()").value(2))
+			.andExpect(jsonPath("$.buckets[0].start").value("2024-01-20T14:00:00Z"))
+			.andExpect(jsonPath("$.buckets[0].clicks").value(2))
+			.andExpect(jsonPath("$.buckets[1].start").value("2024-01-20T16:00:00Z"))
+			.andExpect(jsonPath("$.buckets[1].clicks").value(1));
+
+		mockMvc.perform(get("/api/urls/stats-slug/stats")
+				.param("granularity", "MINUTE")
+				.param("from", "2024-01-01T00:00:00Z")
+				.param("to", "2024-01-20T00:00:00Z"))
+			.andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/api/urls/no-such-slug/stats"))
+			.andExpect(status().isNotFound());
+	}
+
+	private ClickAnalyticsService analytics() {
+		return new ClickAnalyticsService(jdbcTemplate, true, 1024, "CF-IPCountry");
+	}
+
+	private ClickEventWriter writer(ClickAnalyticsService analytics, JdbcTemplate template) {
+		return new ClickEventWriter(analytics, template, transactionTemplate, 1000, Duration.ofDays(30),
+			Duration.ofDays(7), Duration.ofDays(90));
+	}
+
+	private static void offer(ClickAnalyticsService analytics, String slug, Instant... clickedAt) {
+		for (Instant instant : clickedAt) {
+			analytics.buffer().offer(new Click(slug, instant, null, UserAgentClass.DESKTOP, null));
+		}
+	}
+
+	private int eventCount() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM click_events", Integer.class);
+	}
+
+	private long rollup(String slug, Granularity granularity, String bucketStart) {
+		return jdbcTemplate.queryForObject(
+			"SELECT clicks FROM click_rollups WHERE slug = ? AND granularity = ? AND bucket_start = ?", Long.class,
+			slug, granularity.name(), utc(Instant.parse(bucketStart)));
+	}
+
+	private void insertEvent(String slug, Instant clickedAt) {
+		jdbcTemplate.update(ClickEventWriter.INSERT_EVENT_SQL, slug, utc(clickedAt), null, "DESKTOP", null);
+	}
+
+	private void insertRollup(String slug, Granularity granularity, Instant at) {
+		jdbcTemplate.update(ClickEventWriter.INSERT_ROLLUP_SQL, slug, granularity.name(),
+			utc(granularity.bucketStart(at)), 1L);
+	}
+
+	private static OffsetDateTime utc(Instant instant) {
+		return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+	}
+
+	/**
+	 * Commits the day rollup row for {@code abc} on a separate connection just before the writer's first rollup
+	 * insert, as a second node would.
+	 */
+	private static final class RacingJdbcTemplate extends JdbcTemplate {
+
+		private boolean raced;
+
+		private RacingJdbcTemplate(DataSource dataSource) {
+			super(dataSource);
+		}
+
+		@Override
+		public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+			if (!raced && ClickEventWriter.INSERT_ROLLUP_SQL.equals(sql)) {
+				raced = true;
+				try (Connection connection = getDataSource().getConnection();
+					PreparedStatement statement = connection.prepareStatement(ClickEventWriter.INSERT_ROLLUP_SQL)) {
+					connection.setAutoCommit(true);
+					statement.setString(1, "abc");
+					statement.setString(2, Granularity.DAY.name());
+					statement.setObject(3, utc(Instant.parse("2024-01-20T00:00:00Z")));
+					statement.setLong(4, 5);
+					statement.executeUpdate();
+				}
+				catch (SQLException ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+			return super.batchUpdate(sql, batchArgs);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+
+	@Test
+	void spreadsSlugsEvenlyOverShards() {
+		ConsistentHashRing ring = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2", "shard-3"), 160);
+		int[] counts = new int[4];
+		for (int i = 0; i < 100_000; i++) {
+			counts[ring.shardFor(Base62.encode(i, 8))]++;
+		}
+
+		for (int shard = 0; shard < 4; shard++) {
+			assertThat(counts[shard] / 100_000.0).as("shard-" + shard).isCloseTo(0.25, within(0.05));
+			assertThat(ring.ownership()[shard]).isCloseTo(counts[shard] / 100_000.0, within(0.02));
+		}
+	}
+
+	@Test
+	void addingAShardOnlyMovesSlugsOntoIt() {
+		ConsistentHashRing three = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2"), 160);
+		ConsistentHashRing four = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2", "shard-3"), 160);
+		int moved = 0;
+		for (int i = 0; i < 100_000; i++) {
+			String slug = Base62.encode(i, 8);
+			int before = three.shardFor(slug);
+			int after = four.shardFor(slug);
+			if (before != after) {
+				assertThat(after).isEqualTo(3);
+				moved++;
+			}
+		}
+
+		assertThat(moved / 100_000.0).isCloseTo(0.25, within(0.05));
+	}
+}
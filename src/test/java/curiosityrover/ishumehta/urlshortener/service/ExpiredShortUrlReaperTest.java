@@ -0,0 +1,76 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ExpiredShortUrlReaperTest {
+
+	private static final OffsetDateTime EXPIRED_AT = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final ShortUrlCache cache = new ShortUrlCache(SharedSlugCache.none(), 100, Duration.ofMinutes(10),
+		Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofMillis(200));
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void reap_pagesByKeysetAndEvictsReclaimedSlugs() {
+		ExpiredShortUrlReaper reaper = reaper(2, 3);
+		var first = new ExpiredShortUrlReaper.ExpiredRow(1L, "a", EXPIRED_AT);
+		var second = new ExpiredShortUrlReaper.ExpiredRow(2L, "b", EXPIRED_AT);
+		var third = new ExpiredShortUrlReaper.ExpiredRow(3L, "c", EXPIRED_AT);
+		when(jdbcTemplate.query(eq(ExpiredShortUrlReaper.SELECT_FIRST_SQL), any(RowMapper.class), any(), any()))
+			.thenReturn(List.<Object>of(first, second));
+		when(jdbcTemplate.query(eq(ExpiredShortUrlReaper.SELECT_NEXT_SQL), any(RowMapper.class), any(), any(), any(),
+			any(), any()))
+			.thenReturn(List.<Object>of(third));
+		when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(2, 1);
+		cache.put(new ResolvedShortUrl(2L, "b", "https://example.com", null));
+
+		ExpiredShortUrlReaper.ReapResult result = reaper.reap();
+
+		assertThat(result.reclaimed()).isEqualTo(3);
+		assertThat(cache.resolve("b", slug -> Optional.empty())).isEmpty();
+		ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+		verify(jdbcTemplate).query(eq(ExpiredShortUrlReaper.SELECT_NEXT_SQL), any(RowMapper.class), any(),
+			args.capture(), any(), args.capture(), args.capture());
+		// resumes after the last row of the previous batch, and asks only for what is left of the per-run cap
+		assertThat(args.getAllValues()).containsExactly(EXPIRED_AT, 2L, 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void reap_doesNothingWhenNothingExpired() {
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any())).thenReturn(List.of());
+
+		assertThat(reaper(500, 1000).reap().reclaimed()).isZero();
+		verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+	}
+
+	private ExpiredShortUrlReaper reaper(int batchSize, long maxRowsPerRun) {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+		return new ExpiredShortUrlReaper(jdbcTemplate, transactionTemplate, cache, ShardRouter.single(), new SimpleMeterRegistry(), true,
+			ExpiredShortUrlReaper.Mode.DELETE, Duration.ofDays(1), Duration.ofDays(90), batchSize, maxRowsPerRun);
+	}
+}
@@ -0,0 +1,78 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class HitCountAggregatorTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private HitCountAggregator aggregator;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		aggregator = new HitCountAggregator(jdbcTemplate, ShardRouter.single(), true, 500);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void flush_writesOneBatchedIncrementPerSlug() {
+		aggregator.record("hot");
+		aggregator.record("hot");
+		aggregator.record("hot");
+		aggregator.record("cold");
+
+		aggregator.flush();
+
+		ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(eq(HitCountAggregator.INCREMENT_SQL), batch.capture());
+		Map<Object, Object> hitsBySlug = batch.getValue().stream()
+			.collect(Collectors.toMap(args -> args[3], args -> args[0]));
+		assertThat(hitsBySlug).containsExactlyInAnyOrderEntriesOf(Map.of("hot", 3L, "cold", 1L));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void flush_keepsHitsWhenTheDatabaseIsUnavailable() {
+		when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+			.thenThrow(new DataAccessResourceFailureException("down"))
+			.thenReturn(new int[] { 1 });
+
+		aggregator.record("hot");
+		aggregator.flush();
+		aggregator.record("hot");
+		aggregator.flush();
+
+		ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate, times(2)).batchUpdate(eq(HitCountAggregator.INCREMENT_SQL), batch.capture());
+		List<Object[]> retried = batch.getAllValues().get(1);
+		assertThat(retried).hasSize(1);
+		assertThat(retried.get(0)[0]).isEqualTo(2L);
+	}
+
+	@Test
+	void flush_dropsIdleSlugs() {
+		aggregator.record("once");
+		aggregator.flush();
+		aggregator.flush();
+
+		assertThat(aggregator.pendingSlugCount()).isZero();
+		verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+	}
+}
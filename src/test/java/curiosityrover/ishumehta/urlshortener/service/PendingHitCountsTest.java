@@ -0,0 +1,77 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import curiosityrover.ishumehta.urlshortener.service.PendingHitCounts.HitDelta;
+
+class PendingHitCountsTest {
+
+	@Test
+	void drain_dropsEntriesThatStayedIdleForAWholeInterval() {
+		PendingHitCounts pending = new PendingHitCounts();
+		pending.record("a", 2, 100);
+
+		assertThat(pending.drain()).containsExactly(new HitDelta("a", 2, 100));
+		assertThat(pending.size()).isEqualTo(1);
+		assertThat(pending.drain()).isEmpty();
+		assertThat(pending.size()).isZero();
+
+		pending.record("a", 1, 200);
+		assertThat(pending.drain()).containsExactly(new HitDelta("a", 1, 200));
+	}
+
+	@Test
+	void noHitIsLostOrCountedTwiceWhileDrainsDropIdleEntries() throws Exception {
+		PendingHitCounts pending = new PendingHitCounts();
+		int threads = 4;
+		int hitsPerThread = 200_000;
+		AtomicLong drained = new AtomicLong();
+		AtomicBoolean recording = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+
+		// Few, mostly idle slugs, so drains keep dropping entries that recorders are about to add to
+		List<Thread> recorders = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int offset = t;
+			recorders.add(Thread.ofPlatform().start(() -> {
+				awaitQuietly(start);
+				for (int i = 0; i < hitsPerThread; i++) {
+					pending.record("slug-" + ((i + offset) & 7), 1, i);
+				}
+			}));
+		}
+		Thread drainer = Thread.ofPlatform().start(() -> {
+			awaitQuietly(start);
+			while (recording.get()) {
+				pending.drain().forEach(delta -> drained.addAndGet(delta.hits()));
+			}
+		});
+
+		start.countDown();
+		for (Thread recorder : recorders) {
+			recorder.join();
+		}
+		recording.set(false);
+		drainer.join();
+		pending.drain().forEach(delta -> drained.addAndGet(delta.hits()));
+
+		assertThat(drained.get()).isEqualTo((long) threads * hitsPerThread);
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import curiosityrover.ishumehta.urlshortener.repository.ShortUrlRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RandomSlugAllocatorTest {
+
+	private final SlugGenerator slugGenerator = mock(SlugGenerator.class);
+	private final ShortUrlRepository repository = mock(ShortUrlRepository.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RandomSlugAllocator allocator = new RandomSlugAllocator(slugGenerator, repository,
+		ShardRouter.single(), new ShortUrlMetrics(meterRegistry), 6);
+
+	@Test
+	void nextSlug_countsEveryTakenCandidateAsARetry() {
+		when(slugGenerator.generateSlug(6)).thenReturn("taken1", "taken2", "free01");
+		when(repository.existsBySlug("taken1")).thenReturn(true);
+		when(repository.existsBySlug("taken2")).thenReturn(true);
+
+		assertThat(allocator.nextSlug()).isEqualTo("free01");
+		assertThat(retries()).isEqualTo(2.0);
+	}
+
+	@Test
+	void nextSlugs_countsTakenCandidatesFromTheSetQuery() {
+		when(slugGenerator.generateSlugs(anyInt(), any(Integer.class)))
+			.thenReturn(List.of("taken1", "free01", "taken2"), List.of("free02", "free03"));
+		when(repository.findTakenSlugs(any())).thenReturn(Set.of("taken1", "taken2"), Set.of());
+
+		assertThat(allocator.nextSlugs(3)).containsExactly("free01", "free02", "free03");
+		assertThat(retries()).isEqualTo(2.0);
+	}
+
+	private double retries() {
+		return meterRegistry.get("shortener.slug.retries").counter().count();
+	}
+}
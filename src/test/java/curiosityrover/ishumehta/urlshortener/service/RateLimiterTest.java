@@ -0,0 +1,85 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	// create: 2 per second, burst 3; redirect: 10 per second, burst 1; batch: 100 items per second, burst 10
+	private final RateLimiter limiter = new RateLimiter(true, 1000, 2, 3, 10, 1, 100, 10);
+
+	@Test
+	void allowsTheBurstThenAsksToWaitForTheNextToken() {
+		long now = 0;
+		for (int i = 0; i < 3; i++) {
+			assertThat(limiter.tryAcquire(RateLimiter.Scope.CREATE, "10.0.0.1", now)).isZero();
+		}
+
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.CREATE, "10.0.0.1", now)).isEqualTo(SECOND / 2);
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.CREATE, "10.0.0.1", now + SECOND / 2)).isZero();
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.CREATE, "10.0.0.1", now + SECOND / 2)).isPositive();
+	}
+
+	@Test
+	void refillsToTheBurstButNoFurther() {
+		for (int i = 0; i < 3; i++) {
+			limiter.tryAcquire(RateLimiter.Scope.CREATE, "10.0.0.1", 0);
+		}
+		long later = 60 * SECOND;
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(limiter.tryAcquire(RateLimiter.Scope.CREATE, "10.0.0.1", later)).isZero();
+		}
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.CREATE, "10.0.0.1", later)).isPositive();
+	}
+
+	@Test
+	void keepsSeparateBudgetsPerClientAndScope() {
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.REDIRECT, "10.0.0.1", 0)).isZero();
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.REDIRECT, "10.0.0.1", 0)).isEqualTo(SECOND / 10);
+
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.REDIRECT, "10.0.0.2", 0)).isZero();
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.CREATE, "10.0.0.1", 0)).isZero();
+	}
+
+	@Test
+	void chargesBatchesOneTokenPerItem() {
+		assertThat(limiter.acquire(RateLimiter.Scope.BATCH, "10.0.0.1", 6, 0)).isZero();
+		// 4 of the 10 items are left, refilling one every 10 ms
+		assertThat(limiter.acquire(RateLimiter.Scope.BATCH, "10.0.0.1", 5, 0)).isEqualTo(SECOND / 100);
+		assertThat(limiter.acquire(RateLimiter.Scope.BATCH, "10.0.0.1", 4, 0)).isZero();
+		assertThat(limiter.acquire(RateLimiter.Scope.BATCH, "10.0.0.1", 5, SECOND / 20)).isZero();
+
+		assertThatThrownBy(() -> limiter.acquire(RateLimiter.Scope.BATCH, "10.0.0.1", 11, SECOND))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void evictIdle_dropsOnlyBucketsThatHaveRefilled() {
+		long now = System.nanoTime();
+		limiter.tryAcquire(RateLimiter.Scope.CREATE, "idle", now - 60 * SECOND);
+		limiter.tryAcquire(RateLimiter.Scope.CREATE, "busy", now);
+
+		limiter.evictIdle();
+
+		assertThat(limiter.trackedClients(RateLimiter.Scope.CREATE)).isEqualTo(1);
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.CREATE, "busy", now)).isZero();
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.CREATE, "busy", now)).isZero();
+		assertThat(limiter.tryAcquire(RateLimiter.Scope.CREATE, "busy", now)).isPositive();
+	}
+
+	@Test
+	void allowsEverythingWhenDisabled() {
+		RateLimiter disabled = new RateLimiter(false, 1000, 2, 1, 10, 1, 1, 1);
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(disabled.tryAcquire(RateLimiter.Scope.CREATE, "10.0.0.1")).isZero();
+		}
+	}
+}
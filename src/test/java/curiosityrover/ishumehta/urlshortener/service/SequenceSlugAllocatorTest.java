@@ -0,0 +1,97 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class SequenceSlugAllocatorTest {
+
+	@Test
+	void leasesOneBlockPerBlockSizeSlugs() {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(SequenceSlugAllocator.SEQUENCE_NAME)))
+			.thenReturn(10L);
+		when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L, 10L, 20L);
+		SequenceSlugAllocator allocator = new SequenceSlugAllocator(jdbcTemplate, 10, 6, true, 42L);
+
+		Set<String> slugs = new HashSet<>(allocator.nextSlugs(25));
+
+		assertThat(slugs).hasSize(25).allSatisfy(slug -> assertThat(slug).hasSize(6));
+		verify(jdbcTemplate, times(3)).queryForObject(anyString(), eq(Long.class));
+	}
+
+	@Test
+	void leasesBlocksOfTheSequencesOwnIncrementWhenBlockSizeDiffers() {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(SequenceSlugAllocator.SEQUENCE_NAME)))
+			.thenReturn(5L);
+		when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L, 5L);
+		SequenceSlugAllocator allocator = new SequenceSlugAllocator(jdbcTemplate, 100, 6, false, 0L);
+
+		for (long expected = 0; expected < 10; expected++) {
+			assertThat(allocator.nextId()).isEqualTo(expected);
+		}
+		verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class));
+	}
+
+	@Test
+	void nodesWithDifferentBlockSizesNeverShareIds() {
+		String url = "jdbc:h2:mem:slug_sequence;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+		Flyway.configure().dataSource(url, "sa", "").placeholders(Map.of("slug_block_size", "4")).load().migrate();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+		SequenceSlugAllocator small = new SequenceSlugAllocator(jdbcTemplate, 4, 6, false, 0L);
+		SequenceSlugAllocator large = new SequenceSlugAllocator(jdbcTemplate, 50, 6, false, 0L);
+		Set<Long> ids = new HashSet<>();
+
+		for (int i = 0; i < 20; i++) {
+			ids.add(small.nextId());
+			ids.add(large.nextId());
+		}
+
+		assertThat(ids).hasSize(40);
+	}
+
+	@Test
+	void unscrambledSlugsAreZeroPaddedBase62() {
+		SequenceSlugAllocator allocator = new SequenceSlugAllocator(mock(JdbcTemplate.class), 10, 4, false, 0L);
+
+		assertThat(allocator.encode(0)).isEqualTo("0000");
+		assertThat(allocator.encode(61)).isEqualTo("000Z");
+		assertThat(allocator.encode(62)).isEqualTo("0010");
+	}
+
+	@Test
+	void refusesToScrambleWithoutAKey() {
+		assertThatThrownBy(() -> new SequenceSlugAllocator(mock(JdbcTemplate.class), 10, 6, true, 0L))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("app.shortener.sequence.scramble-key");
+	}
+
+	@Test
+	void scramblingIsABijectionOverTheSlugSpace() {
+		FeistelPermutation permutation = new FeistelPermutation(Base62.capacity(2), 7L);
+		Set<Long> seen = new HashSet<>();
+
+		for (long value = 0; value < permutation.domain(); value++) {
+			long permuted = permutation.permute(value);
+			assertThat(permuted).isBetween(0L, permutation.domain() - 1);
+			seen.add(permuted);
+		}
+
+		assertThat(seen).hasSize((int) permutation.domain());
+	}
+}
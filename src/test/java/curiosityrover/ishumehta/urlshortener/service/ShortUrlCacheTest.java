@@ -0,0 +1,206 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+
+class ShortUrlCacheTest {
+
+	private final ShortUrlCache cache = new ShortUrlCache(SharedSlugCache.none(), 100, Duration.ofMinutes(10),
+		Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofMillis(200));
+
+	@Test
+	void resolve_coalescesConcurrentMissesIntoOneLoad() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ResolvedShortUrl resolved = new ResolvedShortUrl(1L, "hot", "https://example.com", null);
+
+		List<Future<Optional<ResolvedShortUrl>>> results = new ArrayList<>();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < 50; i++) {
+				results.add(executor.submit(() -> cache.resolve("hot", slug -> {
+					loads.incrementAndGet();
+					try {
+						release.await();
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+					return Optional.of(resolved);
+				})));
+			}
+			Thread.sleep(50);
+			release.countDown();
+		}
+
+		assertThat(loads).hasValue(1);
+		for (Future<Optional<ResolvedShortUrl>> result : results) {
+			assertThat(result.get()).contains(resolved);
+		}
+	}
+
+	@Test
+	void resolve_doesNotCacheFailedLoads() {
+		assertThatThrownBy(() -> cache.resolve("flaky", slug -> {
+			throw new DataAccessResourceFailureException("down");
+		})).isInstanceOf(DataAccessResourceFailureException.class);
+
+		assertThat(cache.resolve("flaky", slug -> Optional.empty())).isEmpty();
+		assertThat(cache.stats().loadFailureCount()).isEqualTo(1);
+	}
+
+	@Test
+	void resolve_alwaysLoadsWhenSizeIsZero() {
+		ShortUrlCache disabled = new ShortUrlCache(SharedSlugCache.none(), 0, Duration.ofMinutes(10), Duration.ofSeconds(30),
+			Duration.ofHours(1), Duration.ofMillis(200));
+		AtomicInteger loads = new AtomicInteger();
+
+		disabled.resolve("hot", slug -> Optional.of(new ResolvedShortUrl((long) loads.incrementAndGet(), slug, "https://example.com", null)));
+		disabled.resolve("hot", slug -> Optional.of(new ResolvedShortUrl((long) loads.incrementAndGet(), slug, "https://example.com", null)));
+
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void stats_countHitsServedWithoutLoading() {
+		ResolvedShortUrl resolved = new ResolvedShortUrl(1L, "hot", "https://example.com", null);
+
+		for (int i = 0; i < 3; i++) {
+			cache.resolve("hot", slug -> Optional.of(resolved));
+		}
+
+		assertThat(cache.stats().missCount()).isEqualTo(1);
+		assertThat(cache.stats().hitCount()).isEqualTo(2);
+		assertThat(cache.stats().loadSuccessCount()).isEqualTo(1);
+	}
+
+	@Test
+	void sharedTier_servesOtherNodesWithoutLoading() {
+		SharedSlugCache shared = new InMemorySharedSlugCache();
+		ShortUrlCache first = node(shared);
+		ShortUrlCache second = node(shared);
+		ResolvedShortUrl resolved = new ResolvedShortUrl(7L, "hot", "https://example.com/a|b",
+			Instant.now().plusSeconds(3600), RedirectPolicy.PERMANENT);
+		AtomicInteger loads = new AtomicInteger();
+
+		first.resolve("hot", slug -> {
+			loads.incrementAndGet();
+			return Optional.of(resolved);
+		});
+		Optional<ResolvedShortUrl> fromShared = second.resolve("hot", slug -> {
+			loads.incrementAndGet();
+			return Optional.empty();
+		});
+
+		assertThat(loads).hasValue(1);
+		assertThat(fromShared).contains(resolved);
+		assertThat(second.sharedStats()[0]).isEqualTo(1);
+	}
+
+	@Test
+	void invalidate_dropsTheSlugOnEveryNode() {
+		SharedSlugCache shared = new InMemorySharedSlugCache();
+		ShortUrlCache first = node(shared);
+		ShortUrlCache second = node(shared);
+		AtomicInteger loads = new AtomicInteger();
+		Function<String, Optional<ResolvedShortUrl>> loader = slug -> Optional.of(
+			new ResolvedShortUrl((long) loads.incrementAndGet(), slug, "https://example.com", null));
+
+		first.resolve("hot", loader);
+		second.resolve("hot", loader);
+		first.invalidate("hot");
+
+		assertThat(second.resolve("hot", loader)).get().extracting(ResolvedShortUrl::id).isEqualTo(2L);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void put_replacesNegativeEntriesOnOtherNodes() {
+		SharedSlugCache shared = new InMemorySharedSlugCache();
+		ShortUrlCache first = node(shared);
+		ShortUrlCache second = node(shared);
+		ResolvedShortUrl created = new ResolvedShortUrl(1L, "new", "https://example.com", null);
+
+		assertThat(second.resolve("new", slug -> Optional.empty())).isEmpty();
+		first.put(created);
+
+		assertThat(second.resolve("new", slug -> Optional.empty())).contains(created);
+	}
+
+	@Test
+	void sharedTier_coalescesMissesAcrossNodes() throws Exception {
+		SharedSlugCache shared = new InMemorySharedSlugCache();
+		ShortUrlCache first = node(shared);
+		ShortUrlCache second = node(shared);
+		ResolvedShortUrl resolved = new ResolvedShortUrl(1L, "hot", "https://example.com", null);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<Optional<ResolvedShortUrl>> slow = executor.submit(() -> first.resolve("hot", slug -> {
+				loads.incrementAndGet();
+				loading.countDown();
+				sleep(50);
+				return Optional.of(resolved);
+			}));
+			loading.await();
+			Optional<ResolvedShortUrl> waited = second.resolve("hot", slug -> {
+				loads.incrementAndGet();
+				return Optional.of(resolved);
+			});
+
+			assertThat(slow.get()).contains(resolved);
+			assertThat(waited).contains(resolved);
+		}
+		assertThat(loads).hasValue(1);
+		assertThat(second.sharedStats()[2]).isEqualTo(1);
+	}
+
+	@Test
+	void sharedTier_dropsLoadsThatRacedWithAnInvalidation() {
+		SharedSlugCache shared = new InMemorySharedSlugCache();
+		ShortUrlCache first = node(shared);
+		ShortUrlCache second = node(shared);
+
+		first.resolve("hot", slug -> {
+			// the row changes while this node is still reading the old version
+			second.invalidate(slug);
+			return Optional.of(new ResolvedShortUrl(1L, slug, "https://example.com/old", null));
+		});
+
+		assertThat(second.resolve("hot", slug -> Optional.of(
+			new ResolvedShortUrl(1L, slug, "https://example.com/new", null))))
+			.get().extracting(ResolvedShortUrl::destinationUrl).isEqualTo("https://example.com/new");
+	}
+
+	private static ShortUrlCache node(SharedSlugCache shared) {
+		return new ShortUrlCache(shared, 100, Duration.ofMinutes(10), Duration.ofSeconds(30), Duration.ofHours(1),
+			Duration.ofMillis(500));
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
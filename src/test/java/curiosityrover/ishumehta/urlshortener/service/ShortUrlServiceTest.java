@@ -3,21 +3,31 @@ package curiosityrover.ishumehta.urlshortener.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import curiosityrover.ishumehta.urlshortener.exception.ShortUrlExpiredException;
+import curiosityrover.ishumehta.urlshortener.exception.ShortUrlNotFoundException;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
 import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
 import curiosityrover.ishumehta.urlshortener.repository.ShortUrlRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 class ShortUrlServiceTest {
 
@@ -25,15 +35,34 @@ class ShortUrlServiceTest {
 	private ShortUrlRepository repository;
 
 	@Mock
-	private SlugGenerator slugGenerator;
+	private SlugAllocator slugAllocator;
+
+	@Mock
+	private HitCountAggregator hitCountAggregator;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
-	@InjectMocks
 	private ShortUrlService service;
 
 	@BeforeEach
 	void setUp() {
 		MockitoAnnotations.openMocks(this);
-		when(slugGenerator.generateSlug(anyInt())).thenReturn("abc123");
+		service = service(new DestinationDeduplicator(repository, ShardRouter.single(), false, 0));
+		when(slugAllocator.nextSlug()).thenReturn("abc123");
+	}
+
+	private ShortUrlService service(DestinationDeduplicator deduplicator) {
+		return service(deduplicator, new SlugSnapshotStore(null, false, Path.of("snapshots"), Duration.ofDays(1)));
+	}
+
+	private ShortUrlService service(DestinationDeduplicator deduplicator, SlugSnapshotStore snapshotStore) {
+		ShortUrlCache cache = new ShortUrlCache(SharedSlugCache.none(), 100, Duration.ofMinutes(10),
+			Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofMillis(200));
+		return new ShortUrlService(repository, slugAllocator, cache, hitCountAggregator,
+			new ShortUrlMetrics(meterRegistry),
+			new SlugPresenceFilter(null, null, ShardRouter.single(), SharedSlugCache.none(), false, 1, 0.01),
+			ShardRouter.single(), deduplicator, snapshotStore, "http://localhost:8080",
+			false);
 	}
 
 	@SuppressWarnings("null")
@@ -49,6 +78,17 @@ class ShortUrlServiceTest {
 		assertThat(created.getExpiresAt()).isEqualTo(expiresAt);
 	}
 
+	@SuppressWarnings("null")
+	@Test
+	void createShortUrl_storesNonAsciiDestinationsPercentEncoded() {
+		when(repository.existsBySlug("abc123")).thenReturn(false);
+		when(repository.save(any(ShortUrl.class))).thenAnswer(invocation -> invocation.getArgument(0, ShortUrl.class));
+
+		ShortUrl created = service.createShortUrl("https://example.com/café?q=✓", null, null);
+
+		assertThat(created.getDestinationUrl()).isEqualTo("https://example.com/caf%C3%A9?q=%E2%9C%93");
+	}
+
 	@Test
 	void registerHit_throwsWhenExpired() {
 		ShortUrl expired = ShortUrl.builder()
@@ -57,12 +97,151 @@ class ShortUrlServiceTest {
 			.expiresAt(Instant.now().minusSeconds(60))
 			.build();
 
-		when(repository.findBySlug("expired")).thenReturn(Optional.of(expired));
+		when(repository.findResolvedBySlug("expired")).thenReturn(Optional.of(ResolvedShortUrl.from(expired)));
 
 		assertThatThrownBy(() -> service.registerHit("expired"))
 			.isInstanceOf(ShortUrlExpiredException.class)
 			.hasMessageContaining("expired");
 	}
-}
 
+	@Test
+	void registerHit_servesRepeatedRedirectsFromCache() {
+		ShortUrl shortUrl = ShortUrl.builder()
+			.slug("hot")
+			.destinationUrl("https://example.com")
+			.build();
+
+		when(repository.findResolvedBySlug("hot")).thenReturn(Optional.of(ResolvedShortUrl.from(shortUrl)));
+
+		ResolvedShortUrl first = service.registerHit("hot");
+		ResolvedShortUrl second = service.registerHit("hot");
+
+		assertThat(first.destinationUrl()).isEqualTo("https://example.com");
+		assertThat(second).isEqualTo(first);
+		verify(repository, times(1)).findResolvedBySlug("hot");
+		verify(hitCountAggregator, times(2)).record("hot");
+	}
+
+	@Test
+	void registerHit_cachesUnknownSlugs() {
+		when(repository.findResolvedBySlug("missing")).thenReturn(Optional.empty());
+
+		assertThatThrownBy(() -> service.registerHit("missing")).isInstanceOf(ShortUrlNotFoundException.class);
+		assertThatThrownBy(() -> service.registerHit("missing")).isInstanceOf(ShortUrlNotFoundException.class);
+
+		verify(repository, times(1)).findResolvedBySlug("missing");
+	}
+
+	@SuppressWarnings("null")
+	@Test
+	void createShortUrl_replacesNegativeCacheEntry() {
+		when(repository.findResolvedBySlug("fresh")).thenReturn(Optional.empty());
+		assertThatThrownBy(() -> service.resolve("fresh")).isInstanceOf(ShortUrlNotFoundException.class);
+
+		when(repository.existsBySlug("fresh")).thenReturn(false);
+		when(repository.save(any(ShortUrl.class))).thenAnswer(invocation -> invocation.getArgument(0, ShortUrl.class));
+		service.createShortUrl("https://example.com/fresh", "fresh", null);
+
+		assertThat(service.resolve("fresh").destinationUrl()).isEqualTo("https://example.com/fresh");
+	}
 
+	@SuppressWarnings("null")
+	@Test
+	void createShortUrl_usesAllocatedSlugWithoutLookup() {
+		when(repository.save(any(ShortUrl.class))).thenAnswer(invocation -> invocation.getArgument(0, ShortUrl.class));
+
+		ShortUrl created = service.createShortUrl("https://example.com", null, null);
+
+		assertThat(created.getSlug()).isEqualTo("abc123");
+		verify(repository, never()).existsBySlug(any());
+	}
+
+	@Test
+	void createShortUrl_rejectsSlugShadowedByExportEndpoint() {
+		assertThatThrownBy(() -> service.createShortUrl("https://example.com", "export", null))
+			.isInstanceOf(IllegalArgumentException.class);
+		verify(repository, never()).save(any(ShortUrl.class));
+	}
+
+	@SuppressWarnings("null")
+	@Test
+	void createShortUrl_reusesLinkForSameDestinationWhenDeduplicating() {
+		ShortUrlService dedupService = service(new DestinationDeduplicator(repository, ShardRouter.single(), true, 100));
+		when(repository.save(any(ShortUrl.class))).thenAnswer(invocation -> invocation.getArgument(0, ShortUrl.class));
+
+		ShortUrl first = dedupService.createShortUrl("https://example.com/a", null, null);
+		when(repository.findBySlug("abc123")).thenReturn(Optional.of(first));
+		ShortUrl second = dedupService.createShortUrl("https://example.com/a", null, null);
+
+		assertThat(first.getDedupKey()).hasSize(64);
+		assertThat(second).isSameAs(first);
+		verify(repository, times(1)).save(any(ShortUrl.class));
+		assertThat(meterRegistry.get("shortener.create").tag("outcome", "deduplicated").timer().count()).isEqualTo(1);
+
+		// a different expiry or a custom slug asks for a new link
+		when(slugAllocator.nextSlug()).thenReturn("def456");
+		dedupService.createShortUrl("https://example.com/a", null, Instant.now().plus(Duration.ofDays(1)));
+		dedupService.createShortUrl("https://example.com/a", "mine", null);
+		verify(repository, times(3)).save(any(ShortUrl.class));
+	}
+
+	@SuppressWarnings("null")
+	@Test
+	void createShortUrl_returnsWinnerOfConcurrentDeduplicatedCreate() {
+		ShortUrlService dedupService = service(new DestinationDeduplicator(repository, ShardRouter.single(), true, 100));
+		ShortUrl winner = ShortUrl.builder().slug("won123").destinationUrl("https://example.com/a").build();
+		when(repository.save(any(ShortUrl.class))).thenThrow(new DataIntegrityViolationException("duplicate key"));
+		when(repository.findByDedupKeyOnPrimary(any())).thenReturn(Optional.of(winner));
+
+		assertThat(dedupService.createShortUrl("https://example.com/a", null, null)).isSameAs(winner);
+		verify(repository, times(1)).save(any(ShortUrl.class));
+		verify(slugAllocator, times(1)).nextSlug();
+	}
+
+	@SuppressWarnings("null")
+	@Test
+	void createShortUrl_retriesWhenAllocatedSlugClashes() {
+		when(slugAllocator.nextSlug()).thenReturn("taken1", "free22");
+		when(repository.save(any(ShortUrl.class)))
+			.thenThrow(new DataIntegrityViolationException("duplicate"))
+			.thenAnswer(invocation -> invocation.getArgument(0, ShortUrl.class));
+
+		ShortUrl created = service.createShortUrl("https://example.com", null, null);
+
+		assertThat(created.getSlug()).isEqualTo("free22");
+		assertThat(meterRegistry.get("shortener.slug.retries").counter().count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void registerHit_timesEachOutcome() {
+		ShortUrl live = ShortUrl.builder().slug("live").destinationUrl("https://example.com").build();
+		when(repository.findResolvedBySlug("live")).thenReturn(Optional.of(ResolvedShortUrl.from(live)));
+		when(repository.findResolvedBySlug("missing")).thenReturn(Optional.empty());
+
+		service.registerHit("live");
+		service.registerHit("live");
+		assertThatThrownBy(() -> service.registerHit("missing")).isInstanceOf(ShortUrlNotFoundException.class);
+
+		assertThat(meterRegistry.get("shortener.redirect").tag("outcome", "hit").timer().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("shortener.redirect").tag("outcome", "not_found").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("shortener.redirect").tag("outcome", "expired").timer().count()).isZero();
+		assertThat(meterRegistry.get("shortener.db").tag("operation", "resolve").timer().count()).isEqualTo(2);
+	}
+
+	@Test
+	void registerHit_fallsBackToSnapshotWhileDatabaseIsDown(@TempDir Path directory) throws IOException {
+		try (SlugSnapshot.Writer writer = new SlugSnapshot.Writer(directory.resolve("slugs-1000.snap"),
+			Instant.ofEpochMilli(1000))) {
+			writer.add(new ResolvedShortUrl(7L, "saved1", "https://example.com/saved", null));
+			writer.finish();
+		}
+		ShortUrlService snapshotService = service(new DestinationDeduplicator(repository, ShardRouter.single(), false, 0),
+			new SlugSnapshotStore(null, true, directory, Duration.ofDays(1)));
+		when(repository.findResolvedBySlug(any())).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+		assertThat(snapshotService.registerHit("saved1").destinationUrl()).isEqualTo("https://example.com/saved");
+		// not being in the snapshot does not mean the link does not exist
+		assertThatThrownBy(() -> snapshotService.registerHit("newer1"))
+			.isInstanceOf(DataAccessResourceFailureException.class);
+	}
+}
@@ -0,0 +1,73 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlSyntax.UrlCheck;
+
+class ShortUrlSyntaxTest {
+
+	private static final List<String> PREFIXES = List.of("http://", "https://", "HTTPS://", "ftp://", "https:",
+		"https:///", "https://u:p@", "https://1.2.", "https://a.b", "https://[::1]");
+	private static final String ALPHABET = "aZ09-._~!$&'()*+,;=:@/?#[]%%%fF é\u0007|^{}\"<>\\`";
+
+	@Test
+	void checkHttpUrl_acceptsExactlyWhatJavaNetUriAccepts() {
+		Random random = new Random(42);
+		for (int i = 0; i < 200_000; i++) {
+			StringBuilder url = new StringBuilder(PREFIXES.get(random.nextInt(PREFIXES.size())));
+			int length = random.nextInt(16);
+			for (int j = 0; j < length; j++) {
+				url.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+			String candidate = url.toString();
+			assertThat(ShortUrlSyntax.checkHttpUrl(candidate) == UrlCheck.VALID)
+				.as(candidate)
+				.isEqualTo(acceptedByUri(candidate));
+		}
+	}
+
+	@Test
+	void checkHttpUrl_reportsWhyAUrlWasRejected() {
+		assertThat(ShortUrlSyntax.checkHttpUrl("https://docs.spring.io/a;b?q=[1]#top")).isEqualTo(UrlCheck.VALID);
+		assertThat(ShortUrlSyntax.checkHttpUrl("ftp://example.com")).isEqualTo(UrlCheck.UNSUPPORTED_SCHEME);
+		assertThat(ShortUrlSyntax.checkHttpUrl("example.com")).isEqualTo(UrlCheck.UNSUPPORTED_SCHEME);
+		assertThat(ShortUrlSyntax.checkHttpUrl("https://my_host.com")).isEqualTo(UrlCheck.MISSING_HOST);
+		assertThat(ShortUrlSyntax.checkHttpUrl("https://example.com/a b")).isEqualTo(UrlCheck.MALFORMED);
+		assertThat(ShortUrlSyntax.checkHttpUrl("https://example.com/%zz")).isEqualTo(UrlCheck.MALFORMED);
+	}
+
+	@Test
+	void toAscii_percentEncodesOnlyNonAsciiCharacters() {
+		String ascii = "https://example.com/a%20b?q=1#top";
+		assertThat(ShortUrlSyntax.toAscii(ascii)).isSameAs(ascii);
+		assertThat(ShortUrlSyntax.toAscii("https://example.com/straße#ü"))
+			.isEqualTo("https://example.com/stra%C3%9Fe#%C3%BC");
+	}
+
+	@Test
+	void isSlug_allowsOnlyLettersDigitsDashAndUnderscore() {
+		assertThat(ShortUrlSyntax.isSlug("Spring_Boot-3")).isTrue();
+		assertThat(ShortUrlSyntax.isSlug("")).isFalse();
+		assertThat(ShortUrlSyntax.isSlug("a/b")).isFalse();
+		assertThat(ShortUrlSyntax.isSlug("café")).isFalse();
+	}
+
+	private static boolean acceptedByUri(String url) {
+		try {
+			URI uri = new URI(url);
+			String scheme = uri.getScheme();
+			return scheme != null && (scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))
+				&& uri.getHost() != null && !uri.getHost().isBlank();
+		}
+		catch (URISyntaxException ex) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SlugGeneratorTest {
+
+	@Test
+	void stripeCountIsRoundedUpToAPowerOfTwo() {
+		assertThat(new SlugGenerator(1).stripeCount()).isEqualTo(1);
+		assertThat(new SlugGenerator(5).stripeCount()).isEqualTo(8);
+		assertThat(new SlugGenerator(8).stripeCount()).isEqualTo(8);
+	}
+
+	@Test
+	void generateSlugs_returnsTheRequestedNumberOfBase62Slugs() {
+		List<String> slugs = new SlugGenerator(2).generateSlugs(1000, 8);
+
+		assertThat(slugs).hasSize(1000).allSatisfy(slug -> assertThat(slug).hasSize(8).matches("[0-9A-Za-z]+"));
+		assertThat(new HashSet<>(slugs)).hasSize(1000);
+		assertThat(new SlugGenerator(2).generateSlugs(0, 8)).isEmpty();
+		assertThatThrownBy(() -> new SlugGenerator(2).generateSlug(0)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void everyCharacterIsEquallyLikely() {
+		// long slugs exercise refills of the random buffer after rejections
+		String chars = String.join("", new SlugGenerator(2).generateSlugs(200, 3100));
+		String alphabet = new String(Base62.ALPHABET);
+		int[] counts = new int[alphabet.length()];
+		for (int i = 0; i < chars.length(); i++) {
+			counts[alphabet.indexOf(chars.charAt(i))]++;
+		}
+
+		// Chi-squared with 61 degrees of freedom exceeds 125 with a probability of about 1e-6. Reducing six bits
+		// modulo 62 instead of rejecting would make two characters twice as likely and score in the thousands.
+		double expected = chars.length() / (double) counts.length;
+		double chiSquared = 0;
+		for (int count : counts) {
+			chiSquared += (count - expected) * (count - expected) / expected;
+		}
+		assertThat(chiSquared).isLessThan(125);
+	}
+}
@@ -0,0 +1,152 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import curiosityrover.ishumehta.urlshortener.exception.ShortUrlNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:slug_presence_filter_test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+	"app.shortener.rate-limit.enabled=false",
+	"app.shortener.slug-filter.enabled=true",
+	"app.shortener.slug-filter.minimum-capacity=1000"
+})
+@ActiveProfiles("test")
+class SlugPresenceFilterTest {
+
+	@Autowired
+	private SlugPresenceFilter slugPresenceFilter;
+
+	@Autowired
+	private ShortUrlService shortUrlService;
+
+	@Autowired
+	private ShortUrlCache shortUrlCache;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void clearTable() {
+		jdbcTemplate.update("DELETE FROM short_urls");
+		shortUrlCache.invalidateAll();
+	}
+
+	@Test
+	void rebuild_loadsEverySlugInTheTable() {
+		List<String> slugs = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			slugs.add("row" + i);
+			insertRow("row" + i);
+		}
+
+		rebuildNow(slugPresenceFilter);
+
+		assertThat(slugs).allSatisfy(slug -> assertThat(slugPresenceFilter.mightContain(slug)).isTrue());
+		assertThat(slugPresenceFilter.mightContain("never-created")).isFalse();
+		assertThat(slugPresenceFilter.stats()).containsEntry("ready", true);
+	}
+
+	@Test
+	void put_duringARebuildReachesBothTheLiveAndTheNewFilter() {
+		List<Boolean> liveSawRacedSlug = new ArrayList<>();
+		SlugPresenceFilter[] filter = new SlugPresenceFilter[1];
+		Runnable[] onStreamStart = { () -> { } };
+		filter[0] = new SlugPresenceFilter(dataSource, hookedBeforeTransaction(() -> onStreamStart[0].run()),
+			ShardRouter.single(), SharedSlugCache.none(), true, 1000, 0.01);
+		insertRow("before-1");
+		assertThat(filter[0].rebuild()).isTrue();
+
+		insertRow("before-2");
+		// A slug whose insert commits after the rebuild's query has started, so the query does not see it
+		onStreamStart[0] = () -> {
+			filter[0].put("raced");
+			liveSawRacedSlug.add(filter[0].mightContain("raced"));
+		};
+		assertThat(filter[0].rebuild()).isTrue();
+
+		assertThat(liveSawRacedSlug).containsExactly(true);
+		assertThat(filter[0].mightContain("raced")).isTrue();
+		assertThat(filter[0].mightContain("before-1")).isTrue();
+		assertThat(filter[0].mightContain("before-2")).isTrue();
+	}
+
+	@Test
+	void resolve_answersASlugTheFilterRejectsWithoutADatabaseQuery() {
+		shortUrlService.createShortUrl("https://example.com/known", "known-slug", null);
+		rebuildNow(slugPresenceFilter);
+		shortUrlCache.invalidateAll();
+		double queriesBefore = resolveQueries();
+
+		assertThatThrownBy(() -> shortUrlService.resolve("missing-slug"))
+			.isInstanceOf(ShortUrlNotFoundException.class);
+		assertThat(resolveQueries()).isEqualTo(queriesBefore);
+
+		assertThat(shortUrlService.resolve("known-slug").destinationUrl()).isEqualTo("https://example.com/known");
+		assertThat(resolveQueries()).isEqualTo(queriesBefore + 1);
+	}
+
+	private void insertRow(String slug) {
+		jdbcTemplate.update("INSERT INTO short_urls (slug, destination_url, created_at, hit_count) "
+			+ "VALUES (?, 'https://example.com/', CURRENT_TIMESTAMP, 0)", slug);
+	}
+
+	private double resolveQueries() {
+		return meterRegistry.get("shortener.db").tag("operation", "resolve").timer().count();
+	}
+
+	/**
+	 * Rebuilds, waiting out the scheduled rebuild if it still holds the lock at startup.
+	 */
+	private static void rebuildNow(SlugPresenceFilter filter) {
+		while (!filter.rebuild()) {
+			Thread.onSpinWait();
+		}
+	}
+
+	private PlatformTransactionManager hookedBeforeTransaction(Runnable hook) {
+		return new PlatformTransactionManager() {
+
+			@Override
+			public TransactionStatus getTransaction(TransactionDefinition definition) {
+				hook.run();
+				return transactionManager.getTransaction(definition);
+			}
+
+			@Override
+			public void commit(TransactionStatus status) {
+				transactionManager.commit(status);
+			}
+
+			@Override
+			public void rollback(TransactionStatus status) {
+				transactionManager.rollback(status);
+			}
+		};
+	}
+}
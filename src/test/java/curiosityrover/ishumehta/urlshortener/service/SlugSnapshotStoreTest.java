@@ -0,0 +1,77 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import curiosityrover.ishumehta.urlshortener.model.ShortUrl;
+import curiosityrover.ishumehta.urlshortener.model.ShortUrlFilter;
+
+class SlugSnapshotStoreTest {
+
+	@TempDir
+	private Path directory;
+
+	private final ShortUrlListingService listingService = mock(ShortUrlListingService.class);
+	private final List<ShortUrl> rows = new ArrayList<>();
+
+	@Test
+	void layersDeltasOfNewLinksOnTheFullSnapshotAndReloadsThem() throws IOException {
+		List<ShortUrlFilter> filters = new ArrayList<>();
+		doAnswer(invocation -> {
+			ShortUrlFilter filter = invocation.getArgument(0);
+			filters.add(filter);
+			ShortUrlListingService.RowSink sink = invocation.getArgument(1);
+			for (ShortUrl row : rows) {
+				sink.accept(row);
+			}
+			return (long) rows.size();
+		}).when(listingService).export(any(), any());
+		SlugSnapshotStore store = new SlugSnapshotStore(listingService, true, directory, Duration.ofDays(1));
+
+		rows.add(link(1L, "first"));
+		SlugSnapshot base = store.export(false);
+		rows.clear();
+		rows.add(link(2L, "second"));
+		store.export(false);
+		rows.clear();
+		rows.add(link(3L, "third"));
+		SlugSnapshot delta = store.export(false);
+
+		assertThat(filters.get(0).createdFrom()).isNull();
+		assertThat(filters.get(0).expired()).isFalse();
+		assertThat(filters.get(2).createdFrom()).isBefore(base.asOf());
+		// each delta replaces the previous one
+		assertThat(store.layers()).containsExactly(base, delta);
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files).hasSize(2);
+		}
+		assertThat(store.find("first")).isPresent();
+		assertThat(store.find("third")).isPresent();
+		assertThat(store.find("second")).isEmpty();
+
+		SlugSnapshotStore restarted = new SlugSnapshotStore(listingService, true, directory, Duration.ofDays(1));
+		assertThat(restarted.layers()).extracting(SlugSnapshot::path).containsExactly(base.path(), delta.path());
+		assertThat(restarted.find("third")).hasValueSatisfying(link -> assertThat(link.id()).isEqualTo(3L));
+
+		SlugSnapshot full = store.export(true);
+		assertThat(store.layers()).containsExactly(full);
+		assertThat(store.find("first")).isEmpty();
+	}
+
+	private static ShortUrl link(long id, String slug) {
+		return ShortUrl.builder().id(id).slug(slug).destinationUrl("https://example.com/" + slug).build();
+	}
+}
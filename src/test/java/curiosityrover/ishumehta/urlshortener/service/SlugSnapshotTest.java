@@ -0,0 +1,78 @@
+package curiosityrover.ishumehta.urlshortener.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+
+class SlugSnapshotTest {
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void findsEveryLinkWrittenAndNothingElse() throws IOException {
+		// enough slugs that some share a 32-bit hash
+		int count = 200_000;
+		Path file = directory.resolve("slugs-1.snap");
+		try (SlugSnapshot.Writer writer = new SlugSnapshot.Writer(file, Instant.ofEpochMilli(1))) {
+			for (int i = 0; i < count; i++) {
+				writer.add(new ResolvedShortUrl((long) i, "s" + Integer.toString(i, 36), "https://example.com/" + i, null));
+			}
+			writer.finish();
+		}
+
+		SlugSnapshot snapshot = SlugSnapshot.open(file);
+
+		assertThat(snapshot.size()).isEqualTo(count);
+		assertThat(snapshot.asOf()).isEqualTo(Instant.ofEpochMilli(1));
+		for (int i = 0; i < count; i++) {
+			assertThat(snapshot.find("s" + Integer.toString(i, 36)))
+				.hasValueSatisfying(link -> assertThat(link.destinationUrl()).endsWith("/" + link.id()));
+		}
+		assertThat(snapshot.find("t0")).isEmpty();
+		assertThat(snapshot.find("")).isEmpty();
+		assertThat(Files.exists(directory.resolve("slugs-1.snap.tmp"))).isFalse();
+	}
+
+	@Test
+	void keepsExpiryPolicyAndNonAsciiDestinations() throws IOException {
+		Instant expiresAt = Instant.parse("2030-01-02T03:04:05.123456Z");
+		ResolvedShortUrl permanent = new ResolvedShortUrl(1L, "perm", "https://example.com/café?q=✓", expiresAt,
+			RedirectPolicy.PERMANENT);
+		ResolvedShortUrl plain = new ResolvedShortUrl(2L, "plain", "https://example.com", null, null);
+		Path file = directory.resolve("slugs-2.snap");
+		try (SlugSnapshot.Writer writer = new SlugSnapshot.Writer(file, Instant.now())) {
+			writer.add(permanent);
+			writer.add(plain);
+			writer.finish();
+		}
+
+		SlugSnapshot snapshot = SlugSnapshot.open(file);
+
+		assertThat(snapshot.find("perm")).contains(permanent);
+		assertThat(snapshot.find("plain")).contains(plain);
+	}
+
+	@Test
+	void rejectsUnfinishedAndForeignFiles() throws IOException {
+		Path file = directory.resolve("slugs-3.snap");
+		try (SlugSnapshot.Writer writer = new SlugSnapshot.Writer(file, Instant.now())) {
+			writer.add(new ResolvedShortUrl(1L, "abc", "https://example.com", null));
+		}
+		assertThat(file).doesNotExist();
+		assertThat(directory.resolve("slugs-3.snap.tmp")).doesNotExist();
+
+		Files.write(file, new byte[64]);
+		assertThatThrownBy(() -> SlugSnapshot.open(file)).isInstanceOf(IOException.class);
+	}
+}
@@ -0,0 +1,78 @@
+package curiosityrover.ishumehta.urlshortener.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Bulk endpoints against a batch budget of three items, with clients told apart by API key.
+ */
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:batch_rate_limit_test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+	"app.shortener.rate-limit.enabled=true",
+	"app.shortener.rate-limit.api-key-header=X-API-Key",
+	"app.shortener.rate-limit.batch.rate=0.001",
+	"app.shortener.rate-limit.batch.burst=3",
+	"app.shortener.batch.max-items=3",
+	"app.shortener.batch.stream-chunk-size=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BatchRateLimitTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void jsonBatchesAreChargedPerItem() throws Exception {
+		mockMvc.perform(post("/api/urls/batch").header("X-API-Key", "json")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"destinationUrl\":\"https://example.com/1\"},{\"destinationUrl\":\"https://example.com/2\"}]"))
+			.andExpect(status().isOk());
+
+		mockMvc.perform(post("/api/urls/batch").header("X-API-Key", "json")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"destinationUrl\":\"https://example.com/3\"},{\"destinationUrl\":\"https://example.com/4\"}]"))
+			.andExpect(status().isTooManyRequests())
+			.andExpect(header().exists("Retry-After"));
+	}
+
+	@Test
+	void ndjsonImportsAnswerTheLinesPastTheBudgetRateLimited() throws Exception {
+		String body = """
+			{"destinationUrl":"https://example.com/a"}
+			{"destinationUrl":"https://example.com/b"}
+			{"destinationUrl":"https://example.com/c"}
+			{"destinationUrl":"https://example.com/d"}
+			{"destinationUrl":"https://example.com/e"}
+			""";
+
+		String response = mockMvc.perform(post("/api/urls/batch").header("X-API-Key", "ndjson")
+				.contentType(ShortUrlController.NDJSON_VALUE)
+				.content(body))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString();
+
+		String[] lines = response.split("\n");
+		assertThat(lines).hasSize(5);
+		assertThat(lines[0]).contains("\"status\":\"CREATED\"");
+		assertThat(lines[1]).contains("\"status\":\"CREATED\"");
+		for (int i = 2; i < 5; i++) {
+			assertThat(lines[i]).contains("\"index\":" + i, "\"status\":\"RATE_LIMITED\"");
+		}
+
+		mockMvc.perform(post("/api/urls/batch").header("X-API-Key", "ndjson")
+				.contentType(ShortUrlController.NDJSON_VALUE)
+				.content(body))
+			.andExpect(status().isTooManyRequests());
+	}
+}
@@ -0,0 +1,66 @@
+package curiosityrover.ishumehta.urlshortener.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+
+class RedirectCachingTest {
+
+	private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+	private final RedirectCaching caching = new RedirectCaching(RedirectPolicy.TRACKED, Duration.ofHours(1));
+
+	@Test
+	void permanentLinksWithoutExpiryGetTheFullMaxAge() {
+		assertThat(caching.cacheControl(permanent(null), NOW)).isEqualTo("public, max-age=3600");
+		assertThat(caching.cacheControl(permanent(NOW.plus(Duration.ofDays(2))), NOW))
+			.isEqualTo("public, max-age=3600");
+	}
+
+	@Test
+	void maxAgeIsClampedToTheTimeLeftUntilExpiry() {
+		assertThat(caching.cacheControl(permanent(NOW.plusSeconds(90)), NOW)).isEqualTo("public, max-age=90");
+		assertThat(caching.cacheControl(permanent(NOW.plusMillis(1500)), NOW)).isEqualTo("public, max-age=1");
+	}
+
+	@Test
+	void linksAtOrPastTheirExpiryAreNotStored() {
+		assertThat(caching.cacheControl(permanent(NOW.plusMillis(999)), NOW)).isEqualTo(RedirectCaching.NO_STORE);
+		assertThat(caching.cacheControl(permanent(NOW), NOW)).isEqualTo(RedirectCaching.NO_STORE);
+		assertThat(caching.cacheControl(permanent(NOW.minusSeconds(10)), NOW)).isEqualTo(RedirectCaching.NO_STORE);
+	}
+
+	@Test
+	void linksWithoutAPolicyFollowTheConfiguredDefault() {
+		ResolvedShortUrl unset = new ResolvedShortUrl(1L, "abc123", "https://example.com", null);
+
+		assertThat(caching.status(unset)).isEqualTo(HttpStatus.TEMPORARY_REDIRECT);
+		assertThat(caching.cacheControl(unset, NOW)).isEqualTo(RedirectCaching.NO_STORE);
+
+		RedirectCaching permanentByDefault = new RedirectCaching(RedirectPolicy.PERMANENT, Duration.ofHours(1));
+		assertThat(permanentByDefault.status(unset)).isEqualTo(HttpStatus.PERMANENT_REDIRECT);
+		assertThat(permanentByDefault.cacheControl(unset, NOW)).isEqualTo("public, max-age=3600");
+		ResolvedShortUrl tracked = new ResolvedShortUrl(1L, "abc123", "https://example.com", null,
+			RedirectPolicy.TRACKED);
+		assertThat(permanentByDefault.cacheControl(tracked, NOW)).isEqualTo(RedirectCaching.NO_STORE);
+	}
+
+	@Test
+	void aZeroMaxAgeDisablesCachingOfPermanentRedirects() {
+		RedirectCaching uncached = new RedirectCaching(RedirectPolicy.PERMANENT, Duration.ZERO);
+
+		assertThat(uncached.status(permanent(null))).isEqualTo(HttpStatus.PERMANENT_REDIRECT);
+		assertThat(uncached.cacheControl(permanent(null), NOW)).isEqualTo(RedirectCaching.NO_STORE);
+	}
+
+	private static ResolvedShortUrl permanent(Instant expiresAt) {
+		return new ResolvedShortUrl(1L, "abc123", "https://example.com", expiresAt, RedirectPolicy.PERMANENT);
+	}
+}
@@ -0,0 +1,119 @@
+package curiosityrover.ishumehta.urlshortener.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import curiosityrover.ishumehta.urlshortener.exception.ShortUrlNotFoundException;
+import curiosityrover.ishumehta.urlshortener.model.RedirectPolicy;
+import curiosityrover.ishumehta.urlshortener.model.ResolvedShortUrl;
+import curiosityrover.ishumehta.urlshortener.service.ClickAnalyticsService;
+import curiosityrover.ishumehta.urlshortener.service.RateLimiter;
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlService;
+
+class RedirectFastPathFilterTest {
+
+	private final ShortUrlService shortUrlService = mock(ShortUrlService.class);
+	private final RedirectFastPathFilter filter = filter(new RateLimiter(false, 1000, 1, 1, 1, 1, 1, 1));
+
+	@Test
+	void redirectsSlugWithoutReachingTheChain() throws Exception {
+		when(shortUrlService.registerHit("abc123"))
+			.thenReturn(new ResolvedShortUrl(1L, "abc123", "https://example.com/x", null));
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(new MockHttpServletRequest("GET", "/abc123"), response, chain);
+
+		assertThat(response.getStatus()).isEqualTo(307);
+		assertThat(response.getHeader(HttpHeaders.LOCATION)).isEqualTo("https://example.com/x");
+		assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-store");
+		assertThat(chain.getRequest()).isNull();
+	}
+
+	@Test
+	void permanentRedirectIsCacheableUntilTheLinkExpires() throws Exception {
+		Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+		when(shortUrlService.registerHit("perm12"))
+			.thenReturn(new ResolvedShortUrl(2L, "perm12", "https://example.com/p", expiresAt, RedirectPolicy.PERMANENT));
+		when(shortUrlService.registerHit("forever"))
+			.thenReturn(new ResolvedShortUrl(3L, "forever", "https://example.com/f", null, RedirectPolicy.PERMANENT));
+		MockHttpServletResponse expiring = new MockHttpServletResponse();
+		MockHttpServletResponse unbounded = new MockHttpServletResponse();
+
+		filter.doFilter(new MockHttpServletRequest("GET", "/perm12"), expiring, new MockFilterChain());
+		filter.doFilter(new MockHttpServletRequest("GET", "/forever"), unbounded, new MockFilterChain());
+
+		assertThat(expiring.getStatus()).isEqualTo(308);
+		assertThat(expiring.getHeader(HttpHeaders.CACHE_CONTROL)).matches("public, max-age=35\\d\\d");
+		assertThat(unbounded.getStatus()).isEqualTo(308);
+		assertThat(unbounded.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("public, max-age=86400");
+	}
+
+	@Test
+	void writesProblemDetailForUnknownSlug() throws Exception {
+		when(shortUrlService.registerHit("missing")).thenThrow(new ShortUrlNotFoundException("missing"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(new MockHttpServletRequest("GET", "/missing"), response, new MockFilterChain());
+
+		assertThat(response.getStatus()).isEqualTo(404);
+		assertThat(response.getContentType()).isEqualTo("application/problem+json");
+		assertThat(response.getContentAsString()).contains("\"instance\":\"/missing\"");
+	}
+
+	@Test
+	void answersTooManyRequestsOnceTheRedirectBudgetIsUsedUp() throws Exception {
+		RedirectFastPathFilter limited = filter(new RateLimiter(true, 1000, 1, 1, 1, 2, 1, 1));
+		when(shortUrlService.registerHit("abc123"))
+			.thenReturn(new ResolvedShortUrl(1L, "abc123", "https://example.com/x", null));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		for (int i = 0; i < 2; i++) {
+			limited.doFilter(new MockHttpServletRequest("GET", "/abc123"), new MockHttpServletResponse(),
+				new MockFilterChain());
+		}
+		limited.doFilter(new MockHttpServletRequest("GET", "/abc123"), response, new MockFilterChain());
+
+		assertThat(response.getStatus()).isEqualTo(429);
+		assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(response.getContentType()).isEqualTo("application/problem+json");
+		verify(shortUrlService, times(2)).registerHit("abc123");
+	}
+
+	@Test
+	void leavesOtherRequestsToMvc() throws Exception {
+		for (MockHttpServletRequest request : new MockHttpServletRequest[] {
+			new MockHttpServletRequest("POST", "/abc123"),
+			new MockHttpServletRequest("GET", "/actuator"),
+			new MockHttpServletRequest("GET", "/api/urls"),
+			new MockHttpServletRequest("GET", "/"),
+			new MockHttpServletRequest("GET", "/abc.123") }) {
+			MockFilterChain chain = new MockFilterChain();
+			filter.doFilter(request, new MockHttpServletResponse(), chain);
+			assertThat(chain.getRequest()).as(request.getMethod() + " " + request.getRequestURI()).isSameAs(request);
+		}
+		verifyNoInteractions(shortUrlService);
+	}
+
+	private RedirectFastPathFilter filter(RateLimiter rateLimiter) {
+		return new RedirectFastPathFilter(shortUrlService, mock(ClickAnalyticsService.class),
+			new RedirectCaching(RedirectPolicy.TRACKED, Duration.ofDays(1)), new RateLimitInterceptor(rateLimiter, ""),
+			new RestExceptionHandler(), new ObjectMapper(), Set.of("actuator", "error"));
+	}
+}
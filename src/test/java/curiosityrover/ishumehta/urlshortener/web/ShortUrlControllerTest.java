@@ -0,0 +1,59 @@
+package curiosityrover.ishumehta.urlshortener.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import curiosityrover.ishumehta.urlshortener.service.ShortUrlService;
+
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:short_url_controller_test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+	"app.shortener.rate-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ShortUrlControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ShortUrlService shortUrlService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void get_answersAMatchingIfNoneMatchWithNotModifiedUntilTheLinkChanges() throws Exception {
+		shortUrlService.createShortUrl("https://example.com/etag", "etag-link", null);
+
+		String eTag = mockMvc.perform(get("/api/urls/etag-link"))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(eTag).isNotBlank();
+
+		mockMvc.perform(get("/api/urls/etag-link").header(HttpHeaders.IF_NONE_MATCH, eTag))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string(HttpHeaders.ETAG, eTag))
+			.andExpect(content().string(""));
+
+		jdbcTemplate.update("UPDATE short_urls SET hit_count = hit_count + 1 WHERE slug = 'etag-link'");
+
+		mockMvc.perform(get("/api/urls/etag-link").header(HttpHeaders.IF_NONE_MATCH, eTag))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+	}
+}